@@ -0,0 +1,83 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.http.client.methods.HttpGet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Authorizationヘッダの付与にかかる時間を、リクエストごとに署名を計算する方式と比較するベンチマーク
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*AuthorizationBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class AuthorizationBenchmark {
+    /** APIキー */
+    private static final String API_KEY = "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba";
+
+    /** シークレットキー */
+    private static final String SECRET_KEY = "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372";
+
+    /** クライアント */
+    private DsmoqClient client;
+
+    @Setup
+    public void setup() {
+        this.client = DsmoqClient.create("http://localhost:8080", API_KEY, SECRET_KEY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.close();
+    }
+
+    /**
+     * 以前の実装と同様に、リクエストごとにMacを生成して署名を計算する。
+     */
+    @Benchmark
+    public HttpGet perRequestSignature() throws Exception {
+        HttpGet request = new HttpGet("http://localhost:8080/api/datasets");
+        SecretKeySpec sk = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA1");
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(sk);
+        byte[] result = mac.doFinal((API_KEY + "&" + SECRET_KEY).getBytes(StandardCharsets.UTF_8));
+        String signature = URLEncoder.encode(Base64.getEncoder().encodeToString(result), "UTF-8");
+        request.addHeader("Authorization", String.format("api_key=%s, signature=%s", API_KEY, signature));
+        return request;
+    }
+
+    /**
+     * スレッドごとのMacで署名を計算する。(リクエストごとに署名する方式を追加した場合の参考値)
+     */
+    @Benchmark
+    public String threadLocalMacSignature() {
+        return DsmoqClient.getSignature(API_KEY, SECRET_KEY);
+    }
+
+    /**
+     * クライアントにキャッシュされたAuthorizationヘッダを付与する。
+     */
+    @Benchmark
+    public HttpGet cachedAuthorization() {
+        HttpGet request = new HttpGet("http://localhost:8080/api/datasets");
+        this.client.addAuthorizationHeader(request);
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpTransportFactory;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+
+/**
+ * 多数の小さなメタデータ取得を、HTTP/1.1のトランスポートのコネクションプールから並列に送信した場合の時間を計測するベンチマーク
+ *
+ * DsmoqStubServerはHTTP/1.1のみに対応し、HTTP/2の通信を計測できないため、HTTP_2のトランスポートは計測しません。
+ *
+ * sbt "bench/jmh:run -i 5 -wi 2 -f 1 .*HttpTransportBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HttpTransportBenchmark {
+    /** APIキー */
+    private static final String API_KEY = "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba";
+
+    /** シークレットキー */
+    private static final String SECRET_KEY = "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372";
+
+    /** リクエストごとの遅延 (ms) */
+    private static final long LATENCY = 2;
+
+    /** 1回の計測で送信するリクエスト数 */
+    private static final int REQUESTS = 256;
+
+    /** 同時に送信するリクエスト数 */
+    private static final int CONCURRENCY = 64;
+
+    /** スタブサーバ */
+    private DsmoqStubServer server;
+
+    /** クライアント */
+    private DsmoqClient client;
+
+    /** 取得するデータセットのID */
+    private String datasetId;
+
+    /** リクエストを送信するスレッドプール */
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions().latency(LATENCY));
+        this.client = DsmoqClient.builder(this.server.getBaseUrl(), API_KEY, SECRET_KEY)
+                .transport(HttpTransportFactory.HTTP_1_1).maxConnectionsPerRoute(CONCURRENCY).build();
+        this.datasetId = this.server.createDataset("transport", true, false);
+        this.executor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdownNow();
+        this.client.close();
+        this.server.close();
+    }
+
+    /**
+     * データセットの取得を並列に送信し、全ての完了を待つ。
+     */
+    @Benchmark
+    public int parallelGetDataset() throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(this.executor.submit(() -> this.client.getDataset(this.datasetId).getFiles().size()));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        return total;
+    }
+}
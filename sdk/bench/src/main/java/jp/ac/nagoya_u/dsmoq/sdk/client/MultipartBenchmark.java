@@ -0,0 +1,96 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * addFilesが送信するmultipart/form-dataのボディの作成、書き出しにかかる時間を計測するベンチマーク
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*MultipartBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MultipartBenchmark {
+    /** ファイル1件のサイズ */
+    private static final int FILE_SIZE = 16 * 1024;
+
+    /** 送信するファイル数 */
+    @Param({ "1", "10", "100" })
+    public int files;
+
+    /** ファイルを置く一時ディレクトリ */
+    private File dir;
+
+    /** 送信するファイル */
+    private File[] targets;
+
+    @Setup
+    public void setup() throws IOException {
+        this.dir = Files.createTempDirectory("dsmoq-bench").toFile();
+        this.targets = new File[this.files];
+        byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < this.files; i++) {
+            this.targets[i] = new File(this.dir, "observation_" + i + ".csv");
+            Files.write(this.targets[i].toPath(), content);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File target : this.targets) {
+            target.delete();
+        }
+        this.dir.delete();
+    }
+
+    /**
+     * ボディを作成する。
+     */
+    @Benchmark
+    public HttpEntity build() {
+        return DsmoqClient.toAddFilesEntity(this.targets);
+    }
+
+    /**
+     * ボディを作成し、送信時と同様に書き出す。
+     */
+    @Benchmark
+    public long buildAndWrite() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        DsmoqClient.toAddFilesEntity(this.targets).writeTo(out);
+        return out.count;
+    }
+
+    /**
+     * 書き出されたバイト数のみを数える出力先
+     */
+    private static class CountingOutputStream extends OutputStream {
+        /** 書き出されたバイト数 */
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
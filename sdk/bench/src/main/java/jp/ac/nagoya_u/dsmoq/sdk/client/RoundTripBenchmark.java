@@ -0,0 +1,173 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.QueryContainCondition;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.BenchmarkPayloads;
+
+/**
+ * 同一プロセス内のHTTPスタブに対し、リクエストの作成からレスポンスの変換までにかかる時間を計測するベンチマーク
+ *
+ * スタブは固定のレスポンスを返すのみのため、ネットワークとサーバの処理時間を除いたSDKのオーバーヘッドの目安となります。
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*RoundTripBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoundTripBenchmark {
+    /** APIキー */
+    private static final String API_KEY = "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba";
+
+    /** シークレットキー */
+    private static final String SECRET_KEY = "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372";
+
+    /** レスポンスに含まれる件数 */
+    private static final int SIZE = 20;
+
+    /** ダウンロードするファイルのサイズ */
+    private static final int FILE_SIZE = 64 * 1024;
+
+    /** DatasetID */
+    private static final String DATASET_ID = BenchmarkPayloads.id(0);
+
+    /** ファイルID */
+    private static final String FILE_ID = BenchmarkPayloads.id(1);
+
+    /** HTTPスタブ */
+    private HttpServer server;
+
+    /** HTTPスタブのスレッドプール */
+    private ExecutorService executor;
+
+    /** Datasetの検索条件 */
+    private GetDatasetsConditionParam condition;
+
+    /** クライアント */
+    private DsmoqClient client;
+
+    /** 非同期クライアント */
+    private AsyncDsmoqClient asyncClient;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] dataset = BenchmarkPayloads.dataset(SIZE).getBytes(StandardCharsets.UTF_8);
+        byte[] datasets = BenchmarkPayloads.datasets(SIZE).getBytes(StandardCharsets.UTF_8);
+        byte[] file = new byte[FILE_SIZE];
+        // 小さなレスポンスでNagleアルゴリズムと遅延ACKによる待ちが計測に含まれないようにする
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.executor = Executors.newFixedThreadPool(4);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/api/datasets", exchange -> {
+            boolean list = exchange.getRequestURI().getPath().equals("/api/datasets");
+            respond(exchange, "application/json; charset=utf-8", list ? datasets : dataset);
+        });
+        this.server.createContext("/files/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename*=UTF-8''observation.csv");
+            respond(exchange, "application/octet-stream", file);
+        });
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        this.condition = new GetDatasetsConditionParam();
+        this.condition.add(new QueryContainCondition("観測データ"));
+        DsmoqClientBuilder builder = DsmoqClient
+                .builder("http://127.0.0.1:" + this.server.getAddress().getPort(), API_KEY, SECRET_KEY);
+        this.client = builder.build();
+        this.asyncClient = builder.buildAsync();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.close();
+        this.asyncClient.close();
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Datasetを取得する。
+     */
+    @Benchmark
+    public Dataset getDataset() {
+        return this.client.getDataset(DATASET_ID);
+    }
+
+    /**
+     * Datasetを検索する。
+     */
+    @Benchmark
+    public RangeSlice<DatasetsSummary> getDatasets() {
+        return this.client.getDatasets(this.condition);
+    }
+
+    /**
+     * 非同期クライアントでDatasetを取得する。
+     */
+    @Benchmark
+    public Dataset getDatasetAsync() throws Exception {
+        return this.asyncClient.getDataset(DATASET_ID).get();
+    }
+
+    /**
+     * ファイルをダウンロードし、読み捨てる。
+     */
+    @Benchmark
+    public long downloadFile() {
+        return this.client.downloadFile(DATASET_ID, FILE_ID, content -> {
+            long count = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = content.getContent()) {
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    count += n;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 固定のレスポンスを返す。
+     *
+     * @param exchange リクエスト
+     * @param contentType Content-Type
+     * @param body レスポンスボディ
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read() >= 0) {
+                // リクエストボディを読み捨てる
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
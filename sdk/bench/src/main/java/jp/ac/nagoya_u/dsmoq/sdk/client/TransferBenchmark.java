@@ -0,0 +1,149 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+
+/**
+ * 遅延と転送速度を制限したDsmoqStubServerに対し、並列ダウンロード、アップロード、ページングにかかる時間を計測するベンチマーク
+ *
+ * 1接続あたりの転送速度を制限しているため、並列度を上げた場合の短縮がそのまま計測結果に表れます。
+ *
+ * sbt "bench/jmh:run -i 5 -wi 2 -f 1 .*TransferBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransferBenchmark {
+    /** APIキー */
+    private static final String API_KEY = "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba";
+
+    /** シークレットキー */
+    private static final String SECRET_KEY = "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372";
+
+    /** リクエストごとの遅延 (ms) */
+    private static final long LATENCY = 5;
+
+    /** 1接続あたりの転送速度 (byte/s) */
+    private static final long BANDWIDTH = 16L * 1024 * 1024;
+
+    /** ダウンロードするファイルのサイズ */
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+
+    /** アップロードするファイル1件のサイズ */
+    private static final int UPLOAD_FILE_SIZE = 256 * 1024;
+
+    /** アップロードするファイル数 */
+    private static final int UPLOAD_FILES = 8;
+
+    /** ページングで取得するデータセット数 */
+    private static final int DATASETS = 500;
+
+    /** ダウンロードの並列数 */
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    /** スタブサーバ */
+    private DsmoqStubServer server;
+
+    /** クライアント */
+    private DsmoqClient client;
+
+    /** ダウンロードするファイルのデータセットID */
+    private String datasetId;
+
+    /** ダウンロードするファイルのID */
+    private String fileId;
+
+    /** アップロード先のデータセットID */
+    private String uploadDatasetId;
+
+    /** 一時ディレクトリ */
+    private Path dir;
+
+    /** アップロードするファイル */
+    private File[] uploads;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions().latency(LATENCY).bandwidth(BANDWIDTH));
+        this.client = DsmoqClient.create(this.server.getBaseUrl(), API_KEY, SECRET_KEY);
+        this.datasetId = this.server.createDataset("transfer", true, false);
+        this.fileId = this.server.addFile(this.datasetId, "observation.bin", new byte[FILE_SIZE]);
+        for (int i = 0; i < DATASETS; i++) {
+            this.server.createDataset("dataset_" + i, true, false);
+        }
+        this.dir = Files.createTempDirectory("dsmoq-bench");
+        this.uploads = new File[UPLOAD_FILES];
+        for (int i = 0; i < UPLOAD_FILES; i++) {
+            this.uploads[i] = this.dir.resolve("upload_" + i + ".csv").toFile();
+            Files.write(this.uploads[i].toPath(), new byte[UPLOAD_FILE_SIZE]);
+        }
+    }
+
+    /**
+     * アップロードしたファイルがメモリ上に溜まらないよう、計測ごとにアップロード先を作り直す。
+     */
+    @Setup(Level.Iteration)
+    public void resetUploadDataset() {
+        if (this.uploadDatasetId != null) {
+            this.client.deleteDataset(this.uploadDatasetId);
+        }
+        this.uploadDatasetId = this.server.createDataset("upload", true, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.client.close();
+        this.server.close();
+        for (File upload : this.uploads) {
+            upload.delete();
+        }
+        Files.deleteIfExists(this.dir.resolve("download.bin"));
+        Files.deleteIfExists(this.dir);
+    }
+
+    /**
+     * ファイルを分割してダウンロードする。
+     */
+    @Benchmark
+    public DownloadResult downloadToPath() {
+        return this.client.downloadToPath(this.datasetId, this.fileId, this.dir.resolve("download.bin"),
+                new DownloadOptions().parallelism(this.parallelism).minChunkSize(FILE_SIZE / 8));
+    }
+
+    /**
+     * 複数のファイルをアップロードする。
+     */
+    @Benchmark
+    public int addFiles() {
+        return this.client.addFiles(this.uploadDatasetId, this.uploads).getFiles().size();
+    }
+
+    /**
+     * データセット一覧を先読みしながらページングして全件取得する。
+     */
+    @Benchmark
+    public long streamDatasets() {
+        return this.client.streamDatasets(new GetDatasetsConditionParam(),
+                new PageOptions().pageSize(50).prefetch(this.parallelism)).count();
+    }
+}
@@ -0,0 +1,99 @@
+package jp.ac.nagoya_u.dsmoq.sdk.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Dataset検索条件のJSON文字列の作成にかかる時間を、条件の数ごとに計測するベンチマーク
+ *
+ * 4つの条件をANDでつないだグループを、ORでつないだ検索条件を用います。
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*ConditionParamBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConditionParamBenchmark {
+    /** ANDでつなぐ条件の数 */
+    private static final int AND_SIZE = 4;
+
+    /** 検索条件の数 */
+    @Param({ "4", "16", "64" })
+    public int conditions;
+
+    /** 作成済みの検索条件 */
+    private GetDatasetsConditionParam param;
+
+    @Setup
+    public void setup() {
+        this.param = build(this.conditions);
+    }
+
+    /**
+     * 作成済みの検索条件をJSON文字列にする。
+     */
+    @Benchmark
+    public String toJsonString() {
+        return this.param.toJsonString();
+    }
+
+    /**
+     * 検索条件を作成し、JSON文字列にする。
+     */
+    @Benchmark
+    public String buildAndToJsonString() {
+        return build(this.conditions).toJsonString();
+    }
+
+    /**
+     * 検索条件を作成する。
+     *
+     * @param count 条件の数
+     * @return 検索条件
+     */
+    private static GetDatasetsConditionParam build(int count) {
+        GetDatasetsConditionParam param = new GetDatasetsConditionParam();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && i % AND_SIZE == 0) {
+                param.or();
+            }
+            param.add(condition(i));
+        }
+        return param;
+    }
+
+    /**
+     * 種類の異なる検索条件を作成する。
+     *
+     * @param i 何番目の条件か
+     * @return 検索条件
+     */
+    private static SearchCondition condition(int i) {
+        switch (i % 8) {
+        case 0:
+            return new QueryContainCondition("観測データ" + i);
+        case 1:
+            return new OwnerEqualCondition("dummy" + i);
+        case 2:
+            return new AttributeCondition("分野", "気象" + i);
+        case 3:
+            return new TotalSizeLessThanEqualCondition(i + 0.5, SizeUnit.MB$.MODULE$);
+        case 4:
+            return new TagCondition("tag" + i);
+        case 5:
+            return new NumberOfFilesGreaterThanEqualCondition(i);
+        case 6:
+            return new QueryNotContainCondition("除外" + i);
+        default:
+            return new AccessLevelPublicCondition();
+        }
+    }
+}
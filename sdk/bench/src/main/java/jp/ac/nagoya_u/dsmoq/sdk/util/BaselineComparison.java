@@ -0,0 +1,112 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JMHの計測結果(-rf json)を基準値と比較し、悪化したベンチマークを報告する。
+ *
+ * ベンチマーク名とパラメータが一致する結果同士を比較し、スコアの変化率を出力します。
+ * 許容する変化率を超えて悪化し、かつ誤差(99.9%信頼区間)の範囲が重ならないものを悪化として報告します。
+ * 悪化したベンチマークがある場合、終了コード1で終了します。
+ *
+ * sbt "bench/runMain jp.ac.nagoya_u.dsmoq.sdk.util.BaselineComparison bench/baseline/jmh-result.json
+ * target/jmh-result.json 0.10" で実行する。
+ */
+public final class BaselineComparison {
+    /** 許容する変化率のデフォルト値 */
+    private static final double DEFAULT_TOLERANCE = 0.10;
+
+    private BaselineComparison() {
+    }
+
+    /**
+     * 計測結果を基準値と比較する。
+     *
+     * @param args 基準値のファイル、計測結果のファイル、許容する変化率(省略時0.10)
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineComparison <baseline.json> <result.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.println(String.format("NEW        %-90s %12.3f %s", entry.getKey(), score, unit));
+                continue;
+            }
+            double base = before.path("primaryMetric").path("score").asDouble();
+            double change = base == 0 ? 0 : (score - base) / base;
+            // スループットは値が小さいほど、それ以外(処理時間)は値が大きいほど悪化している
+            double worse = "thrpt".equals(after.path("mode").asText()) ? -change : change;
+            boolean significant = Math.abs(score - base) > error(before) + error(after);
+            String status = "OK";
+            if (significant && worse > tolerance) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (significant && worse < -tolerance) {
+                status = "IMPROVED";
+            }
+            System.out.println(String.format("%-10s %-90s %12.3f -> %12.3f %s (%+.1f%%)", status, entry.getKey(),
+                    base, score, unit, change * 100));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format("MISSING    %s", key));
+            }
+        }
+        System.out.println(String.format("%d regression(s) beyond %.0f%%", regressions, tolerance * 100));
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 計測結果の誤差を取得する。
+     *
+     * @param result 計測結果
+     * @return 誤差、計測回数が少なく算出されていない場合0
+     */
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    /**
+     * JMHの計測結果を読み込む。
+     *
+     * @param file 計測結果のファイル
+     * @return ベンチマーク名とパラメータをキーとする計測結果
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,133 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+/**
+ * ベンチマークで用いる、APIのレスポンスと同じ形式のJSONを作成する。
+ *
+ * 件数を指定して、実際のレスポンスと同程度の項目を持つJSONを作成します。
+ */
+public final class BenchmarkPayloads {
+    /** ユーザのJSON */
+    private static final String USER = "{\"id\":\"3b1c2a90-7d1c-4e8a-9e1e-0c7f3a6a1b11\",\"name\":\"dummy\","
+            + "\"fullname\":\"Dummy User\",\"organization\":\"名古屋大学\",\"title\":\"研究員\","
+            + "\"image\":\"http://localhost:8080/images/8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\","
+            + "\"mailAddress\":\"dummy@example.com\",\"description\":\"ベンチマーク用のユーザ\","
+            + "\"isGuest\":false,\"isDisabled\":false}";
+
+    /** データセットの権限情報のJSON */
+    private static final String OWNERSHIP = "{\"id\":\"3b1c2a90-7d1c-4e8a-9e1e-0c7f3a6a1b11\",\"name\":\"dummy\","
+            + "\"fullname\":\"Dummy User\",\"organization\":\"名古屋大学\",\"title\":\"研究員\",\"description\":\"\","
+            + "\"image\":\"http://localhost:8080/images/8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\",\"accessLevel\":3,"
+            + "\"ownerType\":1}";
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Dataset検索結果(RangeSlice&lt;DatasetsSummary&gt;)のJSONを作成する。
+     *
+     * @param count 検索結果の件数
+     * @return JSON文字列
+     */
+    public static String datasets(int count) {
+        StringBuilder builder = new StringBuilder("{\"status\":\"OK\",\"data\":{\"summary\":{\"total\":")
+                .append(count * 5).append(",\"count\":").append(count).append(",\"offset\":0},\"results\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":\"").append(id(i)).append("\",\"name\":\"データセット").append(i)
+                    .append("\",\"description\":\"観測データ(").append(i).append(")の説明\",")
+                    .append("\"image\":\"http://localhost:8080/images/8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\",")
+                    .append("\"license\":\"1050f556-7fee-4032-81e7-326e5f1b82fb\",\"attributes\":[")
+                    .append("{\"name\":\"分野\",\"value\":\"気象\"},{\"name\":\"観測地点\",\"value\":\"名古屋\"},")
+                    .append("{\"name\":\"$tag\",\"value\":\"\"}],\"ownerships\":[").append(OWNERSHIP)
+                    .append("],\"files\":").append(i % 7 + 1).append(",\"dataSize\":").append(1048576L * (i + 1))
+                    .append(",\"defaultAccessLevel\":0,\"permission\":3,\"localState\":1,\"s3State\":0}");
+        }
+        return builder.append("]}}").toString();
+    }
+
+    /**
+     * ファイルを含むDatasetのJSONを作成する。
+     *
+     * @param fileCount Datasetに含まれるファイル数
+     * @return JSON文字列
+     */
+    public static String dataset(int fileCount) {
+        StringBuilder builder = new StringBuilder("{\"status\":\"OK\",\"data\":{\"id\":\"").append(id(0))
+                .append("\",\"filesSize\":").append(1048576L * fileCount).append(",\"filesCount\":")
+                .append(fileCount).append(",\"files\":[");
+        for (int i = 0; i < fileCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            boolean zip = i % 10 == 9;
+            builder.append("{\"id\":\"").append(id(i + 1)).append("\",\"name\":\"observation_").append(i)
+                    .append(zip ? ".zip" : ".csv").append("\",\"description\":\"\",")
+                    .append("\"url\":\"http://localhost:8080/files/").append(id(0)).append('/').append(id(i + 1))
+                    .append("\",\"size\":1048576,\"createdBy\":").append(USER)
+                    .append(",\"createdAt\":\"2015-01-20T12:34:56+09:00\",\"updatedBy\":").append(USER)
+                    .append(",\"updatedAt\":\"2015-01-21T12:34:56+09:00\",\"isZip\":").append(zip)
+                    .append(",\"zipedFiles\":[");
+            if (zip) {
+                for (int j = 0; j < 3; j++) {
+                    if (j > 0) {
+                        builder.append(',');
+                    }
+                    appendZippedFile(builder, j);
+                }
+            }
+            builder.append("],\"zipCount\":").append(zip ? 3 : 0).append('}');
+        }
+        return builder.append("],\"meta\":{\"name\":\"観測データ\",\"description\":\"ベンチマーク用のデータセット\",")
+                .append("\"license\":\"1050f556-7fee-4032-81e7-326e5f1b82fb\",\"attributes\":[")
+                .append("{\"name\":\"分野\",\"value\":\"気象\"},{\"name\":\"観測地点\",\"value\":\"名古屋\"}]},")
+                .append("\"images\":[{\"id\":\"8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\",")
+                .append("\"url\":\"http://localhost:8080/images/8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\"}],")
+                .append("\"primaryImage\":\"8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\",")
+                .append("\"featuredImage\":\"8a981f9b-9e9f-4a34-a1b5-0b5f8e2b7c21\",\"ownerships\":[")
+                .append(OWNERSHIP).append("],\"defaultAccessLevel\":0,\"permission\":3,\"accessCount\":12,")
+                .append("\"localState\":1,\"s3State\":0,\"fileLimit\":100}}").toString();
+    }
+
+    /**
+     * ZIPファイル内のファイル一覧(RangeSlice&lt;DatasetZipedFile&gt;)のJSONを作成する。
+     *
+     * @param count ファイル数
+     * @return JSON文字列
+     */
+    public static String zippedFiles(int count) {
+        StringBuilder builder = new StringBuilder("{\"status\":\"OK\",\"data\":{\"summary\":{\"total\":")
+                .append(count).append(",\"count\":").append(count).append(",\"offset\":0},\"results\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendZippedFile(builder, i);
+        }
+        return builder.append("]}}").toString();
+    }
+
+    /**
+     * ZIPファイル内のファイルのJSONを追加する。
+     *
+     * @param builder 追加先
+     * @param index 何番目のファイルか
+     */
+    private static void appendZippedFile(StringBuilder builder, int index) {
+        builder.append("{\"id\":\"").append(id(index + 10000)).append("\",\"name\":\"data/2015/01/sensor_")
+                .append(index).append(".csv\",\"size\":").append(4096 + index)
+                .append(",\"url\":\"http://localhost:8080/files/").append(id(0)).append('/').append(id(index + 10000))
+                .append("\"}");
+    }
+
+    /**
+     * 連番からUUID形式のIDを作成する。
+     *
+     * @param index 連番
+     * @return ID
+     */
+    public static String id(int index) {
+        return String.format("%08x-7d1c-4e8a-9e1e-0c7f3a6a1b11", index);
+    }
+}
@@ -0,0 +1,89 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Group;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+
+/**
+ * レスポンスの変換にかかる時間を、json4sのリフレクションによる変換と比較するベンチマーク
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*JsonUtilBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonUtilBenchmark {
+    /** Dataset検索結果の件数 */
+    private static final int DATASETS_COUNT = 20;
+
+    /** Dataset検索結果のJSON */
+    private String datasets;
+
+    /** グループのJSON */
+    private String group;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("{\"status\":\"OK\",\"data\":{\"summary\":{\"total\":100,\"count\":")
+                .append(DATASETS_COUNT).append(",\"offset\":0},\"results\":[");
+        for (int i = 0; i < DATASETS_COUNT; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":\"dataset").append(i).append("\",\"name\":\"データセット").append(i)
+                    .append("\",\"description\":\"description\",\"image\":\"http://localhost:8080/images/1\",")
+                    .append("\"license\":\"license\",\"attributes\":[{\"name\":\"key\",\"value\":\"value\"}],")
+                    .append("\"ownerships\":[{\"id\":\"user\",\"name\":\"dummy\",\"fullname\":\"Dummy User\",")
+                    .append("\"organization\":\"org\",\"title\":\"title\",\"description\":\"\",")
+                    .append("\"image\":\"http://localhost:8080/images/2\",\"accessLevel\":3,\"ownerType\":1}],")
+                    .append("\"files\":3,\"dataSize\":1048576,\"defaultAccessLevel\":0,\"permission\":3,")
+                    .append("\"localState\":1,\"s3State\":0}");
+        }
+        this.datasets = builder.append("]}}").toString();
+        this.group = "{\"status\":\"OK\",\"data\":{\"id\":\"group\",\"name\":\"グループ\",\"description\":\"\","
+                + "\"images\":[{\"id\":\"image\",\"url\":\"http://localhost:8080/images/1\"}],"
+                + "\"primaryImage\":\"image\",\"isMember\":true,\"role\":2}}";
+    }
+
+    /**
+     * 以前の実装と同様に、json4sのリフレクションでDataset検索結果を変換する。
+     */
+    @Benchmark
+    public RangeSlice<DatasetsSummary> datasetsJson4s() {
+        return Json4sDecoder.toDatasets(this.datasets);
+    }
+
+    /**
+     * 型ごとの変換でDataset検索結果を変換する。
+     */
+    @Benchmark
+    public RangeSlice<DatasetsSummary> datasetsCodec() {
+        return JsonUtil.toDatasets(this.datasets);
+    }
+
+    /**
+     * 以前の実装と同様に、json4sのリフレクションでグループを変換する。
+     */
+    @Benchmark
+    public Group groupJson4s() {
+        return Json4sDecoder.toGroup(this.group);
+    }
+
+    /**
+     * 型ごとの変換でグループを変換する。
+     */
+    @Benchmark
+    public Group groupCodec() {
+        return JsonUtil.toGroup(this.group);
+    }
+}
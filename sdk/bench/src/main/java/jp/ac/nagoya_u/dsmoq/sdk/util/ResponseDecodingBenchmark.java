@@ -0,0 +1,99 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetZipedFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSliceSummary;
+
+/**
+ * 主要なレスポンスの変換にかかる時間を、件数ごとに計測するベンチマーク
+ *
+ * sbt "bench/jmh:run -i 5 -wi 5 -f 1 .*ResponseDecodingBenchmark.*" で実行する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseDecodingBenchmark {
+    /** レスポンスに含まれる件数 */
+    @Param({ "1", "20", "200" })
+    public int size;
+
+    /** Dataset検索結果のJSON */
+    private String datasets;
+
+    /** Dataset検索結果のJSON (UTF-8) */
+    private byte[] datasetsBytes;
+
+    /** sizeのファイルを含むDatasetのJSON */
+    private String dataset;
+
+    /** sizeのファイルを含むZIPファイル内のファイル一覧のJSON */
+    private String zippedFiles;
+
+    /** sizeのファイルを含むZIPファイル内のファイル一覧のJSON (UTF-8) */
+    private byte[] zippedFilesBytes;
+
+    @Setup
+    public void setup() {
+        this.datasets = BenchmarkPayloads.datasets(this.size);
+        this.datasetsBytes = this.datasets.getBytes(StandardCharsets.UTF_8);
+        this.dataset = BenchmarkPayloads.dataset(this.size);
+        this.zippedFiles = BenchmarkPayloads.zippedFiles(this.size);
+        this.zippedFilesBytes = this.zippedFiles.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Dataset検索結果を変換する。
+     */
+    @Benchmark
+    public RangeSlice<DatasetsSummary> datasets() {
+        return JsonUtil.toDatasets(this.datasets);
+    }
+
+    /**
+     * Dataset検索結果を、1件ずつ逐次変換する。
+     */
+    @Benchmark
+    public RangeSliceSummary datasetsStreaming(Blackhole blackhole) {
+        return JsonUtil.toDatasets(new ByteArrayInputStream(this.datasetsBytes), blackhole::consume);
+    }
+
+    /**
+     * Datasetを変換する。
+     */
+    @Benchmark
+    public Dataset dataset() {
+        return JsonUtil.toDataset(this.dataset);
+    }
+
+    /**
+     * ZIPファイル内のファイル一覧を変換する。
+     */
+    @Benchmark
+    public RangeSlice<DatasetZipedFile> zippedFiles() {
+        return JsonUtil.toDatasetZippedFiles(this.zippedFiles);
+    }
+
+    /**
+     * ZIPファイル内のファイル一覧を、1件ずつ逐次変換する。
+     */
+    @Benchmark
+    public RangeSliceSummary zippedFilesStreaming(Blackhole blackhole) {
+        return JsonUtil.toDatasetZippedFiles(new ByteArrayInputStream(this.zippedFilesBytes), blackhole::consume);
+    }
+}
@@ -0,0 +1,19 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util
+
+import jp.ac.nagoya_u.dsmoq.sdk.response._
+import org.json4s.jackson.JsonMethods
+import org.json4s.{ DefaultFormats, Formats }
+
+/**
+ * 比較用に、以前のJsonUtilと同様にjson4sのリフレクションでレスポンスを変換する。
+ */
+object Json4sDecoder {
+  private implicit val jsonFormats: Formats = DefaultFormats
+  def toDatasets(obj: String): RangeSlice[DatasetsSummary] = {
+    toObject[Response[RangeSlice[DatasetsSummary]]](obj).getData
+  }
+  def toGroup(obj: String): Group = {
+    toObject[Response[Group]](obj).getData
+  }
+  private def toObject[A](obj: String)(implicit m: Manifest[A]): A = JsonMethods.parse(obj).extract[A]
+}
@@ -3,6 +3,7 @@ import com.typesafe.sbt.SbtScalariform
 import com.typesafe.sbt.SbtScalariform.ScalariformKeys
 import de.johoop.findbugs4sbt.FindBugs._
 import org.scalastyle.sbt.ScalastylePlugin._
+import pl.project13.scala.sbt.JmhPlugin
 import sbt.Keys._
 import sbt._
 import scalariform.formatter.preferences._
@@ -60,12 +61,15 @@ object DsmoqSdkBuild extends Build {
         "com.typesafe.scala-logging" % "scala-logging_2.11" % "3.1.0" % "compile",
         "joda-time" % "joda-time" % "2.7",
         "junit" % "junit" % "4.12",
+        "org.apache.httpcomponents" % "httpasyncclient" % "4.0.2",
         "org.apache.httpcomponents" % "httpclient" % "4.3.6",
         "org.apache.httpcomponents" % "httpmime" % "4.3.6",
         "org.joda" % "joda-convert" % "1.7",
-        "org.json4s" %% "json4s-jackson" % "3.2.10"
+        "org.json4s" %% "json4s-jackson" % "3.2.10",
+        "org.reactivestreams" % "reactive-streams" % "1.0.3"
       ),
-      parallelExecution in Test := false
+      parallelExecution in Test := false,
+      publishArtifact in (Test, packageBin) := true
     )
     .settings(scalastyleSettings)
     .settings(scalariformSettings)
@@ -75,4 +79,17 @@ object DsmoqSdkBuild extends Build {
       checkstyleConfigLocation := CheckstyleConfigLocation.File("project/checkstyle_checks.xml")
     )
     .settings(javadocSettings)
+
+  lazy val bench = (project in file("bench"))
+    .settings(Defaults.coreDefaultSettings)
+    .settings(
+      organization := Organization,
+      name := "dsmoq-sdk-bench",
+      version := Version,
+      scalaVersion := ScalaVersion,
+      javacOptions ++= Seq("-encoding", "UTF-8"),
+      publishArtifact := false
+    )
+    .enablePlugins(JmhPlugin)
+    .dependsOn(sdk % "compile->compile;test->test")
 }
@@ -6,16 +6,52 @@ import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
 import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNullAll;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import jp.ac.nagoya_u.dsmoq.sdk.http.AsyncResponseConsumer;
+import jp.ac.nagoya_u.dsmoq.sdk.http.AutoCloseHttpAsyncClient;
+import jp.ac.nagoya_u.dsmoq.sdk.http.BufferedResponseConsumer;
+import jp.ac.nagoya_u.dsmoq.sdk.http.FileResponseConsumer;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpClientConfig;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpExchangeMetrics;
+import jp.ac.nagoya_u.dsmoq.sdk.http.MultipartAsyncEntity;
+import jp.ac.nagoya_u.dsmoq.sdk.http.StreamingResponseConsumer;
 import jp.ac.nagoya_u.dsmoq.sdk.request.AddMemberParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.ChangePasswordParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.ChangeStorageParam;
@@ -25,6 +61,7 @@ import jp.ac.nagoya_u.dsmoq.sdk.request.GetGroupsParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.GetMembersParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.SetAccessLevelParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.SetFeaturedImageToDatasetParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.SetGuestAccessLevelParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.SetMemberRoleParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.SetPrimaryImageParam;
@@ -40,6 +77,7 @@ import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddImages;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDeleteImage;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContent;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContentHandler;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetGetImage;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetOwnership;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetOwnerships;
@@ -58,19 +96,43 @@ import jp.ac.nagoya_u.dsmoq.sdk.response.StatisticsDetail;
 import jp.ac.nagoya_u.dsmoq.sdk.response.TaskStatus;
 import jp.ac.nagoya_u.dsmoq.sdk.response.User;
 import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.JsonUtil;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResponseFunction;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgressListener;
 
 /**
  * 非同期にdsmoq APIを叩くためのクライアントクラス
  *
  * 個々のWeb APIの仕様については、APIのドキュメントを参照してください。
+ *
+ * リクエストは非ブロッキングなHTTPクライアントで送受信され、レスポンス待ちの間スレッドを占有しません。
+ * クライアントはコネクションプールを保持するため、利用後は必ずcloseメソッドを呼び出してください。
+ *
+ * 各メソッドが返すCompletableFutureを取り消す(あるいはwithDeadlineの期限が過ぎる)と、送受信中のリクエストは中断され、
+ * 用いていたコネクションは破棄されます。close後に呼び出したメソッドは、IllegalStateExceptionで例外的に完了します。
+ *
+ * 各メソッドが返すCompletableFutureは、デフォルトではI/Oスレッド上で完了します。
+ * 完了後に続けて登録した処理でブロックする場合は、ビルダーのexecutor、virtualThreads、
+ * あるいは呼び出しごとにwithExecutorでコールバックを実行するExecutorを指定してください。
+ *
+ * downloadFilePublisher、addFileFromPublisherのPublisherはReactive Streams(org.reactivestreams)のもので、
+ * Reactor、RxJava、Akka Streamsなどとそのまま接続できます。
+ * Java 9以降のjava.util.concurrent.Flowとは、org.reactivestreams.FlowAdaptersで相互に変換できます。
  */
-public class AsyncDsmoqClient {
+public class AsyncDsmoqClient implements AutoCloseable {
     /** ログマーカー */
     private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
 
     /** ロガー */
     private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
 
+    /** ダウンロード用一時ファイルの接頭辞 */
+    private static final String TEMP_FILE_PREFIX = "dsmoq-download-";
+
+    /** ダウンロード用一時ファイルの接尾辞 */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
     /**
      * APIキー、シークレットキーを使用するクライアントオブジェクトを生成する。
      * 
@@ -83,8 +145,44 @@ public class AsyncDsmoqClient {
         return new AsyncDsmoqClient(baseUrl, apiKey, secretKey);
     }
 
-    /** 同期クライアント */
-    private DsmoqClient client;
+    /**
+     * APIキー、シークレットキーを使用するクライアントオブジェクトのビルダーを生成する。
+     * 
+     * 非同期クライアントはビルダーのbuildAsyncメソッドで作成します。
+     * 
+     * @param baseUrl 基準となるURL
+     * @param apiKey APIキー
+     * @param secretKey シークレットキー
+     * @return 作成したビルダー
+     * @throws NullPointerException baseUrl、apiKey、secretKeyのいずれかがnullの場合
+     */
+    public static DsmoqClientBuilder builder(String baseUrl, String apiKey, String secretKey) {
+        return DsmoqClient.builder(baseUrl, apiKey, secretKey);
+    }
+
+    /** 同期クライアント (URL、認証情報を共有する) */
+    private final DsmoqClient client;
+
+    /** 非ブロッキングなHTTPクライアント (クライアントの生存期間中、共有される) */
+    private final AutoCloseHttpAsyncClient httpClient;
+
+    /** withDeadlineの期限を監視するスケジューラ (最初の期限の設定時にスレッドを作成する) */
+    private final ScheduledThreadPoolExecutor deadlineTimer;
+
+    /** 返却するCompletableFutureの完了、ダウンロードの処理関数を実行するExecutor、I/Oスレッドで完了させる場合null */
+    private final Executor executor;
+
+    /** closeで停止する、このクライアントが作成したExecutor、ない場合null */
+    private final ExecutorService ownedExecutor;
+
+    /** ダウンロードの処理関数、アップロードするInputStreamの読み込み等、ブロックする処理を実行するExecutor */
+    private final Executor blockingExecutor;
+
+    /** closeで停止する、ブロックする処理のためにこのクライアントが作成したExecutor、ない場合null */
+    private final ExecutorService ownedBlockingExecutor;
+
+    /** withExecutorで作成した、資源を元のクライアントと共有するクライアントか否か */
+    private final boolean view;
 
     /**
      * クライアントオブジェクトを生成する。
@@ -94,7 +192,81 @@ public class AsyncDsmoqClient {
      * @param secretKey シークレットキー
      */
     private AsyncDsmoqClient(String baseUrl, String apiKey, String secretKey) {
-        this.client = DsmoqClient.create(baseUrl, apiKey, secretKey);
+        this(DsmoqClient.create(baseUrl, apiKey, secretKey), HttpClientConfig.DEFAULT, null, false);
+    }
+
+    /**
+     * 同期クライアントと認証情報を共有するクライアントオブジェクトを生成する。
+     * 
+     * @param client 同期クライアント
+     * @param httpClientConfig HTTPクライアントの設定
+     * @param executor コールバックを実行するExecutor、指定しない場合null
+     * @param virtualThreads executorを指定しない場合に、仮想スレッドでコールバックを実行するか否か
+     */
+    AsyncDsmoqClient(DsmoqClient client, HttpClientConfig httpClientConfig, Executor executor,
+            boolean virtualThreads) {
+        this.client = client;
+        this.httpClient = new AutoCloseHttpAsyncClient(httpClientConfig);
+        this.deadlineTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadlineTimer.setRemoveOnCancelPolicy(true);
+        this.ownedExecutor = executor == null && virtualThreads ? CallbackExecutors.newVirtualThreadExecutor() : null;
+        this.executor = executor != null ? executor : this.ownedExecutor;
+        // ブロックする処理でForkJoinPool.commonPool()を占有しないよう、Executorがない場合は専用のスレッドプールを作成する
+        this.ownedBlockingExecutor = this.executor == null ? CallbackExecutors.newCachedThreadPool() : null;
+        this.blockingExecutor = this.executor != null ? this.executor : this.ownedBlockingExecutor;
+        this.view = false;
+    }
+
+    /**
+     * 元のクライアントと資源を共有し、コールバックを実行するExecutorのみ異なるクライアントオブジェクトを生成する。
+     * 
+     * @param origin 元のクライアント
+     * @param executor コールバックを実行するExecutor
+     */
+    private AsyncDsmoqClient(AsyncDsmoqClient origin, Executor executor) {
+        this.client = origin.client;
+        this.httpClient = origin.httpClient;
+        this.deadlineTimer = origin.deadlineTimer;
+        this.ownedExecutor = null;
+        this.executor = executor;
+        this.ownedBlockingExecutor = null;
+        this.blockingExecutor = executor;
+        this.view = true;
+    }
+
+    /**
+     * Publisherが通知するデータを内容とするファイルを、Datasetに追加する。
+     *
+     * POST /api/datasets/${dataset_id}/files を呼ぶ。
+     *
+     * contentはリクエストの送信時にI/Oスレッド上で購読され、ソケットへ書き込めた分だけ次のデータが要求されます。
+     * 通知されたByteBufferは送信が終わるまで保持されるため、Publisherは通知後にその内容を変更してはいけません。
+     * contentがlengthと異なる長さのデータを通知した場合、あるいはonErrorを通知した場合、追加は失敗します。
+     *
+     * @param datasetId DatasetID
+     * @param fileName ファイル名
+     * @param length ファイルのバイト数
+     * @param content ファイルの内容を通知するPublisher
+     * @return 追加したファイルの情報のCompletableFuture
+     * @throws NullPointerException datasetId、fileName、contentのいずれかがnullの場合
+     * @throws IllegalArgumentException lengthが0未満の場合
+     */
+    public CompletableFuture<DatasetAddFiles> addFileFromPublisher(String datasetId, String fileName, long length,
+            Publisher<ByteBuffer> content) {
+        logger.debug(LOG_MARKER,
+                "AsyncDsmoqClient#addFileFromPublisher start : [datasetId] = {}, [fileName] = {}, [length] = {}",
+                datasetId, fileName, length);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#addFileFromPublisher");
+        requireNotNull(fileName, "at fileName in AsyncDsmoqClient#addFileFromPublisher");
+        requireGreaterOrEqualOrNull(length, 0L, "at length in AsyncDsmoqClient#addFileFromPublisher");
+        requireNotNull(content, "at content in AsyncDsmoqClient#addFileFromPublisher");
+        MultipartAsyncEntity entity = new MultipartAsyncEntity.Builder()
+                .addBinaryBody("files", fileName, length, content).build();
+        return post("/api/datasets/" + datasetId + "/files", entity, JsonUtil::toDatasetAddFiles);
     }
 
     /**
@@ -114,7 +286,38 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#addFiles");
         requireNotNull(files, "at files in AsyncDsmoqClient#addFiles");
         requireNotNullAll(files, "at files[%d] in AsyncDsmoqClient#addFiles");
-        return CompletableFuture.supplyAsync(() -> client.addFiles(datasetId, files));
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder();
+        Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("files", file));
+        return post("/api/datasets/" + datasetId + "/files", builder.build(), JsonUtil::toDatasetAddFiles);
+    }
+
+    /**
+     * Datasetに、ファイル、メモリ上のバイト列、あるいはInputStreamの内容をファイルとして追加する。
+     * 
+     * POST /api/datasets/${dataset_id}/files を呼ぶ。
+     * 
+     * 各内容は一時ファイルに書き出さずにリクエストボディへ直接送信され、ボディ全体をメモリ上に保持しません。
+     * InputStreamはI/Oスレッドではなく、コールバックを実行するExecutor(指定しない場合クライアントが作成するスレッドプール)で
+     * 読み込まれます。
+     * 長さの分からないInputStreamを含む場合、リクエストはチャンク形式で送信されます。
+     * 
+     * @param datasetId DatasetID
+     * @param sources Datasetに追加するファイルの内容 (順序は追加したファイルの情報の順序と対応する)
+     * @param listener 送信の進捗を受け取るリスナー(I/Oスレッドから呼び出される)、受け取らない場合null
+     * @return 追加したファイルの情報のCompletableFuture
+     * @throws NullPointerException datasetId、sources、あるいはsourcesの要素のいずれかがnullの場合
+     * @see DsmoqClient#addFiles(String, List, UploadProgressListener)
+     */
+    public CompletableFuture<DatasetAddFiles> addFiles(String datasetId, List<UploadSource> sources,
+            UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#addFiles start : [datasetId] = {}, [source num] = {}", datasetId,
+                (sources == null) ? "null" : sources.size());
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#addFiles");
+        requireNotNull(sources, "at sources in AsyncDsmoqClient#addFiles");
+        requireNotNullAll(sources, "at sources[%d] in AsyncDsmoqClient#addFiles");
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder().progress(listener);
+        sources.forEach(source -> source.addTo(builder, "files", uploadExecutor()));
+        return post("/api/datasets/" + datasetId + "/files", builder.build(), JsonUtil::toDatasetAddFiles);
     }
 
     /**
@@ -134,7 +337,9 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#addImagesToDataset");
         requireNotNull(files, "at files in AsyncDsmoqClient#addImagesToDataset");
         requireNotNullAll(files, "at files[%d] in AsyncDsmoqClient#addImagesToDataset");
-        return CompletableFuture.supplyAsync(() -> client.addImagesToDataset(datasetId, files));
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder();
+        Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("images", file));
+        return post("/api/datasets/" + datasetId + "/images", builder.build(), JsonUtil::toDatasetAddImages);
     }
 
     /**
@@ -154,7 +359,9 @@ public class AsyncDsmoqClient {
         requireNotNull(groupId, "at groupId in AsyncDsmoqClienAsyncDsmoqClientaddImagesToGroup");
         requireNotNull(files, "at files in AsyncDsmoqClient#addImagesToGroup");
         requireNotNullAll(files, "at files[%d] in AsyncDsmoqClient#addImagesToGroup");
-        return CompletableFuture.supplyAsync(() -> client.addImagesToGroup(groupId, files));
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder();
+        Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("images", file));
+        return post("/api/groups/" + groupId + "/images", builder.build(), JsonUtil::toGroupAddImages);
     }
 
     /**
@@ -173,7 +380,7 @@ public class AsyncDsmoqClient {
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#addMember");
         requireNotNull(params, "at params in AsyncDsmoqClient#addMember");
         requireNotNullAll(params, "at params[%s] in AsyncDsmoqClient#addMember");
-        return CompletableFuture.runAsync(() -> client.addMember(groupId, params));
+        return post("/api/groups/" + groupId + "/members", AddMemberParam.toJsonString(params), x -> null);
     }
 
     /**
@@ -193,7 +400,8 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#changeAccessLevel");
         requireNotNull(params, "at params in AsyncDsmoqClient#changeAccessLevel");
         requireNotNullAll(params, "at params[%d] in AsyncDsmoqClient#changeAccessLevel");
-        return CompletableFuture.supplyAsync(() -> client.changeAccessLevel(datasetId, params));
+        return post("/api/datasets/" + datasetId + "/acl", SetAccessLevelParam.toJsonString(params),
+                JsonUtil::toDatasetOwnerships);
     }
 
     /**
@@ -212,7 +420,7 @@ public class AsyncDsmoqClient {
                 datasetId, param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#changeDatasetStorage");
         requireNotNull(param, "at param in AsyncDsmoqClient#changeDatasetStorage");
-        return CompletableFuture.supplyAsync(() -> client.changeDatasetStorage(datasetId, param));
+        return put("/api/datasets/" + datasetId + "/storage", param.toJsonString(), JsonUtil::toDatasetTask);
     }
 
     /**
@@ -231,7 +439,7 @@ public class AsyncDsmoqClient {
                 datasetId, param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#changeGuestAccessLevel");
         requireNotNull(param, "at param in AsyncDsmoqClient#changeGuestAccessLevel");
-        return CompletableFuture.runAsync(() -> client.changeGuestAccessLevel(datasetId, param));
+        return put("/api/datasets/" + datasetId + "/guest_access", param.toJsonString(), x -> null);
     }
 
     /**
@@ -247,7 +455,40 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Void> changePassword(ChangePasswordParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#changePassword start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#changePassword");
-        return CompletableFuture.runAsync(() -> client.changePassword(param));
+        return put("/api/profile/password", param.toJsonString(), x -> null);
+    }
+
+    /**
+     * クライアントを閉じ、保持しているコネクションを全て解放する。
+     * 
+     * 完了していないリクエストは中断され、ApiFailedExceptionで例外的に完了します。
+     * ビルダーのvirtualThreadsで作成したExecutorは停止されますが、executorで指定したExecutorは停止されません。
+     * withExecutorで作成したクライアントに対して呼び出した場合は、何もしません。
+     * 
+     * @see DsmoqClient#close()
+     */
+    @Override
+    public void close() {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#close start");
+        if (view) {
+            return;
+        }
+        try {
+            deadlineTimer.shutdownNow();
+            httpClient.close();
+        } finally {
+            try {
+                client.close();
+            } finally {
+                // 中断したリクエストの完了処理は実行させる
+                if (ownedExecutor != null) {
+                    ownedExecutor.shutdown();
+                }
+                if (ownedBlockingExecutor != null) {
+                    ownedBlockingExecutor.shutdown();
+                }
+            }
+        }
     }
 
     /**
@@ -263,7 +504,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<String> copyDataset(String datasetId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#copyDataset start : [datasetId] = {}", datasetId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#copyDataset");
-        return CompletableFuture.supplyAsync(() -> client.copyDataset(datasetId));
+        return post("/api/datasets/" + datasetId + "/copy", json -> JsonUtil.toCopiedDataset(json).getDatasetId());
     }
 
     /**
@@ -287,7 +528,7 @@ public class AsyncDsmoqClient {
         requireNotNull(files, "at files in AsyncDsmoqClient#createDataset");
         requireNotEmpty(files, "at files in AsyncDsmoqClient#createDataset");
         requireNotNullAll(files, "at files[%d] in AsyncDsmoqClient#createDataset");
-        return CompletableFuture.supplyAsync(() -> client.createDataset(saveLocal, saveS3, files));
+        return createDataset(files[0].getName(), saveLocal, saveS3, files);
     }
 
     /**
@@ -306,7 +547,7 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#createDataset start : [name] = {}, [saveLocal] = {}, [saveS3] = {}",
                 name, saveLocal, saveS3);
         requireNotNull(name, "at name in AsyncDsmoqClient#createDataset");
-        return CompletableFuture.supplyAsync(() -> client.createDataset(name, saveLocal, saveS3));
+        return createDataset(name, saveLocal, saveS3, new File[0]);
     }
 
     /**
@@ -329,7 +570,46 @@ public class AsyncDsmoqClient {
         requireNotNull(name, "at name in AsyncDsmoqClient#createDataset");
         requireNotNull(files, "at files in AsyncDsmoqClient#createDataset");
         requireNotNullAll(files, "at files[%d] in AsyncDsmoqClient#createDataset");
-        return CompletableFuture.supplyAsync(() -> client.createDataset(name, saveLocal, saveS3, files));
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder();
+        // 送信データに"name"(データセットの名前)を追加(文字コード明示)
+        builder.addTextBody("name", name, ContentType.create("text/plain", DsmoqClient.DEFAULT_REQUEST_CHARSET));
+        Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("file[]", file));
+        builder.addTextBody("saveLocal", saveLocal ? "true" : "false");
+        builder.addTextBody("saveS3", saveS3 ? "true" : "false");
+        return post("/api/datasets", builder.build(), JsonUtil::toDataset);
+    }
+
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容をファイルとして設定したDatasetを作成する。
+     *
+     * POST /api/datasets を呼ぶ。
+     * 
+     * 各内容の送信方法は、addFiles(String, List, UploadProgressListener)と同様です。
+     * 
+     * @param name データセットの名前
+     * @param saveLocal ローカルに保存するか否か
+     * @param saveS3 Amazon S3に保存するか否か
+     * @param sources Datasetに設定するファイルの内容
+     * @param listener 送信の進捗を受け取るリスナー(I/Oスレッドから呼び出される)、受け取らない場合null
+     * @return 作成したDatasetのCompletableFuture
+     * @throws NullPointerException name、sources、あるいはsourcesの要素のいずれかがnullの場合
+     * @see DsmoqClient#createDataset(String, boolean, boolean, List, UploadProgressListener)
+     */
+    public CompletableFuture<Dataset> createDataset(String name, boolean saveLocal, boolean saveS3,
+            List<UploadSource> sources, UploadProgressListener listener) {
+        logger.debug(LOG_MARKER,
+                "AsyncDsmoqClient#createDataset start : [name] = {}, [saveLocal] = {}, [saveS3] = {}, "
+                        + "[source num] = {}",
+                name, saveLocal, saveS3, (sources == null) ? "null" : sources.size());
+        requireNotNull(name, "at name in AsyncDsmoqClient#createDataset");
+        requireNotNull(sources, "at sources in AsyncDsmoqClient#createDataset");
+        requireNotNullAll(sources, "at sources[%d] in AsyncDsmoqClient#createDataset");
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder().progress(listener);
+        builder.addTextBody("name", name, ContentType.create("text/plain", DsmoqClient.DEFAULT_REQUEST_CHARSET));
+        sources.forEach(source -> source.addTo(builder, "file[]", uploadExecutor()));
+        builder.addTextBody("saveLocal", saveLocal ? "true" : "false");
+        builder.addTextBody("saveS3", saveS3 ? "true" : "false");
+        return post("/api/datasets", builder.build(), JsonUtil::toDataset);
     }
 
     /**
@@ -345,7 +625,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Group> createGroup(CreateGroupParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#createGroup start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#createGroup");
-        return CompletableFuture.supplyAsync(() -> client.createGroup(param));
+        return post("/api/groups", param.toJsonString(), JsonUtil::toGroup);
     }
 
     /**
@@ -361,7 +641,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Void> deleteDataset(String datasetId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#deleteDataset start : [datasetId] = {}", datasetId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#deleteDataset");
-        return CompletableFuture.runAsync(() -> client.deleteDataset(datasetId));
+        return delete("/api/datasets/" + datasetId, x -> null);
     }
 
     /**
@@ -380,7 +660,7 @@ public class AsyncDsmoqClient {
                 fileId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#deleteFile");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#deleteFile");
-        return CompletableFuture.runAsync(() -> client.deleteFile(datasetId, fileId));
+        return delete("/api/datasets/" + datasetId + "/files/" + fileId, x -> null);
     }
 
     /**
@@ -396,7 +676,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Void> deleteGroup(String groupId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#deleteGroup start : [groupId] = {}", groupId);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#deleteGroup");
-        return CompletableFuture.runAsync(() -> client.deleteGroup(groupId));
+        return delete("/api/groups/" + groupId, x -> null);
     }
 
     /**
@@ -415,7 +695,7 @@ public class AsyncDsmoqClient {
                 datasetId, imageId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#deleteImageToDataset");
         requireNotNull(imageId, "at imageId in AsyncDsmoqClient#deleteImageToDataset");
-        return CompletableFuture.supplyAsync(() -> client.deleteImageToDataset(datasetId, imageId));
+        return delete("/api/datasets/" + datasetId + "/images/" + imageId, JsonUtil::toDatasetDeleteImage);
     }
 
     /**
@@ -434,7 +714,7 @@ public class AsyncDsmoqClient {
                 imageId);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#deleteImageToGroup");
         requireNotNull(imageId, "at imageId in AsyncDsmoqClient#deleteImageToGroup");
-        return CompletableFuture.supplyAsync(() -> client.deleteImageToGroup(groupId, imageId));
+        return delete("/api/groups/" + groupId + "/images/" + imageId, JsonUtil::toGroupDeleteImage);
     }
 
     /**
@@ -453,7 +733,7 @@ public class AsyncDsmoqClient {
                 userId);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#deleteMember");
         requireNotNull(userId, "at userId in AsyncDsmoqClient#deleteMember");
-        return CompletableFuture.runAsync(() -> client.deleteMember(groupId, userId));
+        return delete("/api/groups/" + groupId + "/members/" + userId, x -> null);
     }
 
     /**
@@ -476,7 +756,62 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#downloadFile");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#downloadFile");
         requireNotNull(datasetFileFunc, "at datasetFileFunc in AsyncDsmoqClient#downloadFile");
-        return CompletableFuture.supplyAsync(() -> client.downloadFile(datasetId, fileId, datasetFileFunc));
+        return downloadFileWithRange(datasetId, fileId, null, null, datasetFileFunc);
+    }
+
+    /**
+     * データセットからファイルの内容を、需要に応じて通知するPublisherを取得する。
+     *
+     * GET /files/${dataset_id}/${file_id} を呼ぶ。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @return ファイルの内容を通知するPublisher
+     * @throws NullPointerException datasetIdまたはfileIdがnullの場合
+     * @see #downloadFilePublisher(String, String, Long, Long)
+     */
+    public Publisher<ByteBuffer> downloadFilePublisher(String datasetId, String fileId) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#downloadFilePublisher start : [datasetId] = {}, [fileId] = {}",
+                datasetId, fileId);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#downloadFilePublisher");
+        requireNotNull(fileId, "at fileId in AsyncDsmoqClient#downloadFilePublisher");
+        return downloadFilePublisher(datasetId, fileId, null, null);
+    }
+
+    /**
+     * データセットからファイルの内容を部分的に取得し、需要に応じて通知するPublisherを取得する。
+     *
+     * GET /files/${dataset_id}/${file_id} を呼ぶ。
+     *
+     * 購読ごとにリクエストを送信します。受信したデータはI/Oスレッドから、要求された件数だけonNextに通知され、
+     * 需要がない間はソケットからの読み出しを停止します(受信はTCPのフロー制御によりサーバ側で抑えられます)。
+     * そのため、多数のファイルを同時に購読しても、I/Oスレッド以外のスレッドは消費しません。
+     * 通知されるByteBufferは購読者が所有し、通知後に再利用されることはありません。
+     * onNextはI/Oスレッド上で呼び出されるため、ブロックする処理を行ってはいけません。
+     * 需要がない状態がソケットタイムアウトを超えた場合、onErrorにTimeoutExceptionが通知されます。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     * @return ファイルの内容を通知するPublisher
+     * @throws NullPointerException datasetIdまたはfileIdがnullの場合
+     * @throws IllegalArgumentException fromまたはtoが0未満の場合
+     */
+    public Publisher<ByteBuffer> downloadFilePublisher(String datasetId, String fileId, Long from, Long to) {
+        logger.debug(LOG_MARKER,
+                "AsyncDsmoqClient#downloadFilePublisher start : [datasetId] = {}, [fileId] = {}, [from:to] = {}:{}",
+                datasetId, fileId, from, to);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#downloadFilePublisher");
+        requireNotNull(fileId, "at fileId in AsyncDsmoqClient#downloadFilePublisher");
+        requireGreaterOrEqualOrNull(from, 0L, "at from in AsyncDsmoqClient#downloadFilePublisher");
+        requireGreaterOrEqualOrNull(to, 0L, "at to in AsyncDsmoqClient#downloadFilePublisher");
+        String url = client.getBaseUrl() + "/files/" + datasetId + "/" + fileId;
+        return new DownloadPublisher(consumerFactory -> {
+            HttpGet request = new HttpGet(url);
+            setDownloadHeaders(request, from, to);
+            return send(request, consumerFactory);
+        });
     }
 
     /**
@@ -506,8 +841,57 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetFileFunc, "at datasetFileFunc in AsyncDsmoqClient#downloadFileWithRange");
         requireGreaterOrEqualOrNull(from, 0L, "at from in AsyncDsmoqClient#downloadFileWithRange");
         requireGreaterOrEqualOrNull(to, 0L, "at to in AsyncDsmoqClient#downloadFileWithRange");
-        return CompletableFuture
-                .supplyAsync(() -> client.downloadFileWithRange(datasetId, fileId, from, to, datasetFileFunc));
+        return download("/files/" + datasetId + "/" + fileId, from, to, DsmoqClient::getFileNameFromHeader,
+                datasetFileFunc);
+    }
+
+    /**
+     * データセットからファイルの内容を取得し、受信した順にハンドラで処理する。
+     *
+     * GET /files/${dataset_id}/${file_id} を呼ぶ。
+     * 
+     * ファイルの内容は一時ファイルを介さず、受信したI/Oスレッド上でハンドラへ直接渡されます。
+     * 
+     * @param <T> ファイルデータ処理後の型
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     * @param handler ファイルデータを処理するハンドラ
+     * @return 処理結果のCompletableFuture
+     * @throws NullPointerException datasetIdまたはfileIdまたはhandlerがnullの場合
+     * @throws IllegalArgumentException fromまたはtoが0未満の場合
+     */
+    public <T> CompletableFuture<T> downloadFileWithHandler(String datasetId, String fileId, Long from, Long to,
+            DatasetFileContentHandler<T> handler) {
+        logger.debug(LOG_MARKER,
+                "AsyncDsmoqClient#downloadFileWithHandler start : [datasetId] = {}, [fileId] = {}, [from:to] = {}:{}",
+                datasetId, fileId, from, to);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#downloadFileWithHandler");
+        requireNotNull(fileId, "at fileId in AsyncDsmoqClient#downloadFileWithHandler");
+        requireNotNull(handler, "at handler in AsyncDsmoqClient#downloadFileWithHandler");
+        requireGreaterOrEqualOrNull(from, 0L, "at from in AsyncDsmoqClient#downloadFileWithHandler");
+        requireGreaterOrEqualOrNull(to, 0L, "at to in AsyncDsmoqClient#downloadFileWithHandler");
+        HttpGet request = new HttpGet(client.getBaseUrl() + "/files/" + datasetId + "/" + fileId);
+        setDownloadHeaders(request, from, to);
+        return send(request, () -> new StreamingResponseConsumer<T>() {
+            @Override
+            protected void onStart(HttpResponse response) throws IOException {
+                HttpEntity entity = response.getEntity();
+                handler.onStart(DsmoqClient.getFileNameFromHeader(response),
+                        entity == null ? -1 : entity.getContentLength());
+            }
+
+            @Override
+            protected void onContent(ByteBuffer buffer) throws IOException {
+                handler.onContent(buffer);
+            }
+
+            @Override
+            protected T onComplete(HttpResponse response) throws IOException {
+                return handler.onComplete();
+            }
+        });
     }
 
     /**
@@ -526,7 +910,8 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#exportAttribute start : [datasetId] = {}", datasetId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#exportAttribute");
         requireNotNull(fileFunc, "at fileFunc in AsyncDsmoqClient#exportAttribute");
-        return CompletableFuture.supplyAsync(() -> client.exportAttribute(datasetId, fileFunc));
+        return download("/api/datasets/" + datasetId + "/attributes/export", null, null,
+                response -> DsmoqClient.EXPORT_ATTRIBUTE_CSV_FILENAME, fileFunc);
     }
 
     /**
@@ -545,7 +930,7 @@ public class AsyncDsmoqClient {
                 param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getAccessLevel");
         requireNotNull(param, "at param in AsyncDsmoqClient#getAccessLevel");
-        return CompletableFuture.supplyAsync(() -> client.getAccessLevel(datasetId, param));
+        return get("/api/datasets/" + datasetId + "/acl", param.toJsonString(), JsonUtil::toDatasetOwnership);
     }
 
     /**
@@ -558,7 +943,7 @@ public class AsyncDsmoqClient {
      */
     public CompletableFuture<List<User>> getAccounts() {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getAccounts start");
-        return CompletableFuture.supplyAsync(() -> client.getAccounts());
+        return get("/api/accounts", JsonUtil::toUsers);
     }
 
     /**
@@ -574,7 +959,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Dataset> getDataset(String datasetId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getDataset start : [datasetId] = {}", datasetId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getDataset");
-        return CompletableFuture.supplyAsync(() -> client.getDataset(datasetId));
+        return get("/api/datasets/" + datasetId, JsonUtil::toDataset);
     }
 
     /**
@@ -593,7 +978,7 @@ public class AsyncDsmoqClient {
                 param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getDatasetFiles");
         requireNotNull(param, "at param in AsyncDsmoqClient#getDatasetFiles");
-        return CompletableFuture.supplyAsync(() -> client.getDatasetFiles(datasetId, param));
+        return get("/api/datasets/" + datasetId + "/files", param.toJsonString(), JsonUtil::toDatasetFiles);
     }
 
     /**
@@ -612,7 +997,7 @@ public class AsyncDsmoqClient {
                 param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getDatasetImage");
         requireNotNull(param, "at param in AsyncDsmoqClient#getDatasetImage");
-        return CompletableFuture.supplyAsync(() -> client.getDatasetImage(datasetId, param));
+        return get("/api/datasets/" + datasetId + "/images", param.toJsonString(), JsonUtil::toDatasetGetImage);
     }
 
     /**
@@ -628,7 +1013,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<RangeSlice<DatasetsSummary>> getDatasets(GetDatasetsParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getDatasets start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#getDatasets");
-        return CompletableFuture.supplyAsync(() -> client.getDatasets(param));
+        return get("/api/datasets", param.toJsonString(), JsonUtil::toDatasets);
     }
 
     /**
@@ -651,7 +1036,8 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getDatasetZippedFiles");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#getDatasetZippedFiles");
         requireNotNull(param, "at param in AsyncDsmoqClient#getDatasetZippedFiles");
-        return CompletableFuture.supplyAsync(() -> client.getDatasetZippedFiles(datasetId, fileId, param));
+        return get("/api/datasets/" + datasetId + "/files/" + fileId + "/zippedfiles", param.toJsonString(),
+                JsonUtil::toDatasetZippedFiles);
     }
 
     /**
@@ -670,7 +1056,7 @@ public class AsyncDsmoqClient {
                 fileId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#getFileSize");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#getFileSize");
-        return CompletableFuture.supplyAsync(() -> client.getFileSize(datasetId, fileId));
+        return head("/files/" + datasetId + "/" + fileId, DsmoqClient::toFileSize);
     }
 
     /**
@@ -686,7 +1072,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<Group> getGroup(String groupId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getGroup start : [groupId] = {}", groupId);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#getGroup");
-        return CompletableFuture.supplyAsync(() -> client.getGroup(groupId));
+        return get("/api/groups/" + groupId, JsonUtil::toGroup);
     }
 
     /**
@@ -704,7 +1090,7 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getGroupImage start : [groupId] = {}, [param] = {}", groupId, param);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#getGroupImage");
         requireNotNull(param, "at param in AsyncDsmoqClient#getGroupImage");
-        return CompletableFuture.supplyAsync(() -> client.getGroupImage(groupId, param));
+        return get("/api/groups/" + groupId + "/images", param.toJsonString(), JsonUtil::toGroupGetImage);
     }
 
     /**
@@ -720,7 +1106,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<RangeSlice<GroupsSummary>> getGroups(GetGroupsParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getGroups start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#getGroups");
-        return CompletableFuture.supplyAsync(() -> client.getGroups(param));
+        return get("/api/groups", param.toJsonString(), JsonUtil::toGroups);
     }
 
     /**
@@ -733,7 +1119,7 @@ public class AsyncDsmoqClient {
      */
     public CompletableFuture<List<License>> getLicenses() {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getLicenses start");
-        return CompletableFuture.supplyAsync(() -> client.getLicenses());
+        return get("/api/licenses", JsonUtil::toLicenses);
     }
 
     /**
@@ -751,7 +1137,7 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getMembers start : [groupId] = {}, [param] = {}", groupId, param);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#getMembers");
         requireNotNull(param, "at param in AsyncDsmoqClient#getMembers");
-        return CompletableFuture.supplyAsync(() -> client.getMembers(groupId, param));
+        return get("/api/groups/" + groupId + "/members", param.toJsonString(), JsonUtil::toMembers);
     }
 
     /**
@@ -764,7 +1150,7 @@ public class AsyncDsmoqClient {
      */
     public CompletableFuture<User> getProfile() {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getProfile start");
-        return CompletableFuture.supplyAsync(() -> client.getProfile());
+        return get("/api/profile", JsonUtil::toUser);
     }
 
     /**
@@ -780,7 +1166,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<List<StatisticsDetail>> getStatistics(StatisticsParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getStatistics start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#getStatistics");
-        return CompletableFuture.supplyAsync(() -> client.getStatistics(param));
+        return get("/api/statistics", param.toJsonString(), JsonUtil::toStatistics);
     }
 
     /**
@@ -796,7 +1182,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<TaskStatus> getTaskStatus(String taskId) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#getTaskStatus start : [taskId] = {}", taskId);
         requireNotNull(taskId, "at taskId in AsyncDsmoqClient#getTaskStatus");
-        return CompletableFuture.supplyAsync(() -> client.getTaskStatus(taskId));
+        return get("/api/tasks/" + taskId, JsonUtil::toTaskStatus);
     }
 
     /**
@@ -815,7 +1201,33 @@ public class AsyncDsmoqClient {
                 (file == null) ? "null" : file.getName());
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#importAttribute");
         requireNotNull(file, "at file in AsyncDsmoqClient#importAttribute");
-        return CompletableFuture.runAsync(() -> client.importAttribute(datasetId, file));
+        MultipartAsyncEntity entity = new MultipartAsyncEntity.Builder().addBinaryBody("file", file).build();
+        return post("/api/datasets/" + datasetId + "/attributes/import", entity, x -> null);
+    }
+
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容をCSVとして、Attributeを読み込む。
+     *
+     * POST /api/datasets/${dataset_id}/attributes/import を呼ぶ。
+     * 
+     * 内容の送信方法は、addFiles(String, List, UploadProgressListener)と同様です。
+     * 
+     * @param datasetId DatasetID
+     * @param source AttributeをインポートするCSVの内容
+     * @param listener 送信の進捗を受け取るリスナー(I/Oスレッドから呼び出される)、受け取らない場合null
+     * @return 完了を表すCompletableFuture
+     * @throws NullPointerException datasetId、sourceのいずれかがnullの場合
+     * @see DsmoqClient#importAttribute(String, UploadSource, UploadProgressListener)
+     */
+    public CompletableFuture<Void> importAttribute(String datasetId, UploadSource source,
+            UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#importAttribute start : [datasetId] = {}, [source] = {}",
+                datasetId, source);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#importAttribute");
+        requireNotNull(source, "at source in AsyncDsmoqClient#importAttribute");
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder().progress(listener);
+        source.addTo(builder, "file", uploadExecutor());
+        return post("/api/datasets/" + datasetId + "/attributes/import", builder.build(), x -> null);
     }
 
     /**
@@ -834,7 +1246,8 @@ public class AsyncDsmoqClient {
                 datasetId, (file == null) ? "null" : file.getName());
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#setFeaturedImageToDataset");
         requireNotNull(file, "at file in AsyncDsmoqClient#setFeaturedImageToDataset");
-        return CompletableFuture.runAsync(() -> client.setFeaturedImageToDataset(datasetId, file));
+        return compose(addImagesToDataset(datasetId, file),
+                image -> setFeaturedImageToDataset(datasetId, image.getImages().get(0).getId()));
     }
 
     /**
@@ -853,7 +1266,8 @@ public class AsyncDsmoqClient {
                 datasetId, imageId);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#setFeaturedImageToDataset");
         requireNotNull(imageId, "at imageId in AsyncDsmoqClient#setFeaturedImageToDataset");
-        return CompletableFuture.runAsync(() -> client.setFeaturedImageToDataset(datasetId, imageId));
+        return put("/api/datasets/" + datasetId + "/images/featured",
+                new SetFeaturedImageToDatasetParam(imageId).toJsonString(), x -> null);
     }
 
     /**
@@ -874,7 +1288,7 @@ public class AsyncDsmoqClient {
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#setMemberRole");
         requireNotNull(userId, "at userId in AsyncDsmoqClient#setMemberRole");
         requireNotNull(param, "at param in AsyncDsmoqClient#setMemberRole");
-        return CompletableFuture.runAsync(() -> client.setMemberRole(groupId, userId, param));
+        return put("/api/groups/" + groupId + "/members/" + userId, param.toJsonString(), x -> null);
     }
 
     /**
@@ -893,7 +1307,8 @@ public class AsyncDsmoqClient {
                 datasetId, (file == null) ? "null" : file.getName());
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#setPrimaryImageToDataset");
         requireNotNull(file, "at file in AsyncDsmoqClient#setPrimaryImageToDataset");
-        return CompletableFuture.runAsync(() -> client.setPrimaryImageToDataset(datasetId, file));
+        return compose(addImagesToDataset(datasetId, file), image -> setPrimaryImageToDataset(datasetId,
+                new SetPrimaryImageParam(image.getImages().get(0).getId())));
     }
 
     /**
@@ -912,7 +1327,7 @@ public class AsyncDsmoqClient {
                 datasetId, param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#setPrimaryImageToDataset");
         requireNotNull(param, "at param in AsyncDsmoqClient#setPrimaryImageToDataset");
-        return CompletableFuture.runAsync(() -> client.setPrimaryImageToDataset(datasetId, param));
+        return put("/api/datasets/" + datasetId + "/images/primary", param.toJsonString(), x -> null);
     }
 
     /**
@@ -931,7 +1346,8 @@ public class AsyncDsmoqClient {
                 (file == null) ? "null" : file.getName());
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#setPrimaryImageToGroup");
         requireNotNull(file, "at file in AsyncDsmoqClient#setPrimaryImageToGroup");
-        return CompletableFuture.runAsync(() -> client.setPrimaryImageToGroup(groupId, file));
+        return compose(addImagesToGroup(groupId, file),
+                image -> setPrimaryImageToGroup(groupId, new SetPrimaryImageParam(image.getImages().get(0).getId())));
     }
 
     /**
@@ -950,7 +1366,7 @@ public class AsyncDsmoqClient {
                 groupId, param);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#setPrimaryImageToGroup");
         requireNotNull(param, "at param in AsyncDsmoqClient#setPrimaryImageToGroup");
-        return CompletableFuture.runAsync(() -> client.setPrimaryImageToGroup(groupId, param));
+        return put("/api/groups/" + groupId + "/images/primary", param.toJsonString(), x -> null);
     }
 
     /**
@@ -969,7 +1385,7 @@ public class AsyncDsmoqClient {
                 datasetId, param);
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#updateDatasetMetaInfo");
         requireNotNull(param, "at param in AsyncDsmoqClient#updateDatasetMetaInfo");
-        return CompletableFuture.runAsync(() -> client.updateDatasetMetaInfo(datasetId, param));
+        return put("/api/datasets/" + datasetId + "/metadata", param.toJsonString(), x -> null);
     }
 
     /**
@@ -985,7 +1401,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<User> updateEmail(UpdateEmailParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#updateEmail start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#updateEmail");
-        return CompletableFuture.supplyAsync(() -> client.updateEmail(param));
+        return post("/api/profile/email_change_requests", param.toJsonString(), JsonUtil::toUser);
     }
 
     /**
@@ -1006,7 +1422,67 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#updateFile");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#updateFile");
         requireNotNull(file, "at file in AsyncDsmoqClient#updateFile");
-        return CompletableFuture.supplyAsync(() -> client.updateFile(datasetId, fileId, file));
+        MultipartAsyncEntity entity = new MultipartAsyncEntity.Builder().addBinaryBody("file", file).build();
+        return post("/api/datasets/" + datasetId + "/files/" + fileId, entity, JsonUtil::toDatasetFile);
+    }
+
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容で、ファイルを更新する。
+     *
+     * POST /api/datasets/${dataset_id}/files/${file_id} を呼ぶ。
+     * 
+     * 内容の送信方法は、addFiles(String, List, UploadProgressListener)と同様です。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param source 更新後のファイルの内容
+     * @param listener 送信の進捗を受け取るリスナー(I/Oスレッドから呼び出される)、受け取らない場合null
+     * @return 更新されたファイル情報のCompletableFuture
+     * @throws NullPointerException datasetId、fileId、sourceのいずれかがnullの場合
+     * @see DsmoqClient#updateFile(String, String, UploadSource, UploadProgressListener)
+     */
+    public CompletableFuture<DatasetFile> updateFile(String datasetId, String fileId, UploadSource source,
+            UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#updateFile start : [datasetId] = {}, [fileId] = {}, [source] = {}",
+                datasetId, fileId, source);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#updateFile");
+        requireNotNull(fileId, "at fileId in AsyncDsmoqClient#updateFile");
+        requireNotNull(source, "at source in AsyncDsmoqClient#updateFile");
+        MultipartAsyncEntity.Builder builder = new MultipartAsyncEntity.Builder().progress(listener);
+        source.addTo(builder, "file", uploadExecutor());
+        return post("/api/datasets/" + datasetId + "/files/" + fileId, builder.build(), JsonUtil::toDatasetFile);
+    }
+
+    /**
+     * Publisherが通知するデータで、ファイルを更新する。
+     *
+     * POST /api/datasets/${dataset_id}/files/${file_id} を呼ぶ。
+     *
+     * contentの購読、および失敗の条件はaddFileFromPublisherと同じです。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param fileName ファイル名
+     * @param length ファイルのバイト数
+     * @param content ファイルの内容を通知するPublisher
+     * @return 更新したファイル情報のCompletableFuture
+     * @throws NullPointerException datasetId、fileId、fileName、contentのいずれかがnullの場合
+     * @throws IllegalArgumentException lengthが0未満の場合
+     * @see #addFileFromPublisher(String, String, long, Publisher)
+     */
+    public CompletableFuture<DatasetFile> updateFileFromPublisher(String datasetId, String fileId, String fileName,
+            long length, Publisher<ByteBuffer> content) {
+        logger.debug(LOG_MARKER,
+                "AsyncDsmoqClient#updateFileFromPublisher start : [datasetId] = {}, [fileId] = {}, [fileName] = {}",
+                datasetId, fileId, fileName);
+        requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#updateFileFromPublisher");
+        requireNotNull(fileId, "at fileId in AsyncDsmoqClient#updateFileFromPublisher");
+        requireNotNull(fileName, "at fileName in AsyncDsmoqClient#updateFileFromPublisher");
+        requireGreaterOrEqualOrNull(length, 0L, "at length in AsyncDsmoqClient#updateFileFromPublisher");
+        requireNotNull(content, "at content in AsyncDsmoqClient#updateFileFromPublisher");
+        MultipartAsyncEntity entity = new MultipartAsyncEntity.Builder()
+                .addBinaryBody("file", fileName, length, content).build();
+        return post("/api/datasets/" + datasetId + "/files/" + fileId, entity, JsonUtil::toDatasetFile);
     }
 
     /**
@@ -1029,7 +1505,8 @@ public class AsyncDsmoqClient {
         requireNotNull(datasetId, "at datasetId in AsyncDsmoqClient#updateFileMetaInfo");
         requireNotNull(fileId, "at fileId in AsyncDsmoqClient#updateFileMetaInfo");
         requireNotNull(param, "at param in AsyncDsmoqClient#updateFileMetaInfo");
-        return CompletableFuture.supplyAsync(() -> client.updateFileMetaInfo(datasetId, fileId, param));
+        return put("/api/datasets/" + datasetId + "/files/" + fileId + "/metadata", param.toJsonString(),
+                JsonUtil::toDatasetFile);
     }
 
     /**
@@ -1046,7 +1523,7 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#updateGroup start : [groupId] = {}, [param] = {}", groupId, param);
         requireNotNull(groupId, "at groupId in AsyncDsmoqClient#updateGroup");
         requireNotNull(param, "at param in AsyncDsmoqClient#updateGroup");
-        return CompletableFuture.supplyAsync(() -> client.updateGroup(groupId, param));
+        return put("/api/groups/" + groupId, param.toJsonString(), JsonUtil::toGroup);
     }
 
     /**
@@ -1062,7 +1539,7 @@ public class AsyncDsmoqClient {
     public CompletableFuture<User> updateProfile(UpdateProfileParam param) {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#updateProfile start : [param] = {}", param);
         requireNotNull(param, "at param in AsyncDsmoqClient#updateProfile");
-        return CompletableFuture.supplyAsync(() -> client.updateProfile(param));
+        return put("/api/profile", param.toJsonString(), JsonUtil::toUser);
     }
 
     /**
@@ -1079,6 +1556,486 @@ public class AsyncDsmoqClient {
         logger.debug(LOG_MARKER, "AsyncDsmoqClient#updateProfileIcon start : [file] = {}",
                 (file == null) ? "null" : file.getName());
         requireNotNull(file, "at file in AsyncDsmoqClient#updateProfileIcon");
-        return CompletableFuture.supplyAsync(() -> client.updateProfileIcon(file));
+        MultipartAsyncEntity entity = new MultipartAsyncEntity.Builder().addBinaryBody("icon", file).build();
+        return post("/api/profile/image", entity, JsonUtil::toUser);
+    }
+
+    /**
+     * このクライアントのメソッドが返したCompletableFutureに、完了の期限を設定する。
+     * 
+     * 期限までに完了しなかった場合、futureはTimeoutExceptionで例外的に完了し、送受信中のリクエストは中断されます。
+     * 同時実行数の制限により送信を待機している場合は、送信されずに完了します。
+     * 
+     * @param <T> 処理結果の型
+     * @param future このクライアントのメソッドが返したCompletableFuture
+     * @param timeout 期限までの時間
+     * @param unit timeoutの単位
+     * @return future
+     * @throws NullPointerException futureまたはunitがnullの場合
+     * @throws IllegalArgumentException timeoutが0未満の場合
+     */
+    public <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#withDeadline start : [timeout] = {}, [unit] = {}", timeout, unit);
+        requireNotNull(future, "at future in AsyncDsmoqClient#withDeadline");
+        requireNotNull(unit, "at unit in AsyncDsmoqClient#withDeadline");
+        requireGreaterOrEqualOrNull(timeout, 0L, "at timeout in AsyncDsmoqClient#withDeadline");
+        if (future.isDone()) {
+            return future;
+        }
+        ScheduledFuture<?> timer;
+        try {
+            timer = deadlineTimer.schedule(() -> {
+                future.completeExceptionally(
+                        new TimeoutException("deadline exceeded: " + unit.toMillis(timeout) + "ms"));
+            }, timeout, unit);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new IllegalStateException("AsyncDsmoqClient is already closed.", e));
+            return future;
+        }
+        future.whenComplete((value, error) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * 接続、認証情報等をこのクライアントと共有し、コールバックを指定したExecutorで実行するクライアントを取得する。
+     * 
+     * 取得したクライアントのメソッドが返すCompletableFutureはexecutor上で完了するため、
+     * 完了後に続けて登録した処理(thenApply等)や、ダウンロードの処理関数はexecutor上で実行されます。
+     * 呼び出しごとにExecutorを切り替える場合に用います。
+     * 取得したクライアントのcloseは何もしません。このクライアントを閉じると、取得したクライアントも利用できなくなります。
+     * 
+     * @param executor コールバックを実行するExecutor
+     * @return executorでコールバックを実行するクライアント
+     * @throws NullPointerException executorがnullの場合
+     */
+    public AsyncDsmoqClient withExecutor(Executor executor) {
+        logger.debug(LOG_MARKER, "AsyncDsmoqClient#withExecutor start : [executor] = {}", executor);
+        requireNotNull(executor, "at executor in AsyncDsmoqClient#withExecutor");
+        return new AsyncDsmoqClient(this, executor);
+    }
+
+    /**
+     * DELETEリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> delete(String url, Function<String, T> responseFunc) {
+        return send(new HttpDelete(client.getBaseUrl() + url), toResponseFunction(responseFunc));
+    }
+
+    /**
+     * ファイルをダウンロードし、処理関数を適用する。
+     * 
+     * レスポンスボディはI/Oスレッド上で一時ファイルに書き出され、受信完了後に処理関数に渡されます。
+     * 処理関数はコールバックを実行するExecutor(指定しない場合クライアントが作成するスレッドプール)で実行され、
+     * 実行後に一時ファイルは削除されます。処理関数はブロックするため、ForkJoinPool.commonPool()では実行しません。
+     * 
+     * @param url 送信先URL
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     * @param nameFunc レスポンスからファイル名を取得する関数
+     * @param fileFunc ファイルデータを処理する関数
+     * @return 処理結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> download(String url, Long from, Long to, Function<HttpResponse, String> nameFunc,
+            Function<DatasetFileContent, T> fileFunc) {
+        Path temp;
+        try {
+            temp = Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        } catch (IOException e) {
+            return failed(DsmoqClient.translateInnerException(e));
+        }
+        HttpGet request = new HttpGet(client.getBaseUrl() + url);
+        setDownloadHeaders(request, from, to);
+        CompletableFuture<HttpResponse> response = send(request, () -> new FileResponseConsumer(temp));
+        CompletableFuture<T> processed = response.thenApplyAsync(res -> {
+            String filename = nameFunc.apply(res);
+            try {
+                return fileFunc.apply(new SpooledDatasetFileContent(temp, filename, DsmoqClient.toRangeOffset(res)));
+            } catch (Exception e) {
+                throw DsmoqClient.translateInnerException(e);
+            }
+        }, blockingExecutor).whenComplete((result, error) -> {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.warn(LOG_MARKER, "failed to delete temporary file: {}", temp, e);
+            }
+        });
+        // 取り消し、期限切れ等で結果が先に完了した場合は、受信を中断する
+        processed.whenComplete((value, error) -> {
+            if (error != null) {
+                response.cancel(false);
+            }
+        });
+        return processed;
+    }
+
+    /**
+     * 例外的に完了したCompletableFutureを作成する。
+     * 
+     * @param e 例外
+     * @return 例外的に完了したCompletableFuture
+     */
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * GETリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> get(String url, Function<String, T> responseFunc) {
+        return send(new HttpGet(client.getBaseUrl() + url), toResponseFunction(responseFunc));
+    }
+
+    /**
+     * GETリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param jsonParam リクエストに付与するJSONパラメータ
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> get(String url, String jsonParam, Function<String, T> responseFunc) {
+        HttpGet request;
+        try {
+            request = new HttpGet(client.getBaseUrl() + url + DsmoqClient.toQueryString(jsonParam));
+        } catch (UnsupportedEncodingException e) {
+            return failed(DsmoqClient.translateInnerException(e));
+        }
+        return send(request, toResponseFunction(responseFunc));
+    }
+
+    /**
+     * HEADリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param responseFunc レスポンス変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> head(String url, ResponseFunction<T> responseFunc) {
+        return send(new HttpHead(client.getBaseUrl() + url), responseFunc);
+    }
+
+    /**
+     * POSTリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> post(String url, Function<String, T> responseFunc) {
+        return post(url, (HttpEntity) null, responseFunc);
+    }
+
+    /**
+     * POSTリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param jsonParam リクエストボディに付与するJSONパラメータ
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> post(String url, String jsonParam, Function<String, T> responseFunc) {
+        return post(url, DsmoqClient.toHttpEntity(jsonParam), responseFunc);
+    }
+
+    /**
+     * POSTリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param entity リクエストボディ、ない場合null
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> post(String url, HttpEntity entity, Function<String, T> responseFunc) {
+        HttpPost request = new HttpPost(client.getBaseUrl() + url);
+        if (entity != null) {
+            request.setEntity(entity);
+        }
+        return send(request, toResponseFunction(responseFunc));
+    }
+
+    /**
+     * PUTリクエストを送信する。
+     * 
+     * @param url 送信先URL
+     * @param jsonParam リクエストボディに付与するJSONパラメータ
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> put(String url, String jsonParam, Function<String, T> responseFunc) {
+        HttpPut request = new HttpPut(client.getBaseUrl() + url);
+        request.setEntity(DsmoqClient.toHttpEntity(jsonParam));
+        return send(request, toResponseFunction(responseFunc));
+    }
+
+    /**
+     * リクエストを送信し、バッファリングしたレスポンスを変換する。
+     * 
+     * @param request リクエスト
+     * @param responseFunc レスポンス変換関数
+     * @return 変換結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> send(HttpUriRequest request, ResponseFunction<T> responseFunc) {
+        return send(request, () -> new BufferedResponseConsumer<>(responseFunc));
+    }
+
+    /**
+     * リクエストを送信する。
+     * 
+     * 返却されるCompletableFutureは、内部で発生した例外を公開用の非検査例外に翻訳して例外的に完了します。
+     * 
+     * @param request リクエスト
+     * @param consumerFactory レスポンス処理を作成する関数
+     * @return レスポンス処理結果のCompletableFuture
+     */
+    private <T> CompletableFuture<T> send(HttpUriRequest request,
+            Supplier<? extends AsyncResponseConsumer<T>> consumerFactory) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        sendWithLimit(request, consumerFactory, result);
+        return executor == null ? result : relay(result, executor);
+    }
+
+    /**
+     * 同時実行数の上限に従ってリクエストを送信する。
+     * 
+     * @param request リクエスト
+     * @param consumerFactory レスポンス処理を作成する関数
+     * @param result レスポンス処理結果で完了させるCompletableFuture
+     */
+    private <T> void sendWithLimit(HttpUriRequest request,
+            Supplier<? extends AsyncResponseConsumer<T>> consumerFactory, CompletableFuture<T> result) {
+        RequestMetricsRecorder recorder = client.newMetricsRecorder();
+        if (recorder != null) {
+            recorder.begin(request);
+        }
+        ConcurrencyLimiter limiter = client.getConcurrencyLimiter();
+        if (limiter == null) {
+            execute(request, consumerFactory, recorder, result, error -> {
+            });
+            return;
+        }
+        // 同時実行数の上限に空きができるまで、呼び出し元のスレッドをブロックせずに待機する
+        EndpointClass endpoint = client.toEndpointClass(request);
+        long queued = System.nanoTime();
+        CompletableFuture<Void> permit = limiter.acquireAsync(endpoint);
+        result.whenComplete((value, error) -> permit.cancel(false));
+        permit.whenComplete((granted, rejected) -> {
+            if (rejected instanceof CancellationException) {
+                return;
+            }
+            if (recorder != null) {
+                recorder.onQueued(System.nanoTime() - queued);
+            }
+            if (rejected != null) {
+                RuntimeException translated = DsmoqClient.translateInnerException((Exception) rejected);
+                DsmoqClient.reportMetrics(recorder, translated);
+                result.completeExceptionally(translated);
+                return;
+            }
+            if (result.isDone()) {
+                // 待機中に取り消された場合は送信しない
+                limiter.cancel(endpoint);
+                return;
+            }
+            long start = System.nanoTime();
+            execute(request, consumerFactory, recorder, result,
+                    error -> limiter.release(endpoint, request, System.nanoTime() - start, error));
+        });
+    }
+
+    /**
+     * CompletableFutureの結果を、指定したExecutor上で完了する別のCompletableFutureに中継する。
+     * 
+     * 中継先を取り消した、あるいは例外的に完了させた場合は、中継元にも反映されます。
+     * executorがタスクを受け付けない場合は、中継元を完了させたスレッドで中継します。
+     * 
+     * @param source 中継元
+     * @param executor 中継先を完了させるExecutor
+     * @return 中継先のCompletableFuture
+     */
+    private static <T> CompletableFuture<T> relay(CompletableFuture<T> source, Executor executor) {
+        CompletableFuture<T> relayed = new CompletableFuture<>();
+        source.whenComplete((value, error) -> {
+            Runnable task = () -> {
+                if (error == null) {
+                    relayed.complete(value);
+                } else if (source.isCancelled()) {
+                    relayed.cancel(false);
+                } else {
+                    relayed.completeExceptionally(error);
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        });
+        relayed.whenComplete((value, error) -> {
+            if (relayed.isCancelled()) {
+                source.cancel(false);
+            } else if (error != null) {
+                source.completeExceptionally(error);
+            }
+        });
+        return relayed;
+    }
+
+    /**
+     * 1つ目のリクエストの結果を使って2つ目のリクエストを送信する、CompletableFutureを作成する。
+     * 
+     * thenComposeと異なり、作成したCompletableFutureを取り消した、あるいは例外的に完了させた場合は、
+     * 送信中のリクエスト(1つ目、あるいはnextが返した2つ目)にも反映され、リクエストは中断されます。
+     * 
+     * @param first 1つ目のリクエストのCompletableFuture
+     * @param next 1つ目の結果を受け取り、2つ目のリクエストを送信する関数
+     * @return 2つ目のリクエストの結果のCompletableFuture
+     */
+    private static <T, U> CompletableFuture<U> compose(CompletableFuture<T> first,
+            Function<? super T, CompletableFuture<U>> next) {
+        // 2つ目のリクエスト、作成したCompletableFutureが先に完了した場合はcompletedを設定する
+        CompletableFuture<U> completed = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<U>> second = new AtomicReference<>();
+        AtomicReference<CompletableFuture<U>> composed = new AtomicReference<>();
+        composed.set(first.thenCompose(value -> {
+            CompletableFuture<U> future = next.apply(value);
+            if (!second.compareAndSet(null, future)) {
+                // 2つ目のリクエストの送信中に、作成したCompletableFutureが完了した
+                propagate(composed.get(), future);
+            }
+            return future;
+        }));
+        composed.get().whenComplete((value, error) -> {
+            if (error == null) {
+                return;
+            }
+            propagate(composed.get(), first);
+            CompletableFuture<U> future = second.getAndSet(completed);
+            if (future != null) {
+                propagate(composed.get(), future);
+            }
+        });
+        return composed.get();
+    }
+
+    /**
+     * 取り消された、あるいは例外的に完了したCompletableFutureの結果を、別のCompletableFutureに反映する。
+     * 
+     * @param source 反映元、完了済みのもの
+     * @param target 反映先、既に完了している場合は何もしない
+     */
+    private static void propagate(CompletableFuture<?> source, CompletableFuture<?> target) {
+        source.whenComplete((value, error) -> {
+            if (source.isCancelled()) {
+                target.cancel(false);
+            } else if (error != null) {
+                target.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * 同時実行数を制限せずにリクエストを送信する。
+     * 
+     * @param request リクエスト
+     * @param consumerFactory レスポンス処理を作成する関数
+     * @param recorder 計測結果の記録先、計測しない場合null
+     * @param result レスポンス処理結果で完了させるCompletableFuture
+     * @param onComplete 送信の完了時に、失敗した場合はその原因(成功した場合null)を受け取る関数
+     */
+    private <T> void execute(HttpUriRequest request, Supplier<? extends AsyncResponseConsumer<T>> consumerFactory,
+            RequestMetricsRecorder recorder, CompletableFuture<T> result, Consumer<Throwable> onComplete) {
+        HttpExchangeMetrics exchange = recorder == null ? null : recorder.newExchange();
+        try {
+            client.addAuthorizationHeader(request);
+            CompletableFuture<T> response = httpClient.execute(request, consumerFactory, exchange);
+            // 取り消し、期限切れ等で結果が先に完了した場合は、送受信を中断する
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    response.cancel(false);
+                }
+            });
+            response.whenComplete((value, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                onComplete.accept(cause);
+                // 成否にかかわらず、更新された可能性のあるリソースのキャッシュを破棄する
+                client.invalidateCache(request);
+                if (recorder != null) {
+                    recorder.onExchangeComplete(exchange, cause);
+                }
+                if (error == null) {
+                    DsmoqClient.reportMetrics(recorder, null);
+                    result.complete(value);
+                } else if (error instanceof CancellationException) {
+                    DsmoqClient.reportMetrics(recorder, error);
+                    result.cancel(false);
+                } else if (result.isCancelled()) {
+                    // 取り消しにより受信を中断した場合は、エラーとして扱わない
+                    DsmoqClient.reportMetrics(recorder, cause);
+                } else {
+                    // 内部で発生した例外を、公開用の非検査例外に翻訳する
+                    Throwable translated = cause instanceof Exception
+                            ? DsmoqClient.translateInnerException((Exception) cause) : cause;
+                    DsmoqClient.reportMetrics(recorder, translated);
+                    result.completeExceptionally(translated);
+                }
+            });
+        } catch (IllegalStateException e) {
+            // クライアントが既に閉じられている場合
+            onComplete.accept(e);
+            DsmoqClient.reportMetrics(recorder, e);
+            result.completeExceptionally(e);
+        } catch (Exception e) {
+            onComplete.accept(e);
+            RuntimeException translated = DsmoqClient.translateInnerException(e);
+            DsmoqClient.reportMetrics(recorder, translated);
+            result.completeExceptionally(translated);
+        }
+    }
+
+    /**
+     * ダウンロード用のリクエストヘッダを設定する。
+     * 
+     * レスポンスボディをそのまま書き出せるよう、圧縮を行わないようサーバに要求します。
+     * 
+     * @param request リクエスト
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     */
+    private static void setDownloadHeaders(HttpUriRequest request, Long from, Long to) {
+        request.setHeader(DsmoqClient.ACCEPT_ENCODING_HEADER_NAME, DsmoqClient.IDENTITY_ENCODING_NAME);
+        if (from != null || to != null) {
+            request.setHeader(DsmoqClient.RANGE_HEADER_NAME, DsmoqClient.toRangeHeaderValue(from, to));
+        }
+    }
+
+    /**
+     * レスポンスボディ変換関数を、レスポンス変換関数に変換する。
+     * 
+     * @param responseFunc レスポンスボディ変換関数
+     * @return レスポンス変換関数
+     */
+    private static <T> ResponseFunction<T> toResponseFunction(Function<String, T> responseFunc) {
+        return response -> responseFunc.apply(DsmoqClient.responseToString(response));
+    }
+
+    /**
+     * アップロードするInputStreamの読み込みを行うExecutorを取得する。
+     * 
+     * @return コールバックを実行するExecutor、指定されていない場合クライアントが作成したスレッドプール
+     */
+    private Executor uploadExecutor() {
+        return blockingExecutor;
     }
 }
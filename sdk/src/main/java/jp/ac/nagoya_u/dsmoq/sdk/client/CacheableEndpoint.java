@@ -0,0 +1,47 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+/**
+ * レスポンスキャッシュの対象にできるAPIを表す列挙型
+ *
+ * 各APIのデフォルトのキャッシュ保持期間はResponseCacheOptions#ttlで変更できます。
+ */
+public enum CacheableEndpoint {
+    /** GET /api/licenses (DsmoqClient#getLicenses) */
+    LICENSES(10 * 60 * 1000L),
+
+    /** GET /api/accounts (DsmoqClient#getAccounts) */
+    ACCOUNTS(60 * 1000L),
+
+    /** GET /api/profile (DsmoqClient#getProfile) */
+    PROFILE(60 * 1000L),
+
+    /** GET /api/datasets/${dataset_id} (DsmoqClient#getDataset) */
+    DATASET(30 * 1000L),
+
+    /** GET /api/datasets/${dataset_id}/files (DsmoqClient#getDatasetFiles) */
+    DATASET_FILES(0L),
+
+    /** GET /api/groups/${group_id} (DsmoqClient#getGroup) */
+    GROUP(30 * 1000L);
+
+    /** デフォルトのキャッシュ保持期間 (ms) */
+    private final long defaultTtl;
+
+    /**
+     * 列挙子を作成する。
+     *
+     * @param defaultTtl デフォルトのキャッシュ保持期間 (ms)、0の場合キャッシュしない
+     */
+    private CacheableEndpoint(long defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * デフォルトのキャッシュ保持期間を取得する。
+     *
+     * @return デフォルトのキャッシュ保持期間 (ms)、0の場合キャッシュしない
+     */
+    public long getDefaultTtl() {
+        return this.defaultTtl;
+    }
+}
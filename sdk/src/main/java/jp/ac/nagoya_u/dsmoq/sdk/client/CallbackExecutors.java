@@ -0,0 +1,73 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
+
+/**
+ * 非同期クライアントのコールバックを実行するExecutorを作成する。
+ *
+ * SDKはJava 8を対象とするため、仮想スレッドのAPIはリフレクションで呼び出します。
+ */
+final class CallbackExecutors {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** メッセージ用のリソースバンドル */
+    private static ResourceBundle resource = ResourceBundle.getBundle("message");
+
+    /** 仮想スレッドのExecutorを作成するメソッド名 (Java 21以降) */
+    private static final String VIRTUAL_THREAD_FACTORY_METHOD = "newVirtualThreadPerTaskExecutor";
+
+    /** スレッドプールが作成するスレッドの名前 */
+    private static final String THREAD_NAME = "dsmoq-async-callback";
+
+    /**
+     * インスタンス化しない。
+     */
+    private CallbackExecutors() {
+    }
+
+    /**
+     * タスクごとに仮想スレッドを作成するExecutorを作成する。
+     *
+     * 実行環境が仮想スレッドに対応していない場合、必要に応じてデーモンスレッドを作成し、アイドル時に破棄するスレッドプールを作成します。
+     *
+     * @return 作成したExecutor
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod(VIRTUAL_THREAD_FACTORY_METHOD);
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_VIRTUAL_THREADS_UNAVAILABLE), e.toString());
+            return newCachedThreadPool();
+        }
+    }
+
+    /**
+     * 必要に応じてデーモンスレッドを作成し、アイドル時に破棄するスレッドプールを作成する。
+     *
+     * ダウンロードの処理関数等、ブロックする処理をForkJoinPool.commonPool()で実行しないために用います。
+     *
+     * @return 作成したExecutor
+     */
+    static ExecutorService newCachedThreadPool() {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
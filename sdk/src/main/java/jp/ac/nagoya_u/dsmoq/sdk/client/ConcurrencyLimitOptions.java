@@ -0,0 +1,166 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+/**
+ * DsmoqClient、AsyncDsmoqClientの同時実行数の制限の動作を指定するオプション
+ *
+ * 同時に送信するリクエスト数の上限を、EndpointClassごとにinitialLimitから開始し、
+ * minLimitからmaxLimitの範囲で加算増加・乗算減少 (AIMD) により調整します。
+ * 上限まで使用している状態でリクエストが成功すると上限を少しずつ増やし、
+ * 接続の失敗、タイムアウト、429、502、503、504のレスポンスを受けると上限を減らします。
+ * METADATAのAPIは、レイテンシが平均の2倍を超えた場合も上限を減らします。
+ *
+ * 上限を超えたリクエストは最大maxQueueSize件まで待機し、queueTimeoutを過ぎても送信できない場合は
+ * TimeoutExceptionとなります。待機数がmaxQueueSizeを超えた場合は、直ちにApiFailedExceptionとなります。
+ */
+public class ConcurrencyLimitOptions {
+    /** デフォルトの同時実行数の初期値 */
+    public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+    /** デフォルトの同時実行数の下限 */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /** デフォルトの同時実行数の上限 */
+    public static final int DEFAULT_MAX_LIMIT = 64;
+
+    /** デフォルトの最大待機数 */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+
+    /** デフォルトの待機時間の上限 (ms) */
+    public static final long DEFAULT_QUEUE_TIMEOUT = 60 * 1000;
+
+    /** 同時実行数の初期値 */
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+
+    /** 同時実行数の下限 */
+    private int minLimit = DEFAULT_MIN_LIMIT;
+
+    /** 同時実行数の上限 */
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+
+    /** 最大待機数 */
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+    /** 待機時間の上限 (ms) */
+    private long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+
+    /**
+     * 同時実行数の初期値を設定する。
+     *
+     * @param initialLimit 同時実行数の初期値
+     * @return このオプション
+     * @throws IllegalArgumentException initialLimitが1未満の場合
+     */
+    public ConcurrencyLimitOptions initialLimit(int initialLimit) {
+        requireGreaterOrEqualOrNull(initialLimit, 1, "at initialLimit in ConcurrencyLimitOptions#initialLimit");
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    /**
+     * 同時実行数の下限を設定する。
+     *
+     * @param minLimit 同時実行数の下限
+     * @return このオプション
+     * @throws IllegalArgumentException minLimitが1未満の場合
+     */
+    public ConcurrencyLimitOptions minLimit(int minLimit) {
+        requireGreaterOrEqualOrNull(minLimit, 1, "at minLimit in ConcurrencyLimitOptions#minLimit");
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    /**
+     * 同時実行数の上限を設定する。
+     *
+     * @param maxLimit 同時実行数の上限
+     * @return このオプション
+     * @throws IllegalArgumentException maxLimitが1未満の場合
+     */
+    public ConcurrencyLimitOptions maxLimit(int maxLimit) {
+        requireGreaterOrEqualOrNull(maxLimit, 1, "at maxLimit in ConcurrencyLimitOptions#maxLimit");
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    /**
+     * 最大待機数を設定する。
+     *
+     * @param maxQueueSize 最大待機数、0の場合待機せずに失敗させる
+     * @return このオプション
+     * @throws IllegalArgumentException maxQueueSizeが0未満の場合
+     */
+    public ConcurrencyLimitOptions maxQueueSize(int maxQueueSize) {
+        requireGreaterOrEqualOrNull(maxQueueSize, 0, "at maxQueueSize in ConcurrencyLimitOptions#maxQueueSize");
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * 待機時間の上限を設定する。
+     *
+     * AsyncDsmoqClientのリクエストには適用されません。(待機数の上限のみ適用されます)
+     *
+     * @param queueTimeout 待機時間の上限 (ms)、0の場合無期限
+     * @return このオプション
+     * @throws IllegalArgumentException queueTimeoutが0未満の場合
+     */
+    public ConcurrencyLimitOptions queueTimeout(long queueTimeout) {
+        requireGreaterOrEqualOrNull(queueTimeout, 0L, "at queueTimeout in ConcurrencyLimitOptions#queueTimeout");
+        this.queueTimeout = queueTimeout;
+        return this;
+    }
+
+    /**
+     * 同時実行数の初期値を取得する。
+     *
+     * @return 同時実行数の初期値 (下限、上限の範囲に収めた値)
+     */
+    public int getInitialLimit() {
+        return Math.max(getMinLimit(), Math.min(getMaxLimit(), this.initialLimit));
+    }
+
+    /**
+     * 同時実行数の下限を取得する。
+     *
+     * @return 同時実行数の下限
+     */
+    public int getMinLimit() {
+        return this.minLimit;
+    }
+
+    /**
+     * 同時実行数の上限を取得する。
+     *
+     * @return 同時実行数の上限、下限より小さい場合は下限
+     */
+    public int getMaxLimit() {
+        return Math.max(this.minLimit, this.maxLimit);
+    }
+
+    /**
+     * 最大待機数を取得する。
+     *
+     * @return 最大待機数
+     */
+    public int getMaxQueueSize() {
+        return this.maxQueueSize;
+    }
+
+    /**
+     * 待機時間の上限を取得する。
+     *
+     * @return 待機時間の上限 (ms)、0の場合無期限
+     */
+    public long getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ConcurrencyLimitOptions(initialLimit=%d, minLimit=%d, maxLimit=%d, maxQueueSize=%d, queueTimeout=%d)",
+                this.initialLimit, this.minLimit, this.maxLimit, this.maxQueueSize, this.queueTimeout);
+    }
+}
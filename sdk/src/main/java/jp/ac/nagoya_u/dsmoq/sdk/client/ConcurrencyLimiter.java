@@ -0,0 +1,343 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * APIの種別ごとに、同時に送信するリクエスト数を加算増加・乗算減少 (AIMD) で調整しながら制限する。
+ *
+ * 同じDsmoqClientBuilderから作成されたDsmoqClient、AsyncDsmoqClientの間で共有されます。
+ */
+class ConcurrencyLimiter {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** 輻輳時に上限に乗じる値 */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /** 輻輳とみなす、直近のレイテンシの長期的なレイテンシに対する倍率 */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /** 直近のレイテンシの指数移動平均の平滑化係数 */
+    private static final double SHORT_LATENCY_SMOOTHING = 0.2;
+
+    /** 長期的なレイテンシの指数移動平均の平滑化係数 */
+    private static final double LONG_LATENCY_SMOOTHING = 0.01;
+
+    /**
+     * 1種別分の同時実行数の制限
+     */
+    private static class Limit {
+        /** 種別 */
+        private final EndpointClass endpoint;
+
+        /** オプション */
+        private final ConcurrencyLimitOptions options;
+
+        /** 現在の上限 (小数部は加算増加の途中経過) */
+        private double limit;
+
+        /** 送信中のリクエスト数 */
+        private int inFlight;
+
+        /** 許可を待つリクエスト (到着順) */
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+        /** 成功したリクエストの直近のレイテンシの指数移動平均 (ns)、未計測の場合0 */
+        private double shortLatency;
+
+        /** 成功したリクエストの長期的なレイテンシの指数移動平均 (ns)、未計測の場合0 */
+        private double longLatency;
+
+        /** 前回上限を減らしてから完了したリクエスト数 */
+        private int sinceDecrease;
+
+        /**
+         * 制限を作成する。
+         *
+         * @param endpoint 種別
+         * @param options オプション
+         */
+        Limit(EndpointClass endpoint, ConcurrencyLimitOptions options) {
+            this.endpoint = endpoint;
+            this.options = options;
+            this.limit = options.getInitialLimit();
+        }
+
+        /**
+         * 送信の許可を要求する。
+         *
+         * @return 許可された時点で完了するCompletableFuture
+         *         (待機数が上限を超えた場合はRejectedExecutionExceptionで例外的に完了する)
+         */
+        synchronized CompletableFuture<Void> acquire() {
+            if (this.waiters.isEmpty() && this.inFlight < (int) this.limit) {
+                this.inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> permit = new CompletableFuture<>();
+            if (this.waiters.size() >= this.options.getMaxQueueSize()) {
+                // 待機を取りやめたリクエストを除いて数え直す
+                this.waiters.removeIf(CompletableFuture::isDone);
+            }
+            if (this.waiters.size() >= this.options.getMaxQueueSize()) {
+                permit.completeExceptionally(new RejectedExecutionException(String.format(
+                        "Too many queued requests: [endpoint] = %s, [limit] = %d, [queued] = %d", this.endpoint,
+                        (int) this.limit, this.waiters.size())));
+                return permit;
+            }
+            this.waiters.add(permit);
+            return permit;
+        }
+
+        /**
+         * 許可を返却し、リクエストの結果から上限を調整する。
+         *
+         * @param latency レイテンシ (ns)
+         * @param congested 輻輳を示す失敗の場合true
+         */
+        void release(long latency, boolean congested) {
+            List<CompletableFuture<Void>> granted;
+            synchronized (this) {
+                this.inFlight--;
+                adjust(latency, congested);
+                granted = grant();
+            }
+            complete(granted);
+        }
+
+        /**
+         * 使用しなかった許可を、上限を調整せずに返却する。
+         */
+        void cancel() {
+            List<CompletableFuture<Void>> granted;
+            synchronized (this) {
+                this.inFlight--;
+                granted = grant();
+            }
+            complete(granted);
+        }
+
+        /**
+         * 現在の上限を取得する。
+         *
+         * @return 現在の上限
+         */
+        synchronized int getLimit() {
+            return (int) this.limit;
+        }
+
+        /**
+         * リクエストの結果から上限を調整する。
+         *
+         * @param latency レイテンシ (ns)
+         * @param congested 輻輳を示す失敗の場合true
+         */
+        private void adjust(long latency, boolean congested) {
+            if (!congested) {
+                this.shortLatency = this.shortLatency == 0 ? latency
+                        : this.shortLatency + (latency - this.shortLatency) * SHORT_LATENCY_SMOOTHING;
+                this.longLatency = this.longLatency == 0 ? latency
+                        : this.longLatency + (latency - this.longLatency) * LONG_LATENCY_SMOOTHING;
+                // 直近のレイテンシが長期的なレイテンシから大きく悪化した場合は、サーバ側で待ちが発生しているとみなす
+                congested = this.endpoint == EndpointClass.METADATA
+                        && this.shortLatency > this.longLatency * LATENCY_TOLERANCE;
+            }
+            double previous = this.limit;
+            this.sinceDecrease++;
+            if (congested) {
+                // 減らす前に送信されたリクエストの結果で重ねて減らさないよう、上限分のリクエストの完了を待って再度減らす
+                if (this.sinceDecrease >= (int) this.limit) {
+                    this.limit = Math.max(this.options.getMinLimit(), this.limit * BACKOFF_RATIO);
+                    this.sinceDecrease = 0;
+                }
+            } else if ((this.inFlight + 1) * 2 >= this.limit) {
+                // 上限の半分以上を使用している場合のみ増やす (上限まで使用しない負荷で上限が増え続けないようにする)
+                this.limit = Math.min(this.options.getMaxLimit(), this.limit + 1.0 / this.limit);
+            }
+            if ((int) previous != (int) this.limit) {
+                logger.debug(LOG_MARKER, "ConcurrencyLimiter#adjust : [endpoint] = {}, [limit] = {} -> {}",
+                        this.endpoint, (int) previous, (int) this.limit);
+            }
+        }
+
+        /**
+         * 上限に空きがある分だけ、待機中のリクエストに許可を割り当てる。
+         *
+         * @return 許可を割り当てたCompletableFuture
+         */
+        private List<CompletableFuture<Void>> grant() {
+            List<CompletableFuture<Void>> granted = new ArrayList<>();
+            while (this.inFlight < (int) this.limit && !this.waiters.isEmpty()) {
+                CompletableFuture<Void> permit = this.waiters.poll();
+                if (!permit.isDone()) {
+                    this.inFlight++;
+                    granted.add(permit);
+                }
+            }
+            return granted;
+        }
+
+        /**
+         * 許可を割り当てたCompletableFutureを完了させる。
+         *
+         * 待機を取りやめていた場合は、割り当てた許可を返却する。
+         *
+         * @param granted 許可を割り当てたCompletableFuture
+         */
+        private void complete(List<CompletableFuture<Void>> granted) {
+            for (CompletableFuture<Void> permit : granted) {
+                if (!permit.complete(null)) {
+                    cancel();
+                }
+            }
+        }
+    }
+
+    /** 種別ごとの制限 */
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+
+    /** 待機時間の上限 (ms)、0の場合無期限 */
+    private final long queueTimeout;
+
+    /**
+     * オプションを指定して作成する。
+     *
+     * @param options オプション
+     */
+    ConcurrencyLimiter(ConcurrencyLimitOptions options) {
+        // 作成後のオプションの変更が反映されないよう複製する
+        ConcurrencyLimitOptions copy = new ConcurrencyLimitOptions().initialLimit(options.getInitialLimit())
+                .minLimit(options.getMinLimit()).maxLimit(options.getMaxLimit())
+                .maxQueueSize(options.getMaxQueueSize()).queueTimeout(options.getQueueTimeout());
+        for (EndpointClass endpoint : EndpointClass.values()) {
+            this.limits.put(endpoint, new Limit(endpoint, copy));
+        }
+        this.queueTimeout = copy.getQueueTimeout();
+    }
+
+    /**
+     * 送信の許可を要求する。
+     *
+     * @param endpoint 種別
+     * @return 許可された時点で完了するCompletableFuture
+     *         (待機数が上限を超えた場合はRejectedExecutionExceptionで例外的に完了する)
+     */
+    CompletableFuture<Void> acquireAsync(EndpointClass endpoint) {
+        return this.limits.get(endpoint).acquire();
+    }
+
+    /**
+     * 送信が許可されるまで待機する。
+     *
+     * @param endpoint 種別
+     * @throws RejectedExecutionException 待機数が上限を超えた場合
+     * @throws TimeoutException 待機時間の上限を過ぎた場合
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    void acquire(EndpointClass endpoint) throws TimeoutException, InterruptedException {
+        CompletableFuture<Void> permit = acquireAsync(endpoint);
+        try {
+            if (this.queueTimeout == 0) {
+                permit.get();
+            } else {
+                permit.get(this.queueTimeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (ExecutionException e) {
+            throw (RejectedExecutionException) e.getCause();
+        } catch (TimeoutException | InterruptedException e) {
+            // 取りやめる前に許可された場合は、許可を返却する
+            if (!permit.cancel(false)) {
+                this.limits.get(endpoint).cancel();
+            }
+            if (e instanceof TimeoutException) {
+                throw new TimeoutException(String.format("Timed out waiting for a concurrency permit: "
+                        + "[endpoint] = %s, [queueTimeout] = %dms", endpoint, this.queueTimeout));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 許可を返却し、リクエストの結果から上限を調整する。
+     *
+     * @param endpoint 種別
+     * @param latency レイテンシ (ns)
+     * @param congested 輻輳を示す失敗の場合true
+     */
+    void release(EndpointClass endpoint, long latency, boolean congested) {
+        this.limits.get(endpoint).release(latency, congested);
+    }
+
+    /**
+     * 許可を返却し、送信したリクエストの結果から上限を調整する。
+     *
+     * 中断されたリクエスト(ヘッジの決着、期限切れ、取り消し、クライアントのclose)は、
+     * サーバの状態を示さないため、上限を調整せずに返却します。
+     *
+     * @param endpoint 種別
+     * @param request 送信したリクエスト
+     * @param latency レイテンシ (ns)
+     * @param error リクエストが失敗した原因、成功した場合null
+     */
+    void release(EndpointClass endpoint, HttpUriRequest request, long latency, Throwable error) {
+        if (request.isAborted() || isAbort(error)) {
+            cancel(endpoint);
+            return;
+        }
+        release(endpoint, latency, error != null && RetryExecutor.isRetryable(error));
+    }
+
+    /**
+     * 使用しなかった許可を、上限を調整せずに返却する。
+     *
+     * @param endpoint 種別
+     */
+    void cancel(EndpointClass endpoint) {
+        this.limits.get(endpoint).cancel();
+    }
+
+    /**
+     * リクエストの中断による失敗かを返す。
+     *
+     * @param error リクエストが失敗した原因、成功した場合null
+     * @return 中断による失敗の場合true
+     */
+    private static boolean isAbort(Throwable error) {
+        Throwable t = error;
+        while (t instanceof CompletionException || t instanceof ExecutionException) {
+            t = t.getCause();
+        }
+        return t instanceof RequestAbortedException || t instanceof CancellationException;
+    }
+
+    /**
+     * 現在の同時実行数の上限を取得する。
+     *
+     * @param endpoint 種別
+     * @return 現在の上限
+     */
+    int getLimit(EndpointClass endpoint) {
+        return this.limits.get(endpoint).getLimit();
+    }
+}
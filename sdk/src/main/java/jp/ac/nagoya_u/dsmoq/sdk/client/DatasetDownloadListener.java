@@ -0,0 +1,21 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadProgress;
+
+/**
+ * DsmoqClient#downloadDatasetの進捗を受け取るリスナー
+ *
+ * DatasetDownloadOptions#listenerで設定します。
+ * 通知はダウンロードを行うスレッドで同期的に行われるため、ブロックする処理や時間のかかる処理を行ってはいけません。
+ * 複数のスレッドから同時に呼び出されるため、スレッドセーフに実装してください。
+ * 送出した例外はログに出力され、ダウンロードには影響しません。
+ */
+@FunctionalInterface
+public interface DatasetDownloadListener {
+    /**
+     * ファイルの完了、スキップ時、および受信中に一定間隔で呼び出される。
+     *
+     * @param progress 通知時点の進捗
+     */
+    void onProgress(DatasetDownloadProgress progress);
+}
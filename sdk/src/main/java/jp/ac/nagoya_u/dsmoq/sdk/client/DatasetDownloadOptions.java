@@ -0,0 +1,186 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+/**
+ * DsmoqClient#downloadDatasetの動作を指定するオプション
+ *
+ * ファイル一覧を取得した後、サイズの大きい順にダウンロードします。
+ * splitThreshold以上のファイルは一つずつ、parallelism個のRange指定リクエストに分割して取得します。
+ * それより小さいファイルはbatchSize程度ごとにまとめ、parallelism個のスレッドでまとめごとに並列に取得します。
+ * いずれの場合も、同時に送信するリクエスト数はparallelism以下です。
+ */
+public class DatasetDownloadOptions {
+    /** デフォルトの並列数 */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** デフォルトの分割してダウンロードするファイルサイズの閾値 (64MB) */
+    public static final long DEFAULT_SPLIT_THRESHOLD = 64L * 1024 * 1024;
+
+    /** デフォルトのまとめて1スレッドでダウンロードする小さなファイルの合計サイズ (8MB) */
+    public static final long DEFAULT_BATCH_SIZE = 8L * 1024 * 1024;
+
+    /** デフォルトの進捗を通知する最小間隔 (ms) */
+    public static final long DEFAULT_PROGRESS_INTERVAL = 1000;
+
+    /** 並列数 */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /** 分割してダウンロードするファイルサイズの閾値 */
+    private long splitThreshold = DEFAULT_SPLIT_THRESHOLD;
+
+    /** まとめて1スレッドでダウンロードする小さなファイルの合計サイズ */
+    private long batchSize = DEFAULT_BATCH_SIZE;
+
+    /** 同じサイズのファイルが既に存在する場合にスキップするか否か */
+    private boolean skipExisting = true;
+
+    /** 進捗を通知するリスナー、通知しない場合null */
+    private DatasetDownloadListener listener = null;
+
+    /** 進捗を通知する最小間隔 (ms) */
+    private long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+
+    /**
+     * 並列数を設定する。
+     *
+     * @param parallelism 並列数 (同時に送信するリクエスト数の上限)
+     * @return このオプション
+     * @throws IllegalArgumentException parallelismが1未満の場合
+     */
+    public DatasetDownloadOptions parallelism(int parallelism) {
+        requireGreaterOrEqualOrNull(parallelism, 1, "at parallelism in DatasetDownloadOptions#parallelism");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Range指定リクエストに分割してダウンロードするファイルサイズの閾値を設定する。
+     *
+     * @param splitThreshold 閾値 (byte)
+     * @return このオプション
+     * @throws IllegalArgumentException splitThresholdが1未満の場合
+     */
+    public DatasetDownloadOptions splitThreshold(long splitThreshold) {
+        requireGreaterOrEqualOrNull(splitThreshold, 1L, "at splitThreshold in DatasetDownloadOptions#splitThreshold");
+        this.splitThreshold = splitThreshold;
+        return this;
+    }
+
+    /**
+     * 小さなファイルをまとめて1スレッドでダウンロードする際の、まとめる合計サイズを設定する。
+     *
+     * @param batchSize 合計サイズ (byte)
+     * @return このオプション
+     * @throws IllegalArgumentException batchSizeが1未満の場合
+     */
+    public DatasetDownloadOptions batchSize(long batchSize) {
+        requireGreaterOrEqualOrNull(batchSize, 1L, "at batchSize in DatasetDownloadOptions#batchSize");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 書き出し先に同じ名前、同じサイズのファイルが既に存在する場合に、ダウンロードをスキップするかを設定する。
+     *
+     * 一覧のファイル名のファイルが存在しない場合は、HEADリクエストでContent-Dispositionのファイル名を取得し、
+     * その名前のファイルを確認します。(書き出し先ディレクトリが空の場合は確認しません)
+     *
+     * @param skipExisting スキップする場合true
+     * @return このオプション
+     */
+    public DatasetDownloadOptions skipExisting(boolean skipExisting) {
+        this.skipExisting = skipExisting;
+        return this;
+    }
+
+    /**
+     * 進捗を通知するリスナーを設定する。
+     *
+     * @param listener リスナー、通知しない場合null
+     * @return このオプション
+     */
+    public DatasetDownloadOptions listener(DatasetDownloadListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 受信中に進捗を通知する最小間隔を設定する。
+     *
+     * ファイルの完了、スキップ時はこの間隔によらず通知します。
+     *
+     * @param progressInterval 最小間隔 (ms)
+     * @return このオプション
+     * @throws IllegalArgumentException progressIntervalが0未満の場合
+     */
+    public DatasetDownloadOptions progressInterval(long progressInterval) {
+        requireGreaterOrEqualOrNull(progressInterval, 0L,
+                "at progressInterval in DatasetDownloadOptions#progressInterval");
+        this.progressInterval = progressInterval;
+        return this;
+    }
+
+    /**
+     * 並列数を取得する。
+     *
+     * @return 並列数
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * 分割してダウンロードするファイルサイズの閾値を取得する。
+     *
+     * @return 閾値 (byte)
+     */
+    public long getSplitThreshold() {
+        return this.splitThreshold;
+    }
+
+    /**
+     * 小さなファイルをまとめる合計サイズを取得する。
+     *
+     * @return 合計サイズ (byte)
+     */
+    public long getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * 既に存在するファイルのダウンロードをスキップするかを取得する。
+     *
+     * @return スキップする場合true
+     */
+    public boolean isSkipExisting() {
+        return this.skipExisting;
+    }
+
+    /**
+     * 進捗を通知するリスナーを取得する。
+     *
+     * @return リスナー、通知しない場合null
+     */
+    public DatasetDownloadListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * 進捗を通知する最小間隔を取得する。
+     *
+     * @return 最小間隔 (ms)
+     */
+    public long getProgressInterval() {
+        return this.progressInterval;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DatasetDownloadOptions(parallelism=%d, splitThreshold=%d, batchSize=%d, skipExisting=%b, "
+                        + "listener=%s, progressInterval=%d)",
+                this.parallelism, this.splitThreshold, this.batchSize, this.skipExisting, this.listener,
+                this.progressInterval);
+    }
+}
@@ -0,0 +1,417 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadProgress;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
+
+/**
+ * データセットの全ファイルを、並列数を制限しながらディレクトリへダウンロードするダウンローダ
+ *
+ * ファイル一覧をページごとに取得した後、サイズの大きい順に並べます。
+ * 閾値以上のファイルは一つずつ、並列数分のRange指定リクエストに分割して取得します。
+ * 残りの小さなファイルは合計サイズが一定程度になるようまとめ、並列数分のスレッドでまとめごとに取得します。
+ * ファイルサイズは一覧から得られるため、個々のファイルのHEADリクエストは送信しません。
+ *
+ * 各ファイルは一時ファイル (ファイル名 + .dsmoq-part) へ書き込み、完了後にファイル名を変更します。
+ * そのため、中断した場合に書きかけのファイルが完了したファイルとしてスキップされることはありません。
+ */
+class DatasetDownloader {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** メッセージ用のリソースバンドル */
+    private static ResourceBundle resource = ResourceBundle.getBundle("message");
+
+    /** 書き込み中のファイルに付ける拡張子 */
+    static final String PART_SUFFIX = ".dsmoq-part";
+
+    /**
+     * ダウンロードするファイル
+     */
+    private static class Entry {
+        /** ファイル */
+        private final DatasetFile file;
+
+        /** ファイルサイズ、不明な場合-1 */
+        private final long size;
+
+        /** 書き出し先ファイル */
+        private final Path target;
+
+        /**
+         * ダウンロードするファイルを作成する。
+         *
+         * @param file ファイル
+         * @param target 書き出し先ファイル
+         */
+        Entry(DatasetFile file, Path target) {
+            this.file = file;
+            // DatasetFile#getSizeはScala側の型の都合でObjectとして公開されている
+            Object size = file.getSize();
+            this.size = size instanceof Number ? ((Number) size).longValue() : -1;
+            this.target = target;
+        }
+    }
+
+    /** クライアント */
+    private final DsmoqClient client;
+
+    /** DatasetID */
+    private final String datasetId;
+
+    /** 書き出し先ディレクトリ */
+    private final Path targetDir;
+
+    /** オプション */
+    private final DatasetDownloadOptions options;
+
+    /** 書き出し先として割り当て済みのファイル */
+    private final Set<Path> claimed = new HashSet<>();
+
+    /** ダウンロードした各ファイルの結果 */
+    private final List<DownloadResult> results = Collections.synchronizedList(new ArrayList<>());
+
+    /** スキップしたファイル */
+    private final List<Path> skipped = new ArrayList<>();
+
+    /** 受信したバイト数 */
+    private final AtomicLong downloadedBytes = new AtomicLong();
+
+    /** ダウンロードが完了したファイル数 */
+    private final AtomicInteger completedFiles = new AtomicInteger();
+
+    /** 最後に進捗を通知した時刻 (ns) */
+    private final AtomicLong lastNotified = new AtomicLong();
+
+    /** ダウンロード対象のファイル数 */
+    private volatile int totalFiles;
+
+    /** ダウンロードするファイルの合計サイズ */
+    private volatile long totalBytes;
+
+    /** 開始時刻 (ns) */
+    private long start;
+
+    /** いずれかのスレッドで処理が失敗したか否か */
+    private volatile boolean aborted;
+
+    /**
+     * ダウンローダを作成する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param targetDir 書き出し先ディレクトリ
+     * @param options オプション
+     */
+    DatasetDownloader(DsmoqClient client, String datasetId, Path targetDir, DatasetDownloadOptions options) {
+        this.client = client;
+        this.datasetId = datasetId;
+        this.targetDir = targetDir;
+        this.options = options;
+    }
+
+    /**
+     * ダウンロードを実行する。
+     *
+     * @return ダウンロード結果
+     * @throws IOException 書き出し先の操作に失敗した場合
+     * @throws RuntimeException リクエストが失敗した場合、DsmoqClientの各メソッドと同じ例外
+     */
+    DatasetDownloadResult download() throws IOException {
+        this.start = System.nanoTime();
+        Files.createDirectories(this.targetDir);
+        List<DatasetFile> files;
+        try (Stream<DatasetFile> stream = this.client.streamDatasetFiles(this.datasetId, new PageOptions())) {
+            files = stream.collect(Collectors.toList());
+        }
+        // 書き出し先が空であれば、前回の実行で書き出したファイルを探す必要はない
+        boolean resolveExisting = this.options.isSkipExisting() && !isEmptyDirectory(this.targetDir);
+        List<Entry> entries = new ArrayList<>();
+        for (DatasetFile file : files) {
+            Entry entry = new Entry(file, claim(file.getName(), file.getId()));
+            if (resolveExisting && entry.size >= 0 && !isComplete(entry.target, entry.size)) {
+                // 前回の実行でContent-Dispositionのファイル名に変更して書き出している場合は、変更後の名前で探す
+                Path renamed = rename(entry.target, this.client.getDownloadFileName(this.datasetId, file.getId()));
+                entry = new Entry(file, renamed);
+            }
+            if (this.options.isSkipExisting() && entry.size >= 0 && isComplete(entry.target, entry.size)) {
+                this.skipped.add(entry.target);
+            } else {
+                entries.add(entry);
+            }
+        }
+        this.totalFiles = files.size();
+        this.totalBytes = entries.stream().mapToLong(x -> Math.max(0, x.size)).sum();
+        entries.sort(Comparator.comparingLong((Entry x) -> x.size).reversed());
+        logger.debug(LOG_MARKER,
+                "DatasetDownloader#download : [files] = {}, [skipped] = {}, [totalBytes] = {}, [options] = {}",
+                files.size(), this.skipped.size(), this.totalBytes, this.options);
+        notifyProgress(true);
+        int index = 0;
+        // 大きなファイルは一つずつ、全ての並列数を用いて分割して取得する
+        for (; index < entries.size() && entries.get(index).size >= this.options.getSplitThreshold(); index++) {
+            download(entries.get(index), this.options.getParallelism());
+        }
+        runBatches(FileBatches.split(entries.subList(index, entries.size()), x -> x.size,
+                this.options.getBatchSize()));
+        notifyProgress(true);
+        return new DatasetDownloadResult(this.targetDir, new ArrayList<>(this.results), this.skipped,
+                this.downloadedBytes.get(), elapsed());
+    }
+
+    /**
+     * まとめたファイルを、並列数分のスレッドでまとめごとに取得し、全ての完了を待つ。
+     *
+     * @param batches まとめたファイルの一覧
+     * @throws IOException 書き出し先の操作に失敗した場合
+     */
+    private void runBatches(List<List<Entry>> batches) throws IOException {
+        if (batches.isEmpty()) {
+            return;
+        }
+        int workers = Math.min(this.options.getParallelism(), batches.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-dataset-download-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Entry> batch : batches) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        for (Entry entry : batch) {
+                            if (this.aborted) {
+                                break;
+                            }
+                            download(entry, 1);
+                        }
+                        return null;
+                    } catch (IOException | RuntimeException e) {
+                        // 他のスレッドに処理の中断を通知する
+                        this.aborted = true;
+                        throw e;
+                    }
+                }));
+            }
+            Exception failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause()
+                                : new ApiFailedException(e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure != null) {
+                throw new ApiFailedException(failure.getMessage(), failure);
+            }
+        } catch (InterruptedException e) {
+            this.aborted = true;
+            Thread.currentThread().interrupt();
+            throw new ApiFailedException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * ファイルを一時ファイルへダウンロードし、完了後に書き出し先へ移動する。
+     *
+     * @param entry ファイル
+     * @param parallelism 並列数
+     * @throws IOException 書き出し先の操作に失敗した場合
+     */
+    private void download(Entry entry, int parallelism) throws IOException {
+        Path part = entry.target.resolveSibling(entry.target.getFileName() + PART_SUFFIX);
+        DownloadResult result = new RangeDownloader(this.client, this.datasetId, entry.file.getId(), part,
+                new DownloadOptions().parallelism(parallelism)).progress(this::onWritten)
+                        .download(entry.size < 0 ? null : entry.size);
+        Path target = rename(entry.target, result.getName());
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        String name = result.getName() == null ? entry.file.getName() : result.getName();
+        this.results.add(new DownloadResult(target, name, result.getSize(), result.getRequestCount(), 0L));
+        this.completedFiles.incrementAndGet();
+        notifyProgress(true);
+    }
+
+    /**
+     * 書き出し先に、指定したサイズのファイルが既に存在するかを返す。
+     *
+     * @param target 書き出し先ファイル
+     * @param size ファイルサイズ
+     * @return 存在する場合true
+     * @throws IOException ファイルサイズの取得に失敗した場合
+     */
+    private static boolean isComplete(Path target, long size) throws IOException {
+        return Files.isRegularFile(target) && Files.size(target) == size;
+    }
+
+    /**
+     * ディレクトリが空かを返す。
+     *
+     * @param dir ディレクトリ
+     * @return 空の場合true
+     * @throws IOException ディレクトリの読み込みに失敗した場合
+     */
+    private static boolean isEmptyDirectory(Path dir) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            return !children.findAny().isPresent();
+        }
+    }
+
+    /**
+     * ファイル名から書き出し先ファイルを割り当てる。
+     *
+     * ファイル名のディレクトリ部分は除きます。
+     * 同じ名前のファイルが既に割り当てられている場合は、拡張子の前にファイルIDを付けます。
+     * (同じデータセットに対して再実行した場合も、同じファイルには同じ名前が割り当てられます)
+     *
+     * @param name ファイル名
+     * @param fileId ファイルID
+     * @return 書き出し先ファイル
+     */
+    private synchronized Path claim(String name, String fileId) {
+        String base = sanitize(name);
+        Path target = this.targetDir.resolve(base == null ? fileId : base);
+        if (!this.claimed.add(target)) {
+            int dot = base == null ? -1 : base.lastIndexOf('.');
+            String unique = dot <= 0 ? String.format("%s_%s", base, fileId)
+                    : String.format("%s_%s%s", base.substring(0, dot), fileId, base.substring(dot));
+            target = this.targetDir.resolve(unique);
+            this.claimed.add(target);
+        }
+        return target;
+    }
+
+    /**
+     * Content-Dispositionのファイル名が一覧のファイル名と異なる場合、書き出し先をContent-Dispositionのファイル名に変更する。
+     *
+     * 変更後の名前が他のファイルに割り当て済みの場合は変更しません。
+     *
+     * @param target 割り当て済みの書き出し先ファイル
+     * @param name Content-Dispositionのファイル名、ない場合null
+     * @return 書き出し先ファイル
+     */
+    private synchronized Path rename(Path target, String name) {
+        String base = sanitize(name);
+        if (base == null || target.getFileName().toString().equals(base)) {
+            return target;
+        }
+        Path renamed = this.targetDir.resolve(base);
+        if (!this.claimed.add(renamed)) {
+            return target;
+        }
+        this.claimed.remove(target);
+        return renamed;
+    }
+
+    /**
+     * ファイル名から、書き出し先ディレクトリの外を指しうる部分を除く。
+     *
+     * @param name ファイル名
+     * @return ディレクトリ部分を除いたファイル名、ファイル名として使えない場合null
+     */
+    private static String sanitize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String base = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1).trim();
+        if (base.isEmpty() || base.equals(".") || base.equals("..") || base.endsWith(PART_SUFFIX)) {
+            return null;
+        }
+        return base;
+    }
+
+    /**
+     * 書き込んだバイト数を集計する。
+     *
+     * @param bytes 書き込んだバイト数
+     */
+    private void onWritten(long bytes) {
+        this.downloadedBytes.addAndGet(bytes);
+        notifyProgress(false);
+    }
+
+    /**
+     * リスナーに進捗を通知する。
+     *
+     * @param force 通知間隔によらず通知する場合true
+     */
+    private void notifyProgress(boolean force) {
+        DatasetDownloadListener listener = this.options.getListener();
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = this.lastNotified.get();
+        if (force) {
+            this.lastNotified.set(now);
+        } else if (now - last < TimeUnit.MILLISECONDS.toNanos(this.options.getProgressInterval())
+                || !this.lastNotified.compareAndSet(last, now)) {
+            return;
+        }
+        DatasetDownloadProgress progress = new DatasetDownloadProgress(this.totalFiles, this.completedFiles.get(),
+                this.skipped.size(), this.totalBytes, this.downloadedBytes.get(), elapsed());
+        try {
+            listener.onProgress(progress);
+        } catch (RuntimeException e) {
+            // リスナーの失敗はダウンロードに影響させない
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_DOWNLOAD_LISTENER_FAILED), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 開始からの経過時間を取得する。
+     *
+     * @return 経過時間 (ms)
+     */
+    private long elapsed() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start);
+    }
+}
@@ -0,0 +1,181 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+import java.nio.file.Path;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+
+/**
+ * DsmoqClient#syncDirectoryの動作を指定するオプション
+ *
+ * 状態ファイルを指定した場合、前回の同期時のファイルサイズ、更新日時、チェックサムを記録し、
+ * 次回以降はサイズと更新日時が変わったファイルのみチェックサムの算出と比較を行います。
+ * さらにverifyRemoteをfalseにすると、データセットのファイル一覧の取得も省略し、状態ファイルの記録をデータセットの状態とみなします。
+ */
+public class DatasetSyncOptions {
+    /** デフォルトの並列数 */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** デフォルトのまとめて1リクエストで追加するファイルの合計サイズ (8MB) */
+    public static final long DEFAULT_BATCH_SIZE = 8L * 1024 * 1024;
+
+    /** 並列数 */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /** まとめて1リクエストで追加するファイルの合計サイズ */
+    private long batchSize = DEFAULT_BATCH_SIZE;
+
+    /** ローカルに存在しないファイルをデータセットから削除するか否か */
+    private boolean deleteRemoved = false;
+
+    /** 変更の判定に用いるチェックサムのアルゴリズム、用いない場合null */
+    private DigestAlgorithm checksumAlgorithm = null;
+
+    /** 状態ファイル、記録しない場合null */
+    private Path stateFile = null;
+
+    /** 状態ファイルがある場合にもデータセットのファイル一覧を取得するか否か */
+    private boolean verifyRemote = true;
+
+    /**
+     * 並列数を設定する。
+     *
+     * @param parallelism 並列数 (同時に送信するリクエスト数の上限)
+     * @return このオプション
+     * @throws IllegalArgumentException parallelismが1未満の場合
+     */
+    public DatasetSyncOptions parallelism(int parallelism) {
+        requireGreaterOrEqualOrNull(parallelism, 1, "at parallelism in DatasetSyncOptions#parallelism");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 新しいファイルをまとめて1リクエストで追加する際の、まとめる合計サイズを設定する。
+     *
+     * @param batchSize 合計サイズ (byte)
+     * @return このオプション
+     * @throws IllegalArgumentException batchSizeが1未満の場合
+     */
+    public DatasetSyncOptions batchSize(long batchSize) {
+        requireGreaterOrEqualOrNull(batchSize, 1L, "at batchSize in DatasetSyncOptions#batchSize");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * ローカルに存在しないファイルをデータセットから削除するかを設定する。
+     *
+     * @param deleteRemoved 削除する場合true
+     * @return このオプション
+     */
+    public DatasetSyncOptions deleteRemoved(boolean deleteRemoved) {
+        this.deleteRemoved = deleteRemoved;
+        return this;
+    }
+
+    /**
+     * 変更の判定に用いるチェックサムのアルゴリズムを設定する。
+     *
+     * 指定しない場合、名前とサイズが一致するファイルは変更されていないとみなします。
+     * 指定した場合、状態ファイルに記録されたチェックサムと一致しないファイルは、サイズが同じでも更新します。
+     * (データセット側のチェックサムは取得できないため、状態ファイルに記録がないファイルも更新します)
+     *
+     * @param checksumAlgorithm アルゴリズム、用いない場合null
+     * @return このオプション
+     */
+    public DatasetSyncOptions checksum(DigestAlgorithm checksumAlgorithm) {
+        this.checksumAlgorithm = checksumAlgorithm;
+        return this;
+    }
+
+    /**
+     * 同期した状態を記録する状態ファイルを設定する。
+     *
+     * 同期元ディレクトリの中に置いた場合、状態ファイル自体は同期の対象から除かれます。
+     *
+     * @param stateFile 状態ファイル、記録しない場合null
+     * @return このオプション
+     */
+    public DatasetSyncOptions stateFile(Path stateFile) {
+        this.stateFile = stateFile;
+        return this;
+    }
+
+    /**
+     * 状態ファイルがある場合にも、データセットのファイル一覧を取得して照合するかを設定する。
+     *
+     * falseの場合、他のクライアントによるデータセットの変更は検出されません。
+     *
+     * @param verifyRemote 照合する場合true
+     * @return このオプション
+     */
+    public DatasetSyncOptions verifyRemote(boolean verifyRemote) {
+        this.verifyRemote = verifyRemote;
+        return this;
+    }
+
+    /**
+     * 並列数を取得する。
+     *
+     * @return 並列数
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * まとめて1リクエストで追加するファイルの合計サイズを取得する。
+     *
+     * @return 合計サイズ (byte)
+     */
+    public long getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * ローカルに存在しないファイルをデータセットから削除するかを取得する。
+     *
+     * @return 削除する場合true
+     */
+    public boolean isDeleteRemoved() {
+        return this.deleteRemoved;
+    }
+
+    /**
+     * 変更の判定に用いるチェックサムのアルゴリズムを取得する。
+     *
+     * @return アルゴリズム、用いない場合null
+     */
+    public DigestAlgorithm getChecksumAlgorithm() {
+        return this.checksumAlgorithm;
+    }
+
+    /**
+     * 状態ファイルを取得する。
+     *
+     * @return 状態ファイル、記録しない場合null
+     */
+    public Path getStateFile() {
+        return this.stateFile;
+    }
+
+    /**
+     * 状態ファイルがある場合にも、データセットのファイル一覧を取得して照合するかを取得する。
+     *
+     * @return 照合する場合true
+     */
+    public boolean isVerifyRemote() {
+        return this.verifyRemote;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DatasetSyncOptions(parallelism=%d, batchSize=%d, deleteRemoved=%b, checksumAlgorithm=%s, "
+                        + "stateFile=%s, verifyRemote=%b)",
+                this.parallelism, this.batchSize, this.deleteRemoved, this.checksumAlgorithm, this.stateFile,
+                this.verifyRemote);
+    }
+}
@@ -0,0 +1,520 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetSyncResult;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+import jp.ac.nagoya_u.dsmoq.sdk.util.StreamingDigest;
+
+/**
+ * ローカルのディレクトリの内容をデータセットへ同期するシンクロナイザ
+ *
+ * ディレクトリ以下のファイルを、ディレクトリからの相対パス ('/'区切り) をファイル名として、
+ * データセットのファイル一覧とファイル名、サイズ、および任意でチェックサムにより比較します。
+ * 新しいファイルは合計サイズが一定程度になるようまとめて追加し、変更されたファイルは個別に更新します。
+ * これらのリクエストは並列数分のスレッドで並列に送信します。
+ *
+ * 状態ファイルを指定した場合、サイズと更新日時が前回の同期時から変わっていないファイルは、
+ * 内容を読まずに変更なしと判定します。
+ * 状態ファイルは失敗した場合にも完了した分まで記録するため、再実行時は残りのファイルのみ送信されます。
+ */
+class DatasetSynchronizer {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** チェックサムの算出に用いるバッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 同期元のファイル
+     */
+    private static class LocalFile {
+        /** ファイル名 (同期元ディレクトリからの相対パス) */
+        private final String name;
+
+        /** ファイル */
+        private final Path path;
+
+        /** ファイルサイズ */
+        private final long size;
+
+        /** 更新日時 (ms) */
+        private final long lastModified;
+
+        /** チェックサム、算出していない場合null */
+        private String checksum;
+
+        /** 更新するデータセット上のファイルID、追加する場合null */
+        private String fileId;
+
+        /**
+         * 同期元のファイルを作成する。
+         *
+         * @param name ファイル名
+         * @param path ファイル
+         * @param attributes ファイルの属性
+         */
+        LocalFile(String name, Path path, BasicFileAttributes attributes) {
+            this.name = name;
+            this.path = path;
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * データセット上のファイル
+     */
+    private static class RemoteFile {
+        /** ファイルID */
+        private final String fileId;
+
+        /** ファイルサイズ、不明な場合-1 */
+        private final long size;
+
+        /**
+         * データセット上のファイルを作成する。
+         *
+         * @param fileId ファイルID
+         * @param size ファイルサイズ、不明な場合-1
+         */
+        RemoteFile(String fileId, long size) {
+            this.fileId = fileId;
+            this.size = size;
+        }
+    }
+
+    /** クライアント */
+    private final DsmoqClient client;
+
+    /** DatasetID */
+    private final String datasetId;
+
+    /** 同期元ディレクトリ */
+    private final Path sourceDir;
+
+    /** オプション */
+    private final DatasetSyncOptions options;
+
+    /** 追加したファイル */
+    private final List<DatasetFile> added = Collections.synchronizedList(new ArrayList<>());
+
+    /** 更新したファイル */
+    private final List<DatasetFile> updated = Collections.synchronizedList(new ArrayList<>());
+
+    /** 削除したファイルの名前 */
+    private final List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+
+    /** 送信したファイルの合計サイズ */
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    /** 同期状態 */
+    private SyncState state;
+
+    /** いずれかのスレッドで処理が失敗したか否か */
+    private volatile boolean aborted;
+
+    /**
+     * シンクロナイザを作成する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param sourceDir 同期元ディレクトリ
+     * @param options オプション
+     */
+    DatasetSynchronizer(DsmoqClient client, String datasetId, Path sourceDir, DatasetSyncOptions options) {
+        this.client = client;
+        this.datasetId = datasetId;
+        this.sourceDir = sourceDir;
+        this.options = options;
+    }
+
+    /**
+     * 同期を実行する。
+     *
+     * @return 同期結果
+     * @throws IOException 同期元ディレクトリ、状態ファイルの操作に失敗した場合
+     * @throws RuntimeException リクエストが失敗した場合、DsmoqClientの各メソッドと同じ例外
+     */
+    DatasetSyncResult sync() throws IOException {
+        long start = System.nanoTime();
+        Path stateFile = this.options.getStateFile();
+        this.state = SyncState.load(stateFile, this.datasetId, this.options.getChecksumAlgorithm());
+        Map<String, LocalFile> locals = listLocal();
+        Map<String, RemoteFile> remotes = this.options.isVerifyRemote() || !this.state.isLoaded() ? listRemote()
+                : fromState();
+        List<LocalFile> additions = new ArrayList<>();
+        List<LocalFile> updates = new ArrayList<>();
+        int unchanged = 0;
+        for (LocalFile local : locals.values()) {
+            RemoteFile remote = remotes.get(local.name);
+            if (remote == null) {
+                additions.add(local);
+            } else if (isChanged(local, remote)) {
+                local.fileId = remote.fileId;
+                updates.add(local);
+            } else {
+                this.state.put(local.name,
+                        new SyncState.Entry(remote.fileId, local.size, local.lastModified, local.checksum));
+                unchanged++;
+            }
+        }
+        List<Map.Entry<String, RemoteFile>> deletions = new ArrayList<>();
+        for (Map.Entry<String, RemoteFile> remote : remotes.entrySet()) {
+            if (!locals.containsKey(remote.getKey())) {
+                if (this.options.isDeleteRemoved()) {
+                    deletions.add(remote);
+                } else {
+                    this.state.remove(remote.getKey());
+                }
+            }
+        }
+        // データセットにもローカルにも存在しないファイルの記録を除く
+        this.state.getAll().keySet().stream().filter(x -> !remotes.containsKey(x) && !locals.containsKey(x))
+                .forEach(this.state::remove);
+        logger.debug(LOG_MARKER,
+                "DatasetSynchronizer#sync : [local] = {}, [remote] = {}, [add] = {}, [update] = {}, [delete] = {}",
+                locals.size(), remotes.size(), additions.size(), updates.size(), deletions.size());
+        try {
+            runTasks(toTasks(additions, updates, deletions));
+        } finally {
+            if (stateFile != null) {
+                this.state.save(stateFile);
+            }
+        }
+        return new DatasetSyncResult(new ArrayList<>(this.added), new ArrayList<>(this.updated),
+                new ArrayList<>(this.deleted), unchanged, this.uploadedBytes.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 同期元ディレクトリ以下のファイルを列挙する。
+     *
+     * 状態ファイル、およびダウンロード中の一時ファイルは除きます。
+     *
+     * @return ファイル名ごとのファイル
+     * @throws IOException 同期元ディレクトリの走査に失敗した場合
+     */
+    private Map<String, LocalFile> listLocal() throws IOException {
+        Path stateFile = this.options.getStateFile();
+        Path excluded = stateFile == null ? null : stateFile.toAbsolutePath().normalize();
+        Map<String, LocalFile> locals = new TreeMap<>();
+        try (Stream<Path> stream = Files.walk(this.sourceDir)) {
+            for (Path path : stream.collect(Collectors.toList())) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (!attributes.isRegularFile() || path.toAbsolutePath().normalize().equals(excluded)
+                        || path.getFileName().toString().endsWith(DatasetDownloader.PART_SUFFIX)) {
+                    continue;
+                }
+                String name = toName(this.sourceDir.relativize(path));
+                locals.put(name, new LocalFile(name, path, attributes));
+            }
+        }
+        return locals;
+    }
+
+    /**
+     * データセットのファイル一覧を取得する。
+     *
+     * 同じ名前のファイルが複数ある場合は、一覧で先に現れたものを同期の対象とします。
+     *
+     * @return ファイル名ごとのファイル
+     */
+    private Map<String, RemoteFile> listRemote() {
+        Map<String, RemoteFile> remotes = new LinkedHashMap<>();
+        try (Stream<DatasetFile> stream = this.client.streamDatasetFiles(this.datasetId, new PageOptions())) {
+            stream.forEach(x -> remotes.putIfAbsent(x.getName(), new RemoteFile(x.getId(), sizeOf(x))));
+        }
+        return remotes;
+    }
+
+    /**
+     * 状態ファイルの記録を、データセットのファイル一覧とみなす。
+     *
+     * @return ファイル名ごとのファイル
+     */
+    private Map<String, RemoteFile> fromState() {
+        Map<String, RemoteFile> remotes = new LinkedHashMap<>();
+        this.state.getAll().forEach((name, entry) -> remotes.put(name, new RemoteFile(entry.fileId, entry.size)));
+        return remotes;
+    }
+
+    /**
+     * ローカルのファイルが、データセット上のファイルから変更されているかを判定する。
+     *
+     * @param local ローカルのファイル
+     * @param remote データセット上のファイル
+     * @return 変更されている場合true
+     * @throws IOException チェックサムの算出に失敗した場合
+     */
+    private boolean isChanged(LocalFile local, RemoteFile remote) throws IOException {
+        if (remote.size >= 0 && remote.size != local.size) {
+            return true;
+        }
+        SyncState.Entry entry = this.state.get(local.name);
+        boolean recorded = entry != null && entry.fileId.equals(remote.fileId) && entry.size == local.size;
+        if (recorded && entry.lastModified == local.lastModified) {
+            // 前回の同期から変わっていないため、内容は読まない
+            local.checksum = entry.checksum;
+            return false;
+        }
+        DigestAlgorithm algorithm = this.options.getChecksumAlgorithm();
+        if (algorithm == null) {
+            return false;
+        }
+        local.checksum = checksum(local.path, algorithm);
+        return !recorded || !local.checksum.equals(entry.checksum);
+    }
+
+    /**
+     * 追加、更新、削除をリクエスト単位のタスクにする。
+     *
+     * 追加するファイルはサイズの大きい順に、合計サイズがbatchSize程度になるようまとめます。
+     *
+     * @param additions 追加するファイル
+     * @param updates 更新するファイル
+     * @param deletions 削除するファイル
+     * @return タスクの一覧
+     */
+    private List<Callable<Void>> toTasks(List<LocalFile> additions, List<LocalFile> updates,
+            List<Map.Entry<String, RemoteFile>> deletions) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        additions.sort(Comparator.comparingLong((LocalFile x) -> x.size).reversed());
+        for (List<LocalFile> files : FileBatches.split(additions, x -> x.size, this.options.getBatchSize())) {
+            tasks.add(() -> add(files));
+        }
+        for (LocalFile local : updates) {
+            tasks.add(() -> update(local));
+        }
+        for (Map.Entry<String, RemoteFile> remote : deletions) {
+            tasks.add(() -> delete(remote.getKey(), remote.getValue()));
+        }
+        return tasks;
+    }
+
+    /**
+     * ファイルをまとめてデータセットに追加する。
+     *
+     * @param files 追加するファイル
+     * @return null
+     * @throws IOException チェックサムの算出に失敗した場合
+     */
+    private Void add(List<LocalFile> files) throws IOException {
+        if (this.aborted) {
+            return null;
+        }
+        Map<String, File> named = new LinkedHashMap<>();
+        for (LocalFile local : files) {
+            named.put(local.name, local.path.toFile());
+        }
+        DatasetAddFiles result = this.client.addFiles(this.datasetId, named);
+        List<DatasetFile> addedFiles = result.getFiles();
+        Map<String, DatasetFile> byName = new HashMap<>();
+        addedFiles.forEach(x -> byName.putIfAbsent(x.getName(), x));
+        for (int i = 0; i < files.size(); i++) {
+            LocalFile local = files.get(i);
+            // 名前で対応が取れない場合 (サーバー側で名前が変わった場合) は、送信した順序で対応付ける
+            DatasetFile file = byName.containsKey(local.name) ? byName.get(local.name)
+                    : i < addedFiles.size() ? addedFiles.get(i) : null;
+            if (file != null) {
+                record(local, file.getId());
+            }
+            this.uploadedBytes.addAndGet(local.size);
+        }
+        this.added.addAll(addedFiles);
+        return null;
+    }
+
+    /**
+     * データセット上のファイルを更新する。
+     *
+     * @param local 更新するファイル
+     * @return null
+     * @throws IOException チェックサムの算出に失敗した場合
+     */
+    private Void update(LocalFile local) throws IOException {
+        if (this.aborted) {
+            return null;
+        }
+        DatasetFile file = this.client.updateFile(this.datasetId, local.fileId, local.name, local.path.toFile());
+        record(local, file.getId());
+        this.uploadedBytes.addAndGet(local.size);
+        this.updated.add(file);
+        return null;
+    }
+
+    /**
+     * データセット上のファイルを削除する。
+     *
+     * @param name ファイル名
+     * @param remote データセット上のファイル
+     * @return null
+     */
+    private Void delete(String name, RemoteFile remote) {
+        if (this.aborted) {
+            return null;
+        }
+        this.client.deleteFile(this.datasetId, remote.fileId);
+        this.state.remove(name);
+        this.deleted.add(name);
+        return null;
+    }
+
+    /**
+     * 送信したファイルを状態に記録する。
+     *
+     * @param local 送信したファイル
+     * @param fileId データセット上のファイルID
+     * @throws IOException チェックサムの算出に失敗した場合
+     */
+    private void record(LocalFile local, String fileId) throws IOException {
+        DigestAlgorithm algorithm = this.options.getChecksumAlgorithm();
+        String checksum = local.checksum;
+        if (checksum == null && algorithm != null) {
+            checksum = checksum(local.path, algorithm);
+        }
+        this.state.put(local.name, new SyncState.Entry(fileId, local.size, local.lastModified, checksum));
+    }
+
+    /**
+     * タスクを並列数分のスレッドで実行し、全ての完了を待つ。
+     *
+     * @param tasks タスクの一覧
+     * @throws IOException いずれかのタスクでファイルの操作に失敗した場合
+     */
+    private void runTasks(List<Callable<Void>> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int workers = Math.min(this.options.getParallelism(), tasks.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-sync-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    if (this.aborted) {
+                        return null;
+                    }
+                    try {
+                        return task.call();
+                    } catch (Exception e) {
+                        // 他のスレッドに処理の中断を通知する
+                        this.aborted = true;
+                        throw e;
+                    }
+                }));
+            }
+            Throwable failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure != null) {
+                throw new ApiFailedException(failure.getMessage(), failure);
+            }
+        } catch (InterruptedException e) {
+            this.aborted = true;
+            Thread.currentThread().interrupt();
+            throw new ApiFailedException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 相対パスをファイル名に変換する。
+     *
+     * @param relative 同期元ディレクトリからの相対パス
+     * @return '/'区切りのファイル名
+     */
+    private static String toName(Path relative) {
+        List<String> names = new ArrayList<>();
+        relative.forEach(x -> names.add(x.toString()));
+        return String.join("/", names);
+    }
+
+    /**
+     * ファイルのチェックサムを算出する。
+     *
+     * @param path ファイル
+     * @param algorithm アルゴリズム
+     * @return チェックサム (16進文字列)
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    private static String checksum(Path path, DigestAlgorithm algorithm) throws IOException {
+        StreamingDigest digest = StreamingDigest.of(algorithm);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.toHex();
+    }
+
+    /**
+     * 一覧のファイルサイズを取得する。
+     *
+     * @param file ファイル
+     * @return ファイルサイズ、不明な場合-1
+     */
+    private static long sizeOf(DatasetFile file) {
+        // DatasetFile#getSizeはScala側の型の都合でObjectとして公開されている
+        Object size = file.getSize();
+        return size instanceof Number ? ((Number) size).longValue() : -1;
+    }
+}
@@ -0,0 +1,283 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * 再開可能なダウンロードの進捗を記録するジャーナル
+ *
+ * 書き出し先ファイルと同じディレクトリに「ファイル名 + .dsmoq-journal」の名前で作成され、
+ * ダウンロード対象のDatasetID、ファイルID、ファイルサイズと、書き込みが完了した範囲を1行ずつ追記します。
+ * ダウンロードが完了するとジャーナルは削除されます。
+ */
+class DownloadJournal implements Closeable {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** ジャーナルファイルの接尾辞 */
+    static final String JOURNAL_SUFFIX = ".dsmoq-journal";
+
+    /** ジャーナルの1行目 */
+    private static final String HEADER = "# dsmoq download journal v1";
+
+    /** DatasetIDの行の接頭辞 */
+    private static final String DATASET_ID_PREFIX = "datasetId=";
+
+    /** ファイルIDの行の接頭辞 */
+    private static final String FILE_ID_PREFIX = "fileId=";
+
+    /** ファイルサイズの行の接頭辞 */
+    private static final String SIZE_PREFIX = "size=";
+
+    /** 完了した範囲の行の接頭辞 */
+    private static final String RANGE_PREFIX = "range=";
+
+    /** ジャーナルファイル */
+    private final Path path;
+
+    /** ジャーナルファイルのチャネル */
+    private final FileChannel channel;
+
+    /** ファイルサイズ */
+    private final long size;
+
+    /** 書き込みが完了した範囲 ([開始位置, 終端)、開始位置順) */
+    private final List<long[]> completed;
+
+    /** 以前のジャーナルから再開したか否か */
+    private final boolean resumed;
+
+    /**
+     * ジャーナルを作成する。
+     *
+     * @param path ジャーナルファイル
+     * @param channel ジャーナルファイルのチャネル
+     * @param size ファイルサイズ
+     * @param completed 書き込みが完了した範囲
+     * @param resumed 以前のジャーナルから再開したか否か
+     */
+    private DownloadJournal(Path path, FileChannel channel, long size, List<long[]> completed, boolean resumed) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+        this.completed = completed;
+        this.resumed = resumed;
+    }
+
+    /**
+     * 書き出し先ファイルに対応するジャーナルファイルのパスを取得する。
+     *
+     * @param target 書き出し先ファイル
+     * @return ジャーナルファイルのパス
+     */
+    static Path journalPath(Path target) {
+        return target.resolveSibling(target.getFileName().toString() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * ジャーナルを開く。
+     *
+     * 以前のジャーナルが存在し、ダウンロード対象とファイルサイズが一致し、
+     * かつ書き出し先ファイルがファイルサイズ分確保されている場合は、その内容を引き継ぐ。
+     * それ以外の場合は、新しいジャーナルを作成する。
+     *
+     * @param target 書き出し先ファイル
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param size ファイルサイズ
+     * @return ジャーナル
+     * @throws IOException ジャーナルファイルの操作に失敗した場合
+     */
+    static DownloadJournal open(Path target, String datasetId, String fileId, long size) throws IOException {
+        Path path = journalPath(target);
+        List<long[]> completed = Files.exists(path) && Files.exists(target) && Files.size(target) == size
+                ? read(path, datasetId, fileId, size) : null;
+        if (completed != null) {
+            logger.debug(LOG_MARKER, "DownloadJournal#open : resume from {}, [completed ranges] = {}", path,
+                    completed.size());
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            return new DownloadJournal(path, channel, size, completed, true);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        DownloadJournal journal = new DownloadJournal(path, channel, size, new ArrayList<>(), false);
+        journal.append(HEADER + "\n" + DATASET_ID_PREFIX + datasetId + "\n" + FILE_ID_PREFIX + fileId + "\n"
+                + SIZE_PREFIX + size + "\n");
+        return journal;
+    }
+
+    /**
+     * ジャーナルファイルを読み込む。
+     *
+     * @param path ジャーナルファイル
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param size ファイルサイズ
+     * @return 書き込みが完了した範囲、ダウンロード対象やファイルサイズが一致しない場合null
+     * @throws IOException ジャーナルファイルの読み込みに失敗した場合
+     */
+    private static List<long[]> read(Path path, String datasetId, String fileId, long size) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine()) || !(DATASET_ID_PREFIX + datasetId).equals(reader.readLine())
+                    || !(FILE_ID_PREFIX + fileId).equals(reader.readLine())) {
+                return null;
+            }
+            if (!(SIZE_PREFIX + size).equals(reader.readLine())) {
+                logger.info(LOG_MARKER, "file size has changed since the last download, restart: {}", path);
+                return null;
+            }
+            List<long[]> ranges = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long[] range = parseRange(line, size);
+                // 書き込み途中で中断された行は無視する
+                if (range != null) {
+                    ranges.add(range);
+                }
+            }
+            return merge(ranges);
+        }
+    }
+
+    /**
+     * 完了した範囲の行を解析する。
+     *
+     * @param line 行
+     * @param size ファイルサイズ
+     * @return 範囲、解析できない場合null
+     */
+    private static long[] parseRange(String line, long size) {
+        if (!line.startsWith(RANGE_PREFIX)) {
+            return null;
+        }
+        String[] values = line.substring(RANGE_PREFIX.length()).split("-");
+        if (values.length != 2) {
+            return null;
+        }
+        try {
+            long from = Long.parseLong(values[0]);
+            long to = Long.parseLong(values[1]);
+            return 0 <= from && from < to && to <= size ? new long[] { from, to } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 範囲を開始位置順に並べ、重なる範囲、隣接する範囲を結合する。
+     *
+     * @param ranges 範囲
+     * @return 結合した範囲
+     */
+    private static List<long[]> merge(List<long[]> ranges) {
+        List<long[]> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted, Comparator.comparingLong(r -> r[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : sorted) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[] { range[0], range[1] });
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 以前のジャーナルから再開したかを返す。
+     *
+     * @return 再開した場合true
+     */
+    boolean isResumed() {
+        return this.resumed;
+    }
+
+    /**
+     * まだ書き込みが完了していない範囲を取得する。
+     *
+     * @return 完了していない範囲 ([開始位置, 終端)、開始位置順)
+     */
+    synchronized List<long[]> getMissingRanges() {
+        List<long[]> missing = new ArrayList<>();
+        long position = 0;
+        for (long[] range : merge(this.completed)) {
+            if (position < range[0]) {
+                missing.add(new long[] { position, range[0] });
+            }
+            position = Math.max(position, range[1]);
+        }
+        if (position < this.size) {
+            missing.add(new long[] { position, this.size });
+        }
+        return missing;
+    }
+
+    /**
+     * 書き込みが完了した範囲を記録する。
+     *
+     * 呼び出し前に、範囲のデータがファイルへ書き込まれている必要があります。
+     *
+     * @param from 開始位置
+     * @param to 終端 (この位置を含まない)
+     * @throws IOException ジャーナルファイルへの書き込みに失敗した場合
+     */
+    synchronized void record(long from, long to) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        this.completed.add(new long[] { from, to });
+        append(RANGE_PREFIX + from + "-" + to + "\n");
+    }
+
+    /**
+     * ジャーナルファイルに追記し、ディスクへ書き出す。
+     *
+     * @param text 追記する文字列
+     * @throws IOException ジャーナルファイルへの書き込みに失敗した場合
+     */
+    private void append(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.channel.force(false);
+    }
+
+    /**
+     * ジャーナルを閉じる。ジャーナルファイルは削除されない。
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * ダウンロードの完了時に呼び出され、ジャーナルを閉じてジャーナルファイルを削除する。
+     *
+     * @throws IOException ジャーナルファイルの削除に失敗した場合
+     */
+    synchronized void complete() throws IOException {
+        close();
+        Files.deleteIfExists(this.path);
+    }
+}
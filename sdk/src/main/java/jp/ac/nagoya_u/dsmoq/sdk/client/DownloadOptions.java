@@ -0,0 +1,232 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+
+/**
+ * DsmoqClient#downloadToPathの動作を指定するオプション
+ *
+ * ファイルは複数のRange指定リクエストに分割して並列にダウンロードされます。
+ * 各リクエストの取得サイズは、直前のリクエストの転送速度からchunkDuration程度で完了するよう
+ * minChunkSizeからmaxChunkSizeの範囲で調整されます。
+ * 担当範囲を取得し終えたスレッドは、残りが最も大きい範囲を二分して後半を引き継ぎます。
+ *
+ * resumeを有効にすると、書き込みが完了した範囲を書き出し先ファイルと同じディレクトリの
+ * ジャーナルファイル (ファイル名 + .dsmoq-journal) に記録し、中断後の再実行時には未取得の範囲のみを取得します。
+ *
+ * checksumを指定すると、受信した内容からファイル全体のチェックサムを算出し、DownloadResultに設定します。
+ */
+public class DownloadOptions {
+    /** デフォルトの並列数 */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** デフォルトの最小取得サイズ (4MB) */
+    public static final long DEFAULT_MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+
+    /** デフォルトの最大取得サイズ (256MB) */
+    public static final long DEFAULT_MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+
+    /** デフォルトの1リクエストあたりの目標時間 (ms) */
+    public static final long DEFAULT_CHUNK_DURATION = 5 * 1000;
+
+    /** 並列数 */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /** 最小取得サイズ */
+    private long minChunkSize = DEFAULT_MIN_CHUNK_SIZE;
+
+    /** 最大取得サイズ */
+    private long maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+
+    /** 1リクエストあたりの目標時間 (ms) */
+    private long chunkDuration = DEFAULT_CHUNK_DURATION;
+
+    /** 中断したダウンロードを再開するか否か */
+    private boolean resume = false;
+
+    /** チェックサムのアルゴリズム、算出しない場合null */
+    private DigestAlgorithm checksumAlgorithm = null;
+
+    /** チェックサムの期待値、確認しない場合null */
+    private String expectedChecksum = null;
+
+    /**
+     * 並列数を設定する。
+     *
+     * @param parallelism 並列数
+     * @return このオプション
+     * @throws IllegalArgumentException parallelismが1未満の場合
+     */
+    public DownloadOptions parallelism(int parallelism) {
+        requireGreaterOrEqualOrNull(parallelism, 1, "at parallelism in DownloadOptions#parallelism");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 最小取得サイズを設定する。
+     *
+     * この値の2倍に満たない範囲は、それ以上分割されません。
+     *
+     * @param minChunkSize 最小取得サイズ (byte)
+     * @return このオプション
+     * @throws IllegalArgumentException minChunkSizeが1未満の場合
+     */
+    public DownloadOptions minChunkSize(long minChunkSize) {
+        requireGreaterOrEqualOrNull(minChunkSize, 1L, "at minChunkSize in DownloadOptions#minChunkSize");
+        this.minChunkSize = minChunkSize;
+        return this;
+    }
+
+    /**
+     * 最大取得サイズを設定する。
+     *
+     * @param maxChunkSize 最大取得サイズ (byte)
+     * @return このオプション
+     * @throws IllegalArgumentException maxChunkSizeが1未満の場合
+     */
+    public DownloadOptions maxChunkSize(long maxChunkSize) {
+        requireGreaterOrEqualOrNull(maxChunkSize, 1L, "at maxChunkSize in DownloadOptions#maxChunkSize");
+        this.maxChunkSize = maxChunkSize;
+        return this;
+    }
+
+    /**
+     * 1リクエストあたりの目標時間を設定する。
+     *
+     * @param chunkDuration 1リクエストあたりの目標時間 (ms)
+     * @return このオプション
+     * @throws IllegalArgumentException chunkDurationが1未満の場合
+     */
+    public DownloadOptions chunkDuration(long chunkDuration) {
+        requireGreaterOrEqualOrNull(chunkDuration, 1L, "at chunkDuration in DownloadOptions#chunkDuration");
+        this.chunkDuration = chunkDuration;
+        return this;
+    }
+
+    /**
+     * 中断したダウンロードを再開するかを設定する。
+     *
+     * ジャーナルファイルに記録されたファイルサイズが現在のファイルサイズと異なる場合、
+     * または書き出し先ファイルのサイズが一致しない場合は、最初からダウンロードし直します。
+     *
+     * @param resume 再開する場合true
+     * @return このオプション
+     */
+    public DownloadOptions resume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    /**
+     * ダウンロード中にチェックサムを算出するよう設定する。
+     *
+     * 書き出し先ファイルを読み直さずに算出するため、追加のディスクI/Oは発生しません。
+     * ただしMD5、SHA-256を並列にダウンロードする場合、先行して書き込まれた範囲は
+     * 先頭からの書き込みが追い付いた時点で書き出し先ファイル(通常はページキャッシュ)から読み込みます。
+     * 並列ダウンロードではCRC32Cを推奨します。
+     *
+     * @param algorithm アルゴリズム
+     * @return このオプション
+     * @throws NullPointerException algorithmがnullの場合
+     */
+    public DownloadOptions checksum(DigestAlgorithm algorithm) {
+        requireNotNull(algorithm, "at algorithm in DownloadOptions#checksum");
+        this.checksumAlgorithm = algorithm;
+        this.expectedChecksum = null;
+        return this;
+    }
+
+    /**
+     * ダウンロード中にチェックサムを算出し、期待値と一致することを確認するよう設定する。
+     *
+     * 一致しない場合、ダウンロードはChecksumMismatchExceptionで失敗します。(書き出し先ファイルは残ります)
+     *
+     * @param algorithm アルゴリズム
+     * @param expected 期待値 (16進数文字列、大文字・小文字は区別しない)
+     * @return このオプション
+     * @throws NullPointerException algorithm、expectedのいずれかがnullの場合
+     * @see #checksum(DigestAlgorithm)
+     */
+    public DownloadOptions checksum(DigestAlgorithm algorithm, String expected) {
+        requireNotNull(algorithm, "at algorithm in DownloadOptions#checksum");
+        requireNotNull(expected, "at expected in DownloadOptions#checksum");
+        this.checksumAlgorithm = algorithm;
+        this.expectedChecksum = expected;
+        return this;
+    }
+
+    /**
+     * 並列数を取得する。
+     *
+     * @return 並列数
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * 最小取得サイズを取得する。
+     *
+     * @return 最小取得サイズ (byte)
+     */
+    public long getMinChunkSize() {
+        return this.minChunkSize;
+    }
+
+    /**
+     * 最大取得サイズを取得する。
+     *
+     * @return 最大取得サイズ (byte)、最小取得サイズより小さい場合は最小取得サイズ
+     */
+    public long getMaxChunkSize() {
+        return Math.max(this.minChunkSize, this.maxChunkSize);
+    }
+
+    /**
+     * 1リクエストあたりの目標時間を取得する。
+     *
+     * @return 1リクエストあたりの目標時間 (ms)
+     */
+    public long getChunkDuration() {
+        return this.chunkDuration;
+    }
+
+    /**
+     * 中断したダウンロードを再開するかを取得する。
+     *
+     * @return 再開する場合true
+     */
+    public boolean isResume() {
+        return this.resume;
+    }
+
+    /**
+     * チェックサムのアルゴリズムを取得する。
+     *
+     * @return アルゴリズム、算出しない場合null
+     */
+    public DigestAlgorithm getChecksumAlgorithm() {
+        return this.checksumAlgorithm;
+    }
+
+    /**
+     * チェックサムの期待値を取得する。
+     *
+     * @return 期待値、確認しない場合null
+     */
+    public String getExpectedChecksum() {
+        return this.expectedChecksum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DownloadOptions(parallelism=%d, minChunkSize=%d, maxChunkSize=%d, chunkDuration=%d, resume=%b, "
+                        + "checksumAlgorithm=%s, expectedChecksum=%s)",
+                this.parallelism, this.minChunkSize, this.maxChunkSize, this.chunkDuration, this.resume,
+                this.checksumAlgorithm, this.expectedChecksum);
+    }
+}
@@ -0,0 +1,238 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import jp.ac.nagoya_u.dsmoq.sdk.http.AsyncResponseConsumer;
+
+/**
+ * ファイルの内容を、Subscriberの需要に応じて受信するPublisher
+ *
+ * 購読ごとに1回リクエストを送信します(コールドなPublisher)。
+ * 受信はI/Oスレッド上で行われ、需要がない間はソケットからの読み出しを停止するため、
+ * サーバからの送信はTCPのフロー制御により抑えられます。
+ * onNextはI/Oスレッドから呼び出されるため、Subscriberはブロックする処理を行ってはいけません。
+ */
+class DownloadPublisher implements Publisher<ByteBuffer> {
+    /** 1回のonNextで通知する最大のバイト数 */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** レスポンス処理を作成する関数を受け取り、リクエストを送信する関数 */
+    private final Function<Supplier<AsyncResponseConsumer<Void>>, CompletableFuture<Void>> sender;
+
+    /**
+     * Publisherを作成する。
+     *
+     * @param sender レスポンス処理を作成する関数を受け取り、リクエストを送信する関数
+     */
+    DownloadPublisher(Function<Supplier<AsyncResponseConsumer<Void>>, CompletableFuture<Void>> sender) {
+        this.sender = sender;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        requireNotNull(subscriber, "at subscriber in DownloadPublisher#subscribe");
+        DownloadSubscription subscription = new DownloadSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;
+        }
+        CompletableFuture<Void> result = this.sender.apply(subscription::newConsumer);
+        subscription.start(result);
+    }
+
+    /**
+     * 1回の購読の状態
+     */
+    private static class DownloadSubscription implements Subscription {
+        /** 購読者 */
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        /** 未充足の需要 */
+        private final AtomicLong demand = new AtomicLong();
+
+        /** 需要がないため、ソケットからの読み出しを停止しているか否か */
+        private final AtomicBoolean suspended = new AtomicBoolean();
+
+        /** onComplete、onErrorを通知したか否か */
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        /** 取り消されたか否か */
+        private volatile boolean cancelled;
+
+        /** 受信中のレスポンスのI/O制御、受信前の場合null */
+        private volatile IOControl ioctrl;
+
+        /** リクエストの結果、送信前の場合null */
+        private volatile CompletableFuture<Void> result;
+
+        /** 受信用バッファ (I/Oスレッドからのみ参照する) */
+        private ByteBuffer buffer;
+
+        /**
+         * 購読を作成する。
+         *
+         * @param subscriber 購読者
+         */
+        DownloadSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (this.terminated.compareAndSet(false, true)) {
+                    this.subscriber.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+                }
+                cancel();
+                return;
+            }
+            this.demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            resume();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            CompletableFuture<Void> res = this.result;
+            if (res != null) {
+                res.cancel(false);
+            }
+            // 停止中の読み出しを再開させ、I/Oスレッド上で受信を中断させる
+            resume();
+        }
+
+        /**
+         * リクエストの結果を監視し、完了時にonComplete、onErrorを通知する。
+         *
+         * @param res リクエストの結果
+         */
+        void start(CompletableFuture<Void> res) {
+            this.result = res;
+            if (this.cancelled) {
+                res.cancel(false);
+            }
+            res.whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                terminate(error);
+            });
+        }
+
+        /**
+         * リクエスト送信ごとのレスポンス処理を作成する。
+         *
+         * @return レスポンス処理
+         */
+        AsyncResponseConsumer<Void> newConsumer() {
+            return new AsyncResponseConsumer<Void>() {
+                @Override
+                protected void onBodyStart(HttpResponse response) throws IOException {
+                    checkCancelled();
+                }
+
+                @Override
+                protected void onBodyContent(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+                    DownloadSubscription.this.ioctrl = ioctrl;
+                    deliver(decoder, ioctrl);
+                }
+
+                @Override
+                protected Void onBodyComplete(HttpResponse response) {
+                    return null;
+                }
+
+                @Override
+                protected void onRelease() {
+                    DownloadSubscription.this.buffer = null;
+                }
+            };
+        }
+
+        /**
+         * 需要のある分だけ受信したデータを通知し、需要がなくなった場合は読み出しを停止する。
+         *
+         * @param decoder ボディのデコーダ
+         * @param ioctrl I/O制御
+         * @throws IOException 入出力エラーが発生した場合、あるいは購読が取り消された場合
+         */
+        private void deliver(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+            while (!decoder.isCompleted()) {
+                checkCancelled();
+                if (this.demand.get() == 0) {
+                    this.suspended.set(true);
+                    ioctrl.suspendInput();
+                    // 停止の直前に需要が追加されていた場合、再開の通知を取りこぼさないよう確認する
+                    if (this.demand.get() == 0 || !this.suspended.compareAndSet(true, false)) {
+                        return;
+                    }
+                    ioctrl.requestInput();
+                }
+                if (this.buffer == null) {
+                    this.buffer = ByteBuffer.allocate(CHUNK_SIZE);
+                }
+                if (decoder.read(this.buffer) <= 0) {
+                    return;
+                }
+                ByteBuffer chunk = this.buffer;
+                this.buffer = null;
+                chunk.flip();
+                this.demand.decrementAndGet();
+                this.subscriber.onNext(chunk);
+            }
+        }
+
+        /**
+         * 読み出しを停止している場合、再開する。
+         */
+        private void resume() {
+            IOControl ctrl = this.ioctrl;
+            if (ctrl != null && this.suspended.compareAndSet(true, false)) {
+                ctrl.requestInput();
+            }
+        }
+
+        /**
+         * 購読が取り消されている場合、受信を中断させる。
+         *
+         * @throws IOException 購読が取り消されている場合
+         */
+        private void checkCancelled() throws IOException {
+            if (this.cancelled) {
+                throw new IOException("subscription cancelled");
+            }
+        }
+
+        /**
+         * 取り消されていない場合、onCompleteあるいはonErrorを一度だけ通知する。
+         *
+         * @param error 発生したエラー、正常に完了した場合null
+         */
+        private void terminate(Throwable error) {
+            if (this.cancelled || !this.terminated.compareAndSet(false, true)) {
+                return;
+            }
+            if (error == null) {
+                this.subscriber.onComplete();
+            } else {
+                this.subscriber.onError(error);
+            }
+        }
+    }
+}
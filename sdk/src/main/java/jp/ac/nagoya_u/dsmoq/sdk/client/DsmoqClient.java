@@ -8,26 +8,36 @@ import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNullAll;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketTimeoutException;
+import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -36,13 +46,19 @@ import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.SearchCondition;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.HttpHostConnectException;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.message.BasicNameValuePair;
@@ -58,6 +74,9 @@ import jp.ac.nagoya_u.dsmoq.sdk.http.AutoHttpGet;
 import jp.ac.nagoya_u.dsmoq.sdk.http.AutoHttpHead;
 import jp.ac.nagoya_u.dsmoq.sdk.http.AutoHttpPost;
 import jp.ac.nagoya_u.dsmoq.sdk.http.AutoHttpPut;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpClientConfig;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpExchangeMetrics;
+import jp.ac.nagoya_u.dsmoq.sdk.http.ProgressHttpEntity;
 import jp.ac.nagoya_u.dsmoq.sdk.request.AddMemberParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.ChangePasswordParam;
 import jp.ac.nagoya_u.dsmoq.sdk.request.ChangeStorageParam;
@@ -81,14 +100,17 @@ import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddImages;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDeleteImage;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadResult;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContent;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetGetImage;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetOwnership;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetOwnerships;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetSyncResult;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetTask;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetZipedFile;
 import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
 import jp.ac.nagoya_u.dsmoq.sdk.response.Group;
 import jp.ac.nagoya_u.dsmoq.sdk.response.GroupAddImages;
 import jp.ac.nagoya_u.dsmoq.sdk.response.GroupDeleteImage;
@@ -97,10 +119,12 @@ import jp.ac.nagoya_u.dsmoq.sdk.response.GroupsSummary;
 import jp.ac.nagoya_u.dsmoq.sdk.response.License;
 import jp.ac.nagoya_u.dsmoq.sdk.response.MemberSummary;
 import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSliceSummary;
 import jp.ac.nagoya_u.dsmoq.sdk.response.StatisticsDetail;
 import jp.ac.nagoya_u.dsmoq.sdk.response.TaskStatus;
 import jp.ac.nagoya_u.dsmoq.sdk.response.User;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChecksumMismatchException;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ConnectionLostException;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ErrorRespondedException;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ExceptionSupplier;
@@ -109,13 +133,23 @@ import jp.ac.nagoya_u.dsmoq.sdk.util.JsonUtil;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
 import jp.ac.nagoya_u.dsmoq.sdk.util.ResponseFunction;
 import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgressListener;
 
 /**
  * dsmoq APIを叩くためのクライアントクラス
  * 
  * 個々のWeb APIの仕様については、APIのドキュメントを参照してください。
+ * 
+ * クライアントはコネクションプールを保持し、複数スレッドから共有して利用できます。
+ * 利用後は必ずcloseメソッドを呼び出してください。
+ * closeを呼び出すと、プールされているコネクションが直ちに解放されます。
+ * 呼び出さなかった場合も、スレッドは残らず(アイドルコネクションの破棄は全クライアントで共有するデーモンスレッドで行います)、
+ * クライアントが参照されなくなった後、コネクションプールはガベージコレクションの際に解放されます。
  */
-public class DsmoqClient {
+public class DsmoqClient implements AutoCloseable {
+    /** HTTP Request の Accept-Encoding ヘッダ */
+    static final String ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
+
     /** HTTP Request の Authorization ヘッダ */
     private static final String AUTHORIZATION_HEADER_NAME = "Authorization";
 
@@ -123,7 +157,17 @@ public class DsmoqClient {
     private static final String CONTENT_DISPOSITION_HEADER_NAME = "Content-Disposition";
 
     /** HTTP Response の Content-Disposition ヘッダ */
-    private static final String CONTENT_LENGTH_HEADER_NAME = "Content-Length";
+    static final String CONTENT_LENGTH_HEADER_NAME = "Content-Length";
+
+    /** HTTP Response の Content-Range ヘッダ */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /** HTTP Response の Content-Range 正規表現 */
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-\\d+/.*");
+
+    /** 計測結果のエンドポイントのテンプレートで{id}に置き換える、パス中のID(UUID)の正規表現 */
+    private static final Pattern ID_SEGMENT_PATTERN = Pattern
+            .compile("(?<=/)[0-9a-fA-F]{8}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{12}(?=/|$)");
 
     /** HTTP Response の Content-Disposition 正規表現 */
     private static final Pattern COTENT_DISPOSITION_PATTERN = Pattern.compile("attachment; filename\\*=([^']+)''(.+)");
@@ -135,17 +179,46 @@ public class DsmoqClient {
     private static final int COTENT_DISPOSITION_PATTERN_FILENAME = 2;
 
     /** デフォルトのリクエストボディ文字コード */
-    private static final Charset DEFAULT_REQUEST_CHARSET = StandardCharsets.UTF_8;
+    static final Charset DEFAULT_REQUEST_CHARSET = StandardCharsets.UTF_8;
 
     /** デフォルトのレスポンスボディ文字コード */
     private static final Charset DEFAULT_RESPONSE_CHARSET = StandardCharsets.UTF_8;
 
+    /** HTTP Response の ETag ヘッダ */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
     /** exportAttributeの際に用いるファイル名 */
-    private static final String EXPORT_ATTRIBUTE_CSV_FILENAME = "export.csv";
+    static final String EXPORT_ATTRIBUTE_CSV_FILENAME = "export.csv";
 
     /** 認証文字列の生成に利用するハッシュアルゴリズム */
     private static final String HASH_ALGORITHM = "HmacSHA1";
 
+    /**
+     * 署名に用いるMac
+     * 
+     * Mac.getInstanceはプロバイダの検索を伴うため、スレッドごとに生成したものを再利用する。
+     * (リクエストごとに署名する方式を追加する場合も、これを用いること)
+     */
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /** HTTP Request の If-Modified-Since ヘッダ */
+    private static final String IF_MODIFIED_SINCE_HEADER_NAME = "If-Modified-Since";
+
+    /** HTTP Request の If-None-Match ヘッダ */
+    private static final String IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+
+    /** HTTP Request の Accept-Encoding ヘッダ に指定する無圧縮指定 */
+    static final String IDENTITY_ENCODING_NAME = "identity";
+
+    /** HTTP Response の Last-Modified ヘッダ */
+    private static final String LAST_MODIFIED_HEADER_NAME = "Last-Modified";
+
     /** ログマーカー */
     private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
 
@@ -153,10 +226,10 @@ public class DsmoqClient {
     private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
 
     /** HTTP Response の Content-Disposition ヘッダ */
-    private static final String RANGE_HEADER_NAME = "Range";
+    static final String RANGE_HEADER_NAME = "Range";
 
     /** JSONパラメータを乗せるリクエストボディのパラメータ名 */
-    private static final String REQUEST_JSON_PARAM_NAME = "d";
+    static final String REQUEST_JSON_PARAM_NAME = "d";
 
     /** メッセージ用のリソースバンドル */
     private static ResourceBundle resource = ResourceBundle.getBundle("message");
@@ -170,7 +243,22 @@ public class DsmoqClient {
      * @return 作成したクライアント
      */
     public static DsmoqClient create(String baseUrl, String apiKey, String secretKey) {
-        return new DsmoqClient(baseUrl, apiKey, secretKey);
+        return new DsmoqClient(baseUrl, apiKey, secretKey, HttpClientConfig.DEFAULT);
+    }
+
+    /**
+     * APIキー、シークレットキーを使用するクライアントオブジェクトのビルダーを生成する。
+     * 
+     * コネクションプールやタイムアウトの設定を変更する場合に使用します。
+     * 
+     * @param baseUrl 基準となるURL
+     * @param apiKey APIキー
+     * @param secretKey シークレットキー
+     * @return 作成したビルダー
+     * @throws NullPointerException baseUrl、apiKey、secretKeyのいずれかがnullの場合
+     */
+    public static DsmoqClientBuilder builder(String baseUrl, String apiKey, String secretKey) {
+        return new DsmoqClientBuilder(baseUrl, apiKey, secretKey);
     }
 
     /**
@@ -189,12 +277,80 @@ public class DsmoqClient {
      * @param jsonParam 変換するJSON文字列
      * @return 変換結果
      */
-    private static HttpEntity toHttpEntity(String jsonParam) {
+    static HttpEntity toHttpEntity(String jsonParam) {
         List<NameValuePair> params = new ArrayList<>();
         params.add(new BasicNameValuePair(REQUEST_JSON_PARAM_NAME, jsonParam));
         return new UrlEncodedFormEntity(params, DEFAULT_REQUEST_CHARSET);
     }
 
+    /**
+     * JSONパラメータをクエリ文字列に変換する。
+     * 
+     * @param jsonParam 変換するJSON文字列
+     * @return 変換結果 ("?"から始まる)
+     * @throws UnsupportedEncodingException 文字コードがサポートされていない場合
+     */
+    static String toQueryString(String jsonParam) throws UnsupportedEncodingException {
+        return "?" + REQUEST_JSON_PARAM_NAME + "=" + URLEncoder.encode(jsonParam, DEFAULT_REQUEST_CHARSET.name());
+    }
+
+    /**
+     * 取得範囲をRangeヘッダの値に変換する。
+     * 
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     * @return Rangeヘッダの値
+     */
+    static String toRangeHeaderValue(Long from, Long to) {
+        return String.format("bytes=%s-%s", from == null ? "" : from.toString(), to == null ? "" : to.toString());
+    }
+
+    /**
+     * 開始位置と件数から、一覧取得情報を作成する。
+     * 
+     * @param offset 開始位置
+     * @param limit 件数
+     * @return 一覧取得情報
+     */
+    static GetRangeParam toRangeParam(int offset, int limit) {
+        return new GetRangeParam(Optional.of(offset), Optional.of(limit));
+    }
+
+    /**
+     * レスポンスのContent-Lengthヘッダから、ファイルサイズを取得する。
+     * 
+     * @param response レスポンス
+     * @return ファイルサイズ、取得できなかった場合null
+     */
+    static Long toFileSize(HttpResponse response) {
+        Header header = response.getFirstHeader(CONTENT_LENGTH_HEADER_NAME);
+        if (header == null) {
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_CONTENT_LENGTH_NOT_FOUND));
+            return null;
+        }
+        try {
+            return Long.valueOf(header.getValue());
+        } catch (NumberFormatException e) {
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_INVALID_CONTENT_LENGTH), header.getValue(), e);
+            return null;
+        }
+    }
+
+    /**
+     * レスポンスのContent-Rangeヘッダから、取得した内容の開始位置を取得する。
+     * 
+     * @param response レスポンス
+     * @return 開始位置、Content-Rangeヘッダがない場合0
+     */
+    static long toRangeOffset(HttpResponse response) {
+        Header header = response.getFirstHeader(CONTENT_RANGE_HEADER_NAME);
+        if (header == null) {
+            return 0;
+        }
+        Matcher m = CONTENT_RANGE_PATTERN.matcher(header.getValue());
+        return m.matches() ? Long.parseLong(m.group(1)) : 0;
+    }
+
     /** APIキー */
     private final String _apiKey;
 
@@ -204,17 +360,78 @@ public class DsmoqClient {
     /** シークレットキー */
     private final String _secretKey;
 
+    /** HTTPクライアント (クライアントの生存期間中、共有される) */
+    private final AutoCloseHttpClient _httpClient;
+
+    /** Authorizationヘッダの値 (初回のリクエスト時に作成し、以降は再利用する) */
+    private volatile String _authorization;
+
+    /** レスポンスキャッシュ、使用しない場合null */
+    private final ResponseCache _cache;
+
+    /** 同時に送信された同一のGETリクエストの集約、集約しない場合null */
+    private final SingleFlight _singleFlight;
+
+    /** 冪等なリクエストの再送、ヘッジ、期限による中断、再送しない場合null */
+    private final RetryExecutor _retryExecutor;
+
+    /** 同時実行数の制限 (同じビルダーから作成したクライアント間で共有する)、制限しない場合null */
+    private final ConcurrencyLimiter _limiter;
+
+    /** 基準となるURLのパス (APIの種別の判定に用いる) */
+    private final String _basePath;
+
+    /** API呼び出しの計測結果を受け取るリスナー、計測しない場合null */
+    private final DsmoqMetricsListener _metricsListener;
+
     /**
      * クライアントオブジェクトを生成する。
      * 
      * @param baseUrl 基準となるURL
      * @param apiKey APIキー
      * @param secretKey シークレットキー
+     * @param httpClientConfig HTTPクライアントの設定
      */
-    private DsmoqClient(String baseUrl, String apiKey, String secretKey) {
+    DsmoqClient(String baseUrl, String apiKey, String secretKey, HttpClientConfig httpClientConfig) {
+        this(baseUrl, apiKey, secretKey, httpClientConfig, null, false, null, null, null);
+    }
+
+    /**
+     * クライアントオブジェクトを生成する。
+     * 
+     * @param baseUrl 基準となるURL
+     * @param apiKey APIキー
+     * @param secretKey シークレットキー
+     * @param httpClientConfig HTTPクライアントの設定
+     * @param cacheOptions レスポンスキャッシュの設定、キャッシュを使用しない場合null
+     * @param coalesceRequests 同時に送信された同一のGETリクエストを集約する場合true
+     * @param retryPolicy 冪等なリクエストの再試行ポリシー、再送しない場合null
+     * @param limiter 同時実行数の制限 (同じビルダーから作成したクライアント間で共有する)、制限しない場合null
+     * @param metricsListener API呼び出しの計測結果を受け取るリスナー、計測しない場合null
+     */
+    DsmoqClient(String baseUrl, String apiKey, String secretKey, HttpClientConfig httpClientConfig,
+            ResponseCacheOptions cacheOptions, boolean coalesceRequests, RetryPolicy retryPolicy,
+            ConcurrencyLimiter limiter, DsmoqMetricsListener metricsListener) {
         this._apiKey = apiKey;
         this._secretKey = secretKey;
         this._baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this._httpClient = new AutoCloseHttpClient(httpClientConfig);
+        this._cache = cacheOptions == null ? null : new ResponseCache(cacheOptions);
+        this._singleFlight = coalesceRequests ? new SingleFlight() : null;
+        this._retryExecutor = retryPolicy == null ? null : new RetryExecutor(retryPolicy);
+        this._limiter = limiter;
+        String basePath = URI.create(this._baseUrl).getRawPath();
+        this._basePath = basePath == null ? "" : basePath;
+        this._metricsListener = metricsListener;
+    }
+
+    /**
+     * 基準となるURLを取得する。
+     * 
+     * @return 基準となるURL (末尾の"/"は除去済み)
+     */
+    String getBaseUrl() {
+        return _baseUrl;
     }
 
     /**
@@ -237,18 +454,119 @@ public class DsmoqClient {
         requireNotNull(datasetId, "at datasetId in DsmoqClient#addFiles");
         requireNotNull(files, "at files in DsmoqClient#addFiles");
         requireNotNullAll(files, "at files[%d] in DsmoqClient#addFiles");
+        Supplier<HttpEntity> entity = () -> toAddFilesEntity(files);
+        return post("/api/datasets/" + datasetId + "/files", entity, JsonUtil::toDatasetAddFiles);
+    }
+
+    /**
+     * Datasetに、ファイル、メモリ上のバイト列、あるいはInputStreamの内容をファイルとして追加する。
+     *
+     * POST /api/datasets/${dataset_id}/files を呼ぶ。
+     * 各内容は一時ファイルに書き出さずにリクエストボディへ直接送信され、ボディ全体をメモリ上に保持しません。
+     * 長さの分からないInputStreamを含む場合、リクエストはチャンク形式で送信されます。
+     *
+     * @param datasetId DatasetID
+     * @param sources Datasetに追加するファイルの内容 (順序は追加したファイルの情報の順序と対応する)
+     * @param listener 送信の進捗を受け取るリスナー、受け取らない場合null
+     * @return 追加したファイルの情報
+     * @throws NullPointerException datasetId、sources、あるいはsourcesの要素のいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public DatasetAddFiles addFiles(String datasetId, List<UploadSource> sources, UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "DsmoqClient#addFiles start : [datasetId] = {}, [source num] = {}", datasetId,
+                (sources == null) ? "null" : sources.size());
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#addFiles");
+        requireNotNull(sources, "at sources in DsmoqClient#addFiles");
+        requireNotNullAll(sources, "at sources[%d] in DsmoqClient#addFiles");
+        Supplier<HttpEntity> entity = () -> {
+            MultipartEntityBuilder builder = toUploadEntityBuilder();
+            sources.forEach(source -> builder.addPart("files", source.toContentBody()));
+            return toUploadEntity(builder, sources, listener);
+        };
+        return post("/api/datasets/" + datasetId + "/files", entity, JsonUtil::toDatasetAddFiles);
+    }
+
+    /**
+     * Datasetに、ファイル名を指定してファイルを追加する。
+     *
+     * POST /api/datasets/${dataset_id}/files を呼ぶ。
+     * ローカルのファイル名の代わりに、指定された名前をファイル名として送信します。
+     *
+     * @param datasetId DatasetID
+     * @param files ファイル名と、Datasetに追加するファイル (順序は追加したファイルの情報の順序と対応する)
+     * @return 追加したファイルの情報
+     */
+    DatasetAddFiles addFiles(String datasetId, Map<String, File> files) {
+        logger.debug(LOG_MARKER, "DsmoqClient#addFiles start : [datasetId] = {}, [file num] = {}", datasetId,
+                files.size());
         Supplier<HttpEntity> entity = () -> {
             MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            // MultipartEntityBuilderのモード互換モードを設定
             builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-            // MultipartEntityBuilderの文字コードにutf-8を設定
             builder.setCharset(StandardCharsets.UTF_8);
-            Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("files", file));
+            files.forEach((name, file) -> builder.addBinaryBody("files", file, ContentType.DEFAULT_BINARY, name));
             return builder.build();
         };
         return post("/api/datasets/" + datasetId + "/files", entity, JsonUtil::toDatasetAddFiles);
     }
 
+    /**
+     * Datasetにファイルを追加するリクエストのボディを作成する。
+     *
+     * @param files Datasetに追加するファイル
+     * @return multipart/form-dataのボディ
+     */
+    static HttpEntity toAddFilesEntity(File... files) {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        // MultipartEntityBuilderのモード互換モードを設定
+        builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
+        // MultipartEntityBuilderの文字コードにutf-8を設定
+        builder.setCharset(StandardCharsets.UTF_8);
+        Arrays.asList(files).stream().forEach(file -> builder.addBinaryBody("files", file));
+        return builder.build();
+    }
+
+    /**
+     * UploadSourceを送信するリクエストのボディのビルダーを作成する。
+     *
+     * ファイル名にUTF-8の文字を含められるよう、互換モードを設定します。
+     *
+     * @return multipart/form-dataのボディのビルダー
+     */
+    private static MultipartEntityBuilder toUploadEntityBuilder() {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
+        builder.setCharset(StandardCharsets.UTF_8);
+        return builder;
+    }
+
+    /**
+     * UploadSourceを送信するリクエストのボディを作成する。
+     *
+     * 進捗を受け取るリスナーが指定されている場合、送信の進捗を通知するようボディを包みます。
+     *
+     * @param builder パートを追加したビルダー
+     * @param sources ボディに含むUploadSource
+     * @param listener 送信の進捗を受け取るリスナー、受け取らない場合null
+     * @return リクエストボディ
+     */
+    private static HttpEntity toUploadEntity(MultipartEntityBuilder builder, List<UploadSource> sources,
+            UploadProgressListener listener) {
+        HttpEntity entity = builder.build();
+        if (sources.stream().anyMatch(source -> !source.isRepeatable())) {
+            // InputStreamは読み直せないため、HTTPクライアントが自動的に再送しないようにする
+            entity = new HttpEntityWrapper(entity) {
+                @Override
+                public boolean isRepeatable() {
+                    return false;
+                }
+            };
+        }
+        return listener == null ? entity : new ProgressHttpEntity(entity, listener);
+    }
+
     /**
      * データセットに画像を追加する。
      * 
@@ -411,6 +729,58 @@ public class DsmoqClient {
         put("/api/profile/password", param.toJsonString(), x -> x);
     }
 
+    /**
+     * クライアントを閉じ、保持しているコネクションを全て解放する。
+     * 
+     * 閉じた後のクライアントでAPIを呼び出した場合、ApiFailedExceptionが送出されます。
+     */
+    @Override
+    public void close() {
+        logger.debug(LOG_MARKER, "DsmoqClient#close start");
+        if (_retryExecutor != null) {
+            _retryExecutor.close();
+        }
+        _httpClient.close();
+    }
+
+    /**
+     * レスポンスキャッシュのエントリをすべて破棄する。
+     * 
+     * 他のクライアントによる更新を直ちに反映させたい場合に使用します。
+     * レスポンスキャッシュを使用していない場合は何もしません。
+     */
+    public void clearResponseCache() {
+        logger.debug(LOG_MARKER, "DsmoqClient#clearResponseCache start");
+        if (_cache != null) {
+            _cache.clear();
+        }
+    }
+
+    /**
+     * APIの種別ごとの、現在の同時実行数の上限を取得する。
+     * 
+     * 上限はレスポンスのレイテンシとエラーに応じて変動します。
+     * 
+     * @param endpoint APIの種別
+     * @return 現在の同時実行数の上限、同時実行数を制限していない場合0
+     * @throws NullPointerException endpointがnullの場合
+     */
+    public int getConcurrencyLimit(EndpointClass endpoint) {
+        requireNotNull(endpoint, "at endpoint in DsmoqClient#getConcurrencyLimit");
+        return _limiter == null ? 0 : _limiter.getLimit(endpoint);
+    }
+
+    /**
+     * 冪等なリクエストを再送、ヘッジした累計回数を取得する。
+     * 
+     * 再試行ポリシーを設定していない場合は、常に全ての回数が0となります。
+     * 
+     * @return 累計回数
+     */
+    public RetryStatistics getRetryStatistics() {
+        return _retryExecutor == null ? new RetryStatistics(0, 0, 0) : _retryExecutor.getStatistics();
+    }
+
     /**
      * データセットをコピーする。
      *
@@ -517,6 +887,44 @@ public class DsmoqClient {
         return post("/api/datasets", entity, JsonUtil::toDataset);
     }
 
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容をファイルとして設定したDatasetを作成する。
+     *
+     * POST /api/datasets を呼ぶ。
+     * 各内容は一時ファイルに書き出さずにリクエストボディへ直接送信され、ボディ全体をメモリ上に保持しません。
+     * 長さの分からないInputStreamを含む場合、リクエストはチャンク形式で送信されます。
+     *
+     * @param name データセットの名前
+     * @param saveLocal ローカルに保存するか否か
+     * @param saveS3 Amazon S3に保存するか否か
+     * @param sources Datasetに設定するファイルの内容
+     * @param listener 送信の進捗を受け取るリスナー、受け取らない場合null
+     * @return 作成したDataset
+     * @throws NullPointerException name、sources、あるいはsourcesの要素のいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public Dataset createDataset(String name, boolean saveLocal, boolean saveS3, List<UploadSource> sources,
+            UploadProgressListener listener) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#createDataset start : [name] = {}, [saveLocal] = {}, [saveS3] = {}, [source num] = {}",
+                name, saveLocal, saveS3, (sources == null) ? "null" : sources.size());
+        requireNotNull(name, "at name in DsmoqClient#createDataset");
+        requireNotNull(sources, "at sources in DsmoqClient#createDataset");
+        requireNotNullAll(sources, "at sources[%d] in DsmoqClient#createDataset");
+        Supplier<HttpEntity> entity = () -> {
+            MultipartEntityBuilder builder = toUploadEntityBuilder();
+            builder.addTextBody("name", name, ContentType.create("text/plain", DEFAULT_REQUEST_CHARSET));
+            sources.forEach(source -> builder.addPart("file[]", source.toContentBody()));
+            builder.addTextBody("saveLocal", saveLocal ? "true" : "false");
+            builder.addTextBody("saveS3", saveS3 ? "true" : "false");
+            return toUploadEntity(builder, sources, listener);
+        };
+        return post("/api/datasets", entity, JsonUtil::toDataset);
+    }
+
     /**
      * グループを作成する。
      *
@@ -712,25 +1120,235 @@ public class DsmoqClient {
         requireGreaterOrEqualOrNull(to, 0L, "at to in DsmoqClient#downloadFileWithRange");
         return get("/files/" + datasetId + "/" + fileId, request -> {
             if (from != null || to != null) {
-                request.setHeader(RANGE_HEADER_NAME, String.format("bytes=%s-%s", from == null ? "" : from.toString(),
-                        to == null ? "" : to.toString()));
+                request.setHeader(RANGE_HEADER_NAME, toRangeHeaderValue(from, to));
             }
         } , response -> {
-            String filename = getFileNameFromHeader(response);
-            return datasetFileFunc.apply(new DatasetFileContent() {
-                public InputStream getContent() throws IOException {
-                    return response.getEntity().getContent();
-                }
+            return datasetFileFunc.apply(new ResponseDatasetFileContent(response, getFileNameFromHeader(response)));
+        });
+    }
 
-                public String getName() {
-                    return filename;
-                }
+    /**
+     * データセットからファイルをダウンロードし、指定されたファイルへ書き出す。
+     *
+     * デフォルトのオプションでdownloadToPath(String, String, Path, DownloadOptions)を呼び出します。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param target 書き出し先ファイル (既に存在する場合は上書きされる)
+     * @return ダウンロード結果
+     * @throws NullPointerException datasetId、fileId、targetのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     * @see #downloadToPath(String, String, Path, DownloadOptions)
+     */
+    public DownloadResult downloadToPath(String datasetId, String fileId, Path target) {
+        return downloadToPath(datasetId, fileId, target, new DownloadOptions());
+    }
 
-                public void writeTo(OutputStream s) throws IOException {
-                    response.getEntity().writeTo(s);
-                }
-            });
-        });
+    /**
+     * データセットからファイルをダウンロードし、指定されたファイルへ書き出す。
+     *
+     * HEAD /files/${dataset_id}/${file_id} でファイルサイズを取得した後、
+     * GET /files/${dataset_id}/${file_id} をRange指定で並列に呼ぶ。
+     * 
+     * 書き出し先ファイルは事前にファイルサイズ分確保され、各範囲は該当位置へ直接書き込まれます。
+     * 各リクエストの取得サイズは転送速度に応じて調整され、遅れている範囲は空いたスレッドに分割して引き継がれます。
+     * ファイルサイズが取得できない場合は、一つのリクエストで先頭から書き出します。
+     * オプションでチェックサムを指定した場合、受信した内容から算出したチェックサムがダウンロード結果に設定されます。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param target 書き出し先ファイル (既に存在する場合は上書きされる)
+     * @param options ダウンロードオプション
+     * @return ダウンロード結果
+     * @throws NullPointerException datasetId、fileId、target、optionsのいずれかがnullの場合
+     * @throws ChecksumMismatchException チェックサムの期待値を指定し、一致しなかった場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public DownloadResult downloadToPath(String datasetId, String fileId, Path target, DownloadOptions options) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#downloadToPath start : [datasetId] = {}, [fileId] = {}, [target] = {}, [options] = {}",
+                datasetId, fileId, target, options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#downloadToPath");
+        requireNotNull(fileId, "at fileId in DsmoqClient#downloadToPath");
+        requireNotNull(target, "at target in DsmoqClient#downloadToPath");
+        requireNotNull(options, "at options in DsmoqClient#downloadToPath");
+        Long size = getFileSize(datasetId, fileId);
+        try {
+            return new RangeDownloader(this, datasetId, fileId, target, options).download(size);
+        } catch (IOException e) {
+            throw translateInnerException(e);
+        }
+    }
+
+    /**
+     * データセットの全ファイルを、指定されたディレクトリへダウンロードする。
+     *
+     * デフォルトのオプションでdownloadDataset(String, Path, DatasetDownloadOptions)を呼び出します。
+     *
+     * @param datasetId DatasetID
+     * @param targetDir 書き出し先ディレクトリ (存在しない場合は作成される)
+     * @return ダウンロード結果
+     * @throws NullPointerException datasetId、targetDirのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     * @see #downloadDataset(String, Path, DatasetDownloadOptions)
+     */
+    public DatasetDownloadResult downloadDataset(String datasetId, Path targetDir) {
+        return downloadDataset(datasetId, targetDir, new DatasetDownloadOptions());
+    }
+
+    /**
+     * データセットの全ファイルを、指定されたディレクトリへダウンロードする。
+     *
+     * GET /api/datasets/${dataset_id}/files でファイル一覧をページごとに取得した後、
+     * GET /files/${dataset_id}/${file_id} をサイズの大きい順に、並列数を制限して呼ぶ。
+     *
+     * 大きなファイルはRange指定のリクエストに分割し、小さなファイルはまとめて同じスレッドで取得します。
+     * ファイル名はContent-Dispositionの値を用い、ディレクトリ部分は取り除かれます。
+     * 同じ名前のファイルが複数ある場合、2つ目以降は拡張子の前にファイルIDが付けられます。
+     * 書き出し先に同じ名前、同じサイズのファイルが既に存在する場合はスキップします。
+     * 各ファイルは一時ファイルに書き込まれ、完了後に書き出し先へ移動されます。
+     *
+     * @param datasetId DatasetID
+     * @param targetDir 書き出し先ディレクトリ (存在しない場合は作成される)
+     * @param options ダウンロードオプション
+     * @return ダウンロード結果
+     * @throws NullPointerException datasetId、targetDir、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public DatasetDownloadResult downloadDataset(String datasetId, Path targetDir, DatasetDownloadOptions options) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#downloadDataset start : [datasetId] = {}, [targetDir] = {}, [options] = {}", datasetId,
+                targetDir, options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#downloadDataset");
+        requireNotNull(targetDir, "at targetDir in DsmoqClient#downloadDataset");
+        requireNotNull(options, "at options in DsmoqClient#downloadDataset");
+        try {
+            return new DatasetDownloader(this, datasetId, targetDir, options).download();
+        } catch (IOException e) {
+            throw translateInnerException(e);
+        }
+    }
+
+    /**
+     * ローカルのディレクトリの内容をデータセットへ同期する。
+     *
+     * デフォルトのオプションでsyncDirectory(String, Path, DatasetSyncOptions)を呼び出します。
+     *
+     * @param datasetId DatasetID
+     * @param sourceDir 同期元ディレクトリ
+     * @return 同期結果
+     * @throws NullPointerException datasetId、sourceDirのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     * @see #syncDirectory(String, Path, DatasetSyncOptions)
+     */
+    public DatasetSyncResult syncDirectory(String datasetId, Path sourceDir) {
+        return syncDirectory(datasetId, sourceDir, new DatasetSyncOptions());
+    }
+
+    /**
+     * ローカルのディレクトリの内容をデータセットへ同期する。
+     *
+     * GET /api/datasets/${dataset_id}/files でファイル一覧を取得し、
+     * ディレクトリ以下のファイルと、ディレクトリからの相対パス ('/'区切り) をファイル名として比較した後、
+     * POST /api/datasets/${dataset_id}/files、POST /api/datasets/${dataset_id}/files/${file_id}、
+     * DELETE /api/datasets/${dataset_id}/files/${file_id} を並列に呼ぶ。
+     *
+     * 名前が一致し、サイズ (チェックサムを指定した場合はチェックサムも) が一致するファイルは送信しません。
+     * 新しいファイルはまとめて追加し、変更されたファイルは個別に更新します。
+     * ローカルに存在しないファイルは、オプションで指定した場合のみデータセットから削除します。
+     * 状態ファイルを指定した場合、前回の同期から変わっていないファイルは内容を読まずにスキップするため、
+     * 再実行時の処理量は変更されたファイルの量に比例します。
+     *
+     * @param datasetId DatasetID
+     * @param sourceDir 同期元ディレクトリ
+     * @param options 同期オプション
+     * @return 同期結果
+     * @throws NullPointerException datasetId、sourceDir、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public DatasetSyncResult syncDirectory(String datasetId, Path sourceDir, DatasetSyncOptions options) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#syncDirectory start : [datasetId] = {}, [sourceDir] = {}, [options] = {}", datasetId,
+                sourceDir, options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#syncDirectory");
+        requireNotNull(sourceDir, "at sourceDir in DsmoqClient#syncDirectory");
+        requireNotNull(options, "at options in DsmoqClient#syncDirectory");
+        try {
+            return new DatasetSynchronizer(this, datasetId, sourceDir, options).sync();
+        } catch (IOException e) {
+            throw translateInnerException(e);
+        }
+    }
+
+    /**
+     * データセット上のZIPファイルを、ファイル全体を取得せずに読み込むビューを作成する。
+     *
+     * キャッシュディレクトリを指定せずにopenZipArchive(String, String, Path)を呼び出します。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @return ZIPファイルのビュー
+     * @throws NullPointerException datasetId、fileIdのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     * @see #openZipArchive(String, String, Path)
+     */
+    public ZipRemoteArchive openZipArchive(String datasetId, String fileId) {
+        return openZipArchive(datasetId, fileId, null);
+    }
+
+    /**
+     * データセット上のZIPファイルを、ファイル全体を取得せずに読み込むビューを作成する。
+     *
+     * HEAD /files/${dataset_id}/${file_id} でファイルサイズを取得した後、
+     * GET /files/${dataset_id}/${file_id} をRange指定で呼び、ZIPファイルの終端とセントラルディレクトリを取得する。
+     * 各エントリの内容は、ZipRemoteArchive#openEntryでエントリの範囲のみを取得し、クライアント側で展開します。
+     *
+     * キャッシュディレクトリを指定した場合、GET /api/datasets/${dataset_id}/files でファイルサイズと更新日時を取得し、
+     * 取得したセントラルディレクトリはファイルに保存されます。
+     * 次回以降は、ZIPファイルのサイズと更新日時が変わらない限り、ファイル一覧の取得のみ行います。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param cacheDir セントラルディレクトリのキャッシュディレクトリ、キャッシュしない場合null
+     * @return ZIPファイルのビュー
+     * @throws NullPointerException datasetId、fileIdのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (ZIPファイルとして不正な場合を含む)
+     */
+    public ZipRemoteArchive openZipArchive(String datasetId, String fileId, Path cacheDir) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#openZipArchive start : [datasetId] = {}, [fileId] = {}, [cacheDir] = {}", datasetId,
+                fileId, cacheDir);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#openZipArchive");
+        requireNotNull(fileId, "at fileId in DsmoqClient#openZipArchive");
+        try {
+            return ZipRemoteArchive.open(this, datasetId, fileId, cacheDir);
+        } catch (IOException e) {
+            throw translateInnerException(e);
+        }
     }
 
     /**
@@ -753,19 +1371,7 @@ public class DsmoqClient {
         requireNotNull(datasetId, "at datasetId in DsmoqClient#exportAttribute");
         requireNotNull(fileFunc, "at fileFunc in DsmoqClient#exportAttribute");
         return get("/api/datasets/" + datasetId + "/attributes/export", (HttpResponse response) -> {
-            return fileFunc.apply(new DatasetFileContent() {
-                public InputStream getContent() throws IOException {
-                    return response.getEntity().getContent();
-                }
-
-                public String getName() {
-                    return EXPORT_ATTRIBUTE_CSV_FILENAME;
-                }
-
-                public void writeTo(OutputStream s) throws IOException {
-                    response.getEntity().writeTo(s);
-                }
-            });
+            return fileFunc.apply(new ResponseDatasetFileContent(response, EXPORT_ATTRIBUTE_CSV_FILENAME));
         });
     }
 
@@ -790,6 +1396,32 @@ public class DsmoqClient {
         return get("/api/datasets/" + datasetId + "/acl", param.toJsonString(), JsonUtil::toDatasetOwnership);
     }
 
+    /**
+     * データセットのアクセス権一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/datasets/${dataset_id}/acl を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param datasetId DatasetID
+     * @param param 一覧取得情報
+     * @param consumer アクセス権を1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException datasetId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getAccessLevel(String datasetId, GetRangeParam param,
+            Consumer<DatasetOwnership> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getAccessLevel start : [datasetId] = {}, [param] = {}", datasetId, param);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#getAccessLevel");
+        requireNotNull(param, "at param in DsmoqClient#getAccessLevel");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getAccessLevel");
+        return getEach("/api/datasets/" + datasetId + "/acl", param.toJsonString(), consumer,
+                JsonUtil::toDatasetOwnership);
+    }
+
     /**
      * ユーザー一覧を取得する。
      *
@@ -803,7 +1435,7 @@ public class DsmoqClient {
      */
     public List<User> getAccounts() {
         logger.debug(LOG_MARKER, "DsmoqClient#getAccounts start");
-        return get("/api/accounts", JsonUtil::toUsers);
+        return getCached(CacheableEndpoint.ACCOUNTS, "/api/accounts", null, JsonUtil::toUsers);
     }
 
     /**
@@ -822,7 +1454,7 @@ public class DsmoqClient {
     public Dataset getDataset(String datasetId) {
         logger.debug(LOG_MARKER, "DsmoqClient#getDataset start : [datasetId] = {}", datasetId);
         requireNotNull(datasetId, "at datasetId in DsmoqClient#getDataset");
-        return get("/api/datasets/" + datasetId, JsonUtil::toDataset);
+        return getCached(CacheableEndpoint.DATASET, "/api/datasets/" + datasetId, null, JsonUtil::toDataset);
     }
 
     /**
@@ -844,7 +1476,34 @@ public class DsmoqClient {
                 param);
         requireNotNull(datasetId, "at datasetId in DsmoqClient#getDatasetFiles");
         requireNotNull(param, "at param in DsmoqClient#getDatasetFiles");
-        return get("/api/datasets/" + datasetId + "/files", param.toJsonString(), JsonUtil::toDatasetFiles);
+        return getCached(CacheableEndpoint.DATASET_FILES, "/api/datasets/" + datasetId + "/files", param.toJsonString(),
+                JsonUtil::toDatasetFiles);
+    }
+
+    /**
+     * データセットのファイル一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/datasets/${dataset_id}/files を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param datasetId DatasetID
+     * @param param 一覧取得情報
+     * @param consumer ファイルを1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException datasetId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getDatasetFiles(String datasetId, GetRangeParam param, Consumer<DatasetFile> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getDatasetFiles start : [datasetId] = {}, [param] = {}",
+                datasetId, param);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#getDatasetFiles");
+        requireNotNull(param, "at param in DsmoqClient#getDatasetFiles");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getDatasetFiles");
+        return getEach("/api/datasets/" + datasetId + "/files", param.toJsonString(), consumer,
+                JsonUtil::toDatasetFiles);
     }
 
     /**
@@ -869,6 +1528,33 @@ public class DsmoqClient {
         return get("/api/datasets/" + datasetId + "/images", param.toJsonString(), JsonUtil::toDatasetGetImage);
     }
 
+    /**
+     * データセットの画像一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/datasets/${dataset_id}/image を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param datasetId DatasetID
+     * @param param 一覧取得情報
+     * @param consumer 画像を1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException datasetId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getDatasetImage(String datasetId, GetRangeParam param,
+            Consumer<DatasetGetImage> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getDatasetImage start : [datasetId] = {}, [param] = {}",
+                datasetId, param);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#getDatasetImage");
+        requireNotNull(param, "at param in DsmoqClient#getDatasetImage");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getDatasetImage");
+        return getEach("/api/datasets/" + datasetId + "/images", param.toJsonString(), consumer,
+                JsonUtil::toDatasetGetImage);
+    }
+
     /**
      * Datasetを検索する。
      *
@@ -908,6 +1594,28 @@ public class DsmoqClient {
         return get("/api/datasets", param.toJsonString(), JsonUtil::toDatasets);
     }
 
+    /**
+     * Datasetを検索し、検索結果を1件ずつconsumerに渡す。
+     *
+     * GET /api/datasets を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param param Dataset検索に使用するパラメタ
+     * @param consumer 検索結果を1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getDatasets(GetDatasetsConditionParam param, Consumer<DatasetsSummary> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getDatasets start : [param] = {}", param);
+        requireNotNull(param, "at param in DsmoqClient#getDatasets");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getDatasets");
+        return getEach("/api/datasets", param.toJsonString(), consumer, JsonUtil::toDatasets);
+    }
+
     /**
      * データセットのZIPファイルに含まれるファイル一覧を取得する。
      *
@@ -934,6 +1642,36 @@ public class DsmoqClient {
                 JsonUtil::toDatasetZippedFiles);
     }
 
+    /**
+     * データセットのZIPファイルに含まれるファイル一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/datasets/${dataset_id}/files/${fileId}/zippedfiles を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId FileID
+     * @param param 一覧取得情報
+     * @param consumer ZIPファイル中のファイルを1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException datasetId、fileId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getDatasetZippedFiles(String datasetId, String fileId, GetRangeParam param,
+            Consumer<DatasetZipedFile> consumer) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#getDatasetZippedFiles start : [datasetId] = {}, [fileId] = {}, [param] = {}",
+                datasetId, fileId, param);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#getDatasetZippedFiles");
+        requireNotNull(fileId, "at fileId in DsmoqClient#getDatasetZippedFiles");
+        requireNotNull(param, "at param in DsmoqClient#getDatasetZippedFiles");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getDatasetZippedFiles");
+        return getEach("/api/datasets/" + datasetId + "/files/" + fileId + "/zippedfiles", param.toJsonString(),
+                consumer, JsonUtil::toDatasetZippedFiles);
+    }
+
     /**
      * データセットに設定されているファイルのサイズを取得する。
      *
@@ -952,20 +1690,7 @@ public class DsmoqClient {
         logger.debug(LOG_MARKER, "DsmoqClient#getFileSize start : [datasetId] = {}, [fileId] = {}", datasetId, fileId);
         requireNotNull(datasetId, "at datasetId in DsmoqClient#getFileSize");
         requireNotNull(fileId, "at fileId in DsmoqClient#getFileSize");
-        return head("/files/" + datasetId + "/" + fileId, response -> {
-            Header header = response.getFirstHeader(CONTENT_LENGTH_HEADER_NAME);
-            if (header == null) {
-                logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_CONTENT_LENGTH_NOT_FOUND));
-                return null;
-            }
-            try {
-                return Long.valueOf(header.getValue());
-            } catch (NumberFormatException e) {
-                logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_INVALID_CONTENT_LENGTH), header.getValue(),
-                        e);
-                return null;
-            }
-        });
+        return head("/files/" + datasetId + "/" + fileId, DsmoqClient::toFileSize);
     }
 
     /**
@@ -984,7 +1709,7 @@ public class DsmoqClient {
     public Group getGroup(String groupId) {
         logger.debug(LOG_MARKER, "DsmoqClient#getGroup start : [groupId] = {}", groupId);
         requireNotNull(groupId, "at groupId in DsmoqClient#getGroup");
-        return get("/api/groups/" + groupId, JsonUtil::toGroup);
+        return getCached(CacheableEndpoint.GROUP, "/api/groups/" + groupId, null, JsonUtil::toGroup);
     }
 
     /**
@@ -1008,6 +1733,30 @@ public class DsmoqClient {
         return get("/api/groups/" + groupId + "/images", param.toJsonString(), JsonUtil::toGroupGetImage);
     }
 
+    /**
+     * グループの画像一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/groups/${group_id}/images を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param groupId グループID
+     * @param param 一覧取得情報
+     * @param consumer 画像を1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException groupId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getGroupImage(String groupId, GetRangeParam param, Consumer<GroupGetImage> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getGroupImage start : [groupId] = {}, [param] = {}", groupId, param);
+        requireNotNull(groupId, "at groupId in DsmoqClient#getGroupImage");
+        requireNotNull(param, "at param in DsmoqClient#getGroupImage");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getGroupImage");
+        return getEach("/api/groups/" + groupId + "/images", param.toJsonString(), consumer, JsonUtil::toGroupGetImage);
+    }
+
     /**
      * グループ一覧を取得する。
      *
@@ -1027,6 +1776,28 @@ public class DsmoqClient {
         return get("/api/groups", param.toJsonString(), JsonUtil::toGroups);
     }
 
+    /**
+     * グループ一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/groups を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param param グループ一覧取得情報
+     * @param consumer グループを1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getGroups(GetGroupsParam param, Consumer<GroupsSummary> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getGroups start : [param] = {}", param);
+        requireNotNull(param, "at param in DsmoqClient#getGroups");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getGroups");
+        return getEach("/api/groups", param.toJsonString(), consumer, JsonUtil::toGroups);
+    }
+
     /**
      * ライセンス一覧を取得する。
      *
@@ -1040,7 +1811,7 @@ public class DsmoqClient {
      */
     public List<License> getLicenses() {
         logger.debug(LOG_MARKER, "DsmoqClient#getLicenses start");
-        return get("/api/licenses", JsonUtil::toLicenses);
+        return getCached(CacheableEndpoint.LICENSES, "/api/licenses", null, JsonUtil::toLicenses);
     }
 
     /**
@@ -1064,6 +1835,30 @@ public class DsmoqClient {
         return get("/api/groups/" + groupId + "/members", param.toJsonString(), JsonUtil::toMembers);
     }
 
+    /**
+     * グループのメンバー一覧を取得し、1件ずつconsumerに渡す。
+     *
+     * GET /api/groups/${group_id}/members を呼ぶ。
+     * レスポンスを先頭から順に読み込みながら要素を渡すため、一覧全体をメモリ上に保持しません。
+     * 
+     * @param groupId グループID
+     * @param param グループメンバー一覧取得情報
+     * @param consumer メンバーを1件ずつ受け取る関数
+     * @return 一覧のサマリ
+     * @throws NullPointerException groupId、param、consumerのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public RangeSliceSummary getMembers(String groupId, GetMembersParam param, Consumer<MemberSummary> consumer) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getMembers start : [groupId] = {}, [param] = {}", groupId, param);
+        requireNotNull(groupId, "at groupId in DsmoqClient#getMembers");
+        requireNotNull(param, "at param in DsmoqClient#getMembers");
+        requireNotNull(consumer, "at consumer in DsmoqClient#getMembers");
+        return getEach("/api/groups/" + groupId + "/members", param.toJsonString(), consumer, JsonUtil::toMembers);
+    }
+
     /**
      * ログインユーザのプロファイルを取得する。
      *
@@ -1077,7 +1872,7 @@ public class DsmoqClient {
      */
     public User getProfile() {
         logger.debug(LOG_MARKER, "DsmoqClient#getProfile start");
-        return get("/api/profile", JsonUtil::toUser);
+        return getCached(CacheableEndpoint.PROFILE, "/api/profile", null, JsonUtil::toUser);
     }
 
     /**
@@ -1135,11 +1930,39 @@ public class DsmoqClient {
         logger.debug(LOG_MARKER, "DsmoqClient#importAttribute start : [datasetId] = {}, [file] = {}", datasetId,
                 (file == null) ? "null" : file.getName());
         requireNotNull(datasetId, "at datasetId in DsmoqClient#importAttribute");
-        requireNotNull(file, "at file in DsmoqClient#importAttribute");
+        requireNotNull(file, "at file in DsmoqClient#importAttribute");
+        Supplier<HttpEntity> entity = () -> {
+            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+            builder.addBinaryBody("file", file);
+            return builder.build();
+        };
+        post("/api/datasets/" + datasetId + "/attributes/import", entity, x -> x);
+    }
+
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容をCSVとして、Attributeを読み込む。
+     *
+     * POST /api/datasets/${dataset_id}/attributes/import を呼ぶ。
+     * 内容は一時ファイルに書き出さずにリクエストボディへ直接送信されます。
+     *
+     * @param datasetId DatasetID
+     * @param source AttributeをインポートするCSVの内容
+     * @param listener 送信の進捗を受け取るリスナー、受け取らない場合null
+     * @throws NullPointerException datasetId、sourceのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public void importAttribute(String datasetId, UploadSource source, UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "DsmoqClient#importAttribute start : [datasetId] = {}, [source] = {}", datasetId,
+                source);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#importAttribute");
+        requireNotNull(source, "at source in DsmoqClient#importAttribute");
         Supplier<HttpEntity> entity = () -> {
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.addBinaryBody("file", file);
-            return builder.build();
+            MultipartEntityBuilder builder = toUploadEntityBuilder();
+            builder.addPart("file", source.toContentBody());
+            return toUploadEntity(builder, Collections.singletonList(source), listener);
         };
         post("/api/datasets/" + datasetId + "/attributes/import", entity, x -> x);
     }
@@ -1297,6 +2120,204 @@ public class DsmoqClient {
         put("/api/groups/" + groupId + "/images/primary", param.toJsonString(), x -> x);
     }
 
+    /**
+     * データセットのアクセス権一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/datasets/${dataset_id}/acl をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param datasetId DatasetID
+     * @param options 一覧取得のオプション
+     * @return データセットのアクセス権一覧のStream
+     * @throws NullPointerException datasetId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<DatasetOwnership> streamAccessLevel(String datasetId, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamAccessLevel start : [datasetId] = {}, [options] = {}", datasetId,
+                options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#streamAccessLevel");
+        requireNotNull(options, "at options in DsmoqClient#streamAccessLevel");
+        return PageIterator.stream((offset, limit) -> getAccessLevel(datasetId, toRangeParam(offset, limit)), options);
+    }
+
+    /**
+     * データセットのファイル一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/datasets/${dataset_id}/files をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param datasetId DatasetID
+     * @param options 一覧取得のオプション
+     * @return データセットのファイル一覧のStream
+     * @throws NullPointerException datasetId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<DatasetFile> streamDatasetFiles(String datasetId, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamDatasetFiles start : [datasetId] = {}, [options] = {}", datasetId,
+                options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#streamDatasetFiles");
+        requireNotNull(options, "at options in DsmoqClient#streamDatasetFiles");
+        return PageIterator.stream((offset, limit) -> getDatasetFiles(datasetId, toRangeParam(offset, limit)), options);
+    }
+
+    /**
+     * データセットの画像一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/datasets/${dataset_id}/images をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param datasetId DatasetID
+     * @param options 一覧取得のオプション
+     * @return データセットの画像一覧のStream
+     * @throws NullPointerException datasetId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<DatasetGetImage> streamDatasetImage(String datasetId, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamDatasetImage start : [datasetId] = {}, [options] = {}", datasetId,
+                options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#streamDatasetImage");
+        requireNotNull(options, "at options in DsmoqClient#streamDatasetImage");
+        return PageIterator.stream((offset, limit) -> getDatasetImage(datasetId, toRangeParam(offset, limit)), options);
+    }
+
+    /**
+     * Datasetの検索結果を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/datasets をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param param Dataset検索に使用するパラメタ (limit、offsetは無視される)
+     * @param options 一覧取得のオプション
+     * @return Datasetの検索結果のStream
+     * @throws NullPointerException param、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<DatasetsSummary> streamDatasets(GetDatasetsConditionParam param, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamDatasets start : [param] = {}, [options] = {}", param, options);
+        requireNotNull(param, "at param in DsmoqClient#streamDatasets");
+        requireNotNull(options, "at options in DsmoqClient#streamDatasets");
+        return PageIterator.stream(
+                (offset, limit) -> get("/api/datasets", param.toJsonString(limit, offset), JsonUtil::toDatasets),
+                options);
+    }
+
+    /**
+     * データセットのZIPファイルに含まれるファイル一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/datasets/${dataset_id}/files/${fileId}/zippedfiles をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId FileID
+     * @param options 一覧取得のオプション
+     * @return データセットのZIPファイルに含まれるファイル一覧のStream
+     * @throws NullPointerException datasetId、fileId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<DatasetZipedFile> streamDatasetZippedFiles(String datasetId, String fileId, PageOptions options) {
+        logger.debug(LOG_MARKER,
+                "DsmoqClient#streamDatasetZippedFiles start : [datasetId] = {}, [fileId] = {}, [options] = {}",
+                datasetId, fileId, options);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#streamDatasetZippedFiles");
+        requireNotNull(fileId, "at fileId in DsmoqClient#streamDatasetZippedFiles");
+        requireNotNull(options, "at options in DsmoqClient#streamDatasetZippedFiles");
+        return PageIterator.stream(
+                (offset, limit) -> getDatasetZippedFiles(datasetId, fileId, toRangeParam(offset, limit)), options);
+    }
+
+    /**
+     * グループの画像一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/groups/${group_id}/images をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param groupId グループID
+     * @param options 一覧取得のオプション
+     * @return グループの画像一覧のStream
+     * @throws NullPointerException groupId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<GroupGetImage> streamGroupImage(String groupId, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamGroupImage start : [groupId] = {}, [options] = {}", groupId,
+                options);
+        requireNotNull(groupId, "at groupId in DsmoqClient#streamGroupImage");
+        requireNotNull(options, "at options in DsmoqClient#streamGroupImage");
+        return PageIterator.stream((offset, limit) -> getGroupImage(groupId, toRangeParam(offset, limit)), options);
+    }
+
+    /**
+     * グループ一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/groups をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param param グループ一覧取得情報 (limit、offsetは無視される)
+     * @param options 一覧取得のオプション
+     * @return グループ一覧のStream
+     * @throws NullPointerException param、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<GroupsSummary> streamGroups(GetGroupsParam param, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamGroups start : [param] = {}, [options] = {}", param, options);
+        requireNotNull(param, "at param in DsmoqClient#streamGroups");
+        requireNotNull(options, "at options in DsmoqClient#streamGroups");
+        return PageIterator.stream((offset, limit) -> getGroups(new GetGroupsParam(param.getQuery(), param.getUser(),
+                Optional.of(limit), Optional.of(offset))), options);
+    }
+
+    /**
+     * グループのメンバー一覧を、全ページにわたって順に返すStreamを取得する。
+     *
+     * GET /api/groups/${group_id}/members をページごとに呼ぶ。
+     * 要素の処理中に後続のページを先行して取得します。Streamは遅延評価され、iterator()でIteratorとしても利用できます。
+     * 途中で処理を打ち切る場合は、先行して取得中のページを破棄するためStreamをクローズしてください。
+     * 
+     * @param groupId グループID
+     * @param options 一覧取得のオプション
+     * @return グループのメンバー一覧のStream
+     * @throws NullPointerException groupId、optionsのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合 (Streamの要素の取得時)
+     * @throws TimeoutException 接続がタイムアウトした場合 (Streamの要素の取得時)
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合 (Streamの要素の取得時)
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合 (Streamの要素の取得時)
+     */
+    public Stream<MemberSummary> streamMembers(String groupId, PageOptions options) {
+        logger.debug(LOG_MARKER, "DsmoqClient#streamMembers start : [groupId] = {}, [options] = {}", groupId, options);
+        requireNotNull(groupId, "at groupId in DsmoqClient#streamMembers");
+        requireNotNull(options, "at options in DsmoqClient#streamMembers");
+        return PageIterator.stream(
+                (offset, limit) -> getMembers(groupId, new GetMembersParam(Optional.of(limit), Optional.of(offset))),
+                options);
+    }
+
     /**
      * データセットの情報を更新する。
      *
@@ -1366,6 +2387,64 @@ public class DsmoqClient {
         return post("/api/datasets/" + datasetId + "/files/" + fileId, entity, JsonUtil::toDatasetFile);
     }
 
+    /**
+     * ファイル、メモリ上のバイト列、あるいはInputStreamの内容で、ファイルを更新する。
+     *
+     * POST /api/datasets/${dataset_id}/files/${file_id} を呼ぶ。
+     * 内容は一時ファイルに書き出さずにリクエストボディへ直接送信され、ボディ全体をメモリ上に保持しません。
+     * 長さの分からないInputStreamの場合、リクエストはチャンク形式で送信されます。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param source 更新後のファイルの内容
+     * @param listener 送信の進捗を受け取るリスナー、受け取らない場合null
+     * @return 更新されたファイル情報
+     * @throws NullPointerException datasetId、fileId、sourceのいずれかがnullの場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    public DatasetFile updateFile(String datasetId, String fileId, UploadSource source,
+            UploadProgressListener listener) {
+        logger.debug(LOG_MARKER, "DsmoqClient#updateFile start : [datasetId] = {}, [fileId] = {}, [source] = {}",
+                datasetId, fileId, source);
+        requireNotNull(datasetId, "at datasetId in DsmoqClient#updateFile");
+        requireNotNull(fileId, "at fileId in DsmoqClient#updateFile");
+        requireNotNull(source, "at source in DsmoqClient#updateFile");
+        Supplier<HttpEntity> entity = () -> {
+            MultipartEntityBuilder builder = toUploadEntityBuilder();
+            builder.addPart("file", source.toContentBody());
+            return toUploadEntity(builder, Collections.singletonList(source), listener);
+        };
+        return post("/api/datasets/" + datasetId + "/files/" + fileId, entity, JsonUtil::toDatasetFile);
+    }
+
+    /**
+     * ファイル名を指定してファイルを更新する。
+     *
+     * POST /api/datasets/${dataset_id}/files/${file_id} を呼ぶ。
+     * ローカルのファイル名の代わりに、指定された名前をファイル名として送信します。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param name ファイル名
+     * @param file 更新対象のファイル
+     * @return 更新されたファイル情報
+     */
+    DatasetFile updateFile(String datasetId, String fileId, String name, File file) {
+        logger.debug(LOG_MARKER, "DsmoqClient#updateFile start : [datasetId] = {}, [fileId] = {}, [name] = {}",
+                datasetId, fileId, name);
+        Supplier<HttpEntity> entity = () -> {
+            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+            builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
+            builder.setCharset(StandardCharsets.UTF_8);
+            builder.addBinaryBody("file", file, ContentType.DEFAULT_BINARY, name);
+            return builder.build();
+        };
+        return post("/api/datasets/" + datasetId + "/files/" + fileId, entity, JsonUtil::toDatasetFile);
+    }
+
     /**
      * ファイル情報を更新する。
      *
@@ -1461,20 +2540,137 @@ public class DsmoqClient {
      * 
      * @param request リクエストオブジェクト
      */
-    private void addAuthorizationHeader(HttpUriRequest request) {
+    void addAuthorizationHeader(HttpUriRequest request) {
         if (!_apiKey.isEmpty() && !_secretKey.isEmpty()) {
-            request.addHeader(AUTHORIZATION_HEADER_NAME,
-                    String.format("api_key=%s, signature=%s", _apiKey, getSignature(_apiKey, _secretKey)));
+            request.addHeader(AUTHORIZATION_HEADER_NAME, getAuthorization());
+        }
+    }
+
+    /**
+     * Authorizationヘッダの値を取得する。
+     * 
+     * 署名はAPIキーとシークレットキーのみから決まるため、クライアントごとに一度だけ計算する。
+     * (複数のスレッドから同時に呼ばれた場合に重複して計算されることはあるが、結果は同じ)
+     * 
+     * @return Authorizationヘッダの値
+     */
+    String getAuthorization() {
+        String authorization = _authorization;
+        if (authorization == null) {
+            authorization = String.format("api_key=%s, signature=%s", _apiKey, getSignature(_apiKey, _secretKey));
+            _authorization = authorization;
+        }
+        return authorization;
+    }
+
+    /**
+     * ファイルをダウンロードした際のファイル名を、ボディを取得せずに取得する。
+     *
+     * HEAD /files/${dataset_id}/${file_id} を呼び、Content-Dispositionのファイル名を返す。
+     *
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @return Content-Dispositionのファイル名、ない場合null
+     */
+    String getDownloadFileName(String datasetId, String fileId) {
+        logger.debug(LOG_MARKER, "DsmoqClient#getDownloadFileName start : [datasetId] = {}, [fileId] = {}",
+                datasetId, fileId);
+        return head("/files/" + datasetId + "/" + fileId, DsmoqClient::getFileNameFromHeader);
+    }
+
+    /**
+     * 同時実行数の制限を取得する。
+     *
+     * @return 同時実行数の制限、制限しない場合null
+     */
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return _limiter;
+    }
+
+    /**
+     * 冪等なリクエストの再送、ヘッジ、期限による中断を行うオブジェクトを取得する。
+     * 
+     * @return 再送を行うオブジェクト、再試行ポリシーを設定していない場合null
+     */
+    RetryExecutor getRetryExecutor() {
+        return _retryExecutor;
+    }
+
+    /**
+     * リクエストの送信先から、同時実行数の制限の単位となるAPIの種別を判定する。
+     * 
+     * @param request リクエスト
+     * @return APIの種別
+     */
+    EndpointClass toEndpointClass(HttpUriRequest request) {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            Header contentType = entity == null ? null : entity.getContentType();
+            if (contentType != null && contentType.getValue().startsWith("multipart/")) {
+                return EndpointClass.UPLOAD;
+            }
+        }
+        String path = request.getURI().getRawPath();
+        if (path != null && path.startsWith(_basePath + "/files/")) {
+            return EndpointClass.DOWNLOAD;
+        }
+        return EndpointClass.METADATA;
+    }
+
+    /**
+     * リクエストから、計測結果を集計する単位となるエンドポイントのテンプレートを作成する。
+     * 
+     * 基準となるURLのパスとクエリを除き、パス中のIDを{id}に置き換える。
+     * 
+     * @param request リクエスト
+     * @return テンプレート (例: "GET /api/datasets/{id}/files")
+     */
+    String toEndpointTemplate(HttpUriRequest request) {
+        String path = request.getURI().getRawPath();
+        if (path == null) {
+            path = "";
+        } else if (path.startsWith(_basePath)) {
+            path = path.substring(_basePath.length());
+        }
+        return request.getMethod() + " " + ID_SEGMENT_PATTERN.matcher(path).replaceAll("{id}");
+    }
+
+    /**
+     * API呼び出しの計測を開始する。
+     * 
+     * @return 計測結果の記録先、計測しない場合null
+     */
+    RequestMetricsRecorder newMetricsRecorder() {
+        return _metricsListener == null ? null : new RequestMetricsRecorder(this, _metricsListener);
+    }
+
+    /**
+     * 更新系のリクエストの送信に伴い、レスポンスキャッシュから関連するリソースのエントリを破棄する。
+     * 
+     * GET、HEADリクエストの場合、レスポンスキャッシュを使用していない場合は何もしない。
+     * 
+     * @param request 送信したリクエスト
+     */
+    void invalidateCache(HttpUriRequest request) {
+        String method = request.getMethod();
+        if (_cache == null || HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method)) {
+            return;
         }
+        _cache.invalidate(request.getURI().getRawPath());
     }
 
     /**
-     * HTTPクライアントを取得する。
+     * 同時に送信された同一のGETリクエストを集約する。
+     * 
+     * 集約が有効な場合、同じキーのリクエストが送信中であれば、新たに送信せずにその変換結果(または例外)を共有する。
+     * キーにはHTTPメソッド、URL、JSONパラメータを含める。(認証情報はクライアントごとに固定のため含めない)
      * 
-     * @return HTTPクライアント
+     * @param key リクエストを識別するキー
+     * @param call リクエストを送信し、レスポンスを変換する処理
+     * @return 変換結果
      */
-    private AutoCloseHttpClient createHttpClient() {
-        return new AutoCloseHttpClient();
+    private <T> T coalesce(String key, Supplier<T> call) {
+        return _singleFlight == null ? call.get() : _singleFlight.execute(key, call);
     }
 
     /**
@@ -1493,26 +2689,114 @@ public class DsmoqClient {
                 (HttpResponse response) -> responseFunc.apply(responseToString(response)));
     }
 
+    /**
+     * ファイルの内容を、圧縮を行わずに部分的に取得する。
+     * 
+     * GET /files/${dataset_id}/${file_id} を呼ぶ。
+     * 
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param from 開始位置指定、指定しない場合null
+     * @param to 終了位置指定、指定しない場合null
+     * @param responseFunc レスポンス変換関数
+     * @return 変換結果
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    <T> T downloadRange(String datasetId, String fileId, Long from, Long to, ResponseFunction<T> responseFunc) {
+        // レスポンスボディは書き込み済みの位置を更新しながら読み込まれるため、再送は呼び出し元で行う
+        return sendWithRetry(() -> new AutoHttpGet(_baseUrl + "/files/" + datasetId + "/" + fileId), request -> {
+            // 書き込み位置とレスポンスボディの位置を一致させるため、圧縮を行わないようサーバに要求する
+            request.setHeader(ACCEPT_ENCODING_HEADER_NAME, IDENTITY_ENCODING_NAME);
+            if (from != null || to != null) {
+                request.setHeader(RANGE_HEADER_NAME, toRangeHeaderValue(from, to));
+            }
+        } , responseFunc, false, () -> false);
+    }
+
     /**
      * リクエストを実行する。
      * 
      * @param <T> レスポンス変換後の型
      * @param request リクエスト
      * @param responseFunc レスポンス変換関数
+     * @param recorder 計測結果の記録先、計測しない場合null
+     * @return 変換結果
+     * @throws IOException 接続に失敗した場合
+     * @throws HttpException レスポンスがHTTPレスポンスとして不正な場合
+     * @throws ErrorRespondedException エラーレスポンスが返ってきた場合
+     * @throws RejectedExecutionException 同時実行数の制限による待機数が上限を超えた場合
+     * @throws java.util.concurrent.TimeoutException 同時実行数の制限による待機時間の上限を過ぎた場合
+     * @throws InterruptedException 同時実行数の制限による待機中に割り込まれた場合
+     */
+    private <T> T execute(HttpUriRequest request, ResponseFunction<T> responseFunc, RequestMetricsRecorder recorder)
+            throws IOException, HttpException, ErrorRespondedException, java.util.concurrent.TimeoutException,
+            InterruptedException {
+        if (recorder != null) {
+            recorder.begin(request);
+        }
+        if (_limiter == null) {
+            return executeDirect(request, responseFunc, recorder);
+        }
+        EndpointClass endpoint = toEndpointClass(request);
+        long queued = System.nanoTime();
+        try {
+            _limiter.acquire(endpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.onQueued(System.nanoTime() - queued);
+            }
+        }
+        long start = System.nanoTime();
+        Exception error = null;
+        try {
+            return executeDirect(request, responseFunc, recorder);
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            _limiter.release(endpoint, request, System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * 同時実行数を制限せずにリクエストを実行する。
+     * 
+     * @param <T> レスポンス変換後の型
+     * @param request リクエスト
+     * @param responseFunc レスポンス変換関数
+     * @param recorder 計測結果の記録先、計測しない場合null
      * @return 変換結果
      * @throws IOException 接続に失敗した場合
      * @throws HttpException レスポンスがHTTPレスポンスとして不正な場合
      * @throws ErrorRespondedException エラーレスポンスが返ってきた場合
      */
-    private <T> T execute(HttpUriRequest request, ResponseFunction<T> responseFunc)
-            throws IOException, HttpException, ErrorRespondedException {
-        try (AutoCloseHttpClient client = createHttpClient()) {
-            HttpResponse response = client.execute(request);
+    private <T> T executeDirect(HttpUriRequest request, ResponseFunction<T> responseFunc,
+            RequestMetricsRecorder recorder) throws IOException, HttpException, ErrorRespondedException {
+        HttpExchangeMetrics exchange = recorder == null ? null : recorder.newExchange();
+        T result;
+        // レスポンスをcloseし、コネクションをプールへ返却する
+        try (CloseableHttpResponse response = _httpClient.execute(request, exchange)) {
             if (isErrorStatus(response.getStatusLine().getStatusCode())) {
                 throw new ErrorRespondedException(response);
             }
-            return responseFunc.apply(response);
+            result = responseFunc.apply(response);
+        } catch (Exception e) {
+            if (recorder != null) {
+                recorder.onExchangeComplete(exchange, e);
+            }
+            throw e;
+        }
+        // レスポンスボディのバイト数が確定した後に記録する
+        if (recorder != null) {
+            recorder.onExchangeComplete(exchange, null);
         }
+        return result;
     }
 
     /**
@@ -1543,7 +2827,9 @@ public class DsmoqClient {
      * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
      */
     private <T> T get(String url, Function<String, T> responseFunc) {
-        return get(url, (HttpResponse response) -> responseFunc.apply(responseToString(response)));
+        return coalesce(HttpGet.METHOD_NAME + " " + _baseUrl + url,
+                () -> sendWithRetry(() -> new AutoHttpGet(_baseUrl + url), null,
+                        (HttpResponse response) -> responseFunc.apply(responseToString(response)), true, () -> true));
     }
 
     /**
@@ -1574,10 +2860,98 @@ public class DsmoqClient {
      * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
      */
     private <T> T get(String url, String jsonParam, Function<String, T> responseFunc) {
-        return send(
-                () -> new AutoHttpGet(_baseUrl + url + "?" + REQUEST_JSON_PARAM_NAME + "="
-                        + URLEncoder.encode(jsonParam, DEFAULT_REQUEST_CHARSET.name())),
-                null, (HttpResponse response) -> responseFunc.apply(responseToString(response)));
+        return coalesce(HttpGet.METHOD_NAME + " " + _baseUrl + url + " " + REQUEST_JSON_PARAM_NAME + "=" + jsonParam,
+                () -> sendWithRetry(() -> new AutoHttpGet(_baseUrl + url + toQueryString(jsonParam)), null,
+                        (HttpResponse response) -> responseFunc.apply(responseToString(response)), true, () -> true));
+    }
+
+    /**
+     * GETリクエストを送信し、一覧のレスポンスを先頭から順に読み込みながら要素を1件ずつconsumerに渡す。
+     * 
+     * @param url 送信先URL
+     * @param jsonParam リクエストに付与するJSONパラメータ
+     * @param consumer 要素を受け取る関数
+     * @param decoder レスポンスボディを読み込み、要素をconsumerに渡す関数
+     * @return 一覧のサマリ
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    private <T> RangeSliceSummary getEach(String url, String jsonParam, Consumer<T> consumer,
+            BiFunction<InputStream, Consumer<T>, RangeSliceSummary> decoder) {
+        // 要素をconsumerに渡した後は、重複して渡さないよう再送しない
+        AtomicBoolean delivered = new AtomicBoolean();
+        Consumer<T> tracking = x -> {
+            delivered.set(true);
+            consumer.accept(x);
+        };
+        return sendWithRetry(() -> new AutoHttpGet(_baseUrl + url + toQueryString(jsonParam)), null,
+                (HttpResponse response) -> {
+                    try (InputStream in = response.getEntity().getContent()) {
+                        RangeSliceSummary summary = decoder.apply(in, tracking);
+                        logger.debug(LOG_MARKER, "DsmoqClient#getEach : [url] = {}, [summary] = {}", url, summary);
+                        return summary;
+                    }
+                } , false, () -> !delivered.get());
+    }
+
+    /**
+     * レスポンスキャッシュを用いてGETリクエストを送信する。
+     * 
+     * 保持期限内のエントリがある場合はリクエストを送信せずにその値を返す。
+     * 保持期限を過ぎたエントリがETagまたはLast-Modifiedを保持している場合は、条件付きリクエストで再検証する。
+     * 
+     * @param endpoint API
+     * @param url 送信先URL
+     * @param jsonParam リクエストに付与するJSONパラメータ、付与しない場合null
+     * @param responseFunc レスポンスボディ変換関数
+     * @return 変換結果
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getCached(CacheableEndpoint endpoint, String url, String jsonParam,
+            Function<String, T> responseFunc) {
+        long ttl = _cache == null ? 0L : _cache.getTtl(endpoint);
+        if (ttl == 0L) {
+            return jsonParam == null ? get(url, responseFunc) : get(url, jsonParam, responseFunc);
+        }
+        String uri;
+        try {
+            uri = _baseUrl + url + (jsonParam == null ? "" : toQueryString(jsonParam));
+        } catch (UnsupportedEncodingException e) {
+            throw translateInnerException(e);
+        }
+        String key = HttpGet.METHOD_NAME + " " + uri;
+        ResponseCache.Entry entry = _cache.get(key);
+        if (entry != null && entry.isFresh()) {
+            logger.debug(LOG_MARKER, "DsmoqClient#getCached : cache hit, [key] = {}", key);
+            return (T) entry.getValue();
+        }
+        ResponseCache.Entry stale = entry != null && entry.isRevalidatable() ? entry : null;
+        String path = URI.create(_baseUrl + url).getRawPath();
+        long generation = _cache.getGeneration();
+        return coalesce(key, () -> sendWithRetry(() -> new AutoHttpGet(uri), (AutoHttpGet request) -> {
+            if (stale != null && stale.getEtag() != null) {
+                request.setHeader(IF_NONE_MATCH_HEADER_NAME, stale.getEtag());
+            }
+            if (stale != null && stale.getLastModified() != null) {
+                request.setHeader(IF_MODIFIED_SINCE_HEADER_NAME, stale.getLastModified());
+            }
+        }, (HttpResponse response) -> {
+            if (stale != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                logger.debug(LOG_MARKER, "DsmoqClient#getCached : not modified, [key] = {}", key);
+                _cache.put(key, generation, path, stale.getValue(), stale.getEtag(), stale.getLastModified(), ttl);
+                return (T) stale.getValue();
+            }
+            T value = responseFunc.apply(responseToString(response));
+            _cache.put(key, generation, path, value, getHeaderValue(response, ETAG_HEADER_NAME),
+                    getHeaderValue(response, LAST_MODIFIED_HEADER_NAME), ttl);
+            return value;
+        } , true, () -> true));
     }
 
     /**
@@ -1586,7 +2960,7 @@ public class DsmoqClient {
      * @param response HTTPレスポンスオブジェクト
      * @return ファイル名、取得できなかった場合null
      */
-    private String getFileNameFromHeader(HttpResponse response) {
+    static String getFileNameFromHeader(HttpResponse response) {
         Header header = response.getFirstHeader(CONTENT_DISPOSITION_HEADER_NAME);
         if (header == null) {
             logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_CONTENT_DISPOSITION_NOT_FOUND));
@@ -1609,6 +2983,18 @@ public class DsmoqClient {
         }
     }
 
+    /**
+     * 指定されたHttpResponseのヘッダの値を取得する。
+     * 
+     * @param response HTTPレスポンスオブジェクト
+     * @param name ヘッダ名
+     * @return ヘッダの値、ヘッダがない場合null
+     */
+    static String getHeaderValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
     /**
      * 認証文字列を作成する。
      * 
@@ -1616,10 +3002,10 @@ public class DsmoqClient {
      * @param secretKey シークレットキー
      * @return 作成した認証文字列
      */
-    private String getSignature(String apiKey, String secretKey) {
+    static String getSignature(String apiKey, String secretKey) {
         try {
             SecretKeySpec sk = new SecretKeySpec(secretKey.getBytes(DEFAULT_REQUEST_CHARSET), HASH_ALGORITHM);
-            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            Mac mac = MAC.get();
             mac.init(sk);
             byte[] result = mac.doFinal((apiKey + "&" + secretKey).getBytes(DEFAULT_REQUEST_CHARSET));
             return URLEncoder.encode(Base64.getEncoder().encodeToString(result), DEFAULT_REQUEST_CHARSET.name());
@@ -1641,7 +3027,7 @@ public class DsmoqClient {
      * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
      */
     private <T> T head(String url, ResponseFunction<T> responseFunc) {
-        return send(() -> new AutoHttpHead(_baseUrl + url), null, responseFunc);
+        return sendWithRetry(() -> new AutoHttpHead(_baseUrl + url), null, responseFunc, true, () -> true);
     }
 
     /**
@@ -1771,7 +3157,7 @@ public class DsmoqClient {
      * @param response レスポンス
      * @return レスポンスボディの文字列表現
      */
-    private String responseToString(HttpResponse response) throws IOException {
+    static String responseToString(HttpResponse response) throws IOException {
         return responseToString(response, DEFAULT_RESPONSE_CHARSET.name());
     }
 
@@ -1782,7 +3168,7 @@ public class DsmoqClient {
      * @param charset レスポンスヘッダに文字コード指定がない場合に使用する文字コード
      * @return レスポンスボディの文字列表現
      */
-    private String responseToString(HttpResponse response, String charset) throws IOException {
+    static String responseToString(HttpResponse response, String charset) throws IOException {
         String str = EntityUtils.toString(response.getEntity(), charset);
         logger.debug(LOG_MARKER, "response body = {}", str);
         return str;
@@ -1800,17 +3186,92 @@ public class DsmoqClient {
      * @throws ConnectionLostException 接続が失敗した、または失われた場合
      * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
      */
-    private <T extends HttpUriRequest & AutoCloseable, R> R send(ExceptionSupplier<T> request, Consumer<T> ext,
+    private <T extends HttpUriRequest, R> R send(ExceptionSupplier<T> request, Consumer<T> ext,
             ResponseFunction<R> responseFunc) {
-        try (T req = request.get()) {
-            addAuthorizationHeader(req);
-            if (ext != null) {
-                ext.accept(req);
+        RequestMetricsRecorder recorder = newMetricsRecorder();
+        try {
+            T req = request.get();
+            try {
+                addAuthorizationHeader(req);
+                if (ext != null) {
+                    ext.accept(req);
+                }
+                try {
+                    R result = execute(req, responseFunc, recorder);
+                    reportMetrics(recorder, null);
+                    return result;
+                } finally {
+                    // 成否にかかわらず、更新された可能性のあるリソースのキャッシュを破棄する
+                    invalidateCache(req);
+                }
+            } finally {
+                // 送信が終わったリクエストを中断する (AutoHttp*#closeと同じ)
+                req.abort();
             }
-            return execute(req, responseFunc);
         } catch (Exception e) {
             // 内部で発生した例外を、公開用の非検査例外に翻訳する
-            throw translateInnerException(e);
+            RuntimeException translated = translateInnerException(e);
+            reportMetrics(recorder, translated);
+            throw translated;
+        }
+    }
+
+    /**
+     * 冪等なリクエストを、再試行ポリシーに従って送信する。
+     * 
+     * 再試行ポリシーを設定していない場合は、sendと同様に1回のみ送信する。
+     * 
+     * @param request リクエスト生成関数 (再送、ヘッジのたびに呼び出される)
+     * @param ext リクエストに対する追加処理
+     * @param responseFunc レスポンス変換関数
+     * @param hedge ヘッジしてよい場合true (レスポンス変換関数に副作用がない場合のみ指定する)
+     * @param replayable 失敗後に再送してよいかを返す関数
+     * @return 変換結果
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした、または期限を過ぎた場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     */
+    private <T extends HttpUriRequest, R> R sendWithRetry(ExceptionSupplier<T> request,
+            Consumer<T> ext, ResponseFunction<R> responseFunc, boolean hedge, BooleanSupplier replayable) {
+        if (_retryExecutor == null) {
+            return send(request, ext, responseFunc);
+        }
+        RequestMetricsRecorder recorder = newMetricsRecorder();
+        try {
+            R result = _retryExecutor.execute(register -> {
+                // 試行ごとにリクエストを作成し、試行が終わったら中断する
+                T req = request.get();
+                try {
+                    addAuthorizationHeader(req);
+                    if (ext != null) {
+                        ext.accept(req);
+                    }
+                    register.accept(req);
+                    return execute(req, responseFunc, recorder);
+                } finally {
+                    req.abort();
+                }
+            } , hedge, replayable);
+            reportMetrics(recorder, null);
+            return result;
+        } catch (Exception e) {
+            // 内部で発生した例外を、公開用の非検査例外に翻訳する
+            RuntimeException translated = translateInnerException(e);
+            reportMetrics(recorder, translated);
+            throw translated;
+        }
+    }
+
+    /**
+     * API呼び出しの完了を、計測結果を受け取るリスナーへ通知する。
+     * 
+     * @param recorder 計測結果の記録先、計測しない場合null
+     * @param error 呼び出しが失敗した原因、成功した場合null
+     */
+    static void reportMetrics(RequestMetricsRecorder recorder, Throwable error) {
+        if (recorder != null) {
+            recorder.report(error);
         }
     }
 
@@ -1820,7 +3281,7 @@ public class DsmoqClient {
      * @param e 内部で送出された例外
      * @return 公開用に翻訳された例外
      */
-    private RuntimeException translateInnerException(Exception e) {
+    static RuntimeException translateInnerException(Exception e) {
         logger.error(LOG_MARKER, resource.getString(ResourceNames.LOG_ERROR_OCCURED), e.getMessage());
         if (e instanceof ErrorRespondedException) {
             // ErrorRespondedExceptionなら、HttpStatusExceptionに変換する
@@ -1831,6 +3292,10 @@ public class DsmoqClient {
             // SocketTimeoutExceptionなら、TimeoutExceptionに変換する
             return new TimeoutException(e.getMessage(), e);
         }
+        if (e instanceof java.util.concurrent.TimeoutException) {
+            // 同時実行数の制限による待機のタイムアウトなら、TimeoutExceptionに変換する
+            return new TimeoutException(e.getMessage(), e);
+        }
         if (e instanceof HttpHostConnectException) {
             // HttpHostConnectExceptionなら、ConnectionLostExceptionに変換する
             return new ConnectionLostException(e.getMessage(), e);
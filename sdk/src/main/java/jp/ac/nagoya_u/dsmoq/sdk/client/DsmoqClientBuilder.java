@@ -0,0 +1,353 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.util.concurrent.Executor;
+
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpClientConfig;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpTransportFactory;
+
+/**
+ * DsmoqClient、AsyncDsmoqClientを構築するためのビルダー
+ *
+ * 構築されたクライアントはコネクションプールを保持するため、利用後は必ずcloseメソッドを呼び出してください。
+ */
+public class DsmoqClientBuilder {
+    /** 基準となるURL */
+    private final String baseUrl;
+
+    /** APIキー */
+    private final String apiKey;
+
+    /** シークレットキー */
+    private final String secretKey;
+
+    /** 最大コネクション数 */
+    private int maxConnections = HttpClientConfig.DEFAULT_MAX_CONNECTIONS;
+
+    /** 接続先ごとの最大コネクション数、未設定の場合null */
+    private Integer maxConnectionsPerRoute;
+
+    /** Keep-Alive時間 (ms) */
+    private long keepAlive = HttpClientConfig.DEFAULT_KEEP_ALIVE;
+
+    /** アイドルコネクションの破棄時間 (ms) */
+    private long idleTimeout = HttpClientConfig.DEFAULT_IDLE_TIMEOUT;
+
+    /** 接続タイムアウト時間 (ms) */
+    private int connectTimeout = HttpClientConfig.DEFAULT_CONNECT_TIMEOUT;
+
+    /** 読み込みタイムアウト時間 (ms) */
+    private int socketTimeout = HttpClientConfig.DEFAULT_SOCKET_TIMEOUT;
+
+    /** HTTPのトランスポートを作成するファクトリ */
+    private HttpTransportFactory transportFactory = HttpTransportFactory.HTTP_1_1;
+
+    /** レスポンスキャッシュの設定、キャッシュを使用しない場合null */
+    private ResponseCacheOptions cacheOptions;
+
+    /** 同時に送信された同一のGETリクエストを集約するか否か */
+    private boolean coalesceRequests;
+
+    /** 冪等なリクエストの再試行ポリシー、再送しない場合null */
+    private RetryPolicy retryPolicy;
+
+    /** 同時実行数の制限の設定、制限しない場合null */
+    private ConcurrencyLimitOptions concurrencyLimit;
+
+    /** 作成したクライアント間で共有する同時実行数の制限 (初回の作成時に生成する) */
+    private ConcurrencyLimiter limiter;
+
+    /** API呼び出しの計測結果を受け取るリスナー */
+    private DsmoqMetricsListener metricsListener;
+
+    /** 非同期クライアントのコールバックを実行するExecutor */
+    private Executor executor;
+
+    /** 非同期クライアントのコールバックを仮想スレッドで実行するか否か */
+    private boolean virtualThreads;
+
+    /**
+     * ビルダーを作成する。
+     *
+     * @param baseUrl 基準となるURL
+     * @param apiKey APIキー
+     * @param secretKey シークレットキー
+     * @throws NullPointerException baseUrl、apiKey、secretKeyのいずれかがnullの場合
+     */
+    DsmoqClientBuilder(String baseUrl, String apiKey, String secretKey) {
+        requireNotNull(baseUrl, "at baseUrl in DsmoqClientBuilder");
+        requireNotNull(apiKey, "at apiKey in DsmoqClientBuilder");
+        requireNotNull(secretKey, "at secretKey in DsmoqClientBuilder");
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * 最大コネクション数を設定する。
+     *
+     * @param maxConnections 最大コネクション数
+     * @return このビルダー
+     * @throws IllegalArgumentException maxConnectionsが1未満の場合
+     */
+    public DsmoqClientBuilder maxConnections(int maxConnections) {
+        requireGreaterOrEqualOrNull(maxConnections, 1, "at maxConnections in DsmoqClientBuilder#maxConnections");
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * 接続先ごとの最大コネクション数を設定する。
+     *
+     * 未設定の場合、デフォルト値とmaxConnectionsのうち小さい方を用います。
+     *
+     * @param maxConnectionsPerRoute 接続先ごとの最大コネクション数
+     * @return このビルダー
+     * @throws IllegalArgumentException maxConnectionsPerRouteが1未満の場合
+     */
+    public DsmoqClientBuilder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        requireGreaterOrEqualOrNull(maxConnectionsPerRoute, 1,
+                "at maxConnectionsPerRoute in DsmoqClientBuilder#maxConnectionsPerRoute");
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * サーバがKeep-Alive時間を指定しなかった場合に用いるKeep-Alive時間を設定する。
+     *
+     * @param keepAlive Keep-Alive時間 (ms)
+     * @return このビルダー
+     * @throws IllegalArgumentException keepAliveが0未満の場合
+     */
+    public DsmoqClientBuilder keepAlive(long keepAlive) {
+        requireGreaterOrEqualOrNull(keepAlive, 0L, "at keepAlive in DsmoqClientBuilder#keepAlive");
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * アイドル状態のコネクションを破棄するまでの時間を設定する。
+     *
+     * @param idleTimeout アイドルコネクションの破棄時間 (ms)
+     * @return このビルダー
+     * @throws IllegalArgumentException idleTimeoutが0未満の場合
+     */
+    public DsmoqClientBuilder idleTimeout(long idleTimeout) {
+        requireGreaterOrEqualOrNull(idleTimeout, 0L, "at idleTimeout in DsmoqClientBuilder#idleTimeout");
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * 接続タイムアウト時間を設定する。
+     *
+     * @param connectTimeout 接続タイムアウト時間 (ms)
+     * @return このビルダー
+     * @throws IllegalArgumentException connectTimeoutが0未満の場合
+     */
+    public DsmoqClientBuilder connectTimeout(int connectTimeout) {
+        requireGreaterOrEqualOrNull(connectTimeout, 0, "at connectTimeout in DsmoqClientBuilder#connectTimeout");
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * 読み込みタイムアウト時間を設定する。
+     *
+     * @param socketTimeout 読み込みタイムアウト時間 (ms)
+     * @return このビルダー
+     * @throws IllegalArgumentException socketTimeoutが0未満の場合
+     */
+    public DsmoqClientBuilder socketTimeout(int socketTimeout) {
+        requireGreaterOrEqualOrNull(socketTimeout, 0, "at socketTimeout in DsmoqClientBuilder#socketTimeout");
+        this.socketTimeout = socketTimeout;
+        return this;
+    }
+
+    /**
+     * リクエストを送受信するHTTPのトランスポートを設定する。
+     *
+     * HttpTransportFactory.HTTP_2を指定すると、同時に送信するリクエストを少数のコネクション上に多重化します。
+     * (java.net.httpを利用できない実行環境、HTTP/2に対応していないサーバでは、HTTP/1.1で通信します)
+     * 非同期クライアントが直接送信するリクエストには適用されません。
+     * 設定しない場合、HttpTransportFactory.HTTP_1_1を用います。
+     *
+     * @param transportFactory トランスポートを作成するファクトリ
+     * @return このビルダー
+     * @throws NullPointerException transportFactoryがnullの場合
+     */
+    public DsmoqClientBuilder transport(HttpTransportFactory transportFactory) {
+        requireNotNull(transportFactory, "at transportFactory in DsmoqClientBuilder#transport");
+        this.transportFactory = transportFactory;
+        return this;
+    }
+
+    /**
+     * レスポンスキャッシュを使用するよう設定する。
+     *
+     * 非同期クライアントが直接送信するリクエストには適用されません。
+     * 設定しない場合、レスポンスキャッシュは使用されません。
+     *
+     * @param cacheOptions レスポンスキャッシュの設定
+     * @return このビルダー
+     * @throws NullPointerException cacheOptionsがnullの場合
+     */
+    public DsmoqClientBuilder responseCache(ResponseCacheOptions cacheOptions) {
+        requireNotNull(cacheOptions, "at cacheOptions in DsmoqClientBuilder#responseCache");
+        this.cacheOptions = cacheOptions;
+        return this;
+    }
+
+    /**
+     * 同時に送信された同一のGETリクエストを集約するかを設定する。
+     *
+     * trueを指定した場合、複数のスレッドから同じURL、同じJSONパラメータのGETリクエストが同時に送信されると、
+     * 先行するリクエストのみをサーバへ送信し、その変換結果(または例外)を後続の呼び出し元と共有します。
+     * 完了済みのリクエストの結果は保持しません。(保持する場合はresponseCacheを併用してください)
+     * ファイルのダウンロード、非同期クライアントが直接送信するリクエストは集約されません。デフォルトはfalseです。
+     *
+     * @param coalesceRequests 集約する場合true
+     * @return このビルダー
+     */
+    public DsmoqClientBuilder coalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+        return this;
+    }
+
+    /**
+     * 冪等なリクエスト(GET、HEAD、downloadToPathのRange指定リクエスト)の再試行ポリシーを設定する。
+     *
+     * 非同期クライアントが直接送信するリクエストには適用されません。
+     * 設定しない場合、リクエストは再送されません。
+     * 作成後のクライアントにポリシーの変更は反映されません。
+     *
+     * @param retryPolicy 再試行ポリシー
+     * @return このビルダー
+     * @throws NullPointerException retryPolicyがnullの場合
+     */
+    public DsmoqClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+        requireNotNull(retryPolicy, "at retryPolicy in DsmoqClientBuilder#retryPolicy");
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 同時に送信するリクエスト数を、APIの種別ごとにレイテンシとエラーに応じて調整しながら制限するよう設定する。
+     *
+     * 制限は、このビルダーのbuild、buildAsyncで作成した全てのクライアントの間で共有されます。
+     * 設定しない場合、同時実行数はコネクション数の上限のみで制限されます。
+     *
+     * @param concurrencyLimit 同時実行数の制限の設定
+     * @return このビルダー
+     * @throws NullPointerException concurrencyLimitがnullの場合
+     */
+    public DsmoqClientBuilder concurrencyLimit(ConcurrencyLimitOptions concurrencyLimit) {
+        requireNotNull(concurrencyLimit, "at concurrencyLimit in DsmoqClientBuilder#concurrencyLimit");
+        this.concurrencyLimit = concurrencyLimit;
+        this.limiter = null;
+        return this;
+    }
+
+    /**
+     * API呼び出しの計測結果を受け取るリスナーを設定する。
+     *
+     * リクエストを送信するたびに、エンドポイントのテンプレート、ステータス、接続、最初のバイトの受信、全体の時間、
+     * 送受信したバイト数、再送回数、待機時間がリスナーに通知されます。
+     * 設定しない場合、計測は行われません。
+     *
+     * @param metricsListener 計測結果を受け取るリスナー
+     * @return このビルダー
+     * @throws NullPointerException metricsListenerがnullの場合
+     * @see HistogramMetricsListener
+     */
+    public DsmoqClientBuilder metricsListener(DsmoqMetricsListener metricsListener) {
+        requireNotNull(metricsListener, "at metricsListener in DsmoqClientBuilder#metricsListener");
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * 非同期クライアントが返すCompletableFutureの完了、ダウンロードの処理関数を実行するExecutorを設定する。
+     *
+     * 完了後に続けて登録した処理(thenApply等)もexecutor上で実行されるため、I/Oスレッドを占有せずにブロックできます。
+     * クライアントのcloseでexecutorは停止されません。
+     * 設定しない場合、CompletableFutureはI/Oスレッド上で、ダウンロードの処理関数、アップロードするInputStreamの読み込みは
+     * クライアントごとに作成するスレッドプールで実行されます(このスレッドプールはcloseで停止します)。
+     * virtualThreadsより優先されます。
+     *
+     * @param executor コールバックを実行するExecutor
+     * @return このビルダー
+     * @throws NullPointerException executorがnullの場合
+     * @see AsyncDsmoqClient#withExecutor(Executor)
+     */
+    public DsmoqClientBuilder executor(Executor executor) {
+        requireNotNull(executor, "at executor in DsmoqClientBuilder#executor");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 非同期クライアントのコールバックを、タスクごとに作成する仮想スレッドで実行するかを設定する。
+     *
+     * trueを指定した場合、executorに相当するExecutorをクライアントごとに作成し、closeで停止します。
+     * 多数のリクエストの完了後にそれぞれブロックする処理を行っても、プラットフォームスレッドをほとんど消費しません。
+     * 実行環境が仮想スレッドに対応していない場合(Java 21未満)は、必要に応じてスレッドを作成するスレッドプールを用います。
+     * executorを設定した場合は無視されます。デフォルトはfalseです。
+     *
+     * @param virtualThreads 仮想スレッドで実行する場合true
+     * @return このビルダー
+     */
+    public DsmoqClientBuilder virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * 設定内容でクライアントを作成する。
+     *
+     * @return 作成したクライアント
+     * @throws IllegalArgumentException maxConnectionsにmaxConnectionsPerRoute未満の値を設定した場合
+     */
+    public DsmoqClient build() {
+        return new DsmoqClient(this.baseUrl, this.apiKey, this.secretKey, toHttpClientConfig(), this.cacheOptions,
+                this.coalesceRequests, this.retryPolicy, toConcurrencyLimiter(), this.metricsListener);
+    }
+
+    /**
+     * 設定内容で非同期クライアントを作成する。
+     *
+     * responseCache、coalesceRequests、retryPolicyの設定は、非同期クライアントが直接送信するリクエストには適用されません。
+     *
+     * @return 作成した非同期クライアント
+     * @throws IllegalArgumentException maxConnectionsにmaxConnectionsPerRoute未満の値を設定した場合
+     */
+    public AsyncDsmoqClient buildAsync() {
+        return new AsyncDsmoqClient(build(), toHttpClientConfig(), this.executor, this.virtualThreads);
+    }
+
+    /**
+     * 作成したクライアント間で共有する同時実行数の制限を取得する。
+     *
+     * @return 同時実行数の制限、制限しない場合null
+     */
+    private synchronized ConcurrencyLimiter toConcurrencyLimiter() {
+        if (this.limiter == null && this.concurrencyLimit != null) {
+            this.limiter = new ConcurrencyLimiter(this.concurrencyLimit);
+        }
+        return this.limiter;
+    }
+
+    /**
+     * 設定内容をHTTPクライアントの設定に変換する。
+     *
+     * @return HTTPクライアントの設定
+     */
+    private HttpClientConfig toHttpClientConfig() {
+        int perRoute = this.maxConnectionsPerRoute != null ? this.maxConnectionsPerRoute
+                : Math.min(HttpClientConfig.DEFAULT_MAX_CONNECTIONS_PER_ROUTE, this.maxConnections);
+        return new HttpClientConfig(this.maxConnections, perRoute, this.keepAlive, this.idleTimeout,
+                this.connectTimeout, this.socketTimeout, this.transportFactory);
+    }
+}
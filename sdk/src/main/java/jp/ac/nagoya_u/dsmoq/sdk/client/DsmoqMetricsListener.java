@@ -0,0 +1,24 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+/**
+ * DsmoqClient、AsyncDsmoqClientがAPIを呼び出すたびに、その計測結果を受け取るリスナー
+ *
+ * DsmoqClientBuilder#metricsListenerで設定します。
+ * リクエストを送信しなかった呼び出し(レスポンスキャッシュのヒット、集約された後続の呼び出し)は通知されません。
+ *
+ * 通知は呼び出し元のスレッド(AsyncDsmoqClientの場合はI/Oスレッド)で、API呼び出しの完了前に同期的に行われるため、
+ * ブロックする処理や時間のかかる処理を行ってはいけません。
+ * 複数のスレッドから同時に呼び出されるため、スレッドセーフに実装してください。
+ * 送出した例外はログに出力され、API呼び出しの結果には影響しません。
+ *
+ * @see HistogramMetricsListener
+ */
+@FunctionalInterface
+public interface DsmoqMetricsListener {
+    /**
+     * API呼び出しの完了時に呼び出される。
+     *
+     * @param metrics 計測結果
+     */
+    void onRequest(RequestMetrics metrics);
+}
@@ -0,0 +1,17 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+/**
+ * 同時実行数の制限の単位となるAPIの種別を表す列挙型
+ *
+ * 種別ごとに独立した同時実行数の上限が、レスポンスのレイテンシとエラーから調整されます。
+ */
+public enum EndpointClass {
+    /** ファイルのダウンロード (GET、HEAD /files/${dataset_id}/${file_id}) */
+    DOWNLOAD,
+
+    /** ファイル、画像のアップロード (multipart/form-dataのリクエスト) */
+    UPLOAD,
+
+    /** 上記以外のAPI */
+    METADATA
+}
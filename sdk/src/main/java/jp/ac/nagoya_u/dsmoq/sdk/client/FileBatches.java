@@ -0,0 +1,51 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 小さなファイルを、1スレッド、あるいは1リクエストでまとめて扱う単位に分ける。
+ *
+ * データセット全体のダウンロード、ディレクトリの同期で共有します。
+ */
+final class FileBatches {
+    /** 1つのまとまりに含める最大のファイル数 */
+    static final int MAX_FILES = 64;
+
+    /**
+     * インスタンス化しない。
+     */
+    private FileBatches() {
+    }
+
+    /**
+     * ファイルを、先頭から順に合計サイズがbatchSize程度になるようまとめる。
+     *
+     * 合計サイズがbatchSizeに達するか、ファイル数がMAX_FILESに達した時点で次のまとまりに移ります。
+     *
+     * @param <T> ファイルの型
+     * @param files ファイル (まとめる順に並べたもの)
+     * @param size ファイルのサイズを返す関数 (不明な場合は0未満の値を返す)
+     * @param batchSize 1つのまとまりの合計サイズの目安
+     * @return まとめたファイルの一覧
+     */
+    static <T> List<List<T>> split(List<T> files, ToLongFunction<T> size, long batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        List<T> batch = new ArrayList<>();
+        long bytes = 0;
+        for (T file : files) {
+            batch.add(file);
+            bytes += Math.max(0, size.applyAsLong(file));
+            if (bytes >= batchSize || batch.size() >= MAX_FILES) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                bytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
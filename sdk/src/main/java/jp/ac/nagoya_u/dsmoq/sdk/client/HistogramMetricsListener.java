@@ -0,0 +1,256 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API呼び出しの計測結果を、エンドポイントのテンプレートごとにLatencyHistogramへ集計するリスナー
+ *
+ * 呼び出し全体の時間、レスポンスヘッダを受信するまでの時間、接続時間、コネクションプールの待機時間の分布と、
+ * 呼び出し数、失敗数、再送数、送受信したバイト数を集計します。
+ * snapshotで、取得した時点の集計結果を参照できます。
+ *
+ * <pre>
+ * HistogramMetricsListener metrics = new HistogramMetricsListener();
+ * DsmoqClient client = DsmoqClient.builder(baseUrl, apiKey, secretKey).metricsListener(metrics).build();
+ * ...
+ * metrics.snapshot().forEach((endpoint, stats) -&gt; System.out.println(endpoint + " " + stats));
+ * </pre>
+ */
+public class HistogramMetricsListener implements DsmoqMetricsListener {
+    /** エンドポイントのテンプレートごとの集計 */
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        this.endpoints.computeIfAbsent(metrics.getEndpoint(), key -> new EndpointMetrics()).record(metrics);
+    }
+
+    /**
+     * 現在の集計結果を取得する。
+     *
+     * @return エンドポイントのテンプレートをキーとする、集計結果の変更不可能なマップ (キーの昇順)
+     */
+    public SortedMap<String, EndpointSnapshot> snapshot() {
+        SortedMap<String, EndpointSnapshot> result = new TreeMap<>();
+        this.endpoints.forEach((endpoint, metrics) -> result.put(endpoint, metrics.snapshot()));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * 集計結果を破棄する。
+     */
+    public void clear() {
+        this.endpoints.clear();
+    }
+
+    /**
+     * 1エンドポイント分の集計
+     */
+    private static class EndpointMetrics {
+        /** 呼び出し全体の時間の分布 (ns) */
+        private final LatencyHistogram total = new LatencyHistogram();
+
+        /** レスポンスヘッダを受信するまでの時間の分布 (ns) */
+        private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+        /** 接続時間の分布 (ns) */
+        private final LatencyHistogram connect = new LatencyHistogram();
+
+        /** コネクションプール、同時実行数の制限による待機時間の分布 (ns) */
+        private final LatencyHistogram poolWait = new LatencyHistogram();
+
+        /** 失敗した呼び出し数 */
+        private final LongAdder errors = new LongAdder();
+
+        /** 再送、ヘッジした回数 */
+        private final LongAdder retries = new LongAdder();
+
+        /** 送信したリクエストボディのバイト数 */
+        private final LongAdder requestBytes = new LongAdder();
+
+        /** 受信したレスポンスボディのバイト数 */
+        private final LongAdder responseBytes = new LongAdder();
+
+        /**
+         * 計測結果を集計する。
+         *
+         * @param metrics 計測結果
+         */
+        void record(RequestMetrics metrics) {
+            this.total.record(metrics.getTotalNanos());
+            if (metrics.getTimeToFirstByteNanos() >= 0) {
+                this.timeToFirstByte.record(metrics.getTimeToFirstByteNanos());
+            }
+            if (metrics.getConnectNanos() >= 0) {
+                this.connect.record(metrics.getConnectNanos());
+            }
+            this.poolWait.record(Math.max(0, metrics.getPoolWaitNanos()) + metrics.getQueueWaitNanos());
+            if (!metrics.isSucceeded()) {
+                this.errors.increment();
+            }
+            this.retries.add(metrics.getRetries());
+            this.requestBytes.add(Math.max(0, metrics.getRequestBytes()));
+            this.responseBytes.add(Math.max(0, metrics.getResponseBytes()));
+        }
+
+        /**
+         * 現在の集計結果を取得する。
+         *
+         * @return 集計結果
+         */
+        EndpointSnapshot snapshot() {
+            return new EndpointSnapshot(this.total.snapshot(), this.timeToFirstByte.snapshot(),
+                    this.connect.snapshot(), this.poolWait.snapshot(), this.errors.sum(), this.retries.sum(),
+                    this.requestBytes.sum(), this.responseBytes.sum());
+        }
+    }
+
+    /**
+     * ある時点の1エンドポイント分の集計結果
+     */
+    public static class EndpointSnapshot {
+        /** 呼び出し全体の時間の分布 (ns) */
+        private final LatencyHistogram.Snapshot total;
+
+        /** レスポンスヘッダを受信するまでの時間の分布 (ns) */
+        private final LatencyHistogram.Snapshot timeToFirstByte;
+
+        /** 接続時間の分布 (ns) */
+        private final LatencyHistogram.Snapshot connect;
+
+        /** コネクションプール、同時実行数の制限による待機時間の分布 (ns) */
+        private final LatencyHistogram.Snapshot poolWait;
+
+        /** 失敗した呼び出し数 */
+        private final long errors;
+
+        /** 再送、ヘッジした回数 */
+        private final long retries;
+
+        /** 送信したリクエストボディのバイト数 */
+        private final long requestBytes;
+
+        /** 受信したレスポンスボディのバイト数 */
+        private final long responseBytes;
+
+        /**
+         * 集計結果を作成する。
+         *
+         * @param total 呼び出し全体の時間の分布
+         * @param timeToFirstByte レスポンスヘッダを受信するまでの時間の分布
+         * @param connect 接続時間の分布
+         * @param poolWait 待機時間の分布
+         * @param errors 失敗した呼び出し数
+         * @param retries 再送、ヘッジした回数
+         * @param requestBytes 送信したリクエストボディのバイト数
+         * @param responseBytes 受信したレスポンスボディのバイト数
+         */
+        EndpointSnapshot(LatencyHistogram.Snapshot total, LatencyHistogram.Snapshot timeToFirstByte,
+                LatencyHistogram.Snapshot connect, LatencyHistogram.Snapshot poolWait, long errors, long retries,
+                long requestBytes, long responseBytes) {
+            this.total = total;
+            this.timeToFirstByte = timeToFirstByte;
+            this.connect = connect;
+            this.poolWait = poolWait;
+            this.errors = errors;
+            this.retries = retries;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+        }
+
+        /**
+         * 呼び出し数を取得する。
+         *
+         * @return 呼び出し数
+         */
+        public long getCount() {
+            return this.total.getCount();
+        }
+
+        /**
+         * 呼び出し全体の時間の分布を取得する。
+         *
+         * @return 呼び出し全体の時間の分布 (ns)
+         */
+        public LatencyHistogram.Snapshot getTotal() {
+            return this.total;
+        }
+
+        /**
+         * 送信開始からレスポンスヘッダを受信するまでの時間の分布を取得する。
+         *
+         * @return レスポンスヘッダを受信するまでの時間の分布 (ns)
+         */
+        public LatencyHistogram.Snapshot getTimeToFirstByte() {
+            return this.timeToFirstByte;
+        }
+
+        /**
+         * 接続時間の分布を取得する。
+         *
+         * @return 接続時間の分布 (ns、コネクションを再利用した呼び出しは0として含む)
+         */
+        public LatencyHistogram.Snapshot getConnect() {
+            return this.connect;
+        }
+
+        /**
+         * コネクションプールと、同時実行数の制限による待機時間の合計の分布を取得する。
+         *
+         * @return 待機時間の分布 (ns)
+         */
+        public LatencyHistogram.Snapshot getPoolWait() {
+            return this.poolWait;
+        }
+
+        /**
+         * 失敗した呼び出し数を取得する。
+         *
+         * @return 失敗した呼び出し数
+         */
+        public long getErrors() {
+            return this.errors;
+        }
+
+        /**
+         * 再送、ヘッジした回数を取得する。
+         *
+         * @return 再送、ヘッジした回数
+         */
+        public long getRetries() {
+            return this.retries;
+        }
+
+        /**
+         * 送信したリクエストボディのバイト数の合計を取得する。
+         *
+         * @return バイト数
+         */
+        public long getRequestBytes() {
+            return this.requestBytes;
+        }
+
+        /**
+         * 受信したレスポンスボディのバイト数の合計を取得する。
+         *
+         * @return バイト数
+         */
+        public long getResponseBytes() {
+            return this.responseBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "EndpointSnapshot(count=%d, errors=%d, retries=%d, requestBytes=%d, responseBytes=%d, "
+                            + "total=%s, timeToFirstByte=%s, connect=%s, poolWait=%s)",
+                    getCount(), this.errors, this.retries, this.requestBytes, this.responseBytes, this.total,
+                    this.timeToFirstByte, this.connect, this.poolWait);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * InputStreamから読み込んだデータを、Subscriberの需要に応じて通知するPublisher
+ *
+ * InputStreamの読み込みはブロックするため、I/Oスレッドではなく指定されたExecutor上で行います。
+ * 需要がない間は読み込みを停止します。InputStreamは一度しか読み込めないため、購読できるのは1回のみです。
+ * InputStreamは読み込み後も閉じません。
+ */
+class InputStreamPublisher implements Publisher<ByteBuffer> {
+    /** 1回のonNextで通知する最大のバイト数 */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** 読み込むストリーム */
+    private final InputStream in;
+
+    /** 読み込むバイト数、終端まで読み込む場合-1 */
+    private final long length;
+
+    /** 読み込みを行うExecutor */
+    private final Executor executor;
+
+    /** 購読されたか否か */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Publisherを作成する。
+     *
+     * @param in 読み込むストリーム
+     * @param length 読み込むバイト数、終端まで読み込む場合-1
+     * @param executor 読み込みを行うExecutor
+     */
+    InputStreamPublisher(InputStream in, long length, Executor executor) {
+        this.in = in;
+        this.length = length;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        requireNotNull(subscriber, "at subscriber in InputStreamPublisher#subscribe");
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("InputStream can only be subscribed once"));
+            return;
+        }
+        subscriber.onSubscribe(new StreamSubscription(subscriber));
+    }
+
+    /**
+     * 1回の購読の状態
+     */
+    private class StreamSubscription implements Subscription {
+        /** 購読者 */
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        /** 未充足の需要 */
+        private final AtomicLong demand = new AtomicLong();
+
+        /** 読み込み処理の実行要求の数 (0の場合、読み込み処理は実行されていない) */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /** 取り消された、あるいはonComplete、onErrorを通知したか否か */
+        private volatile boolean done;
+
+        /** 読み込み済みのバイト数 (読み込み処理からのみ参照する) */
+        private long read;
+
+        /**
+         * 購読を作成する。
+         *
+         * @param subscriber 購読者
+         */
+        StreamSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (this.done) {
+                return;
+            }
+            if (n <= 0) {
+                this.done = true;
+                this.subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            this.demand.getAndUpdate(x -> x + n < 0 ? Long.MAX_VALUE : x + n);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.done = true;
+        }
+
+        /**
+         * 読み込み処理が実行されていなければ、Executorで実行する。
+         */
+        private void schedule() {
+            if (this.pending.getAndIncrement() != 0) {
+                // 実行中の読み込み処理が、増えた需要を引き継ぐ
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                this.done = true;
+                this.subscriber.onError(e);
+            }
+        }
+
+        /**
+         * 需要がある間、ストリームから読み込んで通知する。
+         */
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                while (!this.done && this.demand.get() > 0) {
+                    emit();
+                }
+                missed = this.pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * ストリームから1回分読み込んで通知する。
+         */
+        private void emit() {
+            if (length >= 0 && this.read >= length) {
+                this.done = true;
+                this.subscriber.onComplete();
+                return;
+            }
+            int size = length < 0 ? CHUNK_SIZE : (int) Math.min(CHUNK_SIZE, length - this.read);
+            byte[] chunk = new byte[size];
+            int n;
+            try {
+                n = in.read(chunk);
+            } catch (IOException | RuntimeException e) {
+                this.done = true;
+                this.subscriber.onError(e);
+                return;
+            }
+            if (n < 0) {
+                this.done = true;
+                if (length >= 0) {
+                    this.subscriber.onError(
+                            new IOException("stream ended after " + this.read + " of " + length + " bytes"));
+                } else {
+                    this.subscriber.onComplete();
+                }
+                return;
+            }
+            if (n == 0) {
+                return;
+            }
+            this.read += n;
+            this.demand.decrementAndGet();
+            this.subscriber.onNext(ByteBuffer.wrap(chunk, 0, n));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * 記録した値の分布を、相対誤差1/64以内で保持するヒストグラム
+ *
+ * 0から127までは値ごとに、それ以上は2のべき乗の区間ごとに64分割したバケットで数えます。(HdrHistogramと同様の方式)
+ * 記録はロックを取らずに行われ、複数のスレッドから同時に記録できます。
+ * snapshotで取得した時点の分布から、パーセンタイル値などを算出します。
+ */
+public class LatencyHistogram {
+    /** 値ごとに数える範囲のビット数 */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /** 値ごとに数える範囲 */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** 2のべき乗の区間ごとの分割数 */
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /** バケット数 (Long.MAX_VALUEまでを数える) */
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    /** バケットごとの記録数 */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /** 記録した値の合計 (大きな値でも桁あふれしないよう浮動小数点数で保持する) */
+    private final DoubleAdder sum = new DoubleAdder();
+
+    /** 記録した値の最小値 */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    /** 記録した値の最大値 */
+    private final AtomicLong max = new AtomicLong(-1);
+
+    /**
+     * 値を記録する。
+     *
+     * @param value 記録する値、負の場合は0として記録する
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts.incrementAndGet(indexOf(v));
+        this.sum.add(v);
+        long current;
+        while (v < (current = this.min.get()) && !this.min.compareAndSet(current, v)) {
+            // 他のスレッドが更新した場合は再試行する
+        }
+        while (v > (current = this.max.get()) && !this.max.compareAndSet(current, v)) {
+            // 他のスレッドが更新した場合は再試行する
+        }
+    }
+
+    /**
+     * 現在の分布を取得する。
+     *
+     * 取得中に記録された値は、含まれない場合があります。
+     *
+     * @return 現在の分布
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, this.sum.sum(), count == 0 ? 0 : this.min.get(),
+                count == 0 ? 0 : this.max.get());
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * 値を数えるバケットの位置を取得する。
+     *
+     * @param value 値 (0以上)
+     * @return バケットの位置
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // 上位7ビットが[64, 128)となるようシフトし、シフト量ごとに64個のバケットを割り当てる
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift)
+                - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /**
+     * バケットに数えられる最大の値を取得する。
+     *
+     * @param index バケットの位置
+     * @return 最大の値
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long mantissa = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        long next = (mantissa + 1) << shift;
+        // 最後のバケットはLong.MAX_VALUEまでを数える
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /**
+     * ある時点のヒストグラムの分布
+     */
+    public static class Snapshot {
+        /** バケットごとの記録数 */
+        private final long[] counts;
+
+        /** 記録数 */
+        private final long count;
+
+        /** 記録した値の合計 */
+        private final double sum;
+
+        /** 記録した値の最小値 */
+        private final long min;
+
+        /** 記録した値の最大値 */
+        private final long max;
+
+        /**
+         * 分布を作成する。
+         *
+         * @param counts バケットごとの記録数
+         * @param count 記録数
+         * @param sum 記録した値の合計
+         * @param min 記録した値の最小値
+         * @param max 記録した値の最大値
+         */
+        Snapshot(long[] counts, long count, double sum, long min, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * 記録数を取得する。
+         *
+         * @return 記録数
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * 記録した値の最小値を取得する。
+         *
+         * @return 最小値、記録がない場合0
+         */
+        public long getMin() {
+            return this.min;
+        }
+
+        /**
+         * 記録した値の最大値を取得する。
+         *
+         * @return 最大値、記録がない場合0
+         */
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * 記録した値の平均値を取得する。
+         *
+         * @return 平均値、記録がない場合0
+         */
+        public double getMean() {
+            return this.count == 0 ? 0 : this.sum / this.count;
+        }
+
+        /**
+         * 指定したパーセンタイル値を取得する。
+         *
+         * 記録された値のうち、percentile%がその値以下となる値を、相対誤差1/64以内で返します。
+         *
+         * @param percentile パーセンタイル (0以上100以下)
+         * @return パーセンタイル値、記録がない場合0
+         * @throws IllegalArgumentException percentileが0未満、あるいは100を超える場合
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException(
+                        String.format("at percentile in LatencyHistogram.Snapshot#getValueAtPercentile: %s",
+                                percentile));
+            }
+            if (this.count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= target) {
+                    return Math.max(this.min, Math.min(this.max, highestValueAt(i)));
+                }
+            }
+            return this.max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LatencyHistogram.Snapshot(count=%d, min=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, "
+                    + "p999=%d, max=%d)", this.count, this.min, getMean(), getValueAtPercentile(50),
+                    getValueAtPercentile(90), getValueAtPercentile(99), getValueAtPercentile(99.9), this.max);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+
+/**
+ * RangeSliceを返す一覧取得APIの全ページを、順に取得しながら要素を返すIterator
+ *
+ * 最初のページで得た総件数(RangeSliceSummary#getTotal)までを取得対象とし、
+ * 現在のページの要素を返している間に、後続のページを先行して取得します。
+ * このクラスはスレッドセーフではありません。
+ *
+ * @param <T> 要素の型
+ */
+class PageIterator<T> implements Iterator<T>, AutoCloseable {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** 開始位置と件数を受け取り、ページを取得する関数 */
+    private final BiFunction<Integer, Integer, RangeSlice<T>> fetch;
+
+    /** 一覧取得のオプション */
+    private final PageOptions options;
+
+    /** 取得中または取得済みで、まだ要素を返していないページ (開始位置順) */
+    private final Deque<CompletableFuture<RangeSlice<T>>> pages = new ArrayDeque<>();
+
+    /** 次に取得を開始するページの開始位置 */
+    private int nextOffset = 0;
+
+    /** 総件数、最初のページを取得するまではnull */
+    private Integer total;
+
+    /** 現在のページの要素 */
+    private Iterator<T> current;
+
+    /** 終端に達した、あるいはクローズされたか否か */
+    private boolean finished;
+
+    /**
+     * Iteratorを作成する。
+     *
+     * @param fetch 開始位置と件数を受け取り、ページを取得する関数
+     * @param options 一覧取得のオプション
+     */
+    PageIterator(BiFunction<Integer, Integer, RangeSlice<T>> fetch, PageOptions options) {
+        this.fetch = fetch;
+        this.options = options;
+    }
+
+    /**
+     * 全ページの要素を順に返すStreamを作成する。
+     *
+     * Streamのクローズ時に、先行して取得中のページは破棄されます。
+     *
+     * @param <T> 要素の型
+     * @param fetch 開始位置と件数を受け取り、ページを取得する関数
+     * @param options 一覧取得のオプション
+     * @return 全ページの要素を順に返すStream
+     */
+    static <T> Stream<T> stream(BiFunction<Integer, Integer, RangeSlice<T>> fetch, PageOptions options) {
+        PageIterator<T> iterator = new PageIterator<>(fetch, options);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.current == null || !this.current.hasNext()) {
+            if (this.finished || (this.pages.isEmpty() && !schedule())) {
+                this.finished = true;
+                return false;
+            }
+            RangeSlice<T> page = join(this.pages.poll());
+            this.total = page.getSummary().getTotal();
+            this.current = page.getResults().iterator();
+            if (!this.current.hasNext()) {
+                // 取得中に件数が減った場合などで空のページが返された場合は、そこで終了する
+                close();
+                return false;
+            }
+            while (this.pages.size() < this.options.getPrefetch() && schedule()) {
+                // 先行して取得するページ数に達するまで取得を開始する
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.current.next();
+    }
+
+    /**
+     * 先行して取得中のページを破棄し、以降の取得を停止する。
+     */
+    @Override
+    public void close() {
+        this.finished = true;
+        for (CompletableFuture<RangeSlice<T>> page : this.pages) {
+            page.cancel(false);
+        }
+        this.pages.clear();
+    }
+
+    /**
+     * 次のページの取得を開始する。
+     *
+     * @return 取得を開始した場合true、総件数に達している場合false
+     */
+    private boolean schedule() {
+        if (this.total != null && this.nextOffset >= this.total) {
+            return false;
+        }
+        int offset = this.nextOffset;
+        int limit = this.options.getPageSize();
+        logger.debug(LOG_MARKER, "PageIterator#schedule : [offset] = {}, [limit] = {}", offset, limit);
+        this.pages.add(
+                CompletableFuture.supplyAsync(() -> this.fetch.apply(offset, limit), this.options.getExecutor()));
+        this.nextOffset += limit;
+        return true;
+    }
+
+    /**
+     * ページの取得完了を待つ。
+     *
+     * @param page 取得中のページ
+     * @return ページ
+     * @throws RuntimeException ページの取得に失敗した場合、DsmoqClientの各メソッドと同じ例外
+     */
+    private RangeSlice<T> join(CompletableFuture<RangeSlice<T>> page) {
+        try {
+            return page.join();
+        } catch (CompletionException | CancellationException e) {
+            close();
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ApiFailedException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * DsmoqClient#streamXxxの一覧取得の動作を指定するオプション
+ *
+ * 一覧はpageSize件ずつのページに分けて取得されます。
+ * 取得したページの要素を処理している間に、後続のprefetch件のページをexecutorで先行して取得します。
+ */
+public class PageOptions {
+    /** デフォルトの1ページあたりの件数 */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /** デフォルトの先行して取得するページ数 */
+    public static final int DEFAULT_PREFETCH = 2;
+
+    /** 1ページあたりの件数 */
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /** 先行して取得するページ数 */
+    private int prefetch = DEFAULT_PREFETCH;
+
+    /** ページの取得に用いるExecutor */
+    private Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * 1ページあたりの件数を設定する。
+     *
+     * @param pageSize 1ページあたりの件数
+     * @return このオプション
+     * @throws IllegalArgumentException pageSizeが1未満の場合
+     */
+    public PageOptions pageSize(int pageSize) {
+        requireGreaterOrEqualOrNull(pageSize, 1, "at pageSize in PageOptions#pageSize");
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * 先行して取得するページ数を設定する。
+     *
+     * 0を指定した場合、ページの要素を処理し終えてから次のページを取得します。
+     *
+     * @param prefetch 先行して取得するページ数
+     * @return このオプション
+     * @throws IllegalArgumentException prefetchが0未満の場合
+     */
+    public PageOptions prefetch(int prefetch) {
+        requireGreaterOrEqualOrNull(prefetch, 0, "at prefetch in PageOptions#prefetch");
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    /**
+     * ページの取得に用いるExecutorを設定する。
+     *
+     * デフォルトはForkJoinPool.commonPool()です。
+     *
+     * @param executor ページの取得に用いるExecutor
+     * @return このオプション
+     * @throws NullPointerException executorがnullの場合
+     */
+    public PageOptions executor(Executor executor) {
+        requireNotNull(executor, "at executor in PageOptions#executor");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 1ページあたりの件数を取得する。
+     *
+     * @return 1ページあたりの件数
+     */
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * 先行して取得するページ数を取得する。
+     *
+     * @return 先行して取得するページ数
+     */
+    public int getPrefetch() {
+        return this.prefetch;
+    }
+
+    /**
+     * ページの取得に用いるExecutorを取得する。
+     *
+     * @return ページの取得に用いるExecutor
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageOptions(pageSize=%d, prefetch=%d, executor=%s)", this.pageSize, this.prefetch,
+                this.executor);
+    }
+}
@@ -0,0 +1,248 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChannelUtil;
+import jp.ac.nagoya_u.dsmoq.sdk.util.Crc32c;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+import jp.ac.nagoya_u.dsmoq.sdk.util.StreamingDigest;
+
+/**
+ * RangeDownloaderが各範囲に書き込んだ内容から、ファイル全体のチェックサムを算出するクラス
+ *
+ * CRC32Cは範囲ごとに算出し、隣接する範囲の値を結合します。
+ * MD5、SHA-256は先頭から順にしか算出できないため、先頭から連続して書き込まれた内容は受信したバッファから算出し、
+ * 先行して書き込まれた範囲は、先頭からの書き込みが追い付いた時点で書き出し先ファイルから読み込みます。
+ * (直前に書き込まれた内容のため、通常はページキャッシュから読み込まれます)
+ * 再開したダウンロードで以前に書き込まれた範囲も、完了時に書き出し先ファイルから読み込みます。
+ */
+abstract class RangeChecksum implements AutoCloseable {
+    /** アルゴリズム */
+    protected final DigestAlgorithm algorithm;
+
+    /** 書き出し先ファイル */
+    private final Path target;
+
+    /** 書き出し先ファイルの読み込み用チャネル、未使用の場合null */
+    private FileChannel channel;
+
+    /**
+     * チェックサムの算出を開始する。
+     *
+     * @param algorithm アルゴリズム
+     * @param target 書き出し先ファイル
+     */
+    protected RangeChecksum(DigestAlgorithm algorithm, Path target) {
+        this.algorithm = algorithm;
+        this.target = target;
+    }
+
+    /**
+     * アルゴリズムに応じたチェックサムの算出を開始する。
+     *
+     * @param algorithm アルゴリズム
+     * @param target 書き出し先ファイル
+     * @return 算出を開始したRangeChecksum
+     */
+    static RangeChecksum create(DigestAlgorithm algorithm, Path target) {
+        return algorithm == DigestAlgorithm.CRC32C ? new Combined(algorithm, target)
+                : new Sequential(algorithm, target);
+    }
+
+    /**
+     * アルゴリズムを取得する。
+     *
+     * @return アルゴリズム
+     */
+    DigestAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * 書き込んだ内容を通知する。複数のスレッドから呼び出せます。
+     *
+     * @param position 書き込んだ位置
+     * @param data 書き込んだ内容 (positionからlimitまで、positionは変更しない)
+     * @throws IOException 書き出し先ファイルの読み込みに失敗した場合
+     */
+    abstract void update(long position, ByteBuffer data) throws IOException;
+
+    /**
+     * ファイル全体のチェックサムを算出する。
+     *
+     * 通知されていない範囲は、書き出し先ファイルから読み込みます。
+     *
+     * @param size ファイルサイズ
+     * @return チェックサム (小文字の16進数文字列)
+     * @throws IOException 書き出し先ファイルの読み込みに失敗した場合
+     */
+    abstract String finish(long size) throws IOException;
+
+    /**
+     * 書き出し先ファイルの指定範囲を読み込み、チェックサムを更新する。
+     *
+     * @param digest 更新するチェックサム
+     * @param from 開始位置
+     * @param to 終端 (この位置を含まない)
+     * @throws IOException 読み込みに失敗した場合
+     */
+    protected void read(StreamingDigest digest, long from, long to) throws IOException {
+        if (this.channel == null) {
+            this.channel = FileChannel.open(this.target, StandardOpenOption.READ);
+        }
+        ByteBuffer buffer = ChannelUtil.buffer();
+        for (long position = from; position < to;) {
+            buffer.clear();
+            if (to - position < buffer.capacity()) {
+                buffer.limit((int) (to - position));
+            }
+            int n = this.channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file: " + this.target);
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += n;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * 範囲ごとのCRC32Cを結合するチェックサム
+     */
+    private static class Combined extends RangeChecksum {
+        /** 通知された範囲 (開始位置をキーとし、[終端, CRC32C]を値とする。隣接する範囲は結合済み) */
+        private final TreeMap<Long, long[]> ranges = new TreeMap<>();
+
+        /**
+         * チェックサムの算出を開始する。
+         *
+         * @param algorithm アルゴリズム
+         * @param target 書き出し先ファイル
+         */
+        Combined(DigestAlgorithm algorithm, Path target) {
+            super(algorithm, target);
+        }
+
+        @Override
+        void update(long position, ByteBuffer data) {
+            if (!data.hasRemaining()) {
+                return;
+            }
+            StreamingDigest digest = StreamingDigest.of(this.algorithm);
+            digest.update(data);
+            add(position, position + data.remaining(), digest.getCrc());
+        }
+
+        /**
+         * 範囲を追加し、隣接する範囲と結合する。
+         *
+         * @param from 開始位置
+         * @param to 終端 (この位置を含まない)
+         * @param crc 範囲のCRC32C
+         */
+        private synchronized void add(long from, long to, long crc) {
+            long start = from;
+            long[] range = { to, crc };
+            Map.Entry<Long, long[]> before = this.ranges.lowerEntry(from);
+            if (before != null && before.getValue()[0] == from) {
+                start = before.getKey();
+                range[1] = Crc32c.combine(before.getValue()[1], crc, to - from);
+            }
+            long[] after = this.ranges.remove(to);
+            if (after != null) {
+                range[0] = after[0];
+                range[1] = Crc32c.combine(range[1], after[1], after[0] - to);
+            }
+            this.ranges.put(start, range);
+        }
+
+        @Override
+        synchronized String finish(long size) throws IOException {
+            long crc = 0;
+            long position = 0;
+            while (position < size) {
+                Map.Entry<Long, long[]> entry = this.ranges.ceilingEntry(position);
+                if (entry != null && entry.getKey() == position) {
+                    long to = Math.min(size, entry.getValue()[0]);
+                    crc = Crc32c.combine(crc, entry.getValue()[1], to - position);
+                    position = to;
+                } else {
+                    long to = entry == null ? size : Math.min(size, entry.getKey());
+                    StreamingDigest digest = StreamingDigest.of(this.algorithm);
+                    read(digest, position, to);
+                    crc = Crc32c.combine(crc, digest.getCrc(), to - position);
+                    position = to;
+                }
+            }
+            return StreamingDigest.toHex(crc);
+        }
+    }
+
+    /**
+     * 先頭から順に算出するチェックサム
+     */
+    private static class Sequential extends RangeChecksum {
+        /** 算出中のチェックサム */
+        private final StreamingDigest digest;
+
+        /** 先行して書き込まれた範囲 (開始位置をキーとし、終端を値とする) */
+        private final TreeMap<Long, Long> ahead = new TreeMap<>();
+
+        /** チェックサムに反映済みの位置 */
+        private long hashed = 0;
+
+        /**
+         * チェックサムの算出を開始する。
+         *
+         * @param algorithm アルゴリズム
+         * @param target 書き出し先ファイル
+         */
+        Sequential(DigestAlgorithm algorithm, Path target) {
+            super(algorithm, target);
+            this.digest = StreamingDigest.of(algorithm);
+        }
+
+        @Override
+        synchronized void update(long position, ByteBuffer data) throws IOException {
+            long to = position + data.remaining();
+            if (position != this.hashed) {
+                this.ahead.put(position, to);
+                return;
+            }
+            this.digest.update(data);
+            this.hashed = to;
+            // 先行して書き込まれた範囲に追い付いた場合、ファイルから読み込む
+            Map.Entry<Long, Long> next;
+            while ((next = this.ahead.firstEntry()) != null && next.getKey() <= this.hashed) {
+                this.ahead.remove(next.getKey());
+                if (next.getValue() > this.hashed) {
+                    read(this.digest, this.hashed, next.getValue());
+                    this.hashed = next.getValue();
+                }
+            }
+        }
+
+        @Override
+        synchronized String finish(long size) throws IOException {
+            if (this.hashed < size) {
+                read(this.digest, this.hashed, size);
+                this.hashed = size;
+            }
+            return this.digest.toHex();
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChecksumMismatchException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+import jp.ac.nagoya_u.dsmoq.sdk.util.StreamingDigest;
+
+/**
+ * ファイルを複数のRange指定リクエストで並列に取得し、事前に確保したファイルの該当位置へ直接書き込むダウンローダ
+ *
+ * 各スレッドは担当範囲を先頭から順に、転送速度に応じたサイズのリクエストで取得します。
+ * 担当範囲を取得し終えたスレッドは、残りが最も大きい(すなわち最も遅れている)範囲を二分し、後半を引き継ぎます。
+ * チェックサムを算出する場合、書き込んだ内容を受信用バッファのままRangeChecksumに渡します。
+ */
+class RangeDownloader {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** 受信に用いるバッファサイズ */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * ダウンロード対象の範囲
+     *
+     * positionは担当スレッドのみが、endは範囲の分割時にのみ更新されます。いずれもダウンローダのロックで保護されます。
+     */
+    private static class Segment {
+        /** 次に取得する位置 */
+        private long position;
+
+        /** 範囲の終端 (この位置を含まない) */
+        private long end;
+
+        /**
+         * 範囲を作成する。
+         *
+         * @param position 開始位置
+         * @param end 終端 (この位置を含まない)
+         */
+        Segment(long position, long end) {
+            this.position = position;
+            this.end = end;
+        }
+    }
+
+    /** クライアント */
+    private final DsmoqClient client;
+
+    /** DatasetID */
+    private final String datasetId;
+
+    /** ファイルID */
+    private final String fileId;
+
+    /** 書き出し先ファイル */
+    private final Path target;
+
+    /** ダウンロードオプション */
+    private final DownloadOptions options;
+
+    /** 未着手の範囲 */
+    private final Deque<Segment> pending = new ArrayDeque<>();
+
+    /** 取得中の範囲 */
+    private final List<Segment> active = new ArrayList<>();
+
+    /** 送信したリクエスト数 */
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    /** いずれかのスレッドで処理が失敗したか否か */
+    private volatile boolean aborted;
+
+    /** ファイルに設定されているファイル名 */
+    private volatile String name;
+
+    /** 書き込みが完了した範囲を記録するジャーナル、再開しない場合null */
+    private DownloadJournal journal;
+
+    /** 書き込んだ内容からチェックサムを算出するRangeChecksum、算出しない場合null */
+    private RangeChecksum checksum;
+
+    /** 書き込んだバイト数を受け取る関数、通知しない場合null */
+    private LongConsumer progress;
+
+    /**
+     * ダウンローダを作成する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param target 書き出し先ファイル
+     * @param options ダウンロードオプション
+     */
+    RangeDownloader(DsmoqClient client, String datasetId, String fileId, Path target, DownloadOptions options) {
+        this.client = client;
+        this.datasetId = datasetId;
+        this.fileId = fileId;
+        this.target = target;
+        this.options = options;
+    }
+
+    /**
+     * 書き込んだバイト数を受け取る関数を設定する。
+     *
+     * 関数は書き込みのたびに、ダウンロードを行うスレッドから呼び出される。
+     *
+     * @param progress 書き込んだバイト数を受け取る関数
+     * @return このダウンローダ
+     */
+    RangeDownloader progress(LongConsumer progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * ダウンロードを実行する。
+     *
+     * オプションでresumeが指定されている場合、書き込みが完了した範囲をジャーナルに記録し、
+     * 以前のジャーナルが有効であれば未取得の範囲のみを取得する。
+     * ジャーナルは完了時に削除され、失敗時には再開のため残される。
+     *
+     * オプションでチェックサムが指定されている場合、受信した内容からファイル全体のチェックサムを算出する。
+     * 期待値と一致しない場合は、ジャーナルを削除した上で(再実行時は最初から取得し直すよう)例外とする。
+     *
+     * @param size ファイルサイズ、不明な場合null
+     * @return ダウンロード結果
+     * @throws IOException 書き出し先ファイルの操作に失敗した場合
+     * @throws ChecksumMismatchException チェックサムが期待値と一致しない場合
+     * @throws RuntimeException リクエストが失敗した場合、DsmoqClientの各メソッドと同じ例外
+     */
+    DownloadResult download(Long size) throws IOException {
+        DigestAlgorithm algorithm = this.options.getChecksumAlgorithm();
+        if (algorithm == null) {
+            return downloadRanges(size);
+        }
+        try (RangeChecksum checksum = RangeChecksum.create(algorithm, this.target)) {
+            this.checksum = checksum;
+            DownloadResult result = downloadRanges(size);
+            String actual = checksum.finish(result.getSize());
+            logger.debug(LOG_MARKER, "RangeDownloader#download : [algorithm] = {}, [checksum] = {}", algorithm,
+                    actual);
+            StreamingDigest.verify(algorithm, this.options.getExpectedChecksum(), actual);
+            return new DownloadResult(result.getPath(), result.getName(), result.getSize(), result.getRequestCount(),
+                    result.getResumedSize(), algorithm, actual);
+        }
+    }
+
+    /**
+     * ファイル全体をダウンロードする。
+     *
+     * @param size ファイルサイズ、不明な場合null
+     * @return ダウンロード結果
+     * @throws IOException 書き出し先ファイルの操作に失敗した場合
+     */
+    private DownloadResult downloadRanges(Long size) throws IOException {
+        if (size == null || size == 0 || !this.options.isResume()) {
+            try (FileChannel channel = FileChannel.open(this.target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (size == null) {
+                    // サイズが不明な場合は分割できないため、一つのリクエストで取得する
+                    long written = transferWhole(channel);
+                    return new DownloadResult(this.target, this.name, written, this.requestCount.get());
+                }
+                return download(channel, size, Collections.singletonList(new long[] { 0, size }));
+            }
+        }
+        try (DownloadJournal journal = DownloadJournal.open(this.target, this.datasetId, this.fileId, size)) {
+            this.journal = journal;
+            // 再開する場合は、書き込み済みの内容を残すため切り詰めない
+            DownloadResult result;
+            try (FileChannel channel = journal.isResumed()
+                    ? FileChannel.open(this.target, StandardOpenOption.WRITE)
+                    : FileChannel.open(this.target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                result = download(channel, size, journal.getMissingRanges());
+            }
+            journal.complete();
+            return result;
+        }
+    }
+
+    /**
+     * 指定された範囲をダウンロードする。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     * @param size ファイルサイズ
+     * @param ranges 取得する範囲 ([開始位置, 終端)、開始位置順)
+     * @return ダウンロード結果
+     * @throws IOException 書き出し先ファイルの操作に失敗した場合
+     */
+    private DownloadResult download(FileChannel channel, long size, List<long[]> ranges) throws IOException {
+        preallocate(channel, size);
+        long missing = ranges.stream().mapToLong(r -> r[1] - r[0]).sum();
+        if (missing == 0) {
+            return new DownloadResult(this.target, null, size, 0, size);
+        }
+        int workers = split(ranges, missing);
+        logger.debug(LOG_MARKER,
+                "RangeDownloader#download : [size] = {}, [missing] = {}, [workers] = {}, [options] = {}", size,
+                missing, workers, this.options);
+        if (workers == 1) {
+            work(channel);
+        } else {
+            runWorkers(channel, workers);
+        }
+        channel.force(false);
+        return new DownloadResult(this.target, this.name, size, this.requestCount.get(), size - missing);
+    }
+
+    /**
+     * 取得する範囲を未着手の範囲に分割する。
+     *
+     * 各範囲は、合計サイズに占める割合に応じた数に等分する。
+     *
+     * @param ranges 取得する範囲 ([開始位置, 終端)、開始位置順)
+     * @param missing 取得する範囲の合計サイズ
+     * @return 用いるスレッド数
+     */
+    private int split(List<long[]> ranges, long missing) {
+        long minChunkSize = this.options.getMinChunkSize();
+        int workers = (int) Math.max(1, Math.min(this.options.getParallelism(), missing / minChunkSize));
+        for (long[] range : ranges) {
+            long size = range[1] - range[0];
+            long count = Math.max(1, Math.min(size, Math.round((double) workers * size / missing)));
+            long length = size / count;
+            for (long i = 0; i < count; i++) {
+                long start = range[0] + i * length;
+                this.pending.add(new Segment(start, i == count - 1 ? range[1] : start + length));
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * 複数のスレッドでダウンロードを行い、全てのスレッドの完了を待つ。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     * @param workers スレッド数
+     */
+    private void runWorkers(FileChannel channel, int workers) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-download-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        work(channel);
+                    } catch (RuntimeException e) {
+                        // 他のスレッドに処理の中断を通知する
+                        this.aborted = true;
+                        throw e;
+                    }
+                }));
+            }
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                                : new ApiFailedException(e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            this.aborted = true;
+            Thread.currentThread().interrupt();
+            throw new ApiFailedException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 範囲を取得し、書き出し先ファイルへ書き込む。取得する範囲がなくなるまで繰り返す。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     */
+    private void work(FileChannel channel) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long chunkSize = this.options.getMinChunkSize();
+        RetryExecutor retry = this.client.getRetryExecutor();
+        int attempt = 1;
+        long deadline = retry == null ? 0 : retry.newDeadline();
+        Segment segment;
+        while (!this.aborted && (segment = next()) != null) {
+            while (!this.aborted) {
+                long from;
+                long to;
+                synchronized (this) {
+                    if (segment.position >= segment.end) {
+                        break;
+                    }
+                    from = segment.position;
+                    to = Math.min(segment.end, from + chunkSize) - 1;
+                }
+                Segment current = segment;
+                long start = System.nanoTime();
+                long received;
+                try {
+                    received = this.client.downloadRange(this.datasetId, this.fileId, from, to,
+                            response -> transfer(response, current, channel, buffer));
+                } catch (RuntimeException e) {
+                    // 失敗した場合も、書き込めた分は再開できるよう記録する
+                    try {
+                        checkpoint(channel, current, from);
+                    } catch (RuntimeException suppressed) {
+                        e.addSuppressed(suppressed);
+                        throw e;
+                    }
+                    if (retry == null || this.aborted) {
+                        throw e;
+                    }
+                    // 一部でも書き込めた場合は、続きの範囲を新たなリクエストとして再試行回数、期限を数え直す
+                    synchronized (this) {
+                        if (current.position > from) {
+                            attempt = 1;
+                            deadline = retry.newDeadline();
+                        }
+                    }
+                    if (!retry.awaitRetry(e, attempt, deadline)) {
+                        throw e;
+                    }
+                    attempt++;
+                    continue;
+                }
+                attempt = 1;
+                deadline = retry == null ? 0 : retry.newDeadline();
+                checkpoint(channel, current, from);
+                chunkSize = nextChunkSize(chunkSize, received, System.nanoTime() - start);
+            }
+            synchronized (this) {
+                this.active.remove(segment);
+            }
+        }
+    }
+
+    /**
+     * ジャーナルを用いる場合、範囲の開始位置から現在位置までを書き込み完了として記録する。
+     *
+     * 記録の前に書き出し先ファイルをディスクへ書き出し、記録された範囲が必ずファイルに存在するようにする。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     * @param segment 範囲
+     * @param from リクエストの開始位置
+     */
+    private void checkpoint(FileChannel channel, Segment segment, long from) {
+        if (this.journal == null) {
+            return;
+        }
+        long to;
+        synchronized (this) {
+            to = segment.position;
+        }
+        if (to <= from) {
+            return;
+        }
+        try {
+            channel.force(false);
+            this.journal.record(from, to);
+        } catch (IOException e) {
+            throw new ApiFailedException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 次に取得する範囲を取得する。
+     *
+     * 未着手の範囲がない場合、取得中の範囲のうち残りが最も大きいものを二分し、後半を返す。
+     *
+     * @return 次に取得する範囲、残っていない場合null
+     */
+    private synchronized Segment next() {
+        Segment segment = this.pending.poll();
+        if (segment == null) {
+            Segment victim = null;
+            long remaining = 0;
+            for (Segment s : this.active) {
+                if (s.end - s.position > remaining) {
+                    remaining = s.end - s.position;
+                    victim = s;
+                }
+            }
+            if (victim == null || remaining < this.options.getMinChunkSize() * 2) {
+                return null;
+            }
+            long split = victim.position + remaining / 2;
+            segment = new Segment(split, victim.end);
+            victim.end = split;
+            logger.debug(LOG_MARKER, "RangeDownloader#next : split [{}-{}) at {}", victim.position, segment.end,
+                    split);
+        }
+        this.active.add(segment);
+        return segment;
+    }
+
+    /**
+     * レスポンスボディを、範囲の現在位置から書き出し先ファイルへ書き込む。
+     *
+     * 範囲が分割され終端に達した場合、レスポンスボディの残りは読まずに終了する。
+     * (レスポンスはクローズ時に中断され、残りのデータは転送されない)
+     *
+     * @param response レスポンス
+     * @param segment 範囲
+     * @param channel 書き出し先ファイルのチャネル
+     * @param buffer 受信用バッファ
+     * @return 書き込んだバイト数
+     * @throws IOException 入出力エラーが発生した場合、あるいはサーバがRange指定に対応していない場合
+     */
+    private long transfer(HttpResponse response, Segment segment, FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        this.requestCount.incrementAndGet();
+        long position;
+        synchronized (this) {
+            position = segment.position;
+        }
+        if (position != 0 && response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+            throw new IOException("Range request is not supported: " + response.getStatusLine());
+        }
+        if (this.name == null) {
+            this.name = DsmoqClient.getFileNameFromHeader(response);
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new IOException("Response has no content: " + response.getStatusLine());
+        }
+        ReadableByteChannel src = Channels.newChannel(entity.getContent());
+        long written = 0;
+        while (!this.aborted) {
+            long remaining;
+            synchronized (this) {
+                remaining = segment.end - position;
+            }
+            if (remaining <= 0) {
+                break;
+            }
+            buffer.clear();
+            if (remaining < buffer.capacity()) {
+                buffer.limit((int) remaining);
+            }
+            if (src.read(buffer) < 0) {
+                break;
+            }
+            buffer.flip();
+            ByteBuffer data = buffer.duplicate();
+            long from = position;
+            while (buffer.hasRemaining()) {
+                int n = channel.write(buffer, position);
+                position += n;
+                written += n;
+            }
+            if (this.checksum != null) {
+                this.checksum.update(from, data);
+            }
+            if (this.progress != null) {
+                this.progress.accept(position - from);
+            }
+            synchronized (this) {
+                segment.position = position;
+            }
+        }
+        if (written == 0 && !this.aborted) {
+            throw new IOException("No content received: " + response.getStatusLine());
+        }
+        return written;
+    }
+
+    /**
+     * サイズが不明なファイルを、一つのリクエストで先頭から書き込む。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     * @return 書き込んだバイト数
+     */
+    private long transferWhole(FileChannel channel) {
+        Segment segment = new Segment(0, Long.MAX_VALUE);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        return this.client.downloadRange(this.datasetId, this.fileId, null, null,
+                response -> transfer(response, segment, channel, buffer));
+    }
+
+    /**
+     * 直前のリクエストの転送速度から、次のリクエストの取得サイズを計算する。
+     *
+     * 目標時間で転送できるサイズを、現在の2倍を上限として最小・最大取得サイズの範囲に収める。
+     *
+     * @param current 現在の取得サイズ
+     * @param received 直前のリクエストで受信したバイト数
+     * @param elapsedNanos 直前のリクエストの所要時間 (ns)
+     * @return 次のリクエストの取得サイズ
+     */
+    private long nextChunkSize(long current, long received, long elapsedNanos) {
+        if (received <= 0 || elapsedNanos <= 0) {
+            return current;
+        }
+        double bytesPerMilli = received * 1e6 / elapsedNanos;
+        long desired = (long) Math.min(bytesPerMilli * this.options.getChunkDuration(), current * 2.0);
+        return Math.max(this.options.getMinChunkSize(), Math.min(this.options.getMaxChunkSize(), desired));
+    }
+
+    /**
+     * 書き出し先ファイルを指定されたサイズで確保する。
+     *
+     * @param channel 書き出し先ファイルのチャネル
+     * @param size ファイルサイズ
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private static void preallocate(FileChannel channel, long size) throws IOException {
+        if (channel.size() > size) {
+            channel.truncate(size);
+        } else if (size > 0 && channel.size() < size) {
+            // 末尾の1バイトを書き込むことで、ファイルを指定サイズまで拡張する
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+}
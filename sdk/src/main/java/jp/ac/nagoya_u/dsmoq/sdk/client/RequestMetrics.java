@@ -0,0 +1,226 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+/**
+ * 1回のAPI呼び出しで送信したリクエストの計測結果
+ *
+ * 時間の単位はナノ秒です。計測できない項目は-1となります。
+ * (AsyncDsmoqClientでは、接続時間、コネクションプールの待機時間、バイト数は計測されません)
+ * 再送、ヘッジを行った場合、時間、ステータス、バイト数は採用されたリクエスト(全て失敗した場合は最後に失敗したリクエスト)の値、
+ * totalNanosは最初の送信から完了までの時間です。
+ */
+public class RequestMetrics {
+    /** HTTPメソッド */
+    private final String method;
+
+    /** 送信先のパスのIDを{id}に置き換えたテンプレート */
+    private final String endpoint;
+
+    /** APIの種別 */
+    private final EndpointClass endpointClass;
+
+    /** レスポンスのステータスコード */
+    private final int statusCode;
+
+    /** 呼び出し全体の時間 (ns) */
+    private final long totalNanos;
+
+    /** 接続に要した時間 (ns) */
+    private final long connectNanos;
+
+    /** 送信開始からレスポンスヘッダを受信するまでの時間 (ns) */
+    private final long timeToFirstByteNanos;
+
+    /** コネクションプールからの取得を待機した時間 (ns) */
+    private final long poolWaitNanos;
+
+    /** 同時実行数の制限により待機した時間 (ns) */
+    private final long queueWaitNanos;
+
+    /** 送信したリクエストボディのバイト数 */
+    private final long requestBytes;
+
+    /** 受信したレスポンスボディのバイト数 */
+    private final long responseBytes;
+
+    /** 再送、ヘッジした回数 */
+    private final int retries;
+
+    /** 呼び出しが失敗した原因 */
+    private final Throwable error;
+
+    /**
+     * 計測結果を作成する。
+     *
+     * @param method HTTPメソッド
+     * @param endpoint 送信先のパスのテンプレート
+     * @param endpointClass APIの種別
+     * @param statusCode ステータスコード、レスポンスを受信していない場合0
+     * @param totalNanos 呼び出し全体の時間 (ns)
+     * @param connectNanos 接続に要した時間 (ns)
+     * @param timeToFirstByteNanos 送信開始からレスポンスヘッダを受信するまでの時間 (ns)
+     * @param poolWaitNanos コネクションプールからの取得を待機した時間 (ns)
+     * @param queueWaitNanos 同時実行数の制限により待機した時間 (ns)
+     * @param requestBytes 送信したリクエストボディのバイト数
+     * @param responseBytes 受信したレスポンスボディのバイト数
+     * @param retries 再送、ヘッジした回数
+     * @param error 呼び出しが失敗した原因、成功した場合null
+     */
+    RequestMetrics(String method, String endpoint, EndpointClass endpointClass, int statusCode, long totalNanos,
+            long connectNanos, long timeToFirstByteNanos, long poolWaitNanos, long queueWaitNanos, long requestBytes,
+            long responseBytes, int retries, Throwable error) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.endpointClass = endpointClass;
+        this.statusCode = statusCode;
+        this.totalNanos = totalNanos;
+        this.connectNanos = connectNanos;
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+        this.poolWaitNanos = poolWaitNanos;
+        this.queueWaitNanos = queueWaitNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.retries = retries;
+        this.error = error;
+    }
+
+    /**
+     * HTTPメソッドを取得する。
+     *
+     * @return HTTPメソッド
+     */
+    public String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * HTTPメソッドと、送信先のパスのIDを{id}に置き換えたテンプレートを取得する。
+     *
+     * @return テンプレート (例: "GET /api/datasets/{id}/files")
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * APIの種別を取得する。
+     *
+     * @return APIの種別
+     */
+    public EndpointClass getEndpointClass() {
+        return this.endpointClass;
+    }
+
+    /**
+     * レスポンスのステータスコードを取得する。
+     *
+     * @return ステータスコード、レスポンスを受信していない場合0
+     */
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * 呼び出し全体の時間を取得する。
+     *
+     * 同時実行数の制限による待機、再送までの待ち時間、レスポンスの変換を含みます。
+     *
+     * @return 呼び出し全体の時間 (ns)
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * 接続に要した時間を取得する。
+     *
+     * @return 接続に要した時間 (ns)、プール内のコネクションを再利用した場合0、計測していない場合-1
+     */
+    public long getConnectNanos() {
+        return this.connectNanos;
+    }
+
+    /**
+     * 送信開始からレスポンスヘッダを受信するまでの時間を取得する。
+     *
+     * @return 送信開始からレスポンスヘッダを受信するまでの時間 (ns)、受信していない場合-1
+     */
+    public long getTimeToFirstByteNanos() {
+        return this.timeToFirstByteNanos;
+    }
+
+    /**
+     * コネクションプールからの取得を待機した時間を取得する。
+     *
+     * @return 待機した時間 (ns)、計測していない場合-1
+     */
+    public long getPoolWaitNanos() {
+        return this.poolWaitNanos;
+    }
+
+    /**
+     * 同時実行数の制限により待機した時間を取得する。
+     *
+     * @return 待機した時間 (ns)、同時実行数を制限していない場合0
+     */
+    public long getQueueWaitNanos() {
+        return this.queueWaitNanos;
+    }
+
+    /**
+     * 送信したリクエストボディのバイト数を取得する。
+     *
+     * @return バイト数、計測していない場合-1
+     */
+    public long getRequestBytes() {
+        return this.requestBytes;
+    }
+
+    /**
+     * 受信したレスポンスボディのバイト数を取得する。
+     *
+     * 圧縮されている場合は圧縮後のバイト数です。
+     *
+     * @return バイト数、計測していない場合-1
+     */
+    public long getResponseBytes() {
+        return this.responseBytes;
+    }
+
+    /**
+     * 再送、ヘッジした回数を取得する。
+     *
+     * @return 再送、ヘッジした回数
+     */
+    public int getRetries() {
+        return this.retries;
+    }
+
+    /**
+     * 呼び出しが失敗した原因を取得する。
+     *
+     * @return 失敗した原因、成功した場合null
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+
+    /**
+     * 呼び出しが成功したかを返す。
+     *
+     * @return 成功した場合true
+     */
+    public boolean isSucceeded() {
+        return this.error == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RequestMetrics(endpoint=%s, endpointClass=%s, statusCode=%d, totalNanos=%d, connectNanos=%d, "
+                        + "timeToFirstByteNanos=%d, poolWaitNanos=%d, queueWaitNanos=%d, requestBytes=%d, "
+                        + "responseBytes=%d, retries=%d, error=%s)",
+                this.endpoint, this.endpointClass, this.statusCode, this.totalNanos, this.connectNanos,
+                this.timeToFirstByteNanos, this.poolWaitNanos, this.queueWaitNanos, this.requestBytes,
+                this.responseBytes, this.retries, this.error);
+    }
+}
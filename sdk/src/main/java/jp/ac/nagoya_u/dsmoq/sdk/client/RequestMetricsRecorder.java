@@ -0,0 +1,154 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpExchangeMetrics;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
+
+/**
+ * 1回のAPI呼び出し(再送、ヘッジを含む)の計測を行い、完了時にDsmoqMetricsListenerへ通知する。
+ *
+ * ヘッジでは複数のリクエストが並行して送信されるため、スレッドセーフに実装している。
+ */
+class RequestMetricsRecorder {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** メッセージ用のリソースバンドル */
+    private static ResourceBundle resource = ResourceBundle.getBundle("message");
+
+    /** 送信先の判定に用いるクライアント */
+    private final DsmoqClient client;
+
+    /** 通知先のリスナー */
+    private final DsmoqMetricsListener listener;
+
+    /** 呼び出しを開始した時刻 */
+    private final long start = System.nanoTime();
+
+    /** 送信したリクエスト数 */
+    private final AtomicInteger exchanges = new AtomicInteger();
+
+    /** 同時実行数の制限により待機した時間の合計 (ns) */
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+
+    /** 通知済みか否か */
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    /** HTTPメソッド */
+    private volatile String method;
+
+    /** 送信先のパスのテンプレート */
+    private volatile String endpoint;
+
+    /** APIの種別 */
+    private volatile EndpointClass endpointClass;
+
+    /** 計測結果として採用したリクエストの計測値 */
+    private HttpExchangeMetrics selected;
+
+    /** 採用したリクエストが成功したか否か */
+    private boolean selectedSucceeded;
+
+    /**
+     * 計測を開始する。
+     *
+     * @param client 送信先の判定に用いるクライアント
+     * @param listener 通知先のリスナー
+     */
+    RequestMetricsRecorder(DsmoqClient client, DsmoqMetricsListener listener) {
+        this.client = client;
+        this.listener = listener;
+    }
+
+    /**
+     * 送信するリクエストから、送信先を記録する。
+     *
+     * 再送、ヘッジで複数回呼び出された場合は、最初のリクエストの送信先を用いる。
+     *
+     * @param request リクエスト
+     */
+    void begin(HttpUriRequest request) {
+        if (this.endpoint == null) {
+            this.method = request.getMethod();
+            this.endpointClass = this.client.toEndpointClass(request);
+            this.endpoint = this.client.toEndpointTemplate(request);
+        }
+    }
+
+    /**
+     * 同時実行数の制限により待機した時間を記録する。
+     *
+     * @param nanos 待機した時間 (ns)
+     */
+    void onQueued(long nanos) {
+        this.queueWaitNanos.addAndGet(nanos);
+    }
+
+    /**
+     * リクエストを1件送信する際に、その計測値の記録先を作成する。
+     *
+     * @return 計測値の記録先
+     */
+    HttpExchangeMetrics newExchange() {
+        this.exchanges.incrementAndGet();
+        return new HttpExchangeMetrics();
+    }
+
+    /**
+     * リクエストの完了を記録する。
+     *
+     * 成功したリクエストがあればそれを、なければ最後に失敗したリクエストを計測結果として採用する。
+     *
+     * @param exchange リクエストの計測値
+     * @param error 失敗した原因、成功した場合null
+     */
+    synchronized void onExchangeComplete(HttpExchangeMetrics exchange, Throwable error) {
+        if (this.selectedSucceeded) {
+            return;
+        }
+        this.selected = exchange;
+        this.selectedSucceeded = error == null;
+    }
+
+    /**
+     * 呼び出しの完了をリスナーへ通知する。
+     *
+     * 2回目以降の呼び出し、リクエストの送信先が記録されていない場合は何もしない。
+     *
+     * @param error 呼び出しが失敗した原因、成功した場合null
+     */
+    void report(Throwable error) {
+        if (this.endpoint == null || !this.reported.compareAndSet(false, true)) {
+            return;
+        }
+        long total = System.nanoTime() - this.start;
+        HttpExchangeMetrics m;
+        synchronized (this) {
+            m = this.selected;
+        }
+        long timeToFirstByte = m == null || m.getFirstByteTime() == 0 ? -1 : m.getFirstByteTime() - m.getStartTime();
+        RequestMetrics metrics = new RequestMetrics(this.method, this.endpoint, this.endpointClass,
+                m == null ? 0 : m.getStatusCode(), total, m == null ? -1 : m.getConnectNanos(), timeToFirstByte,
+                m == null ? -1 : m.getPoolWaitNanos(), this.queueWaitNanos.get(), m == null ? -1 : m.getRequestBytes(),
+                m == null ? -1 : m.getResponseBytes(), Math.max(0, this.exchanges.get() - 1), error);
+        try {
+            this.listener.onRequest(metrics);
+        } catch (RuntimeException e) {
+            // リスナーの失敗はAPI呼び出しの結果に影響させない
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_METRICS_LISTENER_FAILED), e.getMessage(), e);
+        }
+    }
+}
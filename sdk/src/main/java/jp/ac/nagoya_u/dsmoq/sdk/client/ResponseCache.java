@@ -0,0 +1,249 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * DsmoqClientのレスポンスキャッシュ
+ *
+ * 変換済みのレスポンスを、再検証用のETag、Last-Modifiedとともに保持します。
+ * エントリ数が上限を超えた場合は、最も長く参照されていないエントリから破棄します。
+ */
+class ResponseCache {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /**
+     * パスの上下関係によらず、更新に伴い破棄するリソース (更新したリソースのパス -> 破棄するリソースのパス)
+     *
+     * プロフィール(/api/profile以下)の更新は、ユーザー一覧(/api/accounts)の内容を変えます。
+     */
+    private static final Map<String, String> DEPENDENT_PATHS = Collections.singletonMap("/api/profile",
+            "/api/accounts");
+
+    /**
+     * キャッシュのエントリ
+     */
+    static class Entry {
+        /** リソースのパス */
+        private final String path;
+
+        /** 変換済みのレスポンス */
+        private final Object value;
+
+        /** ETagヘッダの値、ない場合null */
+        private final String etag;
+
+        /** Last-Modifiedヘッダの値、ない場合null */
+        private final String lastModified;
+
+        /** 保持期限 (System.nanoTime()の値) */
+        private final long expiresAt;
+
+        /**
+         * エントリを作成する。
+         *
+         * @param path リソースのパス
+         * @param value 変換済みのレスポンス
+         * @param etag ETagヘッダの値、ない場合null
+         * @param lastModified Last-Modifiedヘッダの値、ない場合null
+         * @param expiresAt 保持期限 (System.nanoTime()の値)
+         */
+        Entry(String path, Object value, String etag, String lastModified, long expiresAt) {
+            this.path = path;
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 変換済みのレスポンスを取得する。
+         *
+         * @return 変換済みのレスポンス
+         */
+        Object getValue() {
+            return this.value;
+        }
+
+        /**
+         * ETagヘッダの値を取得する。
+         *
+         * @return ETagヘッダの値、ない場合null
+         */
+        String getEtag() {
+            return this.etag;
+        }
+
+        /**
+         * Last-Modifiedヘッダの値を取得する。
+         *
+         * @return Last-Modifiedヘッダの値、ない場合null
+         */
+        String getLastModified() {
+            return this.lastModified;
+        }
+
+        /**
+         * 保持期限内かを返す。
+         *
+         * @return 保持期限内の場合true
+         */
+        boolean isFresh() {
+            return System.nanoTime() - this.expiresAt < 0;
+        }
+
+        /**
+         * 条件付きリクエストで再検証できるかを返す。
+         *
+         * @return ETagまたはLast-Modifiedを保持している場合true
+         */
+        boolean isRevalidatable() {
+            return this.etag != null || this.lastModified != null;
+        }
+    }
+
+    /** APIごとのキャッシュ保持期間 (ms) */
+    private final Map<CacheableEndpoint, Long> ttls = new EnumMap<>(CacheableEndpoint.class);
+
+    /** エントリ (参照順) */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /** エントリを破棄した回数 (取得中に破棄されたレスポンスを格納しないために用いる) */
+    private long generation;
+
+    /**
+     * キャッシュを作成する。
+     *
+     * @param options キャッシュの設定
+     */
+    ResponseCache(ResponseCacheOptions options) {
+        for (CacheableEndpoint endpoint : CacheableEndpoint.values()) {
+            this.ttls.put(endpoint, options.getTtl(endpoint));
+        }
+        int maximumSize = options.getMaximumSize();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * APIのキャッシュ保持期間を取得する。
+     *
+     * @param endpoint API
+     * @return キャッシュ保持期間 (ms)、0の場合キャッシュしない
+     */
+    long getTtl(CacheableEndpoint endpoint) {
+        return this.ttls.get(endpoint);
+    }
+
+    /**
+     * エントリを取得する。保持期限を過ぎたエントリも返す。
+     *
+     * @param key キー
+     * @return エントリ、ない場合null
+     */
+    synchronized Entry get(String key) {
+        return this.entries.get(key);
+    }
+
+    /**
+     * 現在の世代を取得する。
+     *
+     * リクエストの送信前に取得し、putに渡すことで、取得中に破棄されたリソースのレスポンスを格納しないようにします。
+     *
+     * @return 現在の世代
+     */
+    synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * エントリを格納する。
+     *
+     * @param key キー
+     * @param generation リクエスト送信前に取得した世代
+     * @param path リソースのパス
+     * @param value 変換済みのレスポンス
+     * @param etag ETagヘッダの値、ない場合null
+     * @param lastModified Last-Modifiedヘッダの値、ない場合null
+     * @param ttl キャッシュ保持期間 (ms)
+     */
+    synchronized void put(String key, long generation, String path, Object value, String etag, String lastModified,
+            long ttl) {
+        if (generation != this.generation) {
+            logger.debug(LOG_MARKER, "ResponseCache#put : invalidated while fetching, [key] = {}", key);
+            return;
+        }
+        this.entries.put(key, new Entry(path, value, etag, lastModified, System.nanoTime() + ttl * 1000000L));
+    }
+
+    /**
+     * リソースの更新に伴い、同じリソース、その上位、下位のリソース、およびDEPENDENT_PATHSで関連付けたリソースのエントリを破棄する。
+     *
+     * @param path 更新したリソースのパス
+     */
+    synchronized void invalidate(String path) {
+        this.generation++;
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (isRelated(entry.path, path) || isDependent(entry.path, path)) {
+                logger.debug(LOG_MARKER, "ResponseCache#invalidate : [path] = {}, [entry] = {}", path, entry.path);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * すべてのエントリを破棄する。
+     */
+    synchronized void clear() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+    /**
+     * 2つのパスが同じリソース、または上位と下位の関係にあるかを返す。
+     *
+     * @param a パス
+     * @param b パス
+     * @return 同じリソース、または上位と下位の関係にある場合true
+     */
+    static boolean isRelated(String a, String b) {
+        return a.equals(b) || a.startsWith(b + "/") || b.startsWith(a + "/");
+    }
+
+    /**
+     * リソースが、更新したリソースにDEPENDENT_PATHSで関連付けられているかを返す。
+     *
+     * @param path リソースのパス
+     * @param updated 更新したリソースのパス
+     * @return 更新したリソース、またはその下位のリソースに関連付けられている場合true
+     */
+    static boolean isDependent(String path, String updated) {
+        for (Map.Entry<String, String> dependent : DEPENDENT_PATHS.entrySet()) {
+            String source = dependent.getKey();
+            if ((updated.equals(source) || updated.startsWith(source + "/")) && path.equals(dependent.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * DsmoqClientのレスポンスキャッシュの動作を指定するオプション
+ *
+ * キャッシュはHTTPメソッド、URL、JSONパラメータの組をキーとし、APIごとに設定された保持期間の間、
+ * サーバへ問い合わせずに前回の取得結果を返します。
+ * 保持期間を過ぎたエントリは、サーバがETagまたはLast-Modifiedを返していた場合は条件付きリクエストで再検証されます。
+ * エントリ数がmaximumSizeを超えた場合は、最も長く参照されていないエントリから破棄されます。
+ *
+ * クライアントから更新系のAPIを呼び出した場合、同じリソース、その上位、下位のリソースのエントリは破棄されます。
+ * 他のクライアントによる更新は、保持期間が過ぎるまで反映されません。
+ */
+public class ResponseCacheOptions {
+    /** デフォルトの最大エントリ数 */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    /** 最大エントリ数 */
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /** APIごとのキャッシュ保持期間 (ms) */
+    private final Map<CacheableEndpoint, Long> ttls = new EnumMap<>(CacheableEndpoint.class);
+
+    /**
+     * オプションを作成する。APIごとのキャッシュ保持期間は、CacheableEndpoint#getDefaultTtlで初期化されます。
+     */
+    public ResponseCacheOptions() {
+        for (CacheableEndpoint endpoint : CacheableEndpoint.values()) {
+            this.ttls.put(endpoint, endpoint.getDefaultTtl());
+        }
+    }
+
+    /**
+     * 最大エントリ数を設定する。
+     *
+     * @param maximumSize 最大エントリ数
+     * @return このオプション
+     * @throws IllegalArgumentException maximumSizeが1未満の場合
+     */
+    public ResponseCacheOptions maximumSize(int maximumSize) {
+        requireGreaterOrEqualOrNull(maximumSize, 1, "at maximumSize in ResponseCacheOptions#maximumSize");
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * APIのキャッシュ保持期間を設定する。
+     *
+     * @param endpoint API
+     * @param ttl キャッシュ保持期間 (ms)、0の場合キャッシュしない
+     * @return このオプション
+     * @throws NullPointerException endpointがnullの場合
+     * @throws IllegalArgumentException ttlが0未満の場合
+     */
+    public ResponseCacheOptions ttl(CacheableEndpoint endpoint, long ttl) {
+        requireNotNull(endpoint, "at endpoint in ResponseCacheOptions#ttl");
+        requireGreaterOrEqualOrNull(ttl, 0L, "at ttl in ResponseCacheOptions#ttl");
+        this.ttls.put(endpoint, ttl);
+        return this;
+    }
+
+    /**
+     * 最大エントリ数を取得する。
+     *
+     * @return 最大エントリ数
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * APIのキャッシュ保持期間を取得する。
+     *
+     * @param endpoint API
+     * @return キャッシュ保持期間 (ms)、0の場合キャッシュしない
+     * @throws NullPointerException endpointがnullの場合
+     */
+    public long getTtl(CacheableEndpoint endpoint) {
+        requireNotNull(endpoint, "at endpoint in ResponseCacheOptions#getTtl");
+        return this.ttls.get(endpoint);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResponseCacheOptions(maximumSize=%d, ttls=%s)", this.maximumSize, this.ttls);
+    }
+}
@@ -0,0 +1,58 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.http.HttpResponse;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContent;
+
+/**
+ * レスポンスボディを直接読み込むDatasetFileContent
+ * 
+ * レスポンスがクローズされるまでの間のみ利用可能です。
+ */
+class ResponseDatasetFileContent implements DatasetFileContent {
+    /** レスポンス */
+    private final HttpResponse response;
+
+    /** ファイル名 */
+    private final String name;
+
+    /**
+     * DatasetFileContentを作成する。
+     * 
+     * @param response レスポンス
+     * @param name ファイル名、ない場合null
+     */
+    ResponseDatasetFileContent(HttpResponse response, String name) {
+        this.response = response;
+        this.name = name;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return this.response.getEntity().getContent();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void writeTo(OutputStream s) throws IOException {
+        this.response.getEntity().writeTo(s);
+    }
+
+    @Override
+    public long getContentLength() {
+        return this.response.getEntity().getContentLength();
+    }
+
+    @Override
+    public long getRangeOffset() {
+        return DsmoqClient.toRangeOffset(this.response);
+    }
+}
@@ -0,0 +1,428 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import javax.net.ssl.SSLException;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ConnectionLostException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ErrorRespondedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+
+/**
+ * RetryPolicyに従って、冪等なリクエストの再送、ヘッジ、期限による中断を行う。
+ *
+ * スレッドセーフであり、DsmoqClientの生存期間中共有されます。
+ */
+class RetryExecutor implements AutoCloseable {
+    /**
+     * 1回分のリクエストの送信
+     *
+     * @param <R> 変換結果の型
+     */
+    @FunctionalInterface
+    interface Attempt<R> {
+        /**
+         * リクエストを作成して送信し、レスポンスを変換する。
+         *
+         * @param register 作成したリクエストを送信前に渡す関数 (期限切れ、ヘッジの決着時の中断に用いる)
+         * @return 変換結果
+         * @throws Exception リクエストの送信、レスポンスの変換に失敗した場合
+         */
+        R run(Consumer<HttpUriRequest> register) throws Exception;
+    }
+
+    /**
+     * 送信中のリクエストを中断するためのハンドル
+     *
+     * リクエストの登録前に中断された場合は、登録時に中断します。
+     */
+    private static class Slot implements Consumer<HttpUriRequest> {
+        /** 登録されたリクエスト */
+        private HttpUriRequest request;
+
+        /** 中断済みか否か */
+        private boolean aborted;
+
+        @Override
+        public synchronized void accept(HttpUriRequest request) {
+            this.request = request;
+            if (this.aborted) {
+                request.abort();
+            }
+        }
+
+        /**
+         * リクエストを中断する。
+         */
+        synchronized void abort() {
+            this.aborted = true;
+            if (this.request != null) {
+                this.request.abort();
+            }
+        }
+    }
+
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** 期限なしを表す値 */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /** レイテンシを保持する件数 */
+    private static final int LATENCY_SAMPLES = 256;
+
+    /** ヘッジの待ち時間の算出に必要なレイテンシの件数 */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    /** ヘッジの待ち時間とするレイテンシのパーセンタイル */
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    /** ポリシー */
+    private final RetryPolicy policy;
+
+    /** 期限切れのリクエストを中断するスケジューラ、期限なしの場合null */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /** ヘッジのためにリクエストを送信するスレッドプール、ヘッジしない場合null */
+    private final ExecutorService hedgeExecutor;
+
+    /** 直近のレイテンシ (ns、リングバッファ) */
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+
+    /** 記録したレイテンシの件数 */
+    private long latencyCount;
+
+    /** 再送した回数 */
+    private final AtomicLong retries = new AtomicLong();
+
+    /** ヘッジリクエストを送信した回数 */
+    private final AtomicLong hedges = new AtomicLong();
+
+    /** ヘッジリクエストのレスポンスが採用された回数 */
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * ポリシーを指定して作成する。
+     *
+     * @param policy ポリシー
+     */
+    RetryExecutor(RetryPolicy policy) {
+        // 作成後のポリシーの変更が反映されないよう複製する
+        this.policy = new RetryPolicy().maxAttempts(policy.getMaxAttempts()).initialBackoff(policy.getInitialBackoff())
+                .maxBackoff(policy.getMaxBackoff()).deadline(policy.getDeadline()).hedge(policy.isHedge())
+                .minHedgeDelay(policy.getMinHedgeDelay());
+        if (this.policy.getDeadline() > 0) {
+            this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "dsmoq-retry-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.timer.setRemoveOnCancelPolicy(true);
+        } else {
+            this.timer = null;
+        }
+        this.hedgeExecutor = !this.policy.isHedge() ? null : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-hedge-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * スケジューラ、スレッドプールを停止する。
+     */
+    @Override
+    public void close() {
+        if (this.timer != null) {
+            this.timer.shutdownNow();
+        }
+        if (this.hedgeExecutor != null) {
+            this.hedgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 再試行、ヘッジの累計回数を取得する。
+     *
+     * @return 累計回数
+     */
+    RetryStatistics getStatistics() {
+        return new RetryStatistics(this.retries.get(), this.hedges.get(), this.hedgeWins.get());
+    }
+
+    /**
+     * 現在時刻からポリシーの期限を過ぎる時刻を取得する。
+     *
+     * @return 期限 (System.nanoTime()の値)、期限なしの場合NO_DEADLINE
+     */
+    long newDeadline() {
+        long deadline = this.policy.getDeadline();
+        return deadline == 0 ? NO_DEADLINE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+    }
+
+    /**
+     * リクエストを送信する。失敗した場合はポリシーに従って再送する。
+     *
+     * @param attempt 1回分のリクエストの送信
+     * @param hedge ヘッジしてよい場合true (レスポンスの変換に副作用がない場合のみ指定する)
+     * @param replayable 失敗後に再送してよいかを返す関数 (レスポンスの一部を呼び出し元に渡した後はfalseを返す)
+     * @return 変換結果
+     * @throws SocketTimeoutException 期限を過ぎた場合
+     * @throws Exception 再送しても成功しなかった場合、最後の送信で発生した例外
+     */
+    <R> R execute(Attempt<R> attempt, boolean hedge, BooleanSupplier replayable) throws Exception {
+        long deadline = newDeadline();
+        for (int n = 1;; n++) {
+            try {
+                return hedge && this.hedgeExecutor != null ? runHedged(attempt, deadline)
+                        : runOnce(attempt, new Slot(), deadline);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                if (e instanceof IOException && isExpired(deadline)) {
+                    SocketTimeoutException timeout = new SocketTimeoutException(
+                            "Deadline exceeded: " + this.policy.getDeadline() + "ms");
+                    timeout.addSuppressed(e);
+                    throw timeout;
+                }
+                if (!replayable.getAsBoolean() || !awaitRetry(e, n, deadline)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 失敗したリクエストを再送するかを判定し、再送する場合はバックオフ時間だけ待機する。
+     *
+     * @param e 発生した例外
+     * @param attempt 失敗したリクエストの試行回数 (初回が1)
+     * @param deadline 期限 (System.nanoTime()の値)
+     * @return 再送する場合true
+     */
+    boolean awaitRetry(Throwable e, int attempt, long deadline) {
+        if (attempt >= this.policy.getMaxAttempts() || !isRetryable(e)) {
+            return false;
+        }
+        long delay = backoff(attempt);
+        if (deadline != NO_DEADLINE && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline >= 0) {
+            return false;
+        }
+        this.retries.incrementAndGet();
+        logger.debug(LOG_MARKER, "RetryExecutor#awaitRetry : [attempt] = {}, [delay] = {}, [cause] = {}", attempt,
+                delay, e.toString());
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * リクエストを1回送信する。期限を過ぎた場合はリクエストを中断する。
+     *
+     * @param attempt 1回分のリクエストの送信
+     * @param slot リクエストを中断するためのハンドル
+     * @param deadline 期限 (System.nanoTime()の値)
+     * @return 変換結果
+     * @throws Exception リクエストの送信、レスポンスの変換に失敗した場合
+     */
+    private <R> R runOnce(Attempt<R> attempt, Slot slot, long deadline) throws Exception {
+        ScheduledFuture<?> abort = null;
+        if (deadline != NO_DEADLINE) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Deadline exceeded: " + this.policy.getDeadline() + "ms");
+            }
+            abort = this.timer.schedule(slot::abort, remaining, TimeUnit.NANOSECONDS);
+        }
+        long start = System.nanoTime();
+        try {
+            R result = attempt.run(slot);
+            recordLatency(System.nanoTime() - start);
+            return result;
+        } finally {
+            if (abort != null) {
+                abort.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * リクエストを送信し、ヘッジの待ち時間を過ぎてもレスポンスが返らない場合は同じリクエストをもう1件送信する。
+     *
+     * 先に成功した方の変換結果を返し、もう一方のリクエストは中断する。
+     *
+     * @param attempt 1回分のリクエストの送信
+     * @param deadline 期限 (System.nanoTime()の値)
+     * @return 変換結果
+     * @throws Exception 全てのリクエストが失敗した場合、最初に失敗したリクエストの例外
+     */
+    private <R> R runHedged(Attempt<R> attempt, long deadline) throws Exception {
+        long delay = hedgeDelay();
+        if (delay < 0) {
+            return runOnce(attempt, new Slot(), deadline);
+        }
+        ExecutorCompletionService<R> completion = new ExecutorCompletionService<>(this.hedgeExecutor);
+        Slot primarySlot = new Slot();
+        Slot hedgeSlot = new Slot();
+        Future<R> primary = completion.submit(() -> runOnce(attempt, primarySlot, deadline));
+        try {
+            int running = 1;
+            Future<R> done = completion.poll(delay, TimeUnit.MILLISECONDS);
+            if (done == null) {
+                this.hedges.incrementAndGet();
+                logger.debug(LOG_MARKER, "RetryExecutor#runHedged : send hedged request, [delay] = {}", delay);
+                completion.submit(() -> runOnce(attempt, hedgeSlot, deadline));
+                running++;
+                done = completion.take();
+            }
+            Exception failure = null;
+            while (true) {
+                try {
+                    R result = done.get();
+                    if (done != primary) {
+                        this.hedgeWins.incrementAndGet();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    Exception cause = toException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+                if (--running == 0) {
+                    throw failure;
+                }
+                done = completion.take();
+            }
+        } finally {
+            // 決着しなかったリクエストを中断する (完了済みのリクエストの中断は何もしない)
+            primarySlot.abort();
+            hedgeSlot.abort();
+        }
+    }
+
+    /**
+     * 成功したリクエストのレイテンシを記録する。
+     *
+     * @param nanos レイテンシ (ns)
+     */
+    private synchronized void recordLatency(long nanos) {
+        this.latencies[(int) (this.latencyCount++ % LATENCY_SAMPLES)] = nanos;
+    }
+
+    /**
+     * ヘッジリクエストを送信するまでの待ち時間を算出する。
+     *
+     * @return 直近のレイテンシの95パーセンタイル (minHedgeDelayが下限、ms)、記録が不足している場合-1
+     */
+    private long hedgeDelay() {
+        long[] samples;
+        synchronized (this) {
+            if (this.latencyCount < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            samples = Arrays.copyOf(this.latencies, (int) Math.min(this.latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(samples);
+        long percentile = samples[(int) Math.ceil(samples.length * HEDGE_PERCENTILE) - 1];
+        return Math.max(this.policy.getMinHedgeDelay(), TimeUnit.NANOSECONDS.toMillis(percentile));
+    }
+
+    /**
+     * n回目の再送までの待ち時間を算出する。
+     *
+     * @param attempt 失敗したリクエストの試行回数 (初回が1)
+     * @return 待ち時間 (ms)
+     */
+    private long backoff(int attempt) {
+        long cap = this.policy.getInitialBackoff();
+        for (int i = 1; i < attempt && cap < this.policy.getMaxBackoff(); i++) {
+            cap *= 2;
+        }
+        cap = Math.min(cap, this.policy.getMaxBackoff());
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * 期限を過ぎたかを返す。
+     *
+     * @param deadline 期限 (System.nanoTime()の値)
+     * @return 期限を過ぎた場合true
+     */
+    private static boolean isExpired(long deadline) {
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * 再送によって成功する可能性のある失敗かを返す。
+     *
+     * 公開用に翻訳された例外の場合は、原因となった例外で判定する。
+     *
+     * @param e 発生した例外
+     * @return 再送によって成功する可能性がある場合true
+     */
+    static boolean isRetryable(Throwable e) {
+        Throwable t = e;
+        while (t instanceof HttpStatusException || t instanceof TimeoutException
+                || t instanceof ConnectionLostException || t instanceof ApiFailedException) {
+            t = t.getCause();
+        }
+        if (t instanceof ErrorRespondedException) {
+            int status = ((ErrorRespondedException) t).getStatusCode();
+            return status == 429 || status == HttpStatus.SC_BAD_GATEWAY || status == HttpStatus.SC_SERVICE_UNAVAILABLE
+                    || status == HttpStatus.SC_GATEWAY_TIMEOUT;
+        }
+        return t instanceof IOException && !(t instanceof ClientProtocolException)
+                && !(t instanceof UnknownHostException) && !(t instanceof SSLException);
+    }
+
+    /**
+     * 非同期に実行したリクエストの失敗原因を例外として取り出す。
+     *
+     * @param cause 失敗原因
+     * @return 例外
+     * @throws Error 失敗原因がErrorの場合
+     */
+    private static Exception toException(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (Exception) cause;
+    }
+}
@@ -0,0 +1,189 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+/**
+ * DsmoqClientの冪等なリクエスト(GET、HEAD、Range指定のダウンロード)の再試行、ヘッジの動作を指定するポリシー
+ *
+ * 接続の失敗、タイムアウト、レスポンスの途中切断、および429、502、503、504のレスポンスを受けた場合、
+ * maxAttemptsに達するまでリクエストを再送します。
+ * n回目の再送までの待ち時間は、initialBackoff * 2^(n-1) (maxBackoffが上限) を上限とする一様乱数 (full jitter) です。
+ *
+ * deadlineを指定すると、1回のAPI呼び出し(再送を含む)がその時間を超えた時点で送信中のリクエストを中断し、
+ * TimeoutExceptionとします。
+ *
+ * hedgeを有効にすると、レスポンスが直近のレイテンシの95パーセンタイル(minHedgeDelayが下限)を過ぎても返らない場合、
+ * 同じリクエストをもう1件送信し、先に返ったレスポンスを採用します。もう一方のリクエストは中断されます。
+ * ヘッジはレスポンスボディを文字列として読み込むAPIにのみ適用され、ダウンロードには適用されません。
+ */
+public class RetryPolicy {
+    /** デフォルトの最大試行回数 */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** デフォルトの初回の再送までの待ち時間の上限 (ms) */
+    public static final long DEFAULT_INITIAL_BACKOFF = 100;
+
+    /** デフォルトの再送までの待ち時間の上限 (ms) */
+    public static final long DEFAULT_MAX_BACKOFF = 10 * 1000;
+
+    /** デフォルトのヘッジリクエストを送信するまでの最小待ち時間 (ms) */
+    public static final long DEFAULT_MIN_HEDGE_DELAY = 50;
+
+    /** 最大試行回数 */
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /** 初回の再送までの待ち時間の上限 (ms) */
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+    /** 再送までの待ち時間の上限 (ms) */
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    /** 1回のAPI呼び出しの期限 (ms)、0の場合期限なし */
+    private long deadline = 0;
+
+    /** ヘッジリクエストを送信するか否か */
+    private boolean hedge = false;
+
+    /** ヘッジリクエストを送信するまでの最小待ち時間 (ms) */
+    private long minHedgeDelay = DEFAULT_MIN_HEDGE_DELAY;
+
+    /**
+     * 最大試行回数を設定する。
+     *
+     * @param maxAttempts 最大試行回数 (初回の送信を含む)、1の場合再送しない
+     * @return このポリシー
+     * @throws IllegalArgumentException maxAttemptsが1未満の場合
+     */
+    public RetryPolicy maxAttempts(int maxAttempts) {
+        requireGreaterOrEqualOrNull(maxAttempts, 1, "at maxAttempts in RetryPolicy#maxAttempts");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * 初回の再送までの待ち時間の上限を設定する。
+     *
+     * @param initialBackoff 初回の再送までの待ち時間の上限 (ms)
+     * @return このポリシー
+     * @throws IllegalArgumentException initialBackoffが0未満の場合
+     */
+    public RetryPolicy initialBackoff(long initialBackoff) {
+        requireGreaterOrEqualOrNull(initialBackoff, 0L, "at initialBackoff in RetryPolicy#initialBackoff");
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    /**
+     * 再送までの待ち時間の上限を設定する。
+     *
+     * @param maxBackoff 再送までの待ち時間の上限 (ms)
+     * @return このポリシー
+     * @throws IllegalArgumentException maxBackoffが0未満の場合
+     */
+    public RetryPolicy maxBackoff(long maxBackoff) {
+        requireGreaterOrEqualOrNull(maxBackoff, 0L, "at maxBackoff in RetryPolicy#maxBackoff");
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * 1回のAPI呼び出しの期限を設定する。
+     *
+     * ダウンロードの場合は、Range指定の1リクエスト(再送を含む)ごとの期限となります。
+     *
+     * @param deadline 1回のAPI呼び出しの期限 (ms)、0の場合期限なし
+     * @return このポリシー
+     * @throws IllegalArgumentException deadlineが0未満の場合
+     */
+    public RetryPolicy deadline(long deadline) {
+        requireGreaterOrEqualOrNull(deadline, 0L, "at deadline in RetryPolicy#deadline");
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * ヘッジリクエストを送信するかを設定する。
+     *
+     * @param hedge 送信する場合true
+     * @return このポリシー
+     */
+    public RetryPolicy hedge(boolean hedge) {
+        this.hedge = hedge;
+        return this;
+    }
+
+    /**
+     * ヘッジリクエストを送信するまでの最小待ち時間を設定する。
+     *
+     * @param minHedgeDelay ヘッジリクエストを送信するまでの最小待ち時間 (ms)
+     * @return このポリシー
+     * @throws IllegalArgumentException minHedgeDelayが0未満の場合
+     */
+    public RetryPolicy minHedgeDelay(long minHedgeDelay) {
+        requireGreaterOrEqualOrNull(minHedgeDelay, 0L, "at minHedgeDelay in RetryPolicy#minHedgeDelay");
+        this.minHedgeDelay = minHedgeDelay;
+        return this;
+    }
+
+    /**
+     * 最大試行回数を取得する。
+     *
+     * @return 最大試行回数 (初回の送信を含む)
+     */
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    /**
+     * 初回の再送までの待ち時間の上限を取得する。
+     *
+     * @return 初回の再送までの待ち時間の上限 (ms)
+     */
+    public long getInitialBackoff() {
+        return this.initialBackoff;
+    }
+
+    /**
+     * 再送までの待ち時間の上限を取得する。
+     *
+     * @return 再送までの待ち時間の上限 (ms)
+     */
+    public long getMaxBackoff() {
+        return this.maxBackoff;
+    }
+
+    /**
+     * 1回のAPI呼び出しの期限を取得する。
+     *
+     * @return 1回のAPI呼び出しの期限 (ms)、0の場合期限なし
+     */
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * ヘッジリクエストを送信するかを取得する。
+     *
+     * @return 送信する場合true
+     */
+    public boolean isHedge() {
+        return this.hedge;
+    }
+
+    /**
+     * ヘッジリクエストを送信するまでの最小待ち時間を取得する。
+     *
+     * @return ヘッジリクエストを送信するまでの最小待ち時間 (ms)
+     */
+    public long getMinHedgeDelay() {
+        return this.minHedgeDelay;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RetryPolicy(maxAttempts=%d, initialBackoff=%d, maxBackoff=%d, deadline=%d, hedge=%b, "
+                        + "minHedgeDelay=%d)",
+                this.maxAttempts, this.initialBackoff, this.maxBackoff, this.deadline, this.hedge, this.minHedgeDelay);
+    }
+}
@@ -0,0 +1,63 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+/**
+ * DsmoqClientの再試行、ヘッジの累計回数
+ *
+ * DsmoqClient#getRetryStatisticsで取得した時点の値を保持します。
+ */
+public class RetryStatistics {
+    /** 再送した回数 */
+    private final long retries;
+
+    /** ヘッジリクエストを送信した回数 */
+    private final long hedges;
+
+    /** ヘッジリクエストのレスポンスが採用された回数 */
+    private final long hedgeWins;
+
+    /**
+     * 累計回数を作成する。
+     *
+     * @param retries 再送した回数
+     * @param hedges ヘッジリクエストを送信した回数
+     * @param hedgeWins ヘッジリクエストのレスポンスが採用された回数
+     */
+    RetryStatistics(long retries, long hedges, long hedgeWins) {
+        this.retries = retries;
+        this.hedges = hedges;
+        this.hedgeWins = hedgeWins;
+    }
+
+    /**
+     * 再送した回数を取得する。
+     *
+     * @return 再送した回数
+     */
+    public long getRetries() {
+        return this.retries;
+    }
+
+    /**
+     * ヘッジリクエストを送信した回数を取得する。
+     *
+     * @return ヘッジリクエストを送信した回数
+     */
+    public long getHedges() {
+        return this.hedges;
+    }
+
+    /**
+     * ヘッジリクエストのレスポンスが採用された回数を取得する。
+     *
+     * @return ヘッジリクエストのレスポンスが採用された回数
+     */
+    public long getHedgeWins() {
+        return this.hedgeWins;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetryStatistics(retries=%d, hedges=%d, hedgeWins=%d)", this.retries, this.hedges,
+                this.hedgeWins);
+    }
+}
@@ -0,0 +1,67 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * 同じキーの処理が同時に要求された場合に、先行する1件のみを実行し、その結果を共有する。
+ *
+ * 実行中の処理がない状態で要求された場合は、新たに処理を実行します。(結果は保持しません)
+ */
+class SingleFlight {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** 実行中の処理の結果 */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 処理を実行する。同じキーの処理が実行中の場合は、その完了を待って結果を返す。
+     *
+     * @param key キー
+     * @param call 処理
+     * @return 処理結果
+     * @throws RuntimeException 処理が例外を送出した場合、その例外 (待ち合わせた呼び出し元にも同じ例外が送出される)
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = this.inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            logger.debug(LOG_MARKER, "SingleFlight#execute : join in-flight request, [key] = {}", key);
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            T result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, future);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContent;
+
+/**
+ * 一時ファイルに書き出されたレスポンスボディを読み込むDatasetFileContent
+ * 
+ * 一時ファイルが削除されるまでの間のみ利用可能です。
+ */
+class SpooledDatasetFileContent implements DatasetFileContent {
+    /** 一時ファイル */
+    private final Path file;
+
+    /** ファイル名 */
+    private final String name;
+
+    /** 取得した内容の開始位置 */
+    private final long rangeOffset;
+
+    /**
+     * DatasetFileContentを作成する。
+     * 
+     * @param file 一時ファイル
+     * @param name ファイル名、ない場合null
+     * @param rangeOffset 取得した内容の開始位置
+     */
+    SpooledDatasetFileContent(Path file, String name, long rangeOffset) {
+        this.file = file;
+        this.name = name;
+        this.rangeOffset = rangeOffset;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return Files.newInputStream(this.file);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public void writeTo(OutputStream s) throws IOException {
+        Files.copy(this.file, s);
+    }
+
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return FileChannel.open(this.file, StandardOpenOption.READ);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * 一時ファイルからFileChannel#transferFromで転送します。
+     * 転送中に一時ファイルが短くなった場合は、その時点までに転送したバイト数を返します。
+     */
+    @Override
+    public long transferTo(FileChannel target, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long written = 0;
+            while (written < size) {
+                long n = target.transferFrom(channel, position + written, size - written);
+                if (n <= 0) {
+                    // 読み込み元が終端に達した
+                    break;
+                }
+                written += n;
+            }
+            return written;
+        }
+    }
+
+    @Override
+    public long getContentLength() {
+        try {
+            return Files.size(this.file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public long getRangeOffset() {
+        return this.rangeOffset;
+    }
+}
@@ -0,0 +1,208 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+
+/**
+ * ディレクトリの同期状態を記録する状態ファイル
+ *
+ * ファイル名ごとに、同期したデータセット上のファイルID、ローカルのファイルサイズ、更新日時、チェックサムを記録します。
+ * 書き出しは一時ファイルへ書き込んだ後に置き換えるため、書き出し中に中断しても以前の内容は失われません。
+ */
+class SyncState {
+    /** 状態ファイルの形式のバージョン */
+    private static final int VERSION = 1;
+
+    /** JSONの読み書きに使用するマッパー */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 同期したファイルの記録
+     */
+    static class Entry {
+        /** データセット上のファイルID */
+        final String fileId;
+
+        /** ファイルサイズ */
+        final long size;
+
+        /** ローカルのファイルの更新日時 (ms) */
+        final long lastModified;
+
+        /** チェックサム、算出していない場合null */
+        final String checksum;
+
+        /**
+         * 同期したファイルの記録を作成する。
+         *
+         * @param fileId データセット上のファイルID
+         * @param size ファイルサイズ
+         * @param lastModified ローカルのファイルの更新日時 (ms)
+         * @param checksum チェックサム、算出していない場合null
+         */
+        Entry(String fileId, long size, long lastModified, String checksum) {
+            this.fileId = fileId;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+    }
+
+    /** DatasetID */
+    private final String datasetId;
+
+    /** チェックサムのアルゴリズム、用いない場合null */
+    private final DigestAlgorithm checksumAlgorithm;
+
+    /** ファイル名ごとの記録 */
+    private final Map<String, Entry> entries;
+
+    /** 状態ファイルから読み込んだか否か */
+    private final boolean loaded;
+
+    /**
+     * 同期状態を作成する。
+     *
+     * @param datasetId DatasetID
+     * @param checksumAlgorithm チェックサムのアルゴリズム、用いない場合null
+     * @param entries ファイル名ごとの記録
+     * @param loaded 状態ファイルから読み込んだ場合true
+     */
+    private SyncState(String datasetId, DigestAlgorithm checksumAlgorithm, Map<String, Entry> entries,
+            boolean loaded) {
+        this.datasetId = datasetId;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.entries = entries;
+        this.loaded = loaded;
+    }
+
+    /**
+     * 状態ファイルを読み込む。
+     *
+     * 状態ファイルが存在しない場合、別のデータセットのものである場合は、空の状態を返します。
+     * チェックサムのアルゴリズムが異なる場合は、記録されたチェックサムを破棄します。
+     *
+     * @param file 状態ファイル、記録しない場合null
+     * @param datasetId DatasetID
+     * @param checksumAlgorithm チェックサムのアルゴリズム、用いない場合null
+     * @return 同期状態
+     * @throws IOException 状態ファイルの読み込みに失敗した場合
+     */
+    static SyncState load(Path file, String datasetId, DigestAlgorithm checksumAlgorithm) throws IOException {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (file == null || !Files.isRegularFile(file)) {
+            return new SyncState(datasetId, checksumAlgorithm, entries, false);
+        }
+        JsonNode root;
+        try (InputStream in = Files.newInputStream(file)) {
+            root = MAPPER.readTree(in);
+        }
+        if (root == null || root.path("version").asInt() != VERSION
+                || !datasetId.equals(root.path("datasetId").asText())) {
+            return new SyncState(datasetId, checksumAlgorithm, entries, false);
+        }
+        String algorithm = root.path("checksumAlgorithm").asText(null);
+        boolean sameAlgorithm = checksumAlgorithm != null && checksumAlgorithm.getAlgorithmName().equals(algorithm);
+        Iterator<Map.Entry<String, JsonNode>> fields = root.path("files").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode node = field.getValue();
+            entries.put(field.getKey(), new Entry(node.path("fileId").asText(), node.path("size").asLong(-1),
+                    node.path("lastModified").asLong(-1), sameAlgorithm ? node.path("checksum").asText(null) : null));
+        }
+        return new SyncState(datasetId, checksumAlgorithm, entries, true);
+    }
+
+    /**
+     * 状態ファイルへ書き出す。
+     *
+     * @param file 状態ファイル
+     * @throws IOException 状態ファイルの書き出しに失敗した場合
+     */
+    synchronized void save(Path file) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("version", VERSION);
+        root.put("datasetId", this.datasetId);
+        root.put("checksumAlgorithm",
+                this.checksumAlgorithm == null ? null : this.checksumAlgorithm.getAlgorithmName());
+        ObjectNode files = root.putObject("files");
+        for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+            ObjectNode node = files.putObject(entry.getKey());
+            node.put("fileId", entry.getValue().fileId);
+            node.put("size", entry.getValue().size);
+            node.put("lastModified", entry.getValue().lastModified);
+            node.put("checksum", entry.getValue().checksum);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                MAPPER.writeValue(out, root);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 状態ファイルから読み込んだかを取得する。
+     *
+     * @return 読み込んだ場合true
+     */
+    boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * ファイル名の記録を取得する。
+     *
+     * @param name ファイル名
+     * @return 記録、ない場合null
+     */
+    synchronized Entry get(String name) {
+        return this.entries.get(name);
+    }
+
+    /**
+     * 全ての記録を取得する。
+     *
+     * @return ファイル名ごとの記録の複製
+     */
+    synchronized Map<String, Entry> getAll() {
+        return new TreeMap<>(this.entries);
+    }
+
+    /**
+     * ファイル名の記録を設定する。
+     *
+     * @param name ファイル名
+     * @param entry 記録
+     */
+    synchronized void put(String name, Entry entry) {
+        this.entries.put(name, entry);
+    }
+
+    /**
+     * ファイル名の記録を削除する。
+     *
+     * @param name ファイル名
+     */
+    synchronized void remove(String name) {
+        this.entries.remove(name);
+    }
+}
@@ -0,0 +1,274 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+
+import jp.ac.nagoya_u.dsmoq.sdk.http.MultipartAsyncEntity;
+
+/**
+ * アップロードするファイルの内容と、送信するファイル名
+ *
+ * ファイル(Path)、メモリ上のバイト列(ByteBuffer)、InputStreamのいずれかから、
+ * 一時ファイルに書き出さずにリクエストボディへ直接送信します。
+ * 長さの分からないInputStreamを含むリクエストは、チャンク形式で送信されます。
+ * InputStreamは一度しか読み込めないため、InputStreamから作成したUploadSourceは一度しか送信できません。
+ * InputStreamは送信後も閉じないため、呼び出し元で閉じてください。
+ */
+public final class UploadSource {
+    /** 長さが不明であることを表す値 */
+    private static final long UNKNOWN_LENGTH = -1;
+
+    /** 送信するファイル名 */
+    private final String name;
+
+    /** ファイル、ファイル以外の場合null */
+    private final Path path;
+
+    /** バイト列、バイト列以外の場合null */
+    private final ByteBuffer buffer;
+
+    /** ストリーム、ストリーム以外の場合null */
+    private final InputStream stream;
+
+    /** ストリームから読み込むバイト数、終端まで読み込む場合-1 */
+    private final long streamLength;
+
+    /**
+     * アップロードするファイルの内容を作成する。
+     *
+     * @param name 送信するファイル名
+     * @param path ファイル
+     * @param buffer バイト列
+     * @param stream ストリーム
+     * @param streamLength ストリームから読み込むバイト数
+     */
+    private UploadSource(String name, Path path, ByteBuffer buffer, InputStream stream, long streamLength) {
+        this.name = name;
+        this.path = path;
+        this.buffer = buffer;
+        this.stream = stream;
+        this.streamLength = streamLength;
+    }
+
+    /**
+     * ファイルから、ファイル自身の名前で送信する内容を作成する。
+     *
+     * @param path ファイル
+     * @return 作成した内容
+     * @throws NullPointerException pathがnullの場合
+     */
+    public static UploadSource of(Path path) {
+        requireNotNull(path, "at path in UploadSource#of");
+        return of(path.getFileName().toString(), path);
+    }
+
+    /**
+     * ファイルから、ファイル名を指定して送信する内容を作成する。
+     *
+     * @param name 送信するファイル名
+     * @param path ファイル
+     * @return 作成した内容
+     * @throws NullPointerException name、pathのいずれかがnullの場合
+     */
+    public static UploadSource of(String name, Path path) {
+        requireNotNull(name, "at name in UploadSource#of");
+        requireNotNull(path, "at path in UploadSource#of");
+        return new UploadSource(name, path, null, null, UNKNOWN_LENGTH);
+    }
+
+    /**
+     * メモリ上のバイト列から、送信する内容を作成する。
+     *
+     * contentのpositionからlimitまでを、複製せずに送信します。送信が終わるまで内容を変更してはいけません。
+     * 作成後にcontentのposition、limitを変更しても、送信する範囲は変わりません。
+     *
+     * @param name 送信するファイル名
+     * @param content ファイルの内容
+     * @return 作成した内容
+     * @throws NullPointerException name、contentのいずれかがnullの場合
+     */
+    public static UploadSource of(String name, ByteBuffer content) {
+        requireNotNull(name, "at name in UploadSource#of");
+        requireNotNull(content, "at content in UploadSource#of");
+        return new UploadSource(name, null, content.slice().asReadOnlyBuffer(), null, UNKNOWN_LENGTH);
+    }
+
+    /**
+     * 長さの分かっているInputStreamから、送信する内容を作成する。
+     *
+     * 送信時にlengthバイトのみを読み込みます。lengthバイトに満たずにストリームが終端に達した場合、送信は失敗します。
+     *
+     * @param name 送信するファイル名
+     * @param content ファイルの内容を読み込むストリーム
+     * @param length ファイルのバイト数
+     * @return 作成した内容
+     * @throws NullPointerException name、contentのいずれかがnullの場合
+     * @throws IllegalArgumentException lengthが0未満の場合
+     */
+    public static UploadSource of(String name, InputStream content, long length) {
+        requireNotNull(name, "at name in UploadSource#of");
+        requireNotNull(content, "at content in UploadSource#of");
+        requireGreaterOrEqualOrNull(length, 0L, "at length in UploadSource#of");
+        return new UploadSource(name, null, null, content, length);
+    }
+
+    /**
+     * 長さの分からないInputStreamから、送信する内容を作成する。
+     *
+     * 送信時にストリームの終端まで読み込みます。このUploadSourceを含むリクエストは、チャンク形式で送信されます。
+     *
+     * @param name 送信するファイル名
+     * @param content ファイルの内容を読み込むストリーム
+     * @return 作成した内容
+     * @throws NullPointerException name、contentのいずれかがnullの場合
+     */
+    public static UploadSource of(String name, InputStream content) {
+        requireNotNull(name, "at name in UploadSource#of");
+        requireNotNull(content, "at content in UploadSource#of");
+        return new UploadSource(name, null, null, content, UNKNOWN_LENGTH);
+    }
+
+    /**
+     * 送信するファイル名を取得する。
+     *
+     * @return ファイル名
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * 送信するバイト数を取得する。
+     *
+     * @return バイト数、長さの分からないInputStreamの場合-1
+     */
+    public long getLength() {
+        if (this.path != null) {
+            return this.path.toFile().length();
+        }
+        return this.buffer != null ? this.buffer.remaining() : this.streamLength;
+    }
+
+    /**
+     * 繰り返し送信できるか否かを取得する。
+     *
+     * @return ファイル、バイト列の場合true、InputStreamの場合false
+     */
+    public boolean isRepeatable() {
+        return this.stream == null;
+    }
+
+    /**
+     * 同期クライアントで送信するパートの内容に変換する。
+     *
+     * @return パートの内容
+     */
+    ContentBody toContentBody() {
+        if (this.path != null) {
+            return new FileBody(this.path.toFile(), ContentType.DEFAULT_BINARY, this.name);
+        }
+        return new SourceBody(this);
+    }
+
+    /**
+     * 非同期クライアントで送信するパートを追加する。
+     *
+     * @param builder 追加先のビルダー
+     * @param partName パート名
+     * @param executor InputStreamの読み込みを行うExecutor
+     */
+    void addTo(MultipartAsyncEntity.Builder builder, String partName, Executor executor) {
+        if (this.path != null) {
+            builder.addBinaryBody(partName, this.name, this.path.toFile());
+        } else if (this.buffer != null) {
+            builder.addBinaryBody(partName, this.name, this.buffer);
+        } else {
+            builder.addBinaryBody(partName, this.name, this.streamLength,
+                    new InputStreamPublisher(this.stream, this.streamLength, executor));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UploadSource(name=%s, length=%d)", this.name, getLength());
+    }
+
+    /**
+     * バイト列、あるいはInputStreamの内容を書き出すパート
+     */
+    private static class SourceBody extends AbstractContentBody {
+        /** 書き出すバッファのサイズ */
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        /** 書き出す内容 */
+        private final UploadSource source;
+
+        /**
+         * パートを作成する。
+         *
+         * @param source 書き出す内容
+         */
+        SourceBody(UploadSource source) {
+            super(ContentType.DEFAULT_BINARY);
+            this.source = source;
+        }
+
+        @Override
+        public String getFilename() {
+            return this.source.name;
+        }
+
+        @Override
+        public String getCharset() {
+            return null;
+        }
+
+        @Override
+        public String getTransferEncoding() {
+            return MIME.ENC_BINARY;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.source.getLength();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (this.source.buffer != null) {
+                Channels.newChannel(out).write(this.source.buffer.duplicate());
+                return;
+            }
+            long remaining = this.source.streamLength;
+            byte[] buf = new byte[BUFFER_SIZE];
+            while (remaining != 0) {
+                int size = remaining < 0 ? buf.length : (int) Math.min(buf.length, remaining);
+                int n = this.source.stream.read(buf, 0, size);
+                if (n < 0) {
+                    if (remaining > 0) {
+                        throw new IOException("stream ended before " + this.source.streamLength + " bytes");
+                    }
+                    break;
+                }
+                out.write(buf, 0, n);
+                if (remaining > 0) {
+                    remaining -= n;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,835 @@
+package jp.ac.nagoya_u.dsmoq.sdk.client;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSliceSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.ZipRemoteEntry;
+
+/**
+ * データセット上のZIPファイルを、ファイル全体を取得せずに読み込むビュー
+ *
+ * サーバはZIPファイル内のファイルに対するRange指定に対応していないため、ZIPファイル自体をRange指定で部分的に取得し、
+ * 展開はクライアント側で行います。
+ * 作成時に終端のセントラルディレクトリ終端レコードとセントラルディレクトリのみを取得し、
+ * エントリを開く際は、そのエントリのローカルファイルヘッダと圧縮されたデータのみを取得します。
+ * そのため、巨大なZIPファイルからも、エントリのサイズに比例する転送量でエントリを取り出せます。
+ *
+ * キャッシュディレクトリを指定した場合、取得したセントラルディレクトリはファイルに保存され、
+ * 次回以降はZIPファイルのサイズと更新日時が一致する限り再取得しません。
+ * 対応する圧縮方式は無圧縮とDeflateのみで、暗号化されたエントリには対応しません。
+ * インスタンスはスレッドセーフです。
+ */
+public class ZipRemoteArchive {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** セントラルディレクトリ終端レコードのシグネチャ */
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    /** ZIP64セントラルディレクトリ終端レコードのロケータのシグネチャ */
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    /** ZIP64セントラルディレクトリ終端レコードのシグネチャ */
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    /** セントラルディレクトリのファイルヘッダのシグネチャ */
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    /** ローカルファイルヘッダのシグネチャ */
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+    /** セントラルディレクトリ終端レコードのサイズ (コメントを除く) */
+    private static final int END_SIZE = 22;
+
+    /** ZIPファイルのコメントの最大サイズ */
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /** ZIP64セントラルディレクトリ終端レコードのロケータのサイズ */
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    /** ZIP64セントラルディレクトリ終端レコードのサイズ (拡張データを除く) */
+    private static final int ZIP64_END_SIZE = 56;
+
+    /** セントラルディレクトリのファイルヘッダのサイズ (可変長部分を除く) */
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    /** ローカルファイルヘッダのサイズ (可変長部分を除く) */
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    /** 圧縮されたデータをメモリに保持する最大サイズ、これを超える場合は一時ファイルに書き出す */
+    private static final long MEMORY_THRESHOLD = 8L * 1024 * 1024;
+
+    /** 32bitのフィールドがZIP64の拡張フィールドに記録されていることを表す値 */
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /** ZIP64の拡張フィールドのID */
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    /** ファイル名がUTF-8であることを表す汎用フラグ */
+    private static final int UTF8_FLAG = 1 << 11;
+
+    /** キャッシュファイルの先頭に書き込むマジックナンバー */
+    private static final long CACHE_MAGIC = 0x44534d4f515a4344L;
+
+    /** キャッシュファイルの形式のバージョン */
+    private static final int CACHE_VERSION = 2;
+
+    /** キャッシュの検証のため、ファイル一覧を取得する際の1ページの件数 */
+    private static final int LIST_LIMIT = 100;
+
+    /** データの転送に用いるバッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * セントラルディレクトリから読み取ったエントリ
+     */
+    private static class Record {
+        /** エントリ */
+        private final ZipRemoteEntry entry;
+
+        /** ファイル名のバイト数 */
+        private final int nameLength;
+
+        /** セントラルディレクトリの拡張フィールドのバイト数 */
+        private final int extraLength;
+
+        /**
+         * エントリを作成する。
+         *
+         * @param entry エントリ
+         * @param nameLength ファイル名のバイト数
+         * @param extraLength セントラルディレクトリの拡張フィールドのバイト数
+         */
+        Record(ZipRemoteEntry entry, int nameLength, int extraLength) {
+            this.entry = entry;
+            this.nameLength = nameLength;
+            this.extraLength = extraLength;
+        }
+    }
+
+    /** クライアント */
+    private final DsmoqClient client;
+
+    /** DatasetID */
+    private final String datasetId;
+
+    /** ファイルID */
+    private final String fileId;
+
+    /** ZIPファイルのサイズ */
+    private final long size;
+
+    /** エントリ名ごとのエントリ (セントラルディレクトリの順序) */
+    private final Map<String, Record> records;
+
+    /** エントリの一覧 */
+    private final List<ZipRemoteEntry> entries;
+
+    /**
+     * ビューを作成する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param size ZIPファイルのサイズ
+     * @param centralDirectory セントラルディレクトリ
+     * @throws ZipException セントラルディレクトリが不正な場合
+     */
+    private ZipRemoteArchive(DsmoqClient client, String datasetId, String fileId, long size,
+            byte[] centralDirectory) throws ZipException {
+        this.client = client;
+        this.datasetId = datasetId;
+        this.fileId = fileId;
+        this.size = size;
+        this.records = parseCentralDirectory(centralDirectory, size);
+        List<ZipRemoteEntry> entries = new ArrayList<>();
+        this.records.values().forEach(x -> entries.add(x.entry));
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * ZIPファイルのセントラルディレクトリを取得し、ビューを作成する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param cacheDir セントラルディレクトリのキャッシュディレクトリ、キャッシュしない場合null
+     * @return ビュー
+     * @throws IOException ZIPファイルが不正な場合、キャッシュの書き出しに失敗した場合
+     */
+    static ZipRemoteArchive open(DsmoqClient client, String datasetId, String fileId, Path cacheDir)
+            throws IOException {
+        // 同じサイズの内容に更新された場合に古いセントラルディレクトリを使わないよう、更新日時もキャッシュの鍵とする
+        DatasetFile file = cacheDir == null ? null : findFile(client, datasetId, fileId);
+        // DatasetFile#getSizeはScala側の型の都合でObjectとして公開されている
+        Object listed = file == null ? null : file.getSize();
+        Long size = listed instanceof Number && ((Number) listed).longValue() >= 0 ? ((Number) listed).longValue()
+                : client.getFileSize(datasetId, fileId);
+        if (size == null) {
+            throw new IOException("File size is not available: " + fileId);
+        }
+        String updatedAt = file == null ? null : file.getUpdatedAt();
+        Path cache = updatedAt == null ? null : cacheDir.resolve(datasetId + "_" + fileId + ".zipdir");
+        byte[] centralDirectory = cache == null ? null : readCache(cache, size, updatedAt);
+        if (centralDirectory == null) {
+            centralDirectory = fetchCentralDirectory(client, datasetId, fileId, size);
+            if (cache != null) {
+                writeCache(cache, size, updatedAt, centralDirectory);
+            }
+        }
+        logger.debug(LOG_MARKER, "ZipRemoteArchive#open : [fileId] = {}, [size] = {}, [centralDirectory] = {}",
+                fileId, size, centralDirectory.length);
+        return new ZipRemoteArchive(client, datasetId, fileId, size, centralDirectory);
+    }
+
+    /**
+     * DatasetIDを取得する。
+     *
+     * @return DatasetID
+     */
+    public String getDatasetId() {
+        return this.datasetId;
+    }
+
+    /**
+     * ファイルIDを取得する。
+     *
+     * @return ファイルID
+     */
+    public String getFileId() {
+        return this.fileId;
+    }
+
+    /**
+     * ZIPファイルのサイズを取得する。
+     *
+     * @return サイズ (byte)
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * エントリの一覧を取得する。
+     *
+     * @return エントリの一覧 (セントラルディレクトリの順序)
+     */
+    public List<ZipRemoteEntry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * エントリを取得する。
+     *
+     * @param name エントリ名
+     * @return エントリ、存在しない場合null
+     */
+    public ZipRemoteEntry getEntry(String name) {
+        Record record = this.records.get(name);
+        return record == null ? null : record.entry;
+    }
+
+    /**
+     * エントリの内容を読み込むストリームを開く。
+     *
+     * GET /files/${dataset_id}/${file_id} を、エントリのローカルファイルヘッダと圧縮されたデータの範囲を指定して呼ぶ。
+     * 圧縮されたデータは、サイズに応じてメモリまたは一時ファイルに保持され、読み込み時に展開されます。
+     * ストリームは終端に達した際にCRC-32を検証し、一致しない場合はZipExceptionを送出します。
+     * 使用後はストリームを必ずクローズしてください。
+     *
+     * @param name エントリ名
+     * @return 展開後の内容を読み込むストリーム
+     * @throws NullPointerException nameがnullの場合
+     * @throws NoSuchElementException エントリが存在しない場合
+     * @throws HttpStatusException エラーレスポンスが返ってきた場合
+     * @throws TimeoutException 接続がタイムアウトした場合
+     * @throws ConnectionLostException 接続が失敗した、または失われた場合
+     * @throws ApiFailedException 上記以外の何らかの例外が発生した場合
+     *             (圧縮方式に対応していない場合、ローカルファイルヘッダが不正な場合を含む)
+     */
+    public InputStream openEntry(String name) {
+        logger.debug(LOG_MARKER, "ZipRemoteArchive#openEntry start : [fileId] = {}, [name] = {}", this.fileId, name);
+        requireNotNull(name, "at name in ZipRemoteArchive#openEntry");
+        Record record = this.records.get(name);
+        if (record == null) {
+            throw new NoSuchElementException(name);
+        }
+        try {
+            return open(record);
+        } catch (IOException e) {
+            throw DsmoqClient.translateInnerException(e);
+        }
+    }
+
+    /**
+     * エントリの圧縮されたデータを取得し、展開するストリームを作成する。
+     *
+     * @param record エントリ
+     * @return 展開後の内容を読み込むストリーム
+     * @throws IOException 圧縮方式に対応していない場合、ローカルファイルヘッダが不正な場合、一時ファイルの操作に失敗した場合
+     */
+    private InputStream open(Record record) throws IOException {
+        ZipRemoteEntry entry = record.entry;
+        if (entry.isEncrypted()) {
+            throw new ZipException("Encrypted entry is not supported: " + entry.getName());
+        }
+        if (entry.getMethod() != ZipRemoteEntry.STORED && entry.getMethod() != ZipRemoteEntry.DEFLATED) {
+            throw new ZipException("Unsupported compression method: " + entry.getMethod());
+        }
+        long from = entry.getLocalHeaderOffset();
+        // ローカルファイルヘッダの可変長部分はセントラルディレクトリと同じ長さと見込み、一度のリクエストで取得する
+        // 取得した範囲は全て読み込み、コネクションを再利用できるようにする
+        long to = Math.min(this.size, from + LOCAL_HEADER_SIZE + record.nameLength + record.extraLength
+                + entry.getCompressedSize()) - 1;
+        Spool spool = this.client.downloadRange(this.datasetId, this.fileId, from, to, response -> {
+            InputStream in = content(response, from);
+            ByteBuffer header = readFully(in, LOCAL_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_SIGNATURE) {
+                throw new ZipException("Invalid local file header: " + entry.getName());
+            }
+            long skip = (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+            long remaining = to - from + 1 - LOCAL_HEADER_SIZE;
+            long skipped = Math.min(skip, remaining);
+            skipFully(in, skipped);
+            long length = Math.min(entry.getCompressedSize(), remaining - skipped);
+            Spool result = Spool.of(in, length, from + LOCAL_HEADER_SIZE + skip + length);
+            // ローカルファイルヘッダの可変長部分が見込みより短い場合は、範囲の残りを読み捨てる
+            skipFully(in, remaining - skipped - length);
+            return result;
+        });
+        InputStream data = spool.open();
+        long missing = entry.getCompressedSize() - spool.length;
+        if (missing > 0) {
+            // ローカルファイルヘッダの可変長部分が見込みより長い場合は、取得できなかった末尾のみを取得する
+            long offset = spool.next;
+            try {
+                Spool rest = this.client.downloadRange(this.datasetId, this.fileId, offset, offset + missing - 1,
+                        response -> Spool.of(content(response, offset), missing, offset + missing));
+                data = new SequenceInputStream(data, rest.open());
+            } catch (IOException | RuntimeException e) {
+                data.close();
+                throw e;
+            }
+        }
+        if (entry.getMethod() == ZipRemoteEntry.DEFLATED) {
+            Inflater inflater = new Inflater(true);
+            // nowrapのInflaterは、入力の終端にダミーのバイトを必要とする
+            data = new InflaterInputStream(new SequenceInputStream(data, new ByteArrayInputStream(new byte[1])),
+                    inflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+        return new VerifyingInputStream(data, entry);
+    }
+
+    /**
+     * レスポンスボディのストリームを取得する。
+     *
+     * @param response レスポンス
+     * @param from 要求した開始位置
+     * @return レスポンスボディのストリーム
+     * @throws IOException サーバがRange指定に対応していない場合、レスポンスボディがない場合
+     */
+    private static InputStream content(HttpResponse response, long from) throws IOException {
+        if (from != 0 && response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+            throw new IOException("Range request is not supported: " + response.getStatusLine());
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new IOException("Response has no content: " + response.getStatusLine());
+        }
+        return entity.getContent();
+    }
+
+    /**
+     * ZIPファイルの終端を取得し、セントラルディレクトリを取得する。
+     *
+     * 終端の取得範囲にセントラルディレクトリが含まれる場合、リクエストは一度のみです。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param size ZIPファイルのサイズ
+     * @return セントラルディレクトリ
+     * @throws IOException ZIPファイルが不正な場合
+     */
+    private static byte[] fetchCentralDirectory(DsmoqClient client, String datasetId, String fileId, long size)
+            throws IOException {
+        int tailSize = (int) Math.min(size, END_SIZE + MAX_COMMENT_SIZE + ZIP64_LOCATOR_SIZE);
+        long tailOffset = size - tailSize;
+        if (tailSize < END_SIZE) {
+            throw new ZipException("Not a zip file: " + fileId);
+        }
+        ByteBuffer tail = fetch(client, datasetId, fileId, tailOffset, tailSize);
+        int end = -1;
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException("End of central directory not found: " + fileId);
+        }
+        long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if ((directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) && end >= ZIP64_LOCATOR_SIZE
+                && tail.getInt(end - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE) {
+            long zip64Offset = tail.getLong(end - ZIP64_LOCATOR_SIZE + 8);
+            ByteBuffer zip64 = zip64Offset >= tailOffset && zip64Offset + ZIP64_END_SIZE <= size
+                    ? slice(tail, (int) (zip64Offset - tailOffset), ZIP64_END_SIZE)
+                    : fetch(client, datasetId, fileId, zip64Offset, ZIP64_END_SIZE);
+            if (zip64.getInt(0) != ZIP64_END_SIGNATURE) {
+                throw new ZipException("Invalid zip64 end of central directory: " + fileId);
+            }
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+        if (directorySize > Integer.MAX_VALUE || directoryOffset < 0 || directoryOffset + directorySize > size) {
+            throw new ZipException("Invalid central directory: " + fileId);
+        }
+        ByteBuffer directory = directoryOffset >= tailOffset
+                ? slice(tail, (int) (directoryOffset - tailOffset), (int) directorySize)
+                : fetch(client, datasetId, fileId, directoryOffset, (int) directorySize);
+        byte[] bytes = new byte[directory.remaining()];
+        directory.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * ZIPファイルの範囲を取得する。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @param from 開始位置
+     * @param length 取得するサイズ
+     * @return 取得した内容 (リトルエンディアン)
+     */
+    private static ByteBuffer fetch(DsmoqClient client, String datasetId, String fileId, long from, int length) {
+        if (length == 0) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return client.downloadRange(datasetId, fileId, from, from + length - 1,
+                response -> readFully(content(response, from), length));
+    }
+
+    /**
+     * セントラルディレクトリを解析する。
+     *
+     * @param bytes セントラルディレクトリ
+     * @param size ZIPファイルのサイズ
+     * @return エントリ名ごとのエントリ
+     * @throws ZipException セントラルディレクトリが不正な場合
+     */
+    private static Map<String, Record> parseCentralDirectory(byte[] bytes, long size) throws ZipException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Map<String, Record> records = new LinkedHashMap<>();
+        int position = 0;
+        while (position + CENTRAL_HEADER_SIZE <= bytes.length) {
+            if (buffer.getInt(position) != CENTRAL_SIGNATURE) {
+                break;
+            }
+            int flags = buffer.getShort(position + 8) & 0xFFFF;
+            int method = buffer.getShort(position + 10) & 0xFFFF;
+            long crc = buffer.getInt(position + 16) & 0xFFFFFFFFL;
+            long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+            long uncompressedSize = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            long offset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+            int next = position + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+            if (next > bytes.length) {
+                throw new ZipException("Invalid central directory header at " + position);
+            }
+            int nameOffset = position + CENTRAL_HEADER_SIZE;
+            String name = decodeName(Arrays.copyOfRange(bytes, nameOffset, nameOffset + nameLength), flags);
+            // ZIP64の拡張フィールドには、32bitのフィールドが上限値であるもののみが順に記録される
+            int extra = nameOffset + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = buffer.getShort(extra) & 0xFFFF;
+                int length = buffer.getShort(extra + 2) & 0xFFFF;
+                int field = extra + 4;
+                if (id == ZIP64_EXTRA_ID) {
+                    if (uncompressedSize == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                        uncompressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                        compressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (offset == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                        offset = buffer.getLong(field);
+                    }
+                    break;
+                }
+                extra = field + length;
+            }
+            if (offset < 0 || compressedSize < 0 || offset + compressedSize > size) {
+                throw new ZipException("Invalid entry: " + name);
+            }
+            records.putIfAbsent(name, new Record(new ZipRemoteEntry(name, uncompressedSize, compressedSize, method,
+                    crc, flags, offset), nameLength, extraLength));
+            position = next;
+        }
+        return records;
+    }
+
+    /**
+     * エントリ名を復号する。
+     *
+     * UTF-8のフラグがある場合、またはUTF-8として正しい場合はUTF-8、それ以外はShift_JISとして復号します。
+     * (サーバがZIPファイル内のファイル一覧を返す際の判定と同じです)
+     *
+     * @param bytes エントリ名
+     * @param flags 汎用フラグ
+     * @return エントリ名
+     */
+    private static String decodeName(byte[] bytes, int flags) {
+        if ((flags & UTF8_FLAG) != 0) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, Charset.forName("Shift_JIS"));
+        }
+    }
+
+    /**
+     * ファイル一覧から、キャッシュの検証に用いるZIPファイルのサイズと更新日時を取得する。
+     *
+     * ファイルのダウンロードのレスポンスには更新日時が含まれないため、GET /api/datasets/${dataset_id}/files を
+     * 対象のファイルが見つかるまでページごとに呼ぶ。
+     *
+     * @param client クライアント
+     * @param datasetId DatasetID
+     * @param fileId ファイルID
+     * @return ファイル、一覧に見つからない場合null
+     */
+    private static DatasetFile findFile(DsmoqClient client, String datasetId, String fileId) {
+        DatasetFile[] found = new DatasetFile[1];
+        for (int offset = 0; found[0] == null; offset += LIST_LIMIT) {
+            RangeSliceSummary summary = client.getDatasetFiles(datasetId,
+                    DsmoqClient.toRangeParam(offset, LIST_LIMIT), file -> {
+                        if (file.getId().equals(fileId)) {
+                            found[0] = file;
+                        }
+                    });
+            if (offset + LIST_LIMIT >= summary.getTotal()) {
+                break;
+            }
+        }
+        return found[0];
+    }
+
+    /**
+     * キャッシュファイルからセントラルディレクトリを読み込む。
+     *
+     * @param cache キャッシュファイル
+     * @param size ZIPファイルのサイズ
+     * @param updatedAt ZIPファイルの更新日時
+     * @return セントラルディレクトリ、キャッシュがない場合、ZIPファイルのサイズまたは更新日時が異なる場合null
+     */
+    private static byte[] readCache(Path cache, long size, String updatedAt) {
+        if (!Files.isRegularFile(cache)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(cache))) {
+            if (in.readLong() != CACHE_MAGIC || in.readInt() != CACHE_VERSION || in.readLong() != size
+                    || !in.readUTF().equals(updatedAt)) {
+                return null;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return bytes;
+        } catch (IOException e) {
+            // 壊れたキャッシュは無視して取得し直す
+            logger.debug(LOG_MARKER, "ZipRemoteArchive#readCache : [cache] = {}, [message] = {}", cache,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * セントラルディレクトリをキャッシュファイルへ書き出す。
+     *
+     * @param cache キャッシュファイル
+     * @param size ZIPファイルのサイズ
+     * @param updatedAt ZIPファイルの更新日時
+     * @param bytes セントラルディレクトリ
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private static void writeCache(Path cache, long size, String updatedAt, byte[] bytes) throws IOException {
+        Path dir = cache.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, cache.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeLong(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeLong(size);
+                out.writeUTF(updatedAt);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * ストリームから指定されたサイズを読み込む。
+     *
+     * @param in ストリーム
+     * @param length 読み込むサイズ
+     * @return 読み込んだ内容 (リトルエンディアン)
+     * @throws IOException 指定されたサイズより前に終端に達した場合
+     */
+    private static ByteBuffer readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        new DataInputStream(in).readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * ストリームを指定されたサイズ読み飛ばす。
+     *
+     * @param in ストリーム
+     * @param length 読み飛ばすサイズ
+     * @throws IOException 指定されたサイズより前に終端に達した場合
+     */
+    private static void skipFully(InputStream in, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new ZipException("Unexpected end of entry");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * バッファの一部を切り出す。
+     *
+     * @param buffer バッファ
+     * @param offset 開始位置
+     * @param length サイズ
+     * @return 切り出したバッファ (リトルエンディアン)
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ZipRemoteArchive(datasetId=%s, fileId=%s, size=%d, entries=%d)", this.datasetId,
+                this.fileId, this.size, this.entries.size());
+    }
+
+    /**
+     * 取得した圧縮されたデータ
+     */
+    private static class Spool {
+        /** メモリに保持したデータ、一時ファイルに書き出した場合null */
+        private final byte[] bytes;
+
+        /** 一時ファイル、メモリに保持した場合null */
+        private final Path file;
+
+        /** 保持したデータのサイズ */
+        private final long length;
+
+        /** 保持したデータに続く、ZIPファイル上の位置 */
+        private final long next;
+
+        /**
+         * 取得したデータを作成する。
+         *
+         * @param bytes メモリに保持したデータ
+         * @param file 一時ファイル
+         * @param length 保持したデータのサイズ
+         * @param next 保持したデータに続く、ZIPファイル上の位置
+         */
+        private Spool(byte[] bytes, Path file, long length, long next) {
+            this.bytes = bytes;
+            this.file = file;
+            this.length = length;
+            this.next = next;
+        }
+
+        /**
+         * ストリームから圧縮されたデータを読み込み、メモリまたは一時ファイルに保持する。
+         *
+         * @param in ストリーム
+         * @param length 読み込むサイズ
+         * @param next 読み込むデータに続く、ZIPファイル上の位置
+         * @return 取得したデータ
+         * @throws IOException 読み込み、一時ファイルへの書き出しに失敗した場合
+         */
+        static Spool of(InputStream in, long length, long next) throws IOException {
+            if (length <= MEMORY_THRESHOLD) {
+                return new Spool(readFully(in, (int) length).array(), null, length, next);
+            }
+            Path file = Files.createTempFile("dsmoq-zip", ".tmp");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = length;
+                while (remaining > 0) {
+                    int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (n < 0) {
+                        throw new ZipException("Unexpected end of entry");
+                    }
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return new Spool(null, file, length, next);
+        }
+
+        /**
+         * 保持したデータを読み込むストリームを開く。
+         *
+         * 一時ファイルはストリームのクローズ時に削除されます。
+         *
+         * @return ストリーム
+         * @throws IOException 一時ファイルを開けない場合
+         */
+        InputStream open() throws IOException {
+            if (this.bytes != null) {
+                return new ByteArrayInputStream(this.bytes);
+            }
+            return Files.newInputStream(this.file, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+
+    /**
+     * 終端に達した際に、展開後のサイズとCRC-32を検証するストリーム
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+        /** エントリ */
+        private final ZipRemoteEntry entry;
+
+        /** 読み込んだ内容のCRC-32 */
+        private final CRC32 crc = new CRC32();
+
+        /** 読み込んだサイズ */
+        private long read;
+
+        /**
+         * ストリームを作成する。
+         *
+         * @param in 展開後の内容を読み込むストリーム
+         * @param entry エントリ
+         */
+        VerifyingInputStream(InputStream in, ZipRemoteEntry entry) {
+            super(in);
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                if (this.read != this.entry.getSize() || this.crc.getValue() != this.entry.getCrc()) {
+                    throw new ZipException(String.format("Invalid entry content: %s (size %d, crc %08x)",
+                            this.entry.getName(), this.read, this.crc.getValue()));
+                }
+                return n;
+            }
+            this.crc.update(b, off, n);
+            this.read += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 読み飛ばした内容もCRC-32の検証に含めるため、読み込んで捨てる
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r < 0) {
+                    break;
+                }
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
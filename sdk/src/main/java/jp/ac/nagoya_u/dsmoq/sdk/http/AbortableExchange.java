@@ -0,0 +1,134 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+/**
+ * 送受信の途中で中断できる、1回のリクエストとレスポンスのやり取り
+ *
+ * HttpAsyncClientのFutureを取り消しても送受信は中断されないため、
+ * 中断時は送信前であればリクエストの生成を失敗させ、送受信中であればコネクションを切断します。
+ * 切断されたコネクションは再利用されずに破棄され、コネクションプールの枠は直ちに解放されます。
+ */
+class AbortableExchange implements HttpAsyncRequestProducer {
+    /** リクエストの生成処理 */
+    private final HttpAsyncRequestProducer producer;
+
+    /** レスポンスの処理 */
+    private final HttpAsyncResponseConsumer<?> consumer;
+
+    /** 送受信に用いるコンテキスト (割り当てられたコネクションが格納される) */
+    private final HttpContext context;
+
+    /** 中断されたか否か */
+    private volatile boolean aborted;
+
+    /** 送受信が終了したか否か */
+    private volatile boolean finished;
+
+    /**
+     * やり取りを作成する。
+     *
+     * @param producer リクエストの生成処理
+     * @param consumer レスポンスの処理
+     * @param context 送受信に用いるコンテキスト
+     */
+    AbortableExchange(HttpAsyncRequestProducer producer, HttpAsyncResponseConsumer<?> consumer, HttpContext context) {
+        this.producer = producer;
+        this.consumer = consumer;
+        this.context = context;
+    }
+
+    /**
+     * 送受信が終了したことを記録する。以降の中断は何もしない。
+     */
+    void finish() {
+        this.finished = true;
+    }
+
+    /**
+     * 送受信を中断する。
+     *
+     * 既に終了している場合は何もしません。
+     */
+    void abort() {
+        if (this.finished) {
+            return;
+        }
+        this.aborted = true;
+        this.consumer.cancel();
+        Object conn = this.context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+        if (!(conn instanceof NHttpClientConnection)) {
+            return;
+        }
+        try {
+            // コネクションを切断するだけではプールへ返却されないため、やり取り自体を取り消して破棄させる
+            Object handler = ((NHttpClientConnection) conn).getContext()
+                    .getAttribute(HttpAsyncRequestExecutor.HTTP_HANDLER);
+            if (handler instanceof Cancellable) {
+                ((Cancellable) handler).cancel();
+            } else {
+                ((NHttpClientConnection) conn).shutdown();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 既にプールへ返却されたコネクションは操作できないため、何もしない
+        }
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return this.producer.getTarget();
+    }
+
+    @Override
+    public HttpRequest generateRequest() throws IOException, HttpException {
+        if (this.aborted) {
+            // コネクションの割り当てを待つ間に中断された場合は、送信しない
+            throw new RequestAbortedException("Request aborted");
+        }
+        return this.producer.generateRequest();
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        this.producer.produceContent(encoder, ioctrl);
+    }
+
+    @Override
+    public void requestCompleted(HttpContext context) {
+        this.producer.requestCompleted(context);
+    }
+
+    @Override
+    public void failed(Exception ex) {
+        this.producer.failed(ex);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return this.producer.isRepeatable();
+    }
+
+    @Override
+    public void resetRequest() throws IOException {
+        this.producer.resetRequest();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.producer.close();
+    }
+}
@@ -0,0 +1,166 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Apache HttpClientのコネクションプールを用いた、HTTP/1.1のトランスポート
+ */
+class ApacheHttpTransport implements HttpTransport {
+    /** HTTP Request の Accept-Encoding ヘッダ */
+    private static final String ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
+
+    /** HTTP Response の Accept-Encoding ヘッダ に指定するgzip指定 */
+    private static final String GZIP_ENCODING_NAME = "gzip";
+
+    /** HTTPクライアント */
+    private final CloseableHttpClient client;
+
+    /** コネクションプール */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /** アイドルコネクションの破棄の予約 */
+    private final ScheduledFuture<?> idleConnectionEviction;
+
+    /**
+     * 指定された設定でトランスポートを作成する。
+     *
+     * @param config コネクションプール、タイムアウトの設定
+     */
+    ApacheHttpTransport(HttpClientConfig config) {
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout()).build();
+        this.connectionManager = new PoolingHttpClientConnectionManager() {
+            @Override
+            public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context)
+                    throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.connect(conn, route, connectTimeout, context);
+                } finally {
+                    HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+                    if (metrics != null) {
+                        metrics.onConnected(System.nanoTime() - start);
+                    }
+                }
+            }
+        };
+        this.connectionManager.setMaxTotal(config.getMaxConnections());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            // サーバがKeep-Alive時間を指定しなかった場合、設定値を用いる
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration < 0 ? config.getKeepAlive() : duration;
+        };
+        this.client = HttpClientBuilder.create().disableRedirectHandling().setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(this.connectionManager).setKeepAliveStrategy(keepAliveStrategy)
+                .setRequestExecutor(new HttpRequestExecutor() {
+                    @Override
+                    public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                            throws IOException, HttpException {
+                        HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+                        if (metrics != null) {
+                            metrics.onSendStart();
+                        }
+                        HttpResponse response = super.execute(request, conn, context);
+                        if (metrics != null) {
+                            metrics.onResponseHead(response.getStatusLine().getStatusCode());
+                        }
+                        return response;
+                    }
+                }).addInterceptorLast(new HttpRequestInterceptor() {
+                    public void process(final HttpRequest request, final HttpContext context)
+                            throws HttpException, IOException {
+                        // 最後に実行されるため、この直後にコネクションプールからコネクションが取得される
+                        HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+                        if (metrics == null) {
+                            return;
+                        }
+                        metrics.onLeaseStart();
+                        if (request instanceof HttpEntityEnclosingRequest) {
+                            HttpEntityEnclosingRequest req = (HttpEntityEnclosingRequest) request;
+                            if (req.getEntity() != null) {
+                                req.setEntity(metrics.countRequest(req.getEntity()));
+                            }
+                        }
+                    }
+                }).addInterceptorFirst(new HttpResponseInterceptor() {
+                    public void process(final HttpResponse response, final HttpContext context)
+                            throws HttpException, IOException {
+                        // 展開より前に実行し(先に登録したものから実行される)、受信したままのバイト数を数える
+                        HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+                        if (metrics != null && response.getEntity() != null) {
+                            response.setEntity(metrics.countResponse(response.getEntity()));
+                        }
+                    }
+                }).addInterceptorFirst(new HttpRequestInterceptor() {
+                    public void process(final HttpRequest request, final HttpContext context)
+                            throws HttpException, IOException {
+                        if (!request.containsHeader(ACCEPT_ENCODING_HEADER_NAME)) {
+                            request.addHeader(ACCEPT_ENCODING_HEADER_NAME, GZIP_ENCODING_NAME);
+                        }
+                    }
+                }).addInterceptorFirst(new HttpResponseInterceptor() {
+                    public void process(final HttpResponse response, final HttpContext context)
+                            throws HttpException, IOException {
+                        HttpEntity entity = response.getEntity();
+                        if (entity != null) {
+                            Header ceheader = entity.getContentEncoding();
+                            if (ceheader != null) {
+                                HeaderElement[] codecs = ceheader.getElements();
+                                for (HeaderElement codec : codecs) {
+                                    if (codec.getName().equalsIgnoreCase(GZIP_ENCODING_NAME)) {
+                                        response.setEntity(new GzipDecompressingEntity(response.getEntity()));
+                                        return;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }).build();
+        this.idleConnectionEviction = IdleConnectionEvictor.schedule(this.connectionManager,
+                config.getIdleTimeout(), (manager, idleTimeout) -> {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                });
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpUriRequest request, HttpContext context)
+            throws IOException, HttpException {
+        return this.client.execute(request, context);
+    }
+
+    @Override
+    public void close() {
+        this.idleConnectionEviction.cancel(false);
+        try {
+            this.client.close();
+        } catch (IOException ioe) {
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * AutoCloseHttpAsyncClientで用いるレスポンスの処理の基底クラス
+ *
+ * 成功(2xx)以外のレスポンス(リダイレクト、エラー)のボディはメモリ上にバッファリングされ、
+ * getResponseで取得できます。この場合、buildResultはnullを返します。
+ *
+ * @param <T> レスポンス処理結果の型
+ */
+public abstract class AsyncResponseConsumer<T> extends AbstractAsyncResponseConsumer<T> {
+    /** HTTP Response の Content-Encoding ヘッダ に指定するgzip指定 */
+    private static final String GZIP_ENCODING_NAME = "gzip";
+
+    /** バッファの初期サイズ */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /** 受信したレスポンス */
+    private volatile HttpResponse response;
+
+    /** レスポンスボディをバッファリングするか否か */
+    private boolean buffered;
+
+    /** レスポンスボディのバッファ */
+    private SimpleInputBuffer buffer;
+
+    /**
+     * 受信したレスポンスを取得する。
+     *
+     * @return 受信したレスポンス、まだ受信していない場合null
+     */
+    public HttpResponse getResponse() {
+        return this.response;
+    }
+
+    /**
+     * レスポンスが成功(2xx)を表すかを返す。
+     *
+     * @return 成功を表す場合true
+     */
+    public boolean isSucceeded() {
+        HttpResponse res = this.response;
+        if (res == null) {
+            return false;
+        }
+        int status = res.getStatusLine().getStatusCode();
+        return status >= 200 && status < 300;
+    }
+
+    @Override
+    protected final void onResponseReceived(HttpResponse response) throws HttpException, IOException {
+        this.response = response;
+        this.buffered = !isSucceeded() || isBuffered();
+        if (!this.buffered) {
+            onBodyStart(response);
+        }
+    }
+
+    @Override
+    protected final void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        if (this.buffered) {
+            long len = entity.getContentLength();
+            int size = len < 0 || len > Integer.MAX_VALUE ? INITIAL_BUFFER_SIZE : (int) len;
+            this.buffer = new SimpleInputBuffer(size, new HeapByteBufferAllocator());
+        }
+    }
+
+    @Override
+    protected final void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        if (this.buffered) {
+            this.buffer.consumeContent(decoder);
+        } else {
+            onBodyContent(decoder, ioctrl);
+        }
+    }
+
+    @Override
+    protected final T buildResult(HttpContext context) throws Exception {
+        if (this.buffered && this.buffer != null) {
+            HttpEntity entity = new ContentBufferEntity(this.response.getEntity(), this.buffer);
+            this.response.setEntity(isGzipped(entity) ? new GzipDecompressingEntity(entity) : entity);
+        }
+        if (!isSucceeded()) {
+            return null;
+        }
+        return onBodyComplete(this.response);
+    }
+
+    @Override
+    protected final void releaseResources() {
+        this.buffer = null;
+        onRelease();
+    }
+
+    /**
+     * 成功(2xx)レスポンスのボディをバッファリングするかを返す。
+     *
+     * バッファリングする場合、onBodyStart、onBodyContentは呼び出されず、
+     * onBodyCompleteにボディがバッファリングされたレスポンスが渡されます。
+     *
+     * @return バッファリングする場合true
+     */
+    protected boolean isBuffered() {
+        return false;
+    }
+
+    /**
+     * 成功(2xx)レスポンスのボディの受信開始時に呼び出される。
+     *
+     * @param response 受信したレスポンス
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    protected void onBodyStart(HttpResponse response) throws IOException {
+        // do nothing
+    }
+
+    /**
+     * 成功(2xx)レスポンスのボディを受信した際に呼び出される。
+     *
+     * I/Oスレッドから呼び出されるため、ブロックする処理を行ってはいけません。
+     *
+     * @param decoder ボディのデコーダ
+     * @param ioctrl I/O制御
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    protected void onBodyContent(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        // do nothing
+    }
+
+    /**
+     * 成功(2xx)レスポンスの受信完了時に呼び出され、処理結果を作成する。
+     *
+     * @param response 受信したレスポンス
+     * @return 処理結果
+     * @throws Exception 処理結果の作成に失敗した場合
+     */
+    protected abstract T onBodyComplete(HttpResponse response) throws Exception;
+
+    /**
+     * 処理の完了、失敗、キャンセル時に呼び出され、保持しているリソースを解放する。
+     */
+    protected void onRelease() {
+        // do nothing
+    }
+
+    /**
+     * エンティティがgzipで圧縮されているかを返す。
+     *
+     * @param entity エンティティ
+     * @return gzipで圧縮されている場合true
+     */
+    private static boolean isGzipped(HttpEntity entity) {
+        Header ceheader = entity.getContentEncoding();
+        if (ceheader == null) {
+            return false;
+        }
+        for (HeaderElement codec : ceheader.getElements()) {
+            if (codec.getName().equalsIgnoreCase(GZIP_ENCODING_NAME)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
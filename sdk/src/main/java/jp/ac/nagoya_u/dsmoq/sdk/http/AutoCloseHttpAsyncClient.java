@@ -0,0 +1,281 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.RedirectStrategy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultRedirectStrategy;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ErrorRespondedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
+
+/**
+ * コネクションプールを持つ非ブロッキングなHTTPクライアント
+ *
+ * リクエストの送受信は少数のI/Oスレッドで行われ、呼び出し元のスレッドや、レスポンス待ちのスレッドを占有しません。
+ * スレッドセーフであり、一つのインスタンスを複数スレッドから共有して利用できます。
+ * 利用後は必ずcloseメソッドを呼び出し、コネクションを解放してください。
+ *
+ * executeが返すCompletableFutureを取り消す、あるいは例外的に完了させると、送受信中のリクエストは中断され、
+ * 用いていたコネクションは再利用されずに破棄されます。
+ */
+public class AutoCloseHttpAsyncClient implements AutoCloseable {
+    /** HTTP Request の Accept-Encoding ヘッダ */
+    private static final String ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
+
+    /** HTTP Response の Accept-Encoding ヘッダ に指定するgzip指定 */
+    private static final String GZIP_ENCODING_NAME = "gzip";
+
+    /** HTTP Request の Range ヘッダ */
+    private static final String RANGE_HEADER_NAME = "Range";
+
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** メッセージ用のリソースバンドル */
+    private static ResourceBundle resource = ResourceBundle.getBundle("message");
+
+    /** HTTPクライアント */
+    private volatile CloseableHttpAsyncClient client;
+
+    /** コネクションプール */
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    /** アイドルコネクションの破棄の予約 */
+    private final ScheduledFuture<?> idleConnectionEviction;
+
+    /** 完了していないリクエストの結果 (close時に中断する) */
+    private final Set<CompletableFuture<?>> inflight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * デフォルトの設定でHTTPクライアントを作成する。
+     */
+    public AutoCloseHttpAsyncClient() {
+        this(HttpClientConfig.DEFAULT);
+    }
+
+    /**
+     * 指定された設定でHTTPクライアントを作成する。
+     *
+     * @param config コネクションプール、タイムアウトの設定
+     * @throws UncheckedIOException I/Oスレッドの作成に失敗した場合
+     */
+    public AutoCloseHttpAsyncClient(HttpClientConfig config) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setConnectTimeout(config.getConnectTimeout())
+                .setSoTimeout(config.getSocketTimeout()).build();
+        try {
+            this.connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig, runnable -> {
+                        Thread thread = new Thread(runnable, "dsmoq-io-dispatcher");
+                        thread.setDaemon(true);
+                        return thread;
+                    }));
+        } catch (IOReactorException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.connectionManager.setMaxTotal(config.getMaxConnections());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout()).setRedirectsEnabled(false).build();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            // サーバがKeep-Alive時間を指定しなかった場合、設定値を用いる
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration < 0 ? config.getKeepAlive() : duration;
+        };
+        CloseableHttpAsyncClient c = HttpAsyncClients.custom().setConnectionManager(this.connectionManager)
+                .setDefaultRequestConfig(requestConfig).setKeepAliveStrategy(keepAliveStrategy)
+                .addInterceptorFirst((HttpRequestInterceptor) (request, context) -> {
+                    if (!request.containsHeader(ACCEPT_ENCODING_HEADER_NAME)) {
+                        request.addHeader(ACCEPT_ENCODING_HEADER_NAME, GZIP_ENCODING_NAME);
+                    }
+                }).addInterceptorFirst((HttpResponseInterceptor) (response, context) -> {
+                    HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+                    if (metrics != null) {
+                        metrics.onResponseHead(response.getStatusLine().getStatusCode());
+                    }
+                }).setThreadFactory(runnable -> {
+                    Thread thread = new Thread(runnable, "dsmoq-io-reactor");
+                    thread.setDaemon(true);
+                    return thread;
+                }).build();
+        c.start();
+        this.client = c;
+        this.idleConnectionEviction = IdleConnectionEvictor.schedule(this.connectionManager,
+                config.getIdleTimeout(), (manager, idleTimeout) -> {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                });
+    }
+
+    /**
+     * HTTPクライアントを閉じ、プールされている全てのコネクションを解放する。
+     *
+     * 完了していないリクエストは中断され、RequestAbortedExceptionで例外的に完了します。
+     * 以降のexecuteの呼び出しは受け付けられません。
+     */
+    public void close() {
+        CloseableHttpAsyncClient c = this.client;
+        this.client = null;
+        this.idleConnectionEviction.cancel(false);
+        for (CompletableFuture<?> result : this.inflight) {
+            result.completeExceptionally(new RequestAbortedException("AutoCloseHttpAsyncClient is closed."));
+        }
+        try {
+            if (c != null) {
+                c.close();
+            }
+        } catch (IOException ioe) {
+        }
+    }
+
+    /**
+     * リクエストを非同期に実行する。
+     *
+     * レスポンスボディの処理は、consumerFactoryが作成するレスポンス処理によりI/Oスレッド上で行われます。
+     * リダイレクトが返された場合、Rangeヘッダを引き継いでリダイレクト先へ一度だけリクエストを送信します。
+     * 成功(2xx)以外のレスポンスが返された場合、ErrorRespondedExceptionで例外的に完了します。
+     * 返却されたCompletableFutureを取り消す、あるいは例外的に完了させると、送受信は中断されます。
+     *
+     * @param <T> レスポンス処理結果の型
+     * @param request リクエスト
+     * @param consumerFactory リクエスト送信ごとにレスポンス処理を作成する関数
+     * @return レスポンス処理結果を返すCompletableFuture
+     * @throws IllegalStateException HTTPクライアントが既に閉じられている場合
+     */
+    public <T> CompletableFuture<T> execute(HttpUriRequest request,
+            Supplier<? extends AsyncResponseConsumer<T>> consumerFactory) {
+        return execute(request, consumerFactory, null);
+    }
+
+    /**
+     * リクエストを非同期に実行し、レスポンスヘッダの受信時刻とステータスを記録する。
+     *
+     * @param <T> レスポンス処理結果の型
+     * @param request リクエスト
+     * @param consumerFactory リクエスト送信ごとにレスポンス処理を作成する関数
+     * @param metrics 記録先、記録しない場合null
+     * @return レスポンス処理結果を返すCompletableFuture
+     * @throws IllegalStateException HTTPクライアントが既に閉じられている場合
+     * @see #execute(HttpUriRequest, Supplier)
+     */
+    public <T> CompletableFuture<T> execute(HttpUriRequest request,
+            Supplier<? extends AsyncResponseConsumer<T>> consumerFactory, HttpExchangeMetrics metrics) {
+        logger.debug(LOG_MARKER, resource.getString(ResourceNames.LOG_SEND_REQUEST), request);
+        CloseableHttpAsyncClient c = this.client;
+        if (c == null) {
+            throw new IllegalStateException("AutoCloseHttpAsyncClient is already closed.");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.inflight.add(result);
+        result.whenComplete((value, error) -> this.inflight.remove(result));
+        try {
+            send(c, request, consumerFactory, metrics, result, true);
+        } catch (RuntimeException e) {
+            this.inflight.remove(result);
+            throw e;
+        }
+        if (this.client == null) {
+            // 送信と同時に閉じられた場合、中断の対象から漏れないよう自ら中断する
+            result.completeExceptionally(new RequestAbortedException("AutoCloseHttpAsyncClient is closed."));
+        }
+        return result;
+    }
+
+    /**
+     * リクエストを送信し、結果をresultに設定する。
+     *
+     * @param <T> レスポンス処理結果の型
+     * @param c HTTPクライアント
+     * @param request リクエスト
+     * @param consumerFactory レスポンス処理を作成する関数
+     * @param metrics 記録先、記録しない場合null
+     * @param result 結果を設定するCompletableFuture
+     * @param followRedirect リダイレクトに従うか否か
+     */
+    private <T> void send(CloseableHttpAsyncClient c, HttpUriRequest request,
+            Supplier<? extends AsyncResponseConsumer<T>> consumerFactory, HttpExchangeMetrics metrics,
+            CompletableFuture<T> result, boolean followRedirect) {
+        HttpClientContext context = HttpClientContext.create();
+        if (metrics != null) {
+            context.setAttribute(HttpExchangeMetrics.ATTRIBUTE_NAME, metrics);
+        }
+        AsyncResponseConsumer<T> consumer = consumerFactory.get();
+        AbortableExchange exchange = new AbortableExchange(HttpAsyncMethods.create(request), consumer, context);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                exchange.abort();
+            }
+        });
+        c.execute(exchange, consumer, context, new FutureCallback<T>() {
+            @Override
+            public void completed(T value) {
+                exchange.finish();
+                try {
+                    HttpResponse response = consumer.getResponse();
+                    RedirectStrategy redirectStrategy = DefaultRedirectStrategy.INSTANCE;
+                    if (followRedirect && redirectStrategy.isRedirected(request, response, context)) {
+                        HttpUriRequest redirect = redirectStrategy.getRedirect(request, response, context);
+                        Header range = request.getFirstHeader(RANGE_HEADER_NAME);
+                        if (range != null) {
+                            redirect.setHeader(range);
+                        }
+                        logger.debug(LOG_MARKER, resource.getString(ResourceNames.LOG_REDIRECT), redirect);
+                        send(c, redirect, consumerFactory, metrics, result, false);
+                        return;
+                    }
+                    if (!consumer.isSucceeded()) {
+                        result.completeExceptionally(new ErrorRespondedException(response));
+                        return;
+                    }
+                    result.complete(value);
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                exchange.finish();
+                result.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                exchange.finish();
+                result.cancel(false);
+            }
+        });
+    }
+}
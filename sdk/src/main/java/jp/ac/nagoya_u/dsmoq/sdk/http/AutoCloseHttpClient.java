@@ -4,24 +4,14 @@ import java.io.IOException;
 import java.util.ResourceBundle;
 
 import org.apache.http.Header;
-import org.apache.http.HeaderElement;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
-import org.apache.http.HttpRequest;
-import org.apache.http.HttpRequestInterceptor;
-import org.apache.http.HttpResponse;
-import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.client.RedirectStrategy;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultRedirectStrategy;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -29,13 +19,14 @@ import org.slf4j.MarkerFactory;
 
 import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
 
+/**
+ * コネクションプールを持つHTTPクライアント
+ *
+ * スレッドセーフであり、一つのインスタンスを複数スレッドから共有して利用できます。
+ * 送受信はHttpClientConfigに指定されたHttpTransportが行い、このクラスはリダイレクトと計測を扱います。
+ * 利用後は必ずcloseメソッドを呼び出し、コネクションを解放してください。
+ */
 public class AutoCloseHttpClient implements AutoCloseable {
-    /** HTTP Request の Accept-Encoding ヘッダ */
-    private static final String ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
-
-    /** HTTP Response の Accept-Encoding ヘッダ に指定するgzip指定 */
-    private static final String GZIP_ENCODING_NAME = "gzip";
-
     /** ログマーカー */
     private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
 
@@ -48,55 +39,77 @@ public class AutoCloseHttpClient implements AutoCloseable {
     /** メッセージ用のリソースバンドル */
     private static ResourceBundle resource = ResourceBundle.getBundle("message");
 
-    /** HTTP Request のタイムアウト時間 (ms) */
-    private static final int TIMEOUT = 30 * 1000 * 4;
-
-    private CloseableHttpClient client;
+    /** トランスポート */
+    private volatile HttpTransport transport;
 
+    /**
+     * デフォルトの設定でHTTPクライアントを作成する。
+     */
     public AutoCloseHttpClient() {
-        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(TIMEOUT).setSocketTimeout(TIMEOUT)
-                .build();
-        this.client = HttpClientBuilder.create().disableRedirectHandling().setDefaultRequestConfig(requestConfig)
-                .addInterceptorFirst(new HttpRequestInterceptor() {
-                    public void process(final HttpRequest request, final HttpContext context)
-                            throws HttpException, IOException {
-                        if (!request.containsHeader(ACCEPT_ENCODING_HEADER_NAME)) {
-                            request.addHeader(ACCEPT_ENCODING_HEADER_NAME, GZIP_ENCODING_NAME);
-                        }
-                    }
-                }).addInterceptorFirst(new HttpResponseInterceptor() {
-                    public void process(final HttpResponse response, final HttpContext context)
-                            throws HttpException, IOException {
-                        HttpEntity entity = response.getEntity();
-                        if (entity != null) {
-                            Header ceheader = entity.getContentEncoding();
-                            if (ceheader != null) {
-                                HeaderElement[] codecs = ceheader.getElements();
-                                for (HeaderElement codec : codecs) {
-                                    if (codec.getName().equalsIgnoreCase(GZIP_ENCODING_NAME)) {
-                                        response.setEntity(new GzipDecompressingEntity(response.getEntity()));
-                                        return;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }).build();
+        this(HttpClientConfig.DEFAULT);
+    }
+
+    /**
+     * 指定された設定でHTTPクライアントを作成する。
+     *
+     * @param config コネクションプール、タイムアウト、トランスポートの設定
+     */
+    public AutoCloseHttpClient(HttpClientConfig config) {
+        this.transport = config.getTransportFactory().create(config);
     }
 
+    /**
+     * HTTPクライアントを閉じ、プールされている全てのコネクションを解放する。
+     */
     public void close() {
-        try {
-            this.client.close();
-        } catch (IOException ioe) {
-        } finally {
-            this.client = null;
+        HttpTransport t = this.transport;
+        this.transport = null;
+        if (t != null) {
+            t.close();
         }
     }
 
+    /**
+     * リクエストを実行する。
+     *
+     * 返却されたレスポンスは、利用後に必ずcloseしてください。
+     * レスポンスボディを最後まで読み込んでからcloseした場合、コネクションはプールに返却され再利用されます。
+     *
+     * @param request リクエスト
+     * @return レスポンス
+     * @throws IOException 接続に失敗した場合
+     * @throws HttpException レスポンスがHTTPレスポンスとして不正な場合
+     * @throws IllegalStateException HTTPクライアントが既に閉じられている場合
+     */
     public CloseableHttpResponse execute(HttpUriRequest request) throws IOException, HttpException {
+        return execute(request, null);
+    }
+
+    /**
+     * リクエストを実行し、送受信の時間とバイト数を記録する。
+     *
+     * 返却されたレスポンスは、利用後に必ずcloseしてください。
+     * レスポンスボディのバイト数は、closeするまでに読み込んだ分が記録されます。
+     *
+     * @param request リクエスト
+     * @param metrics 記録先、記録しない場合null
+     * @return レスポンス
+     * @throws IOException 接続に失敗した場合
+     * @throws HttpException レスポンスがHTTPレスポンスとして不正な場合
+     * @throws IllegalStateException HTTPクライアントが既に閉じられている場合
+     */
+    public CloseableHttpResponse execute(HttpUriRequest request, HttpExchangeMetrics metrics)
+            throws IOException, HttpException {
         logger.debug(LOG_MARKER, resource.getString(ResourceNames.LOG_SEND_REQUEST), request);
+        HttpTransport c = this.transport;
+        if (c == null) {
+            throw new IllegalStateException("AutoCloseHttpClient is already closed.");
+        }
         HttpContext context = new BasicHttpContext();
-        CloseableHttpResponse response = this.client.execute(request, context);
+        if (metrics != null) {
+            context.setAttribute(HttpExchangeMetrics.ATTRIBUTE_NAME, metrics);
+        }
+        CloseableHttpResponse response = c.execute(request, context);
         RedirectStrategy redirectStrategy = DefaultRedirectStrategy.INSTANCE;
         if (redirectStrategy.isRedirected(request, response, context)) {
             HttpUriRequest redirect = redirectStrategy.getRedirect(request, response, context);
@@ -104,8 +117,14 @@ public class AutoCloseHttpClient implements AutoCloseable {
             if (range != null) {
                 redirect.setHeader(range);
             }
+            // リダイレクト元のレスポンスを読み捨て、コネクションをプールに返却する
+            try {
+                EntityUtils.consume(response.getEntity());
+            } finally {
+                response.close();
+            }
             logger.debug(LOG_MARKER, resource.getString(ResourceNames.LOG_REDIRECT), redirect);
-            return this.client.execute(redirect, context);
+            return c.execute(redirect, context);
         } else {
             return response;
         }
@@ -0,0 +1,36 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import org.apache.http.HttpResponse;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResponseFunction;
+
+/**
+ * レスポンスボディをメモリ上にバッファリングしてから変換するレスポンス処理
+ *
+ * APIのJSONレスポンスのような、小さなレスポンスの処理に用います。
+ *
+ * @param <T> レスポンス変換後の型
+ */
+public class BufferedResponseConsumer<T> extends AsyncResponseConsumer<T> {
+    /** レスポンス変換関数 */
+    private final ResponseFunction<T> responseFunc;
+
+    /**
+     * レスポンス処理を作成する。
+     *
+     * @param responseFunc レスポンス変換関数
+     */
+    public BufferedResponseConsumer(ResponseFunction<T> responseFunc) {
+        this.responseFunc = responseFunc;
+    }
+
+    @Override
+    protected boolean isBuffered() {
+        return true;
+    }
+
+    @Override
+    protected T onBodyComplete(HttpResponse response) throws Exception {
+        return this.responseFunc.apply(response);
+    }
+}
@@ -0,0 +1,118 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.IOControl;
+
+/**
+ * レスポンスボディを指定されたファイルへ書き出すレスポンス処理
+ *
+ * 受信したデータはI/Oスレッド上でファイルへ直接書き込まれ、受信中にスレッドを占有しません。
+ * 処理結果のレスポンスは、書き出したファイルを表すエンティティを持ちます。
+ * 処理が失敗、キャンセルされた場合、書き出したファイルは削除されます。
+ */
+public class FileResponseConsumer extends AsyncResponseConsumer<HttpResponse> {
+    /** ファイルへの書き込みに用いるバッファサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 書き出し先ファイル */
+    private final Path file;
+
+    /** 書き出し先ファイルのチャネル */
+    private FileChannel channel;
+
+    /** 書き込み用バッファ (FileContentDecoderを利用できない場合のみ使用する) */
+    private ByteBuffer buffer;
+
+    /** 書き込み済みのバイト数 */
+    private long position;
+
+    /** 処理結果を作成したか否か */
+    private boolean completed;
+
+    /**
+     * レスポンス処理を作成する。
+     *
+     * @param file 書き出し先ファイル
+     */
+    public FileResponseConsumer(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    protected void onBodyStart(HttpResponse response) throws IOException {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.position = 0;
+    }
+
+    @Override
+    protected void onBodyContent(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        if (decoder instanceof FileContentDecoder) {
+            // ソケットからファイルへ直接転送する
+            long transferred = ((FileContentDecoder) decoder).transfer(this.channel, this.position, Integer.MAX_VALUE);
+            if (transferred > 0) {
+                this.position += transferred;
+            }
+            return;
+        }
+        if (this.buffer == null) {
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        while (decoder.read(this.buffer) > 0) {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.position += this.channel.write(this.buffer, this.position);
+            }
+            this.buffer.clear();
+        }
+    }
+
+    @Override
+    protected HttpResponse onBodyComplete(HttpResponse response) throws Exception {
+        closeChannel();
+        HttpEntity original = response.getEntity();
+        ContentType contentType = original == null ? null : ContentType.get(original);
+        response.setEntity(new FileEntity(this.file.toFile(), contentType));
+        this.completed = true;
+        return response;
+    }
+
+    @Override
+    protected void onRelease() {
+        closeChannel();
+        this.buffer = null;
+        if (!this.completed) {
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                // do nothing
+            }
+        }
+    }
+
+    /**
+     * 書き出し先ファイルのチャネルを閉じる。
+     */
+    private void closeChannel() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // do nothing
+            }
+            this.channel = null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+/**
+ * AutoCloseHttpClientのコネクションプール、タイムアウト、トランスポートの設定
+ */
+public class HttpClientConfig {
+    /** デフォルトの最大コネクション数 */
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+    /** デフォルトの接続先ごとの最大コネクション数 */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 16;
+
+    /** デフォルトのKeep-Alive時間 (ms) (サーバがKeep-Alive時間を指定しなかった場合に用いる) */
+    public static final long DEFAULT_KEEP_ALIVE = 30 * 1000;
+
+    /** デフォルトのアイドルコネクションの破棄時間 (ms) */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60 * 1000;
+
+    /** デフォルトの接続タイムアウト時間 (ms) */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000 * 4;
+
+    /** デフォルトの読み込みタイムアウト時間 (ms) */
+    public static final int DEFAULT_SOCKET_TIMEOUT = 30 * 1000 * 4;
+
+    /** デフォルトの設定 */
+    public static final HttpClientConfig DEFAULT = new HttpClientConfig(DEFAULT_MAX_CONNECTIONS,
+            DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_KEEP_ALIVE, DEFAULT_IDLE_TIMEOUT, DEFAULT_CONNECT_TIMEOUT,
+            DEFAULT_SOCKET_TIMEOUT);
+
+    /** 最大コネクション数 */
+    private final int maxConnections;
+
+    /** 接続先ごとの最大コネクション数 */
+    private final int maxConnectionsPerRoute;
+
+    /** Keep-Alive時間 (ms) */
+    private final long keepAlive;
+
+    /** アイドルコネクションの破棄時間 (ms) */
+    private final long idleTimeout;
+
+    /** 接続タイムアウト時間 (ms) */
+    private final int connectTimeout;
+
+    /** 読み込みタイムアウト時間 (ms) */
+    private final int socketTimeout;
+
+    /** トランスポートを作成するファクトリ */
+    private final HttpTransportFactory transportFactory;
+
+    /**
+     * HTTP/1.1のトランスポートを用いる設定を作成する。
+     *
+     * @param maxConnections 最大コネクション数
+     * @param maxConnectionsPerRoute 接続先ごとの最大コネクション数
+     * @param keepAlive Keep-Alive時間 (ms)
+     * @param idleTimeout アイドルコネクションの破棄時間 (ms)
+     * @param connectTimeout 接続タイムアウト時間 (ms)
+     * @param socketTimeout 読み込みタイムアウト時間 (ms)
+     * @throws IllegalArgumentException maxConnectionsがmaxConnectionsPerRoute未満の場合
+     */
+    public HttpClientConfig(int maxConnections, int maxConnectionsPerRoute, long keepAlive, long idleTimeout,
+            int connectTimeout, int socketTimeout) {
+        this(maxConnections, maxConnectionsPerRoute, keepAlive, idleTimeout, connectTimeout, socketTimeout,
+                HttpTransportFactory.HTTP_1_1);
+    }
+
+    /**
+     * 設定を作成する。
+     *
+     * @param maxConnections 最大コネクション数
+     * @param maxConnectionsPerRoute 接続先ごとの最大コネクション数
+     * @param keepAlive Keep-Alive時間 (ms)
+     * @param idleTimeout アイドルコネクションの破棄時間 (ms)
+     * @param connectTimeout 接続タイムアウト時間 (ms)
+     * @param socketTimeout 読み込みタイムアウト時間 (ms)
+     * @param transportFactory トランスポートを作成するファクトリ
+     * @throws IllegalArgumentException maxConnectionsがmaxConnectionsPerRoute未満の場合
+     */
+    public HttpClientConfig(int maxConnections, int maxConnectionsPerRoute, long keepAlive, long idleTimeout,
+            int connectTimeout, int socketTimeout, HttpTransportFactory transportFactory) {
+        requireGreaterOrEqualOrNull(maxConnections, maxConnectionsPerRoute,
+                "at maxConnections in HttpClientConfig#HttpClientConfig");
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAlive = keepAlive;
+        this.idleTimeout = idleTimeout;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout = socketTimeout;
+        this.transportFactory = transportFactory;
+    }
+
+    /**
+     * 最大コネクション数を取得する。
+     *
+     * @return 最大コネクション数
+     */
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    /**
+     * 接続先ごとの最大コネクション数を取得する。
+     *
+     * @return 接続先ごとの最大コネクション数
+     */
+    public int getMaxConnectionsPerRoute() {
+        return this.maxConnectionsPerRoute;
+    }
+
+    /**
+     * Keep-Alive時間を取得する。
+     *
+     * @return Keep-Alive時間 (ms)
+     */
+    public long getKeepAlive() {
+        return this.keepAlive;
+    }
+
+    /**
+     * アイドルコネクションの破棄時間を取得する。
+     *
+     * @return アイドルコネクションの破棄時間 (ms)
+     */
+    public long getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * 接続タイムアウト時間を取得する。
+     *
+     * @return 接続タイムアウト時間 (ms)
+     */
+    public int getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * 読み込みタイムアウト時間を取得する。
+     *
+     * @return 読み込みタイムアウト時間 (ms)
+     */
+    public int getSocketTimeout() {
+        return this.socketTimeout;
+    }
+
+    /**
+     * トランスポートを作成するファクトリを取得する。
+     *
+     * @return トランスポートを作成するファクトリ
+     */
+    public HttpTransportFactory getTransportFactory() {
+        return this.transportFactory;
+    }
+}
@@ -0,0 +1,288 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 1回のリクエストの送受信で計測した、接続、送信、受信の時間とバイト数
+ *
+ * 送信の直前に作成し、AutoCloseHttpClient、AutoCloseHttpAsyncClientのexecuteに渡すと、送受信の進行に合わせて値が記録されます。
+ * 時刻はSystem#nanoTimeの値です。計測できない項目は-1となります。
+ * (AutoCloseHttpAsyncClientでは、接続時間、コネクションプールの待機時間、バイト数は計測されません)
+ * (HTTP/2のトランスポートでは、接続時間とコネクションプールの待機時間は計測されません)
+ * リダイレクトに従った場合、時間とバイト数は両方のリクエストの合計、ステータスと最初のバイトの受信時刻は最後のレスポンスの値となります。
+ */
+public class HttpExchangeMetrics {
+    /** HttpContextに格納する際の属性名 */
+    static final String ATTRIBUTE_NAME = HttpExchangeMetrics.class.getName();
+
+    /** 計測を開始した時刻 */
+    private final long startTime = System.nanoTime();
+
+    /** 接続に要した時間 (ns) */
+    private volatile long connectNanos = -1;
+
+    /** コネクションプールからの取得を待機した時間 (ns) */
+    private volatile long poolWaitNanos = -1;
+
+    /** コネクションの取得を開始した時刻 */
+    private volatile long leaseStart;
+
+    /** 取得したコネクションの接続に要した時間 (ns) */
+    private volatile long leaseConnectNanos;
+
+    /** レスポンスヘッダを受信した時刻、受信していない場合0 */
+    private volatile long firstByteTime;
+
+    /** レスポンスのステータスコード、受信していない場合0 */
+    private volatile int statusCode;
+
+    /** 送信したリクエストボディのバイト数 */
+    private final AtomicLong requestBytes = new AtomicLong(-1);
+
+    /** 受信したレスポンスボディのバイト数 (圧縮されている場合は圧縮後) */
+    private final AtomicLong responseBytes = new AtomicLong(-1);
+
+    /**
+     * 計測を開始した時刻を取得する。
+     *
+     * @return 作成した時刻 (System#nanoTimeの値)
+     */
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    /**
+     * 接続に要した時間を取得する。
+     *
+     * @return 接続に要した時間 (ns)、プール内のコネクションを再利用した場合0、計測していない場合-1
+     */
+    public long getConnectNanos() {
+        return this.connectNanos;
+    }
+
+    /**
+     * コネクションプールからの取得を待機した時間を取得する。
+     *
+     * @return 待機した時間 (ns)、計測していない場合-1
+     */
+    public long getPoolWaitNanos() {
+        return this.poolWaitNanos;
+    }
+
+    /**
+     * レスポンスヘッダを受信した時刻を取得する。
+     *
+     * @return 受信した時刻 (System#nanoTimeの値)、受信していない場合0
+     */
+    public long getFirstByteTime() {
+        return this.firstByteTime;
+    }
+
+    /**
+     * レスポンスのステータスコードを取得する。
+     *
+     * @return ステータスコード、受信していない場合0
+     */
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * 送信したリクエストボディのバイト数を取得する。
+     *
+     * @return バイト数、計測していない場合-1
+     */
+    public long getRequestBytes() {
+        return this.requestBytes.get();
+    }
+
+    /**
+     * 受信したレスポンスボディのバイト数を取得する。
+     *
+     * レスポンス変換関数が読み込んだ分のみ数えられます。圧縮されている場合は圧縮後のバイト数です。
+     *
+     * @return バイト数、計測していない場合-1
+     */
+    public long getResponseBytes() {
+        return this.responseBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HttpExchangeMetrics(statusCode=%d, connectNanos=%d, poolWaitNanos=%d, requestBytes=%d, "
+                        + "responseBytes=%d)",
+                this.statusCode, this.connectNanos, this.poolWaitNanos, getRequestBytes(), getResponseBytes());
+    }
+
+    /**
+     * HttpContextから記録先を取得する。
+     *
+     * @param context HttpContext
+     * @return 記録先、記録しない場合null
+     */
+    static HttpExchangeMetrics from(HttpContext context) {
+        Object metrics = context.getAttribute(ATTRIBUTE_NAME);
+        return metrics instanceof HttpExchangeMetrics ? (HttpExchangeMetrics) metrics : null;
+    }
+
+    /**
+     * コネクションの取得を開始したことを記録する。
+     *
+     * 以降、接続時間、待機時間、バイト数を計測する。
+     */
+    void onLeaseStart() {
+        this.leaseStart = System.nanoTime();
+        this.leaseConnectNanos = 0;
+        if (this.connectNanos < 0) {
+            this.connectNanos = 0;
+            this.poolWaitNanos = 0;
+            this.requestBytes.compareAndSet(-1, 0);
+            this.responseBytes.compareAndSet(-1, 0);
+        }
+    }
+
+    /**
+     * コネクションプールを介さずに送信を開始したことを記録する。
+     *
+     * 以降、バイト数のみを計測する。
+     */
+    void onStreamStart() {
+        this.requestBytes.compareAndSet(-1, 0);
+        this.responseBytes.compareAndSet(-1, 0);
+    }
+
+    /**
+     * コネクションを接続したことを記録する。
+     *
+     * @param nanos 接続に要した時間 (ns)
+     */
+    void onConnected(long nanos) {
+        this.leaseConnectNanos += nanos;
+        this.connectNanos += nanos;
+    }
+
+    /**
+     * リクエストの送信を開始したことを記録する。
+     */
+    void onSendStart() {
+        if (this.leaseStart != 0) {
+            // 取得開始から送信開始までの時間のうち、接続以外をプールの待機時間とみなす
+            this.poolWaitNanos += Math.max(0, System.nanoTime() - this.leaseStart - this.leaseConnectNanos);
+            this.leaseStart = 0;
+        }
+    }
+
+    /**
+     * レスポンスヘッダを受信したことを記録する。
+     *
+     * @param statusCode ステータスコード
+     */
+    void onResponseHead(int statusCode) {
+        this.firstByteTime = System.nanoTime();
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * 送信するリクエストボディを、送信したバイト数を数えるエンティティで包む。
+     *
+     * @param entity リクエストボディ
+     * @return バイト数を数えるエンティティ
+     */
+    HttpEntity countRequest(HttpEntity entity) {
+        // 自動的な再送で再び包まれた場合に、重ねて数えないようにする
+        return entity instanceof CountingRequestEntity ? entity : new CountingRequestEntity(entity);
+    }
+
+    /**
+     * 送信したバイト数を数えるリクエストボディ
+     */
+    private class CountingRequestEntity extends HttpEntityWrapper {
+        /**
+         * リクエストボディを包む。
+         *
+         * @param entity リクエストボディ
+         */
+        CountingRequestEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            super.writeTo(new FilterOutputStream(outstream) {
+                @Override
+                public void write(int b) throws IOException {
+                    this.out.write(b);
+                    requestBytes.incrementAndGet();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    this.out.write(b, off, len);
+                    requestBytes.addAndGet(len);
+                }
+            });
+        }
+    }
+
+    /**
+     * 受信したレスポンスボディを、読み込んだバイト数を数えるエンティティで包む。
+     *
+     * @param entity レスポンスボディ
+     * @return バイト数を数えるエンティティ
+     */
+    HttpEntity countResponse(HttpEntity entity) {
+        return new HttpEntityWrapper(entity) {
+            @Override
+            public InputStream getContent() throws IOException {
+                return new FilterInputStream(super.getContent()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = this.in.read();
+                        if (b >= 0) {
+                            responseBytes.incrementAndGet();
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = this.in.read(b, off, len);
+                        if (n > 0) {
+                            responseBytes.addAndGet(n);
+                        }
+                        return n;
+                    }
+
+                    @Override
+                    public long skip(long n) throws IOException {
+                        long skipped = this.in.skip(n);
+                        responseBytes.addAndGet(skipped);
+                        return skipped;
+                    }
+                };
+            }
+
+            @Override
+            public void writeTo(OutputStream outstream) throws IOException {
+                // 読み込み経路を統一するため、getContentから書き出す
+                try (InputStream in = getContent()) {
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) >= 0) {
+                        outstream.write(buffer, 0, n);
+                    }
+                }
+            }
+        };
+    }
+}
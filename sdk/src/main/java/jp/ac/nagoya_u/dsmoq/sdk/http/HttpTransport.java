@@ -0,0 +1,39 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * AutoCloseHttpClientが、リクエストを実際に送受信するために用いるトランスポート
+ *
+ * 実装はスレッドセーフでなければなりません。
+ * リダイレクトはAutoCloseHttpClientが処理するため、トランスポートはリダイレクトに従わずにレスポンスを返してください。
+ * gzipで圧縮されたレスポンスは、トランスポートが展開して返してください。
+ * contextにHttpExchangeMetricsが格納されている場合、計測できる範囲で送受信の進行を記録してください。
+ *
+ * @see HttpTransportFactory
+ */
+public interface HttpTransport extends AutoCloseable {
+    /**
+     * リクエストを実行する。
+     *
+     * 返却されたレスポンスは、呼び出し元が利用後にcloseします。
+     *
+     * @param request リクエスト
+     * @param context リクエストごとのコンテキスト
+     * @return レスポンス
+     * @throws IOException 接続に失敗した場合
+     * @throws HttpException レスポンスがHTTPレスポンスとして不正な場合
+     */
+    CloseableHttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException, HttpException;
+
+    /**
+     * トランスポートを閉じ、保持している全てのコネクションを解放する。
+     */
+    @Override
+    void close();
+}
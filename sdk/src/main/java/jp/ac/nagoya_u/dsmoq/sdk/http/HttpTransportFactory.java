@@ -0,0 +1,34 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+/**
+ * 設定からHttpTransportを作成するファクトリ
+ *
+ * HttpClientConfigに指定すると、AutoCloseHttpClientの作成時に呼び出されます。
+ */
+@FunctionalInterface
+public interface HttpTransportFactory {
+    /**
+     * Apache HttpClientによるHTTP/1.1のトランスポート (デフォルト)
+     *
+     * 接続先ごとにコネクションプールを持ち、同時に送信するリクエストの数だけコネクションを用います。
+     */
+    HttpTransportFactory HTTP_1_1 = ApacheHttpTransport::new;
+
+    /**
+     * java.net.http.HttpClientによるHTTP/2のトランスポート
+     *
+     * 同時に送信するリクエストを少数のコネクション上に多重化し、ヘッダをHPACKで圧縮します。
+     * サーバがHTTP/2に対応していない場合は、接続ごとにHTTP/1.1で通信します。
+     * java.net.httpを利用できない実行環境(Java 10以前)では、HTTP_1_1のトランスポートを用います。
+     * コネクション数の上限、Keep-Alive時間、アイドルコネクションの破棄時間の設定は用いられません。
+     */
+    HttpTransportFactory HTTP_2 = JdkHttpTransport::create;
+
+    /**
+     * トランスポートを作成する。
+     *
+     * @param config コネクション、タイムアウトの設定
+     * @return トランスポート
+     */
+    HttpTransport create(HttpClientConfig config);
+}
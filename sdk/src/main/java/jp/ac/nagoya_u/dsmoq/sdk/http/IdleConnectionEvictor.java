@@ -0,0 +1,100 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 全てのコネクションプールで共有する、アイドルコネクションの破棄を行うスケジューラ
+ *
+ * クライアントごとにスレッドを作成しないよう、1つのデーモンスレッドで全てのコネクションプールを巡回します。
+ * コネクションプールは弱参照で保持するため、closeされずに参照されなくなったクライアントのコネクションプールも回収されます。
+ * 回収されたコネクションプールの巡回は、次回の実行時に停止します。
+ */
+final class IdleConnectionEvictor {
+    /** 巡回を行うスケジューラ */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dsmoq-idle-connection-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 巡回の最小間隔 (ms) */
+    private static final long MIN_INTERVAL = 1000;
+
+    /**
+     * インスタンス化しない。
+     */
+    private IdleConnectionEvictor() {
+    }
+
+    /**
+     * コネクションプールの巡回を開始する。
+     *
+     * evictはコネクションプールを捕捉しないでください(捕捉した場合、コネクションプールが回収されなくなります)。
+     *
+     * @param <T> コネクションプールの型
+     * @param connectionManager 巡回するコネクションプール
+     * @param idleTimeout アイドルコネクションの破棄時間 (ms)
+     * @param evict コネクションプールとアイドルコネクションの破棄時間を受け取り、コネクションを破棄する処理
+     * @return 巡回の予約、cancelで巡回を停止する
+     */
+    static <T> ScheduledFuture<?> schedule(T connectionManager, long idleTimeout, BiConsumer<T, Long> evict) {
+        long interval = Math.max(idleTimeout / 2, MIN_INTERVAL);
+        Task<T> task = new Task<>(connectionManager, idleTimeout, evict);
+        task.future = SCHEDULER.scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS);
+        return task.future;
+    }
+
+    /**
+     * 1つのコネクションプールの巡回
+     *
+     * @param <T> コネクションプールの型
+     */
+    private static class Task<T> implements Runnable {
+        /** 巡回するコネクションプール */
+        private final WeakReference<T> connectionManager;
+
+        /** アイドルコネクションの破棄時間 (ms) */
+        private final long idleTimeout;
+
+        /** コネクションを破棄する処理 */
+        private final BiConsumer<T, Long> evict;
+
+        /** この巡回の予約 */
+        private volatile ScheduledFuture<?> future;
+
+        /**
+         * 巡回を作成する。
+         *
+         * @param connectionManager 巡回するコネクションプール
+         * @param idleTimeout アイドルコネクションの破棄時間 (ms)
+         * @param evict コネクションを破棄する処理
+         */
+        Task(T connectionManager, long idleTimeout, BiConsumer<T, Long> evict) {
+            this.connectionManager = new WeakReference<>(connectionManager);
+            this.idleTimeout = idleTimeout;
+            this.evict = evict;
+        }
+
+        @Override
+        public void run() {
+            T manager = this.connectionManager.get();
+            if (manager == null) {
+                ScheduledFuture<?> f = this.future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+            try {
+                this.evict.accept(manager, this.idleTimeout);
+            } catch (RuntimeException e) {
+                // 例外で巡回が停止しないよう、次回の実行に委ねる
+            }
+        }
+    }
+}
@@ -0,0 +1,805 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ResourceNames;
+
+/**
+ * java.net.http.HttpClientを用いた、HTTP/2のトランスポート
+ *
+ * SDKはJava 8を対象とするため、java.net.httpのAPIはリフレクションで呼び出します。
+ * 同時に送信されたリクエストは、接続先ごとに少数のコネクション上のストリームとして多重化されます。
+ * HTTP/2への切り替え(TLSではALPN、平文ではh2cへのUpgrade)はjava.net.httpが行い、
+ * サーバが対応していない場合はHTTP/1.1で通信します。
+ * 読み込みタイムアウトは、レスポンスヘッダを受信するまでの時間と、レスポンスボディの1回ごとの読み込みに適用されます。
+ * リクエストのabortは、送信中のリクエストの取り消しと、レスポンスボディのクローズとして伝わります。
+ */
+class JdkHttpTransport implements HttpTransport {
+    /** ログマーカー */
+    private static final Marker LOG_MARKER = MarkerFactory.getMarker("SDK");
+
+    /** ロガー */
+    private static Logger logger = LoggerFactory.getLogger(LOG_MARKER.toString());
+
+    /** メッセージ用のリソースバンドル */
+    private static ResourceBundle resource = ResourceBundle.getBundle("message");
+
+    /** HTTP Response の Accept-Encoding ヘッダ に指定するgzip指定 */
+    private static final String GZIP_ENCODING_NAME = "gzip";
+
+    /** java.net.httpが送信を許可しないヘッダ (小文字) */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList("connection",
+            "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+    /** メモリ上に書き出してから送信するリクエストボディの最大サイズ、これを超える場合は別スレッドから流し込む */
+    private static final long BUFFERED_BODY_SIZE = 64 * 1024;
+
+    /** リクエストボディを流し込むパイプのバッファサイズ */
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    /** レスポンスボディの読み込みタイムアウトを監視するスケジューラ */
+    private static final ScheduledThreadPoolExecutor READ_TIMER;
+
+    static {
+        READ_TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-http2-read-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 読み込みの完了ごとに取り消される監視を、期限まで保持しない
+        READ_TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    /** HTTP/2のプロトコルバージョン */
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    /** java.net.httpのAPI、利用できない場合null */
+    private static final Api API;
+
+    /** java.net.httpを利用できない理由 */
+    private static final String UNAVAILABLE_REASON;
+
+    static {
+        Api api = null;
+        String reason = null;
+        try {
+            api = new Api();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            reason = e.toString();
+        }
+        API = api;
+        UNAVAILABLE_REASON = reason;
+    }
+
+    /**
+     * リフレクションで取得したjava.net.httpのAPI
+     */
+    private static class Api {
+        /** HttpClient#newBuilder */
+        final Method newClientBuilder;
+
+        /** HttpClient.Builder#version */
+        final Method clientVersion;
+
+        /** HttpClient.Builder#connectTimeout */
+        final Method clientConnectTimeout;
+
+        /** HttpClient.Builder#followRedirects */
+        final Method clientFollowRedirects;
+
+        /** HttpClient.Builder#build */
+        final Method clientBuild;
+
+        /** HttpClient#sendAsync */
+        final Method sendAsync;
+
+        /** HttpClient#shutdownNow (Java 21以降)、存在しない場合null */
+        final Method shutdownNow;
+
+        /** HttpRequest#newBuilder(URI) */
+        final Method newRequestBuilder;
+
+        /** HttpRequest.Builder#header */
+        final Method requestHeader;
+
+        /** HttpRequest.Builder#method */
+        final Method requestMethod;
+
+        /** HttpRequest.Builder#timeout */
+        final Method requestTimeout;
+
+        /** HttpRequest.Builder#build */
+        final Method requestBuild;
+
+        /** HttpRequest.BodyPublishers#noBody */
+        final Method noBody;
+
+        /** HttpRequest.BodyPublishers#ofByteArray */
+        final Method ofByteArray;
+
+        /** HttpRequest.BodyPublishers#ofInputStream */
+        final Method ofInputStream;
+
+        /** HttpRequest.BodyPublishers#fromPublisher(Publisher, long) */
+        final Method fromPublisher;
+
+        /** HttpResponse.BodyHandlers#ofInputStream */
+        final Method ofInputStreamHandler;
+
+        /** HttpResponse#statusCode */
+        final Method statusCode;
+
+        /** HttpResponse#headers */
+        final Method headers;
+
+        /** HttpHeaders#map */
+        final Method headersMap;
+
+        /** HttpResponse#body */
+        final Method body;
+
+        /** HttpResponse#version */
+        final Method version;
+
+        /** HttpClient.Version.HTTP_2 */
+        final Object versionHttp2;
+
+        /** HttpClient.Redirect.NEVER */
+        final Object redirectNever;
+
+        /**
+         * APIを取得する。
+         *
+         * @throws ReflectiveOperationException java.net.httpが存在しない場合
+         */
+        Api() throws ReflectiveOperationException {
+            Class<?> client = Class.forName("java.net.http.HttpClient");
+            Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+            Class<?> versionClass = Class.forName("java.net.http.HttpClient$Version");
+            Class<?> redirectClass = Class.forName("java.net.http.HttpClient$Redirect");
+            Class<?> request = Class.forName("java.net.http.HttpRequest");
+            Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+            Class<?> bodyPublisher = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+            Class<?> bodyPublishers = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+            Class<?> response = Class.forName("java.net.http.HttpResponse");
+            Class<?> bodyHandler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+            Class<?> bodyHandlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+            Class<?> httpHeaders = Class.forName("java.net.http.HttpHeaders");
+            Class<?> publisher = Class.forName("java.util.concurrent.Flow$Publisher");
+            this.newClientBuilder = client.getMethod("newBuilder");
+            this.clientVersion = clientBuilder.getMethod("version", versionClass);
+            this.clientConnectTimeout = clientBuilder.getMethod("connectTimeout", Duration.class);
+            this.clientFollowRedirects = clientBuilder.getMethod("followRedirects", redirectClass);
+            this.clientBuild = clientBuilder.getMethod("build");
+            this.sendAsync = client.getMethod("sendAsync", request, bodyHandler);
+            this.shutdownNow = findMethod(client, "shutdownNow");
+            this.newRequestBuilder = request.getMethod("newBuilder", URI.class);
+            this.requestHeader = requestBuilder.getMethod("header", String.class, String.class);
+            this.requestMethod = requestBuilder.getMethod("method", String.class, bodyPublisher);
+            this.requestTimeout = requestBuilder.getMethod("timeout", Duration.class);
+            this.requestBuild = requestBuilder.getMethod("build");
+            this.noBody = bodyPublishers.getMethod("noBody");
+            this.ofByteArray = bodyPublishers.getMethod("ofByteArray", byte[].class);
+            this.ofInputStream = bodyPublishers.getMethod("ofInputStream", Supplier.class);
+            this.fromPublisher = bodyPublishers.getMethod("fromPublisher", publisher, long.class);
+            this.ofInputStreamHandler = bodyHandlers.getMethod("ofInputStream");
+            this.statusCode = response.getMethod("statusCode");
+            this.headers = response.getMethod("headers");
+            this.headersMap = httpHeaders.getMethod("map");
+            this.body = response.getMethod("body");
+            this.version = response.getMethod("version");
+            this.versionHttp2 = enumConstant(versionClass, "HTTP_2");
+            this.redirectNever = enumConstant(redirectClass, "NEVER");
+        }
+
+        /**
+         * 引数のないpublicメソッドを取得する。
+         *
+         * @param type クラス
+         * @param name メソッド名
+         * @return メソッド、存在しない場合null
+         */
+        private static Method findMethod(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 列挙型の定数を取得する。
+         *
+         * @param type 列挙型
+         * @param name 定数名
+         * @return 定数
+         * @throws NoSuchFieldException 定数が存在しない場合
+         */
+        private static Object enumConstant(Class<?> type, String name) throws NoSuchFieldException {
+            for (Object constant : type.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equals(name)) {
+                    return constant;
+                }
+            }
+            throw new NoSuchFieldException(type.getName() + "." + name);
+        }
+    }
+
+    /** java.net.http.HttpClient */
+    private final Object client;
+
+    /** 読み込みタイムアウト、指定しない場合null */
+    private final Duration timeout;
+
+    /** レスポンスボディの読み込みタイムアウト (ms)、指定しない場合0 */
+    private final long readTimeout;
+
+    /** リクエストボディを流し込むスレッドプール */
+    private final ExecutorService bodyWriter;
+
+    /**
+     * 指定された設定でトランスポートを作成する。
+     *
+     * @param config タイムアウトの設定
+     * @throws ReflectiveOperationException java.net.httpの呼び出しに失敗した場合
+     */
+    private JdkHttpTransport(HttpClientConfig config) throws ReflectiveOperationException {
+        Object builder = API.newClientBuilder.invoke(null);
+        API.clientVersion.invoke(builder, API.versionHttp2);
+        API.clientFollowRedirects.invoke(builder, API.redirectNever);
+        if (config.getConnectTimeout() > 0) {
+            API.clientConnectTimeout.invoke(builder, Duration.ofMillis(config.getConnectTimeout()));
+        }
+        this.client = API.clientBuild.invoke(builder);
+        this.timeout = config.getSocketTimeout() > 0 ? Duration.ofMillis(config.getSocketTimeout()) : null;
+        this.readTimeout = Math.max(config.getSocketTimeout(), 0);
+        this.bodyWriter = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dsmoq-http2-body-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * HTTP/2のトランスポートを作成する。
+     *
+     * java.net.httpを利用できない場合、HTTP/1.1のトランスポートを作成する。
+     *
+     * @param config コネクション、タイムアウトの設定
+     * @return トランスポート
+     */
+    static HttpTransport create(HttpClientConfig config) {
+        if (API == null) {
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_HTTP2_UNAVAILABLE), UNAVAILABLE_REASON);
+            return new ApacheHttpTransport(config);
+        }
+        try {
+            return new JdkHttpTransport(config);
+        } catch (ReflectiveOperationException e) {
+            logger.warn(LOG_MARKER, resource.getString(ResourceNames.LOG_HTTP2_UNAVAILABLE), e.toString(), e);
+            return new ApacheHttpTransport(config);
+        }
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpUriRequest request, HttpContext context)
+            throws IOException, HttpException {
+        HttpExecutionAware aware = request instanceof HttpExecutionAware ? (HttpExecutionAware) request : null;
+        if (aware != null && aware.isAborted()) {
+            throw new RequestAbortedException("Request aborted");
+        }
+        URI uri = request.getURI();
+        // リダイレクト先が相対パスの場合に、DefaultRedirectStrategyが参照する
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, URIUtils.extractHost(uri));
+        HttpExchangeMetrics metrics = HttpExchangeMetrics.from(context);
+        if (metrics != null) {
+            metrics.onStreamStart();
+        }
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest
+                ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        if (entity != null && metrics != null) {
+            entity = metrics.countRequest(entity);
+        }
+        // abort時に、リクエストボディを流し込むパイプを閉じて書き出しスレッドを終了させる
+        Queue<InputStream> pipes = new ConcurrentLinkedQueue<>();
+        CompletableFuture<?> future = null;
+        Object response;
+        try {
+            Object builder = API.newRequestBuilder.invoke(null, uri);
+            for (Header header : request.getAllHeaders()) {
+                if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                    API.requestHeader.invoke(builder, header.getName(), header.getValue());
+                }
+            }
+            if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+                API.requestHeader.invoke(builder, HttpHeaders.ACCEPT_ENCODING, GZIP_ENCODING_NAME);
+            }
+            if (entity != null) {
+                if (entity.getContentType() != null && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+                    API.requestHeader.invoke(builder, HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+                }
+                if (entity.getContentEncoding() != null && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                    API.requestHeader.invoke(builder, HttpHeaders.CONTENT_ENCODING,
+                            entity.getContentEncoding().getValue());
+                }
+            }
+            API.requestMethod.invoke(builder, request.getMethod(), toBodyPublisher(entity, pipes));
+            if (this.timeout != null) {
+                API.requestTimeout.invoke(builder, this.timeout);
+            }
+            Object req = API.requestBuild.invoke(builder);
+            CompletableFuture<?> sending = (CompletableFuture<?>) API.sendAsync.invoke(this.client, req,
+                    API.ofInputStreamHandler.invoke(null));
+            future = sending;
+            if (aware != null) {
+                setCancellable(aware, () -> {
+                    sending.cancel(true);
+                    pipes.forEach(JdkHttpTransport::closeQuietly);
+                    return true;
+                });
+            }
+            response = sending.get();
+        } catch (InvocationTargetException e) {
+            throw translate(e.getCause(), uri);
+        } catch (ExecutionException e) {
+            if (aware != null && aware.isAborted()) {
+                // 取り消されたリクエストは、java.net.httpがIOExceptionで完了させる
+                throw new RequestAbortedException("Request aborted", e.getCause());
+            }
+            throw translate(e.getCause(), uri);
+        } catch (CancellationException e) {
+            throw new RequestAbortedException("Request aborted", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw translate(e, uri);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Failed to call java.net.http: " + e.getMessage(), e);
+        }
+        try {
+            ResponseBodyInputStream body = new ResponseBodyInputStream((InputStream) API.body.invoke(response),
+                    this.readTimeout);
+            if (aware != null) {
+                setCancellable(aware, () -> {
+                    body.fail(new RequestAbortedException("Request aborted"));
+                    return true;
+                });
+                if (aware.isAborted()) {
+                    throw new RequestAbortedException("Request aborted");
+                }
+            }
+            return toResponse(request, response, body, metrics);
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new IOException("Failed to read response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * abort時の処理を登録する。
+     *
+     * 登録と同時にabortされた場合も、登録した処理を呼び出します。
+     *
+     * @param request リクエスト
+     * @param cancellable abort時の処理
+     */
+    private static void setCancellable(HttpExecutionAware request, Cancellable cancellable) {
+        request.setCancellable(cancellable);
+        // setCancellableはabort済みの場合に何もしないため、登録前にabortされた場合はここで取り消す
+        if (request.isAborted()) {
+            cancellable.cancel();
+        }
+    }
+
+    /**
+     * 例外を送出せずにストリームを閉じる。
+     *
+     * @param in ストリーム
+     */
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public void close() {
+        this.bodyWriter.shutdownNow();
+        if (API.shutdownNow != null) {
+            try {
+                API.shutdownNow.invoke(this.client);
+            } catch (ReflectiveOperationException e) {
+            }
+        }
+    }
+
+    /**
+     * リクエストボディをjava.net.http.HttpRequest.BodyPublisherに変換する。
+     *
+     * @param entity リクエストボディ、存在しない場合null
+     * @param pipes リクエストボディを流し込むパイプの登録先
+     * @return BodyPublisher
+     * @throws IOException リクエストボディの書き出しに失敗した場合
+     * @throws InvocationTargetException java.net.httpが例外を送出した場合
+     * @throws IllegalAccessException java.net.httpの呼び出しに失敗した場合
+     */
+    private Object toBodyPublisher(HttpEntity entity, Queue<InputStream> pipes)
+            throws IOException, InvocationTargetException, IllegalAccessException {
+        if (entity == null) {
+            return API.noBody.invoke(null);
+        }
+        long length = entity.getContentLength();
+        if (length >= 0 && length <= BUFFERED_BODY_SIZE) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+            entity.writeTo(out);
+            return API.ofByteArray.invoke(null, (Object) out.toByteArray());
+        }
+        // multipartのボディはgetContentで読み込めないため、writeToで書き出したものをパイプで読み込ませる
+        Supplier<InputStream> supplier = () -> {
+            InputStream pipe = openPipe(entity);
+            pipes.add(pipe);
+            return pipe;
+        };
+        Object publisher = API.ofInputStream.invoke(null, supplier);
+        return length < 0 ? publisher : API.fromPublisher.invoke(null, publisher, length);
+    }
+
+    /**
+     * リクエストボディを別スレッドで書き出し、書き出した内容を読み込むストリームを開く。
+     *
+     * @param entity リクエストボディ
+     * @return 書き出した内容を読み込むストリーム、書き出しに失敗した場合は終端でその例外を送出する
+     */
+    private InputStream openPipe(HttpEntity entity) {
+        PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream out;
+        try {
+            out = new PipedOutputStream(in);
+        } catch (IOException e) {
+            // 未接続のパイプ同士のため発生しない
+            throw new IllegalStateException(e);
+        }
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        this.bodyWriter.execute(() -> {
+            try {
+                entity.writeTo(out);
+            } catch (IOException e) {
+                failure.set(e);
+            } catch (RuntimeException e) {
+                failure.set(new IOException("Failed to write request body: " + e.getMessage(), e));
+            } finally {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                }
+            }
+        });
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                return checkFailure(this.in.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return checkFailure(this.in.read(b, off, len));
+            }
+
+            /**
+             * 終端に達した場合、書き出しに失敗していればその例外を送出する。
+             *
+             * @param n 読み込み結果
+             * @return 読み込み結果
+             * @throws IOException 書き出しに失敗していた場合
+             */
+            private int checkFailure(int n) throws IOException {
+                IOException e = failure.get();
+                if (n < 0 && e != null) {
+                    throw e;
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * java.net.http.HttpResponseを、Apache HttpClientのレスポンスに変換する。
+     *
+     * @param request リクエスト
+     * @param response java.net.http.HttpResponse
+     * @param body レスポンスボディ
+     * @param metrics 記録先、記録しない場合null
+     * @return レスポンス
+     * @throws IOException レスポンスボディの展開に失敗した場合
+     * @throws InvocationTargetException java.net.httpが例外を送出した場合
+     * @throws IllegalAccessException java.net.httpの呼び出しに失敗した場合
+     */
+    private static CloseableHttpResponse toResponse(HttpUriRequest request, Object response, InputStream body,
+            HttpExchangeMetrics metrics) throws IOException, InvocationTargetException, IllegalAccessException {
+        int status = (Integer) API.statusCode.invoke(response);
+        if (metrics != null) {
+            metrics.onResponseHead(status);
+        }
+        String version = ((Enum<?>) API.version.invoke(response)).name();
+        logger.debug(LOG_MARKER, "JdkHttpTransport#execute : [version] = {}, [status] = {}", version, status);
+        JdkHttpResponse result = new JdkHttpResponse(new BasicStatusLine(
+                "HTTP_2".equals(version) ? HTTP_2 : HttpVersion.HTTP_1_1, status,
+                EnglishReasonPhraseCatalog.INSTANCE.getReason(status, Locale.ENGLISH)), body);
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> headers = (Map<String, List<String>>) API.headersMap
+                .invoke(API.headers.invoke(response));
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // HTTP/2の疑似ヘッダ(:status)は含めない
+            if (header.getKey().startsWith(":")) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                result.addHeader(header.getKey(), value);
+            }
+        }
+        if (request.getMethod().equals(HttpHead.METHOD_NAME) || status == HttpStatus.SC_NO_CONTENT
+                || status == HttpStatus.SC_NOT_MODIFIED) {
+            body.close();
+            return result;
+        }
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(body);
+        Header length = result.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+        try {
+            entity.setContentLength(length == null ? -1 : Long.parseLong(length.getValue()));
+        } catch (NumberFormatException e) {
+            entity.setContentLength(-1);
+        }
+        entity.setContentType(result.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+        entity.setContentEncoding(result.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        HttpEntity counted = metrics == null ? entity : metrics.countResponse(entity);
+        Header encoding = entity.getContentEncoding();
+        if (encoding != null && encoding.getValue().trim().equalsIgnoreCase(GZIP_ENCODING_NAME)) {
+            result.setEntity(new GzipDecompressingEntity(counted));
+        } else {
+            result.setEntity(counted);
+        }
+        return result;
+    }
+
+    /**
+     * java.net.httpが送出した例外を、Apache HttpClientが送出するものと同じ種類の例外に変換する。
+     *
+     * @param cause 例外
+     * @param uri 送信先URI
+     * @return 変換した例外
+     * @throws RuntimeException causeが非検査例外の場合
+     * @throws Error causeがErrorの場合
+     */
+    private static IOException translate(Throwable cause, URI uri) {
+        if (cause instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException e = new InterruptedIOException(cause.getMessage());
+            e.initCause(cause);
+            return e;
+        }
+        if (cause instanceof IllegalArgumentException) {
+            // ヘッダ名やメソッド名が不正な場合
+            return new ClientProtocolException(cause.getMessage(), cause);
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (!(cause instanceof IOException)) {
+            return new IOException(cause.getMessage(), cause);
+        }
+        if (isInstance(cause, "java.net.http.HttpConnectTimeoutException")) {
+            ConnectTimeoutException e = new ConnectTimeoutException(cause.getMessage());
+            e.initCause(cause);
+            return e;
+        }
+        if (isInstance(cause, "java.net.http.HttpTimeoutException")) {
+            SocketTimeoutException e = new SocketTimeoutException(cause.getMessage());
+            e.initCause(cause);
+            return e;
+        }
+        if (cause instanceof ConnectException) {
+            return new HttpHostConnectException((IOException) cause, URIUtils.extractHost(uri));
+        }
+        return (IOException) cause;
+    }
+
+    /**
+     * 例外が、名前で指定したクラスのインスタンスかを判定する。
+     *
+     * @param e 例外
+     * @param className クラス名
+     * @return インスタンスの場合true
+     */
+    private static boolean isInstance(Throwable e, String className) {
+        for (Class<?> type = e.getClass(); type != null; type = type.getSuperclass()) {
+            if (type.getName().equals(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 読み込みタイムアウトとabortに対応したレスポンスボディ
+     *
+     * java.net.httpのレスポンスボディは、クローズしても読み込み中のスレッドを解放しないため、
+     * タイムアウトまたはabortの際は、クローズに加えて読み込み中のスレッドに割り込みます。
+     * 割り込み状態は、読み込みから戻る際に解除されます。
+     */
+    private static class ResponseBodyInputStream extends FilterInputStream {
+        /** 1回の読み込みのタイムアウト (ms)、指定しない場合0 */
+        private final long timeout;
+
+        /** 読み込み中のスレッド、読み込み中でない場合null */
+        private Thread reader;
+
+        /** 読み込み中のスレッドに割り込んだ場合true */
+        private boolean interrupted;
+
+        /** タイムアウトまたはabortの理由、発生していない場合null */
+        private IOException failure;
+
+        /**
+         * レスポンスボディを作成する。
+         *
+         * @param in java.net.httpのレスポンスボディ
+         * @param timeout 1回の読み込みのタイムアウト (ms)、指定しない場合0
+         */
+        ResponseBodyInputStream(InputStream in, long timeout) {
+            super(in);
+            this.timeout = timeout;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            synchronized (this) {
+                if (this.failure != null) {
+                    throw this.failure;
+                }
+                this.reader = Thread.currentThread();
+            }
+            ScheduledFuture<?> expiry = this.timeout > 0 ? READ_TIMER.schedule(
+                    () -> fail(new SocketTimeoutException("Read timed out")), this.timeout, TimeUnit.MILLISECONDS)
+                    : null;
+            try {
+                return this.in.read(b, off, len);
+            } finally {
+                if (expiry != null) {
+                    expiry.cancel(false);
+                }
+                finish();
+            }
+        }
+
+        /**
+         * 読み込みを終了し、タイムアウトまたはabortが発生していた場合はその例外を送出する。
+         *
+         * @throws IOException タイムアウトまたはabortが発生していた場合
+         */
+        private synchronized void finish() throws IOException {
+            this.reader = null;
+            if (this.interrupted) {
+                this.interrupted = false;
+                Thread.interrupted();
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        }
+
+        /**
+         * タイムアウトまたはabortにより、レスポンスボディを閉じる。
+         *
+         * @param e 以降の読み込みで送出する例外
+         */
+        void fail(IOException e) {
+            synchronized (this) {
+                if (this.failure != null) {
+                    return;
+                }
+                this.failure = e;
+                if (this.reader != null) {
+                    this.reader.interrupt();
+                    this.interrupted = true;
+                }
+            }
+            closeQuietly(this.in);
+        }
+    }
+
+    /**
+     * java.net.http.HttpResponseを変換したレスポンス
+     *
+     * closeすると、読み込みの途中であってもレスポンスボディを閉じます。
+     */
+    private static class JdkHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        /** レスポンスボディ */
+        private final InputStream body;
+
+        /**
+         * レスポンスを作成する。
+         *
+         * @param statusLine ステータスライン
+         * @param body レスポンスボディ
+         */
+        JdkHttpResponse(BasicStatusLine statusLine, InputStream body) {
+            super(statusLine);
+            this.body = body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.body.close();
+        }
+    }
+}
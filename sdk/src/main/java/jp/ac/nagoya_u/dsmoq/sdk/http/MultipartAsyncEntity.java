@@ -0,0 +1,494 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+import org.reactivestreams.Publisher;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgressListener;
+
+/**
+ * 非ブロッキングに送信可能な multipart/form-data のエンティティ
+ *
+ * ファイルのパートは送信時にFileChannelから直接読み出され、ボディ全体をメモリ上に保持しません。
+ * Publisherのパートは送信時に購読され、送信できた分だけ次のデータを要求します。
+ * 長さの分からないPublisherのパートを含む場合、ボディはチャンク形式で送信されます。
+ * パートのヘッダはMultipartEntityBuilderのBROWSER_COMPATIBLEモードと同様に、UTF-8で出力します。
+ */
+public class MultipartAsyncEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+    /** ヘッダに用いる文字コード */
+    private static final Charset HEADER_CHARSET = StandardCharsets.UTF_8;
+
+    /** 改行 */
+    private static final String CRLF = "\r\n";
+
+    /** バウンダリに用いる文字 */
+    private static final char[] BOUNDARY_CHARS = "-_1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            .toCharArray();
+
+    /** バウンダリの長さ */
+    private static final int BOUNDARY_LENGTH = 30;
+
+    /** ファイル読み出しに用いるバッファサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** バウンダリ生成に用いる乱数 */
+    private static final Random RANDOM = new SecureRandom();
+
+    /**
+     * 送信するボディの断片 (ヘッダ等のバイト列、ファイル、あるいはPublisher)
+     */
+    private static final class Segment {
+        /** バイト列 (positionからlimitまでを送信する) */
+        private final ByteBuffer bytes;
+
+        /** ファイル */
+        private final File file;
+
+        /** Publisher */
+        private final PublisherContentSource source;
+
+        /**
+         * バイト列の断片を作成する。
+         *
+         * @param bytes バイト列
+         */
+        Segment(byte[] bytes) {
+            this(ByteBuffer.wrap(bytes));
+        }
+
+        /**
+         * バイト列の断片を作成する。
+         *
+         * @param bytes バイト列 (positionからlimitまで)
+         */
+        Segment(ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.file = null;
+            this.source = null;
+        }
+
+        /**
+         * ファイルの断片を作成する。
+         *
+         * @param file ファイル
+         */
+        Segment(File file) {
+            this.bytes = null;
+            this.file = file;
+            this.source = null;
+        }
+
+        /**
+         * Publisherの断片を作成する。
+         *
+         * @param source Publisherを購読する断片
+         */
+        Segment(PublisherContentSource source) {
+            this.bytes = null;
+            this.file = null;
+            this.source = source;
+        }
+
+        /**
+         * 断片の長さを取得する。
+         *
+         * @return 断片の長さ、不明な場合-1
+         */
+        long length() {
+            if (this.source != null) {
+                return this.source.length();
+            }
+            return this.bytes != null ? this.bytes.remaining() : this.file.length();
+        }
+    }
+
+    /**
+     * エンティティを構築するためのビルダー
+     */
+    public static class Builder {
+        /** バウンダリ */
+        private final String boundary;
+
+        /** 送信する断片 */
+        private final List<Segment> segments = new ArrayList<>();
+
+        /** 進捗を受け取るリスナー、通知しない場合null */
+        private UploadProgressListener listener;
+
+        /**
+         * ビルダーを作成する。
+         */
+        public Builder() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < BOUNDARY_LENGTH; i++) {
+                sb.append(BOUNDARY_CHARS[RANDOM.nextInt(BOUNDARY_CHARS.length)]);
+            }
+            this.boundary = sb.toString();
+        }
+
+        /**
+         * テキストのパートを追加する。
+         *
+         * @param name パート名
+         * @param text テキスト
+         * @param contentType テキストのContent-Type
+         * @return このビルダー
+         */
+        public Builder addTextBody(String name, String text, ContentType contentType) {
+            Charset charset = contentType.getCharset() == null ? StandardCharsets.US_ASCII : contentType.getCharset();
+            StringBuilder header = new StringBuilder();
+            header.append("--").append(this.boundary).append(CRLF);
+            header.append("Content-Disposition: form-data; name=\"").append(name).append("\"").append(CRLF);
+            header.append("Content-Type: ").append(contentType.toString()).append(CRLF);
+            header.append(CRLF);
+            this.segments.add(new Segment(header.toString().getBytes(HEADER_CHARSET)));
+            this.segments.add(new Segment(text.getBytes(charset)));
+            this.segments.add(new Segment(CRLF.getBytes(HEADER_CHARSET)));
+            return this;
+        }
+
+        /**
+         * テキストのパートを追加する。
+         *
+         * @param name パート名
+         * @param text テキスト
+         * @return このビルダー
+         */
+        public Builder addTextBody(String name, String text) {
+            return addTextBody(name, text, ContentType.DEFAULT_TEXT);
+        }
+
+        /**
+         * ファイルのパートを追加する。
+         *
+         * @param name パート名
+         * @param file ファイル
+         * @return このビルダー
+         */
+        public Builder addBinaryBody(String name, File file) {
+            return addBinaryBody(name, file.getName(), new Segment(file));
+        }
+
+        /**
+         * ファイル名を指定して、ファイルのパートを追加する。
+         *
+         * @param name パート名
+         * @param filename ファイル名
+         * @param file ファイル
+         * @return このビルダー
+         */
+        public Builder addBinaryBody(String name, String filename, File file) {
+            return addBinaryBody(name, filename, new Segment(file));
+        }
+
+        /**
+         * バイト列を内容とするファイルのパートを追加する。
+         *
+         * contentのpositionからlimitまでを、複製せずに送信します。送信が終わるまで内容を変更してはいけません。
+         *
+         * @param name パート名
+         * @param filename ファイル名
+         * @param content ファイルの内容
+         * @return このビルダー
+         */
+        public Builder addBinaryBody(String name, String filename, ByteBuffer content) {
+            return addBinaryBody(name, filename, new Segment(content.slice()));
+        }
+
+        /**
+         * Publisherが通知するデータを内容とするファイルのパートを追加する。
+         *
+         * Publisherは送信時に購読され、lengthと異なる長さのデータが通知された場合、送信は失敗します。
+         * lengthに-1を指定した場合、onCompleteまでに通知された全てのデータを送信し、ボディはチャンク形式で送信されます。
+         * このパートを含むエンティティは、一度しか送信できません。
+         *
+         * @param name パート名
+         * @param filename ファイル名
+         * @param length ファイルのバイト数、不明な場合-1
+         * @param publisher ファイルの内容を通知するPublisher
+         * @return このビルダー
+         */
+        public Builder addBinaryBody(String name, String filename, long length, Publisher<ByteBuffer> publisher) {
+            return addBinaryBody(name, filename, new Segment(new PublisherContentSource(publisher, length)));
+        }
+
+        /**
+         * ファイルのパートを追加する。
+         *
+         * @param name パート名
+         * @param filename ファイル名
+         * @param content ファイルの内容の断片
+         * @return このビルダー
+         */
+        private Builder addBinaryBody(String name, String filename, Segment content) {
+            StringBuilder header = new StringBuilder();
+            header.append("--").append(this.boundary).append(CRLF);
+            header.append("Content-Disposition: form-data; name=\"").append(name).append("\"; filename=\"")
+                    .append(filename).append("\"").append(CRLF);
+            header.append("Content-Type: ").append(ContentType.DEFAULT_BINARY.toString()).append(CRLF);
+            header.append(CRLF);
+            this.segments.add(new Segment(header.toString().getBytes(HEADER_CHARSET)));
+            this.segments.add(content);
+            this.segments.add(new Segment(CRLF.getBytes(HEADER_CHARSET)));
+            return this;
+        }
+
+        /**
+         * 送信の進捗を受け取るリスナーを設定する。
+         *
+         * リスナーはI/Oスレッドから呼び出されます。
+         *
+         * @param listener 進捗を受け取るリスナー
+         * @return このビルダー
+         */
+        public Builder progress(UploadProgressListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * エンティティを作成する。
+         *
+         * @return 作成したエンティティ
+         */
+        public MultipartAsyncEntity build() {
+            List<Segment> all = new ArrayList<>(this.segments);
+            all.add(new Segment(("--" + this.boundary + "--" + CRLF).getBytes(HEADER_CHARSET)));
+            return new MultipartAsyncEntity(this.boundary, all, this.listener);
+        }
+    }
+
+    /** 送信する断片 */
+    private final List<Segment> segments;
+
+    /** ボディ全体の長さ、不明な場合-1 */
+    private final long contentLength;
+
+    /** 進捗を受け取るリスナー、通知しない場合null */
+    private final UploadProgressListener listener;
+
+    /** 送信中の進捗の通知先、送信していない場合null */
+    private UploadProgressTracker tracker;
+
+    /** 送信中の断片のインデックス */
+    private int index;
+
+    /** 送信中の断片内の位置 */
+    private long position;
+
+    /** 送信中のファイルのチャネル */
+    private FileChannel channel;
+
+    /** ファイル読み出し用バッファ */
+    private ByteBuffer buffer;
+
+    /**
+     * エンティティを作成する。
+     *
+     * @param boundary バウンダリ
+     * @param segments 送信する断片
+     * @param listener 進捗を受け取るリスナー、通知しない場合null
+     */
+    private MultipartAsyncEntity(String boundary, List<Segment> segments, UploadProgressListener listener) {
+        this.segments = segments;
+        this.listener = listener;
+        long len = 0;
+        for (Segment segment : segments) {
+            if (segment.length() < 0) {
+                len = -1;
+                break;
+            }
+            len += segment.length();
+        }
+        this.contentLength = len;
+        setContentType(ContentType.MULTIPART_FORM_DATA.getMimeType() + "; boundary=" + boundary);
+        // 長さの分からないパートを含む場合は、チャンク形式で送信する
+        setChunked(len < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        for (Segment segment : this.segments) {
+            if (segment.source != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return this.contentLength;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        throw new UnsupportedOperationException("Multipart form entity does not implement #getContent()");
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        for (Segment segment : this.segments) {
+            if (segment.source != null) {
+                throw new UnsupportedOperationException("Publisher part can only be sent asynchronously");
+            } else if (segment.bytes != null) {
+                Channels.newChannel(outstream).write(segment.bytes.duplicate());
+            } else {
+                try (FileChannel ch = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ)) {
+                    ch.transferTo(0, ch.size(), Channels.newChannel(outstream));
+                }
+            }
+        }
+        outstream.flush();
+    }
+
+    @Override
+    public synchronized void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (this.listener != null && this.tracker == null) {
+            this.tracker = new UploadProgressTracker(this.listener, this.contentLength);
+        }
+        while (this.index < this.segments.size()) {
+            Segment segment = this.segments.get(this.index);
+            long length = segment.length();
+            if (length < 0) {
+                // 長さの分からないPublisherは、onCompleteまで送信する
+                long written = segment.source.write(encoder, ioctrl);
+                this.position += written;
+                addProgress(written);
+                if (!segment.source.isFinished()) {
+                    return;
+                }
+            } else if (length - this.position > 0) {
+                long remaining = length - this.position;
+                long written;
+                if (segment.source != null) {
+                    written = segment.source.write(encoder, ioctrl);
+                } else {
+                    written = segment.bytes != null ? writeBytes(encoder, segment.bytes)
+                            : writeFile(encoder, segment.file, remaining);
+                }
+                this.position += written;
+                addProgress(written);
+                if (written < remaining) {
+                    // 送信バッファが一杯になった(あるいはPublisherからのデータを待つ)ため、次の書き込み可能通知まで待つ
+                    return;
+                }
+            }
+            closeChannel();
+            this.index++;
+            this.position = 0;
+        }
+        encoder.complete();
+        if (this.tracker != null) {
+            this.tracker.complete();
+        }
+        close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+        for (Segment segment : this.segments) {
+            if (segment.source != null) {
+                segment.source.cancel();
+            }
+        }
+        this.index = 0;
+        this.position = 0;
+        this.buffer = null;
+        this.tracker = null;
+    }
+
+    /**
+     * 送信したバイト数を、進捗の通知先に加算する。
+     *
+     * @param written 送信したバイト数
+     */
+    private void addProgress(long written) {
+        if (this.tracker != null && written > 0) {
+            this.tracker.add(written);
+        }
+    }
+
+    /**
+     * バイト列の断片を送信する。
+     *
+     * @param encoder エンコーダ
+     * @param bytes バイト列
+     * @return 送信したバイト数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private long writeBytes(ContentEncoder encoder, ByteBuffer bytes) throws IOException {
+        ByteBuffer src = bytes.duplicate();
+        src.position(src.position() + (int) this.position);
+        return encoder.write(src);
+    }
+
+    /**
+     * ファイルの断片を送信する。
+     *
+     * @param encoder エンコーダ
+     * @param file ファイル
+     * @param remaining 断片の残りのバイト数
+     * @return 送信したバイト数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private long writeFile(ContentEncoder encoder, File file, long remaining) throws IOException {
+        if (this.channel == null) {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        if (encoder instanceof FileContentEncoder) {
+            // ファイルからソケットへ直接転送する
+            return ((FileContentEncoder) encoder).transfer(this.channel, this.position, remaining);
+        }
+        if (this.buffer == null) {
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        this.buffer.clear();
+        this.buffer.limit((int) Math.min(BUFFER_SIZE, remaining));
+        int read = this.channel.read(this.buffer, this.position);
+        if (read < 0) {
+            throw new IOException("Unexpected end of file: " + file);
+        }
+        this.buffer.flip();
+        return encoder.write(this.buffer);
+    }
+
+    /**
+     * 送信中のファイルのチャネルを閉じる。
+     */
+    private void closeChannel() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // do nothing
+            }
+            this.channel = null;
+        }
+    }
+}
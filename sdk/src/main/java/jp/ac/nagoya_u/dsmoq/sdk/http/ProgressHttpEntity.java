@@ -0,0 +1,50 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgressListener;
+
+/**
+ * 書き出したバイト数をアップロードの進捗としてリスナーへ通知するエンティティ
+ *
+ * 同期クライアントのリクエストボディを包んで用います。書き出すたびに、送信済みのバイト数を0から数え直します。
+ */
+public class ProgressHttpEntity extends HttpEntityWrapper {
+    /** 進捗を受け取るリスナー */
+    private final UploadProgressListener listener;
+
+    /**
+     * エンティティを作成する。
+     *
+     * @param entity 包むエンティティ
+     * @param listener 進捗を受け取るリスナー
+     */
+    public ProgressHttpEntity(HttpEntity entity, UploadProgressListener listener) {
+        super(entity);
+        this.listener = listener;
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        UploadProgressTracker tracker = new UploadProgressTracker(this.listener, getContentLength());
+        this.wrappedEntity.writeTo(new FilterOutputStream(outstream) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                tracker.add(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                tracker.add(len);
+            }
+        });
+        tracker.complete();
+    }
+}
@@ -0,0 +1,178 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publisherを購読し、受け取ったデータを送信するリクエストボディの断片
+ *
+ * 送信バッファに書き込めた分だけ次のデータを要求するため、送信が滞っている間はPublisherへの需要も止まります。
+ * 送信するデータがない間はソケットへの書き込みを停止し、onNextで再開します。
+ */
+class PublisherContentSource implements Subscriber<ByteBuffer> {
+    /** 同時に要求するデータの件数 */
+    private static final int PREFETCH = 4;
+
+    /** 購読するPublisher */
+    private final Publisher<ByteBuffer> publisher;
+
+    /** 送信するバイト数、不明な場合-1 */
+    private final long length;
+
+    /** 受け取り、まだ送信していないデータ */
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+
+    /** 購読、購読開始前の場合null */
+    private volatile Subscription subscription;
+
+    /** 書き込みを再開させるI/O制御、送信開始前の場合null */
+    private volatile IOControl ioctrl;
+
+    /** Publisherが全てのデータを通知し終えたか否か */
+    private volatile boolean completed;
+
+    /** Publisherで発生したエラー、発生していない場合null */
+    private volatile Throwable error;
+
+    /** 送信済みのバイト数 (I/Oスレッドからのみ参照する) */
+    private long written;
+
+    /** 全てのデータを送信し終えたか否か (I/Oスレッドからのみ参照する) */
+    private boolean finished;
+
+    /**
+     * 断片を作成する。
+     *
+     * @param publisher 送信するデータのPublisher
+     * @param length 送信するバイト数、不明な場合-1 (onCompleteまでに通知された全てのデータを送信する)
+     */
+    PublisherContentSource(Publisher<ByteBuffer> publisher, long length) {
+        this.publisher = publisher;
+        this.length = length;
+    }
+
+    /**
+     * 送信するバイト数を取得する。
+     *
+     * @return 送信するバイト数、不明な場合-1
+     */
+    long length() {
+        return this.length;
+    }
+
+    /**
+     * 全てのデータを送信し終えたか否かを取得する。
+     *
+     * @return Publisherが通知した全てのデータを送信し終えた場合true
+     */
+    boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * 受け取り済みのデータを、送信バッファに書き込める分だけ送信する。
+     *
+     * 初回の呼び出し時にPublisherを購読します。
+     * 書き込めなかった場合、送信バッファの空き、あるいは次のデータの受け取りを待ってから再び呼び出されます。
+     *
+     * @param encoder エンコーダ
+     * @param ioctrl I/O制御
+     * @return 送信したバイト数
+     * @throws IOException Publisherでエラーが発生した場合、あるいは通知されたデータの長さが異なる場合
+     */
+    long write(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (this.ioctrl == null) {
+            this.ioctrl = ioctrl;
+            this.publisher.subscribe(this);
+        }
+        long before = this.written;
+        while (true) {
+            ByteBuffer head = this.queue.peek();
+            if (head == null) {
+                if (this.error != null) {
+                    throw new IOException("failed to read request content from publisher", this.error);
+                }
+                if (this.completed) {
+                    if (!this.queue.isEmpty()) {
+                        // onCompleteの直前に通知されたデータを送信する
+                        continue;
+                    }
+                    if (this.length >= 0 && this.written != this.length) {
+                        throw new IOException("publisher completed after " + this.written + " of " + this.length
+                                + " bytes");
+                    }
+                    this.finished = true;
+                    break;
+                }
+                // 受け取り済みのデータがないため、onNextまで書き込みを停止する
+                ioctrl.suspendOutput();
+                if (!this.queue.isEmpty() || this.completed || this.error != null) {
+                    ioctrl.requestOutput();
+                }
+                break;
+            }
+            if (this.length >= 0 && this.written + head.remaining() > this.length) {
+                throw new IOException("publisher emitted more than " + this.length + " bytes");
+            }
+            int n = encoder.write(head);
+            this.written += n;
+            if (head.hasRemaining()) {
+                // 送信バッファが一杯になったため、次の書き込み可能通知まで待つ
+                break;
+            }
+            this.queue.poll();
+            Subscription s = this.subscription;
+            if (s != null) {
+                s.request(1);
+            }
+        }
+        return this.written - before;
+    }
+
+    /**
+     * 送信を中止し、購読を取り消す。
+     */
+    void cancel() {
+        Subscription s = this.subscription;
+        if (s != null && !this.completed && this.error == null) {
+            s.cancel();
+        }
+        this.queue.clear();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(PREFETCH);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        this.queue.add(item);
+        this.ioctrl.requestOutput();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.error = throwable;
+        this.ioctrl.requestOutput();
+    }
+
+    @Override
+    public void onComplete() {
+        this.completed = true;
+        this.ioctrl.requestOutput();
+    }
+}
@@ -0,0 +1,75 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+
+/**
+ * レスポンスボディを受信した順にByteBufferとして通知するレスポンス処理
+ *
+ * 各通知はI/Oスレッドから行われるため、ブロックする処理を行ってはいけません。
+ *
+ * @param <T> レスポンス処理結果の型
+ */
+public abstract class StreamingResponseConsumer<T> extends AsyncResponseConsumer<T> {
+    /** 受信に用いるバッファサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 受信用バッファ */
+    private ByteBuffer buffer;
+
+    @Override
+    protected final void onBodyStart(HttpResponse response) throws IOException {
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        onStart(response);
+    }
+
+    @Override
+    protected final void onBodyContent(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        while (decoder.read(this.buffer) > 0) {
+            this.buffer.flip();
+            onContent(this.buffer.asReadOnlyBuffer());
+            this.buffer.clear();
+        }
+    }
+
+    @Override
+    protected final T onBodyComplete(HttpResponse response) throws Exception {
+        return onComplete(response);
+    }
+
+    @Override
+    protected void onRelease() {
+        this.buffer = null;
+    }
+
+    /**
+     * レスポンスボディの受信開始時に呼び出される。
+     *
+     * @param response 受信したレスポンス
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    protected abstract void onStart(HttpResponse response) throws IOException;
+
+    /**
+     * レスポンスボディを受信した際に呼び出される。
+     *
+     * 渡されたバッファはこの呼び出しの間のみ有効です。
+     *
+     * @param buffer 受信したデータ
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    protected abstract void onContent(ByteBuffer buffer) throws IOException;
+
+    /**
+     * レスポンスボディの受信完了時に呼び出される。
+     *
+     * @param response 受信したレスポンス
+     * @return 処理結果
+     * @throws Exception 処理結果の作成に失敗した場合
+     */
+    protected abstract T onComplete(HttpResponse response) throws Exception;
+}
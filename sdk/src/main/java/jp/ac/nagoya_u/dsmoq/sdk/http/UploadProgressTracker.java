@@ -0,0 +1,76 @@
+package jp.ac.nagoya_u.dsmoq.sdk.http;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgress;
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgressListener;
+
+/**
+ * リクエストボディの送信バイト数を数え、一定のバイト数ごとにリスナーへ進捗を通知する。
+ *
+ * 1回の送信につき1つ作成し、送信を行うスレッドからのみ呼び出します。
+ */
+class UploadProgressTracker {
+    /** 進捗を通知する間隔のバイト数 */
+    private static final long REPORT_INTERVAL_BYTES = 256 * 1024;
+
+    /** 進捗を受け取るリスナー */
+    private final UploadProgressListener listener;
+
+    /** 送信するバイト数の合計、不明な場合-1 */
+    private final long totalBytes;
+
+    /** 送信を開始した時刻、開始していない場合-1 */
+    private long startTime = -1;
+
+    /** 送信済みのバイト数 */
+    private long sentBytes;
+
+    /** 最後に通知した時点の送信済みのバイト数 */
+    private long reportedBytes;
+
+    /**
+     * 進捗の通知先を作成する。
+     *
+     * @param listener 進捗を受け取るリスナー
+     * @param totalBytes 送信するバイト数の合計、不明な場合-1
+     */
+    UploadProgressTracker(UploadProgressListener listener, long totalBytes) {
+        this.listener = listener;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * 送信したバイト数を加算する。
+     *
+     * @param bytes 送信したバイト数
+     */
+    void add(long bytes) {
+        if (this.startTime < 0) {
+            this.startTime = System.nanoTime();
+        }
+        this.sentBytes += bytes;
+        if (this.sentBytes - this.reportedBytes >= REPORT_INTERVAL_BYTES) {
+            report(false);
+        }
+    }
+
+    /**
+     * 送信の完了を通知する。
+     */
+    void complete() {
+        if (this.startTime < 0) {
+            this.startTime = System.nanoTime();
+        }
+        report(true);
+    }
+
+    /**
+     * 現在の進捗を通知する。
+     *
+     * @param completed 送信が完了したか否か
+     */
+    private void report(boolean completed) {
+        this.reportedBytes = this.sentBytes;
+        this.listener.onProgress(
+                new UploadProgress(this.sentBytes, this.totalBytes, System.nanoTime() - this.startTime, completed));
+    }
+}
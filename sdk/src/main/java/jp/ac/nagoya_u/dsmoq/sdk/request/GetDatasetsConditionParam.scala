@@ -57,23 +57,37 @@ class GetDatasetsConditionParam(
   def this() = this(Optional.empty(), Optional.empty())
 
   def toJsonString: String = {
-    if (addCondition.nonEmpty) {
-      orCondition += JObject(
+    toJsonString(limit.toOption.getOrElse(new Integer(20)).intValue(), offset.toOption.getOrElse(new Integer(0)).intValue())
+  }
+
+  /**
+   * 検索条件はそのままに、取得件数と開始位置を指定してJSON文字列を作成する。
+   *
+   * @param limit 取得件数
+   * @param offset 開始位置
+   * @return JSON文字列
+   */
+  def toJsonString(limit: Int, offset: Int): String = {
+    // 繰り返し呼び出せるよう、未確定のAND条件はorConditionに追加せずに扱う
+    val conditions = if (addCondition.nonEmpty) {
+      orCondition.toList :+ JObject(
         List(
           "operator" -> JString("and"),
           "value" -> JArray(addCondition.toList)
         )
       )
+    } else {
+      orCondition.toList
     }
     val jsonData = JObject(
       "query" -> JObject(
         List(
           "operator" -> JString("or"),
-          "value" -> JArray(orCondition.toList)
+          "value" -> JArray(conditions)
         )
       ),
-      "limit" -> JInt(limit.toOption.getOrElse(new Integer(20)).intValue()),
-      "offset" -> JInt(offset.toOption.getOrElse(new Integer(0)).intValue())
+      "limit" -> JInt(limit),
+      "offset" -> JInt(offset)
     )
     JsonMethods.compact(JsonMethods.render(jsonData))
   }
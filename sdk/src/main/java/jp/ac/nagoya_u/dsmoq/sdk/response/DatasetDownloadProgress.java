@@ -0,0 +1,116 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+/**
+ * データセットのダウンロードの進捗を表します。
+ */
+public class DatasetDownloadProgress {
+    /** ダウンロード対象のファイル数 (スキップしたファイルを含む) */
+    private final int totalFiles;
+
+    /** ダウンロードが完了したファイル数 */
+    private final int completedFiles;
+
+    /** スキップしたファイル数 */
+    private final int skippedFiles;
+
+    /** ダウンロードするファイルの合計サイズ (スキップしたファイルを含まない) */
+    private final long totalBytes;
+
+    /** 受信したバイト数 */
+    private final long downloadedBytes;
+
+    /** 開始からの経過時間 (ms) */
+    private final long elapsed;
+
+    /**
+     * 進捗を作成します。
+     *
+     * @param totalFiles ダウンロード対象のファイル数 (スキップしたファイルを含む)
+     * @param completedFiles ダウンロードが完了したファイル数
+     * @param skippedFiles スキップしたファイル数
+     * @param totalBytes ダウンロードするファイルの合計サイズ (スキップしたファイルを含まない)
+     * @param downloadedBytes 受信したバイト数
+     * @param elapsed 開始からの経過時間 (ms)
+     */
+    public DatasetDownloadProgress(int totalFiles, int completedFiles, int skippedFiles, long totalBytes,
+            long downloadedBytes, long elapsed) {
+        this.totalFiles = totalFiles;
+        this.completedFiles = completedFiles;
+        this.skippedFiles = skippedFiles;
+        this.totalBytes = totalBytes;
+        this.downloadedBytes = downloadedBytes;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * ダウンロード対象のファイル数を取得します。
+     *
+     * @return ファイル数 (スキップしたファイルを含む)
+     */
+    public int getTotalFiles() {
+        return this.totalFiles;
+    }
+
+    /**
+     * ダウンロードが完了したファイル数を取得します。
+     *
+     * @return ファイル数
+     */
+    public int getCompletedFiles() {
+        return this.completedFiles;
+    }
+
+    /**
+     * 既に存在したためスキップしたファイル数を取得します。
+     *
+     * @return ファイル数
+     */
+    public int getSkippedFiles() {
+        return this.skippedFiles;
+    }
+
+    /**
+     * ダウンロードするファイルの合計サイズを取得します。
+     *
+     * @return 合計サイズ (byte)、スキップしたファイルを含まない
+     */
+    public long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * 受信したバイト数を取得します。
+     *
+     * @return 受信したバイト数
+     */
+    public long getDownloadedBytes() {
+        return this.downloadedBytes;
+    }
+
+    /**
+     * 開始からの経過時間を取得します。
+     *
+     * @return 経過時間 (ms)
+     */
+    public long getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * 開始からの平均転送速度を取得します。
+     *
+     * @return 転送速度 (byte/s)、経過時間が0の場合0
+     */
+    public double getBytesPerSecond() {
+        return this.elapsed <= 0 ? 0 : this.downloadedBytes * 1000.0 / this.elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DatasetDownloadProgress(totalFiles=%d, completedFiles=%d, skippedFiles=%d, totalBytes=%d, "
+                        + "downloadedBytes=%d, elapsed=%d)",
+                this.totalFiles, this.completedFiles, this.skippedFiles, this.totalBytes, this.downloadedBytes,
+                this.elapsed);
+    }
+}
@@ -0,0 +1,104 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * データセットの全ファイルをダウンロードした結果を表します。
+ */
+public class DatasetDownloadResult {
+    /** 書き出し先ディレクトリ */
+    private final Path targetDir;
+
+    /** ダウンロードした各ファイルの結果 (完了順) */
+    private final List<DownloadResult> files;
+
+    /** 既に存在したためスキップしたファイルのパス */
+    private final List<Path> skipped;
+
+    /** 受信したバイト数 */
+    private final long downloadedBytes;
+
+    /** 所要時間 (ms) */
+    private final long elapsed;
+
+    /**
+     * ダウンロード結果を作成します。
+     *
+     * @param targetDir 書き出し先ディレクトリ
+     * @param files ダウンロードした各ファイルの結果
+     * @param skipped スキップしたファイルのパス
+     * @param downloadedBytes 受信したバイト数
+     * @param elapsed 所要時間 (ms)
+     */
+    public DatasetDownloadResult(Path targetDir, List<DownloadResult> files, List<Path> skipped,
+            long downloadedBytes, long elapsed) {
+        this.targetDir = targetDir;
+        this.files = Collections.unmodifiableList(files);
+        this.skipped = Collections.unmodifiableList(skipped);
+        this.downloadedBytes = downloadedBytes;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * 書き出し先ディレクトリを取得します。
+     *
+     * @return 書き出し先ディレクトリ
+     */
+    public Path getTargetDir() {
+        return this.targetDir;
+    }
+
+    /**
+     * ダウンロードした各ファイルの結果を取得します。
+     *
+     * @return 各ファイルの結果 (完了順)
+     */
+    public List<DownloadResult> getFiles() {
+        return this.files;
+    }
+
+    /**
+     * 既に存在したためスキップしたファイルのパスを取得します。
+     *
+     * @return スキップしたファイルのパス
+     */
+    public List<Path> getSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     * 受信したバイト数を取得します。
+     *
+     * @return 受信したバイト数
+     */
+    public long getDownloadedBytes() {
+        return this.downloadedBytes;
+    }
+
+    /**
+     * 所要時間を取得します。
+     *
+     * @return 所要時間 (ms)
+     */
+    public long getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * 平均転送速度を取得します。
+     *
+     * @return 転送速度 (byte/s)、所要時間が0の場合0
+     */
+    public double getBytesPerSecond() {
+        return this.elapsed <= 0 ? 0 : this.downloadedBytes * 1000.0 / this.elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DatasetDownloadResult(targetDir=%s, files=%d, skipped=%d, downloadedBytes=%d, elapsed=%d)",
+                this.targetDir, this.files.size(), this.skipped.size(), this.downloadedBytes, this.elapsed);
+    }
+}
@@ -3,6 +3,14 @@ package jp.ac.nagoya_u.dsmoq.sdk.response;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChannelUtil;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChecksumMismatchException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+import jp.ac.nagoya_u.dsmoq.sdk.util.StreamingDigest;
 
 /**
  * データセットから取得したファイルを表します。
@@ -35,4 +43,94 @@ public interface DatasetFileContent {
      * @throws IOException 入出力エラーが発生した場合
      */
     void writeTo(OutputStream os) throws IOException;
+
+    /**
+     * ファイルの内容を指定されたストリームへ書き込み、書き込んだ内容のチェックサムを算出します。
+     * 
+     * チェックサムは書き込みと同時に算出するため、書き込んだ内容を読み直す必要はありません。
+     * 
+     * @param os 出力先ストリーム
+     * @param algorithm チェックサムのアルゴリズム
+     * @return チェックサム (小文字の16進数文字列)
+     * @throws NullPointerException algorithmがnullの場合
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    default String writeTo(OutputStream os, DigestAlgorithm algorithm) throws IOException {
+        StreamingDigest digest = StreamingDigest.of(algorithm);
+        writeTo(digest.wrap(os));
+        return digest.toHex();
+    }
+
+    /**
+     * ファイルの内容を指定されたストリームへ書き込み、書き込んだ内容のチェックサムが期待値と一致することを確認します。
+     * 
+     * 一致しない場合も、内容は全て書き込まれた後に例外となります。
+     * 
+     * @param os 出力先ストリーム
+     * @param algorithm チェックサムのアルゴリズム
+     * @param expected 期待値 (16進数文字列、大文字・小文字は区別しない)
+     * @return チェックサム (小文字の16進数文字列)
+     * @throws NullPointerException algorithmがnullの場合
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws ChecksumMismatchException チェックサムが期待値と一致しない場合
+     */
+    default String writeTo(OutputStream os, DigestAlgorithm algorithm, String expected) throws IOException {
+        String actual = writeTo(os, algorithm);
+        StreamingDigest.verify(algorithm, expected, actual);
+        return actual;
+    }
+
+    /**
+     * ファイルの内容をチャネルとして取得します。
+     * 
+     * ByteBufferで読み込む場合に使用します。
+     * getContentメソッドとはいずれか一方のみ利用できます。
+     * レスポンスボディを直接読み込む場合、チャネルはgetContentのストリームを包んだものであり、
+     * 読み込んだ内容はストリーム内部のヒープ上の配列を経由してバッファへ複写されます。
+     * 
+     * @return ファイルの内容を表すチャネル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    default ReadableByteChannel getChannel() throws IOException {
+        return Channels.newChannel(getContent());
+    }
+
+    /**
+     * ファイルの内容を、指定されたファイルの指定位置から書き込みます。
+     * 
+     * デフォルトの実装は、getChannelから読み込んだ内容をダイレクトバッファ経由で書き込みます。
+     * 書き込み時の一時バッファへの複写は発生しませんが、getChannelがストリームを包んだものである場合、
+     * 読み込み時にはヒープ上の配列を経由します。
+     * 一時ファイルに書き出された内容(非同期クライアント)の場合は、FileChannel#transferFromで転送します。
+     * 
+     * @param target 書き出し先ファイルのチャネル
+     * @param position 書き込みを開始する位置
+     * @return 書き込んだバイト数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    default long transferTo(FileChannel target, long position) throws IOException {
+        try (ReadableByteChannel channel = getChannel()) {
+            return ChannelUtil.transfer(channel, target, position);
+        }
+    }
+
+    /**
+     * レスポンスで宣言された内容のサイズを取得します。
+     * 
+     * 部分的に取得した場合は、取得した範囲のサイズです。
+     * 
+     * @return 内容のサイズ (byte)、不明な場合-1
+     */
+    default long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * 取得した内容の、ファイル先頭からの開始位置を取得します。
+     * 
+     * @return 開始位置 (byte)、範囲を指定せずに取得した場合0
+     */
+    default long getRangeOffset() {
+        return 0;
+    }
 }
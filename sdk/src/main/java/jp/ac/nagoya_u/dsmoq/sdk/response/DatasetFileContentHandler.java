@@ -0,0 +1,40 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * データセットから取得したファイルの内容を、受信した順に処理するハンドラを表します。
+ *
+ * 各メソッドは受信を行うI/Oスレッドから呼び出されるため、ブロックする処理を行ってはいけません。
+ *
+ * @param <T> 処理結果の型
+ */
+public interface DatasetFileContentHandler<T> {
+    /**
+     * ファイルの受信開始時に呼び出されます。
+     *
+     * @param name ファイルに設定されているファイル名、ない場合null
+     * @param contentLength ファイルの内容の長さ、不明な場合負数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    void onStart(String name, long contentLength) throws IOException;
+
+    /**
+     * ファイルの内容を受信した際に呼び出されます。
+     *
+     * 渡されたバッファはこの呼び出しの間のみ有効です。
+     *
+     * @param buffer 受信したファイルの内容
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    void onContent(ByteBuffer buffer) throws IOException;
+
+    /**
+     * ファイルの受信完了時に呼び出されます。
+     *
+     * @return 処理結果
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    T onComplete() throws IOException;
+}
@@ -0,0 +1,109 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ディレクトリをデータセットへ同期した結果を表します。
+ */
+public class DatasetSyncResult {
+    /** 追加したファイル */
+    private final List<DatasetFile> added;
+
+    /** 更新したファイル */
+    private final List<DatasetFile> updated;
+
+    /** 削除したファイルの名前 */
+    private final List<String> deleted;
+
+    /** 変更がなかったファイル数 */
+    private final int unchanged;
+
+    /** 送信したファイルの合計サイズ */
+    private final long uploadedBytes;
+
+    /** 所要時間 (ms) */
+    private final long elapsed;
+
+    /**
+     * 同期結果を作成します。
+     *
+     * @param added 追加したファイル
+     * @param updated 更新したファイル
+     * @param deleted 削除したファイルの名前
+     * @param unchanged 変更がなかったファイル数
+     * @param uploadedBytes 送信したファイルの合計サイズ
+     * @param elapsed 所要時間 (ms)
+     */
+    public DatasetSyncResult(List<DatasetFile> added, List<DatasetFile> updated, List<String> deleted,
+            int unchanged, long uploadedBytes, long elapsed) {
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.deleted = Collections.unmodifiableList(deleted);
+        this.unchanged = unchanged;
+        this.uploadedBytes = uploadedBytes;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * 追加したファイルを取得します。
+     *
+     * @return 追加したファイル
+     */
+    public List<DatasetFile> getAdded() {
+        return this.added;
+    }
+
+    /**
+     * 更新したファイルを取得します。
+     *
+     * @return 更新したファイル
+     */
+    public List<DatasetFile> getUpdated() {
+        return this.updated;
+    }
+
+    /**
+     * 削除したファイルの名前を取得します。
+     *
+     * @return 削除したファイルの名前
+     */
+    public List<String> getDeleted() {
+        return this.deleted;
+    }
+
+    /**
+     * 変更がなかったファイル数を取得します。
+     *
+     * @return ファイル数
+     */
+    public int getUnchanged() {
+        return this.unchanged;
+    }
+
+    /**
+     * 送信したファイルの合計サイズを取得します。
+     *
+     * @return 合計サイズ (byte)
+     */
+    public long getUploadedBytes() {
+        return this.uploadedBytes;
+    }
+
+    /**
+     * 所要時間を取得します。
+     *
+     * @return 所要時間 (ms)
+     */
+    public long getElapsed() {
+        return this.elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DatasetSyncResult(added=%d, updated=%d, deleted=%d, unchanged=%d, uploadedBytes=%d, elapsed=%d)",
+                this.added.size(), this.updated.size(), this.deleted.size(), this.unchanged, this.uploadedBytes,
+                this.elapsed);
+    }
+}
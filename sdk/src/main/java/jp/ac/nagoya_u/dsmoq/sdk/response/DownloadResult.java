@@ -0,0 +1,149 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+import java.nio.file.Path;
+
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+
+/**
+ * ファイルをダウンロードした結果を表します。
+ */
+public class DownloadResult {
+    /** 書き出し先ファイル */
+    private final Path path;
+
+    /** ファイルに設定されているファイル名 */
+    private final String name;
+
+    /** ファイルサイズ */
+    private final long size;
+
+    /** 送信したリクエスト数 */
+    private final int requestCount;
+
+    /** 以前のダウンロードから引き継いだサイズ */
+    private final long resumedSize;
+
+    /** チェックサムのアルゴリズム */
+    private final DigestAlgorithm checksumAlgorithm;
+
+    /** チェックサム */
+    private final String checksum;
+
+    /**
+     * ダウンロード結果を作成します。
+     *
+     * @param path 書き出し先ファイル
+     * @param name ファイルに設定されているファイル名、ない場合null
+     * @param size ファイルサイズ
+     * @param requestCount 送信したリクエスト数
+     */
+    public DownloadResult(Path path, String name, long size, int requestCount) {
+        this(path, name, size, requestCount, 0L);
+    }
+
+    /**
+     * ダウンロード結果を作成します。
+     *
+     * @param path 書き出し先ファイル
+     * @param name ファイルに設定されているファイル名、ない場合null
+     * @param size ファイルサイズ
+     * @param requestCount 送信したリクエスト数
+     * @param resumedSize 以前のダウンロードから引き継いだサイズ
+     */
+    public DownloadResult(Path path, String name, long size, int requestCount, long resumedSize) {
+        this(path, name, size, requestCount, resumedSize, null, null);
+    }
+
+    /**
+     * ダウンロード結果を作成します。
+     *
+     * @param path 書き出し先ファイル
+     * @param name ファイルに設定されているファイル名、ない場合null
+     * @param size ファイルサイズ
+     * @param requestCount 送信したリクエスト数
+     * @param resumedSize 以前のダウンロードから引き継いだサイズ
+     * @param checksumAlgorithm チェックサムのアルゴリズム、算出していない場合null
+     * @param checksum チェックサム (小文字の16進数文字列)、算出していない場合null
+     */
+    public DownloadResult(Path path, String name, long size, int requestCount, long resumedSize,
+            DigestAlgorithm checksumAlgorithm, String checksum) {
+        this.path = path;
+        this.name = name;
+        this.size = size;
+        this.requestCount = requestCount;
+        this.resumedSize = resumedSize;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.checksum = checksum;
+    }
+
+    /**
+     * 書き出し先ファイルを取得します。
+     *
+     * @return 書き出し先ファイル
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * ファイルに設定されているファイル名を取得します。
+     *
+     * @return 設定されているファイル名、ない場合null
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * ファイルサイズを取得します。
+     *
+     * @return ファイルサイズ (byte)
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * ダウンロードのために送信したリクエスト数を取得します。
+     *
+     * @return 送信したリクエスト数
+     */
+    public int getRequestCount() {
+        return this.requestCount;
+    }
+
+    /**
+     * 中断したダウンロードを再開した場合に、以前のダウンロードから引き継いだサイズを取得します。
+     *
+     * @return 引き継いだサイズ (byte)、再開していない場合0
+     */
+    public long getResumedSize() {
+        return this.resumedSize;
+    }
+
+    /**
+     * チェックサムのアルゴリズムを取得します。
+     *
+     * @return アルゴリズム、算出していない場合null
+     */
+    public DigestAlgorithm getChecksumAlgorithm() {
+        return this.checksumAlgorithm;
+    }
+
+    /**
+     * ダウンロード中に算出したファイル全体のチェックサムを取得します。
+     *
+     * @return チェックサム (小文字の16進数文字列)、算出していない場合null
+     */
+    public String getChecksum() {
+        return this.checksum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DownloadResult(path=%s, name=%s, size=%d, requestCount=%d, resumedSize=%d, checksum=%s:%s)",
+                this.path, this.name, this.size, this.requestCount, this.resumedSize, this.checksumAlgorithm,
+                this.checksum);
+    }
+}
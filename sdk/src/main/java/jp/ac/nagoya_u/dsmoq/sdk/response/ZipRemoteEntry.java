@@ -0,0 +1,145 @@
+package jp.ac.nagoya_u.dsmoq.sdk.response;
+
+/**
+ * データセット上のZIPファイルの、セントラルディレクトリに記録されたエントリを表します。
+ */
+public class ZipRemoteEntry {
+    /** 圧縮方式: 無圧縮 */
+    public static final int STORED = 0;
+
+    /** 圧縮方式: Deflate */
+    public static final int DEFLATED = 8;
+
+    /** エントリ名 */
+    private final String name;
+
+    /** 展開後のサイズ */
+    private final long size;
+
+    /** 圧縮後のサイズ */
+    private final long compressedSize;
+
+    /** 圧縮方式 */
+    private final int method;
+
+    /** 展開後の内容のCRC-32 */
+    private final long crc;
+
+    /** 汎用フラグ */
+    private final int flags;
+
+    /** ローカルファイルヘッダの、ZIPファイル先頭からの位置 */
+    private final long localHeaderOffset;
+
+    /**
+     * エントリを作成します。
+     *
+     * @param name エントリ名
+     * @param size 展開後のサイズ
+     * @param compressedSize 圧縮後のサイズ
+     * @param method 圧縮方式
+     * @param crc 展開後の内容のCRC-32
+     * @param flags 汎用フラグ
+     * @param localHeaderOffset ローカルファイルヘッダの、ZIPファイル先頭からの位置
+     */
+    public ZipRemoteEntry(String name, long size, long compressedSize, int method, long crc, int flags,
+            long localHeaderOffset) {
+        this.name = name;
+        this.size = size;
+        this.compressedSize = compressedSize;
+        this.method = method;
+        this.crc = crc;
+        this.flags = flags;
+        this.localHeaderOffset = localHeaderOffset;
+    }
+
+    /**
+     * エントリ名を取得します。
+     *
+     * @return エントリ名 ('/'区切りのパス)
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * 展開後のサイズを取得します。
+     *
+     * @return サイズ (byte)
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * 圧縮後のサイズを取得します。
+     *
+     * @return サイズ (byte)
+     */
+    public long getCompressedSize() {
+        return this.compressedSize;
+    }
+
+    /**
+     * 圧縮方式を取得します。
+     *
+     * @return 圧縮方式 (STORED、DEFLATEDなど)
+     */
+    public int getMethod() {
+        return this.method;
+    }
+
+    /**
+     * 展開後の内容のCRC-32を取得します。
+     *
+     * @return CRC-32
+     */
+    public long getCrc() {
+        return this.crc;
+    }
+
+    /**
+     * 汎用フラグを取得します。
+     *
+     * @return 汎用フラグ
+     */
+    public int getFlags() {
+        return this.flags;
+    }
+
+    /**
+     * ローカルファイルヘッダの、ZIPファイル先頭からの位置を取得します。
+     *
+     * @return 位置 (byte)
+     */
+    public long getLocalHeaderOffset() {
+        return this.localHeaderOffset;
+    }
+
+    /**
+     * エントリが暗号化されているかを取得します。
+     *
+     * @return 暗号化されている場合true
+     */
+    public boolean isEncrypted() {
+        return (this.flags & 1) != 0;
+    }
+
+    /**
+     * エントリがディレクトリかを取得します。
+     *
+     * @return ディレクトリの場合true
+     */
+    public boolean isDirectory() {
+        return this.name.endsWith("/");
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ZipRemoteEntry(name=%s, size=%d, compressedSize=%d, method=%d, crc=%08x, flags=%d, "
+                        + "localHeaderOffset=%d)",
+                this.name, this.size, this.compressedSize, this.method, this.crc, this.flags,
+                this.localHeaderOffset);
+    }
+}
@@ -14,6 +14,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import jp.ac.nagoya_u.dsmoq.sdk.client.ConcurrencyLimitOptions;
 import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
 
 /** Range指定を用いて並列でファイルをダウンロードするサンプル */
@@ -21,12 +22,20 @@ public class DownloadParallelSample {
     /** 分割単位 (512MB) */
     public static final long CHUNK_SIZE = 512L * 1024 * 1024;
 
-    /** 最大同時ダウンロード数 */
-    public static final int THREAD_NUM = 3;
+    /** タスクを実行するスレッド数 (実際の同時ダウンロード数は、クライアントがサーバの負荷に応じて調整する) */
+    public static final int THREAD_NUM = 16;
+
+    /** 同時ダウンロード数の初期値 */
+    public static final int INITIAL_CONCURRENCY = 3;
 
     public static void main(String[] args) {
         // APIキー、シークレットキーの組み合わせでログインするクライアントを作成する
-        DsmoqClient client = DsmoqClient.create("http://localhost:8080", "api key", "secret key");
+        // 同時ダウンロード数はINITIAL_CONCURRENCYから開始し、レスポンスのエラーに応じて増減させる
+        // 1チャンクのダウンロードには時間がかかるため、上限を超えた分のタスクは待機時間の上限を設けずに待たせる
+        DsmoqClient client = DsmoqClient.builder("http://localhost:8080", "api key", "secret key")
+                .concurrencyLimit(new ConcurrencyLimitOptions().initialLimit(INITIAL_CONCURRENCY)
+                        .maxLimit(THREAD_NUM).queueTimeout(0))
+                .build();
         // ダウンロード対象のデータセットID、ファイルIDを指定する
         String datasetId = "dataset id";
         String fileId = "file id";
@@ -1,11 +1,12 @@
 package jp.ac.nagoya_u.dsmoq.sdk.sample;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
 
@@ -26,23 +27,29 @@ public class DownloadProgressSample {
         File file = client.downloadFile(datasetId, fileId, content -> {
             // 設定されているファイル名はcontent.getName()で取得できる
             File outputFile = Paths.get(content.getName()).toFile();
-            // ファイル出力用のOutputStreamを作成
-            try (BufferedOutputStream fos = new BufferedOutputStream(new FileOutputStream(outputFile), BUFFER_SIZE)) {
-                // getContentメソッドでファイルデータを表すInputStreamが取得できる
+            // ファイル出力用のFileChannelを作成
+            try (FileChannel fc = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                // getChannelメソッドでファイルデータを表すReadableByteChannelが取得できる
                 // 本例のように逐次プログレスを更新したい場合等に用いるとよい
-                BufferedInputStream is = new BufferedInputStream(content.getContent(), BUFFER_SIZE);
-                // 書き込み用バッファ
-                byte[] buffer = new byte[BUFFER_SIZE];
+                // (単純に書き出すだけであれば、content.transferTo(fc, 0)で済む)
+                ReadableByteChannel ch = content.getChannel();
+                // 書き込み用バッファ (ダイレクトバッファを用いると、FileChannelへの書き込み時の一時バッファへの複写を避けられる)
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
                 // 既に書き込んだバイト数
                 long wroteSize = 0;
                 while (true) {
-                    // InputStreamから読み込み、OutputStreamに書き込んでいく
-                    int read = is.read(buffer, 0, BUFFER_SIZE);
+                    // ReadableByteChannelから読み込み、FileChannelに書き込んでいく
+                    buffer.clear();
+                    int read = ch.read(buffer);
                     if (read < 0) {
                         System.out.println("read finished.");
                         break;
                     }
-                    fos.write(buffer, 0, read);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        fc.write(buffer);
+                    }
                     wroteSize += read;
                     System.out.printf("wrote %d bytes (%f %%)%n", wroteSize, ((double) wroteSize * 100) / size);
                 }
@@ -0,0 +1,37 @@
+package jp.ac.nagoya_u.dsmoq.sdk.sample;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.UploadSource;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+
+/** プログレス表示付きの、別プロセスの出力をそのままアップロードするサンプル */
+public class UploadProgressSample {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // APIキー、シークレットキーの組み合わせでログインするクライアントを作成する
+        DsmoqClient client = DsmoqClient.create("http://localhost:8080", "api key", "secret key");
+        // アップロード先のデータセットIDを指定する
+        String datasetId = "dataset id";
+        // 別プロセスの標準出力を、一時ファイルに書き出さずにアップロードする
+        Process process = new ProcessBuilder("tar", "czf", "-", "data").start();
+        try (InputStream in = process.getInputStream()) {
+            // 長さの分からないInputStreamはチャンク形式で送信される
+            // (長さが分かっている場合は、UploadSource.of(name, in, length)で指定できる)
+            UploadSource source = UploadSource.of("data.tar.gz", in);
+            DatasetAddFiles added = client.addFiles(datasetId, Collections.singletonList(source), progress -> {
+                // 送信済みのバイト数、平均のスループットが一定のバイト数ごとに通知される
+                // (合計のバイト数が分かっている場合は、progress.getFraction()で完了割合を取得できる)
+                System.out.printf("sent %d bytes (%.1f KB/s)%n", progress.getSentBytes(),
+                        progress.getBytesPerSecond() / 1024);
+                if (progress.isCompleted()) {
+                    System.out.println("send finished.");
+                }
+            });
+            System.out.printf("uploaded as %s%n", added.getFiles().get(0).getId());
+        }
+        process.waitFor();
+    }
+}
@@ -0,0 +1,54 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/** チャネル間の転送用のユーティリティクラス */
+public class ChannelUtil {
+    /** 転送に用いるバッファサイズ */
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    /** スレッドごとに再利用する転送用のダイレクトバッファ */
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    /**
+     * 転送用のダイレクトバッファを取得する。
+     * 
+     * バッファは呼び出したスレッドで再利用されるため、同じスレッドで他の転送に用いている間は使用できません。
+     * 
+     * @return クリアされたダイレクトバッファ
+     */
+    public static ByteBuffer buffer() {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * チャネルの内容を終端まで読み込み、ファイルの指定位置から書き込む。
+     * 
+     * スレッドごとに再利用されるダイレクトバッファを経由するため、書き込み時に一時的なダイレクトバッファへの複写は発生しません。
+     * ただし、srcがストリームを包んだチャネル(Channels#newChannel)の場合、読み込みはヒープ上の配列を経由します。
+     * 
+     * @param src 読み込み元チャネル
+     * @param target 書き出し先ファイルのチャネル
+     * @param position 書き込みを開始する位置
+     * @return 書き込んだバイト数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public static long transfer(ReadableByteChannel src, FileChannel target, long position) throws IOException {
+        ByteBuffer buffer = buffer();
+        long written = 0;
+        while (src.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += target.write(buffer, position + written);
+            }
+            buffer.clear();
+        }
+        return written;
+    }
+}
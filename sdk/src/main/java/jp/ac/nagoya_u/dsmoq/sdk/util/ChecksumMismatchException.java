@@ -0,0 +1,56 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+/**
+ * ダウンロードした内容のチェックサムが期待値と一致しなかったことを表す例外
+ */
+public class ChecksumMismatchException extends ApiFailedException {
+    /** アルゴリズム */
+    private final DigestAlgorithm algorithm;
+
+    /** 期待値 */
+    private final String expected;
+
+    /** 算出したチェックサム */
+    private final String actual;
+
+    /**
+     * 例外を作成する。
+     *
+     * @param algorithm アルゴリズム
+     * @param expected 期待値
+     * @param actual 算出したチェックサム
+     */
+    public ChecksumMismatchException(DigestAlgorithm algorithm, String expected, String actual) {
+        super(String.format("%s checksum mismatch: expected %s, but was %s", algorithm, expected, actual));
+        this.algorithm = algorithm;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    /**
+     * アルゴリズムを取得する。
+     *
+     * @return アルゴリズム
+     */
+    public DigestAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * 期待値を取得する。
+     *
+     * @return 期待値
+     */
+    public String getExpected() {
+        return this.expected;
+    }
+
+    /**
+     * 算出したチェックサムを取得する。
+     *
+     * @return 算出したチェックサム
+     */
+    public String getActual() {
+        return this.actual;
+    }
+}
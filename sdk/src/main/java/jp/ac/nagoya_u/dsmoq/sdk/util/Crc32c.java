@@ -0,0 +1,197 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C (Castagnoli) の実装
+ *
+ * Java 8にはjava.util.zip.CRC32Cがないため、slicing-by-8による実装を提供します。
+ * Java 9以降で実行された場合、createはCPU命令を用いるjava.util.zip.CRC32Cを返します。
+ * combineにより、連続する2つの範囲の値から全体の値を算出できます。
+ */
+public final class Crc32c implements Checksum {
+    /** 生成多項式 (ビット反転表現) */
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    /** ByteBufferからの読み込みに用いる配列のサイズ */
+    private static final int COPY_SIZE = 8 * 1024;
+
+    /** slicing-by-8のテーブル */
+    private static final int[][] TABLE = new int[8][256];
+
+    /** java.util.zip.CRC32Cのクラス、存在しない場合null */
+    private static final Class<?> JDK_CRC32C;
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ POLYNOMIAL : c >>> 1;
+            }
+            TABLE[0][n] = c;
+        }
+        for (int n = 0; n < 256; n++) {
+            for (int k = 1; k < 8; k++) {
+                TABLE[k][n] = (TABLE[k - 1][n] >>> 8) ^ TABLE[0][TABLE[k - 1][n] & 0xff];
+            }
+        }
+        Class<?> jdk;
+        try {
+            jdk = Class.forName("java.util.zip.CRC32C");
+        } catch (ClassNotFoundException e) {
+            jdk = null;
+        }
+        JDK_CRC32C = jdk;
+    }
+
+    /** 現在の値 (反転した状態) */
+    private int crc = 0xffffffff;
+
+    /**
+     * CRC32Cを算出するChecksumを作成する。
+     *
+     * @return java.util.zip.CRC32Cが利用できる場合はそのインスタンス、そうでない場合Crc32c
+     */
+    public static Checksum create() {
+        if (JDK_CRC32C != null) {
+            try {
+                return (Checksum) JDK_CRC32C.newInstance();
+            } catch (ReflectiveOperationException e) {
+                // 利用できない場合は、この実装を用いる
+            }
+        }
+        return new Crc32c();
+    }
+
+    /**
+     * ByteBufferのpositionからlimitまでの内容でChecksumを更新する。
+     *
+     * bufferのpositionは変更しません。ダイレクトバッファの場合は、一定サイズずつ配列に複写して更新します。
+     *
+     * @param checksum 更新するChecksum
+     * @param buffer 内容
+     */
+    public static void update(Checksum checksum, ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        ByteBuffer src = buffer.duplicate();
+        byte[] bytes = new byte[Math.min(COPY_SIZE, src.remaining())];
+        while (src.hasRemaining()) {
+            int n = Math.min(bytes.length, src.remaining());
+            src.get(bytes, 0, n);
+            checksum.update(bytes, 0, n);
+        }
+    }
+
+    /**
+     * 連続する2つの範囲のCRC32Cから、範囲全体のCRC32Cを算出する。
+     *
+     * zlibのcrc32_combineと同じく、長さ分の0を加える演算をGF(2)上の行列の累乗で求めます。
+     *
+     * @param crc1 前半の範囲のCRC32C
+     * @param crc2 後半の範囲のCRC32C
+     * @param length2 後半の範囲の長さ
+     * @return 範囲全体のCRC32C
+     */
+    public static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        // 1ビットの0を加える演算子
+        odd[0] = POLYNOMIAL & 0xffffffffL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // 2ビット、4ビットの0を加える演算子
+        square(even, odd);
+        square(odd, even);
+        long crc = crc1;
+        long length = length2;
+        do {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                crc = times(even, crc);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return crc ^ crc2;
+    }
+
+    @Override
+    public void update(int b) {
+        this.crc = (this.crc >>> 8) ^ TABLE[0][(this.crc ^ b) & 0xff];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int c = this.crc;
+        int i = off;
+        int end = off + len;
+        for (; end - i >= 8; i += 8) {
+            int lo = c ^ ((b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24);
+            int hi = (b[i + 4] & 0xff) | (b[i + 5] & 0xff) << 8 | (b[i + 6] & 0xff) << 16 | (b[i + 7] & 0xff) << 24;
+            c = TABLE[7][lo & 0xff] ^ TABLE[6][(lo >>> 8) & 0xff] ^ TABLE[5][(lo >>> 16) & 0xff]
+                    ^ TABLE[4][lo >>> 24] ^ TABLE[3][hi & 0xff] ^ TABLE[2][(hi >>> 8) & 0xff]
+                    ^ TABLE[1][(hi >>> 16) & 0xff] ^ TABLE[0][hi >>> 24];
+        }
+        for (; i < end; i++) {
+            c = (c >>> 8) ^ TABLE[0][(c ^ b[i]) & 0xff];
+        }
+        this.crc = c;
+    }
+
+    @Override
+    public long getValue() {
+        return ~this.crc & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = 0xffffffff;
+    }
+
+    /**
+     * GF(2)上の行列とベクトルの積を求める。
+     *
+     * @param matrix 行列 (32行)
+     * @param vector ベクトル
+     * @return 積
+     */
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        long v = vector;
+        for (int i = 0; v != 0; i++, v >>>= 1) {
+            if ((v & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * GF(2)上の行列の2乗を求める。
+     *
+     * @param result 結果の格納先
+     * @param matrix 行列
+     */
+    private static void square(long[] result, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            result[n] = times(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+/**
+ * ダウンロード中に算出するチェックサムのアルゴリズム
+ */
+public enum DigestAlgorithm {
+    /**
+     * CRC32C (Castagnoli)
+     *
+     * 範囲ごとの値を結合できるため、並列ダウンロードでも各範囲を受信しながら算出できます。
+     */
+    CRC32C("CRC32C"),
+
+    /** MD5 */
+    MD5("MD5"),
+
+    /** SHA-256 */
+    SHA256("SHA-256");
+
+    /** アルゴリズム名 (MessageDigestに指定する名前) */
+    private final String algorithmName;
+
+    /**
+     * アルゴリズムを定義する。
+     *
+     * @param algorithmName アルゴリズム名
+     */
+    DigestAlgorithm(String algorithmName) {
+        this.algorithmName = algorithmName;
+    }
+
+    /**
+     * アルゴリズム名を取得する。
+     *
+     * @return アルゴリズム名
+     */
+    public String getAlgorithmName() {
+        return this.algorithmName;
+    }
+}
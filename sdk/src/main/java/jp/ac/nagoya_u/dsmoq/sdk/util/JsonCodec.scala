@@ -0,0 +1,337 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util
+
+import com.fasterxml.jackson.databind.{ JsonNode, ObjectMapper, ObjectReader }
+import jp.ac.nagoya_u.dsmoq.sdk.response._
+import org.json4s.MappingException
+
+/**
+ * JSONのノードからレスポンスのオブジェクトへの変換を表す。
+ *
+ * 変換はリフレクションを用いずに型ごとに記述し、一度作成したインスタンスを使い回す。
+ */
+private[util] abstract class JsonCodec[A] {
+  /**
+   * ノードを変換する。
+   *
+   * @param node ノード (JSONのnullの場合NullNode)
+   * @return 変換結果
+   * @throws MappingException ノードを変換できない場合
+   */
+  def decode(node: JsonNode): A
+
+  /**
+   * オブジェクトのフィールドが存在しない場合の値を返す。
+   *
+   * @param name フィールド名
+   * @return フィールドが存在しない場合の値
+   * @throws MappingException フィールドを省略できない場合
+   */
+  def absent(name: String): A = throw new MappingException(s"No usable value for ${name}")
+}
+
+/**
+ * JSONオブジェクトのフィールドを取り出す。
+ *
+ * @param node JSONオブジェクトのノード
+ */
+private[util] class JsonFields(node: JsonNode) {
+  /**
+   * フィールドを取り出して変換する。
+   *
+   * @param name フィールド名
+   * @param codec フィールドの値の変換
+   * @return 変換結果
+   * @throws MappingException フィールドの値を変換できない場合
+   */
+  def apply[A](name: String, codec: JsonCodec[A]): A = {
+    val value = node.get(name)
+    if (value == null) {
+      codec.absent(name)
+    } else {
+      try {
+        codec.decode(value)
+      } catch {
+        case e: MappingException => throw new MappingException(s"No usable value for ${name}\n${e.msg}", e)
+      }
+    }
+  }
+
+  /**
+   * フィールドを取り出して変換する。フィールドが存在しない場合は既定値を返す。
+   *
+   * @param name フィールド名
+   * @param codec フィールドの値の変換
+   * @param default フィールドが存在しない場合の値
+   * @return 変換結果
+   * @throws MappingException フィールドの値を変換できない場合
+   */
+  def apply[A](name: String, codec: JsonCodec[A], default: A): A = {
+    if (node.has(name)) apply(name, codec) else default
+  }
+}
+
+/**
+ * レスポンスの型ごとの変換の定義。
+ *
+ * json4sのextractと同様に、Option、Seqのフィールドは省略やnullを許容し、
+ * それ以外のフィールドが省略されている場合はMappingExceptionとする。
+ */
+private[util] object JsonCodec {
+  /** JSONの読み込みに使用するマッパー */
+  val mapper: ObjectMapper = new ObjectMapper()
+
+  /** JSONをノードとして読み込むリーダー (スレッドセーフ) */
+  val treeReader: ObjectReader = mapper.reader(classOf[JsonNode])
+
+  /**
+   * JSONオブジェクトの変換を作成する。
+   *
+   * @param f フィールドからオブジェクトを作成する関数
+   * @return 変換
+   */
+  def obj[A](f: JsonFields => A): JsonCodec[A] = new JsonCodec[A] {
+    def decode(node: JsonNode): A = {
+      if (!node.isObject) {
+        mismatch("object", node)
+      }
+      f(new JsonFields(node))
+    }
+  }
+
+  /**
+   * 省略可能な値の変換を作成する。
+   *
+   * @param codec 値の変換
+   * @return 変換
+   */
+  def option[A](codec: JsonCodec[A]): JsonCodec[Option[A]] = new JsonCodec[Option[A]] {
+    def decode(node: JsonNode): Option[A] = if (node.isNull) None else Some(codec.decode(node))
+    override def absent(name: String): Option[A] = None
+  }
+
+  /**
+   * JSON配列の変換を作成する。
+   *
+   * @param codec 要素の変換
+   * @return 変換
+   */
+  def seq[A](codec: JsonCodec[A]): JsonCodec[Seq[A]] = new JsonCodec[Seq[A]] {
+    def decode(node: JsonNode): Seq[A] = {
+      if (node.isNull) {
+        return Nil
+      }
+      if (!node.isArray) {
+        mismatch("array", node)
+      }
+      val builder = List.newBuilder[A]
+      val elements = node.elements()
+      while (elements.hasNext) {
+        builder += codec.decode(elements.next())
+      }
+      builder.result()
+    }
+    override def absent(name: String): Seq[A] = Nil
+  }
+
+  /**
+   * Response形式のJSONのdataの変換を作成する。
+   *
+   * @param codec dataの変換
+   * @return 変換
+   */
+  def response[A](codec: JsonCodec[A]): JsonCodec[Response[A]] = obj { f =>
+    Response(f("status", string), f("data", codec))
+  }
+
+  /**
+   * RangeSliceの変換を作成する。
+   *
+   * @param codec resultsの要素の変換
+   * @return 変換
+   */
+  def rangeSlice[A](codec: JsonCodec[A]): JsonCodec[RangeSlice[A]] = {
+    val results = seq(codec)
+    obj { f => RangeSlice(f("summary", rangeSliceSummary), f("results", results)) }
+  }
+
+  /**
+   * 変換できないノードであることを通知する。
+   *
+   * @param expected 期待する値の種類
+   * @param node ノード
+   * @throws MappingException 常に送出する
+   */
+  private def mismatch(expected: String, node: JsonNode): Nothing = {
+    throw new MappingException(s"Expected ${expected} but found ${node.getNodeType}")
+  }
+
+  val string: JsonCodec[String] = new JsonCodec[String] {
+    def decode(node: JsonNode): String = {
+      if (node.isNull) {
+        null
+      } else if (node.isValueNode) {
+        node.asText
+      } else {
+        mismatch("string", node)
+      }
+    }
+  }
+
+  val int: JsonCodec[Int] = new JsonCodec[Int] {
+    def decode(node: JsonNode): Int = if (node.isIntegralNumber) node.asInt else mismatch("int", node)
+  }
+
+  val long: JsonCodec[Long] = new JsonCodec[Long] {
+    def decode(node: JsonNode): Long = if (node.isIntegralNumber) node.asLong else mismatch("long", node)
+  }
+
+  val boolean: JsonCodec[Boolean] = new JsonCodec[Boolean] {
+    def decode(node: JsonNode): Boolean = if (node.isBoolean) node.asBoolean else mismatch("boolean", node)
+  }
+
+  val optionString: JsonCodec[Option[String]] = option(string)
+
+  val optionLong: JsonCodec[Option[Long]] = option(long)
+
+  val rangeSliceSummary: JsonCodec[RangeSliceSummary] = obj { f =>
+    RangeSliceSummary(f("total", int), f("count", int, 20), f("offset", int, 0))
+  }
+
+  val image: JsonCodec[Image] = obj { f =>
+    Image(f("id", string), f("url", string))
+  }
+
+  val user: JsonCodec[User] = obj { f =>
+    User(f("id", string), f("name", string), f("fullname", string), f("organization", string), f("title", string),
+      f("image", string), f("mailAddress", string), f("description", string), f("isGuest", boolean),
+      f("isDisabled", boolean))
+  }
+
+  val license: JsonCodec[License] = obj { f =>
+    License(f("id", string), f("name", string))
+  }
+
+  val taskStatus: JsonCodec[TaskStatus] = obj { f =>
+    TaskStatus(f("status", int))
+  }
+
+  val statisticsDetail: JsonCodec[StatisticsDetail] = obj { f =>
+    StatisticsDetail(f("dataset_amount", long), f("real_size", long), f("local_size", long), f("s3_size", long),
+      f("total_size", long))
+  }
+
+  val datasetAttribute: JsonCodec[DatasetAttribute] = obj { f =>
+    DatasetAttribute(f("name", string), f("value", string))
+  }
+
+  val datasetOwnership: JsonCodec[DatasetOwnership] = obj { f =>
+    DatasetOwnership(f("id", string), f("name", string), f("fullname", string), f("organization", string),
+      f("title", string), f("description", string), f("image", string), f("accessLevel", int), f("ownerType", int))
+  }
+
+  val datasetsSummary: JsonCodec[DatasetsSummary] = {
+    val attributes = seq(datasetAttribute)
+    val ownerships = seq(datasetOwnership)
+    obj { f =>
+      DatasetsSummary(f("id", string), f("name", string), f("description", string), f("image", string),
+        f("license", optionString), f("attributes", attributes), f("ownerships", ownerships), f("files", long),
+        f("dataSize", long), f("defaultAccessLevel", int), f("permission", int), f("localState", int),
+        f("s3State", int))
+    }
+  }
+
+  val datasetZipedFile: JsonCodec[DatasetZipedFile] = obj { f =>
+    DatasetZipedFile(f("id", string), f("name", string), f("size", optionLong), f("url", optionString))
+  }
+
+  val datasetFile: JsonCodec[DatasetFile] = {
+    val optionUser = option(user)
+    val zipedFiles = seq(datasetZipedFile)
+    obj { f =>
+      DatasetFile(f("id", string), f("name", string), f("description", string), f("url", optionString),
+        f("size", optionLong), f("createdBy", optionUser), f("createdAt", string), f("updatedBy", optionUser),
+        f("updatedAt", string), f("isZip", boolean), f("zipedFiles", zipedFiles), f("zipCount", int))
+    }
+  }
+
+  val datasetMetaData: JsonCodec[DatasetMetaData] = {
+    val attributes = seq(datasetAttribute)
+    obj { f =>
+      DatasetMetaData(f("name", string), f("description", string), f("license", string), f("attributes", attributes))
+    }
+  }
+
+  val dataset: JsonCodec[Dataset] = {
+    val files = seq(datasetFile)
+    val images = seq(image)
+    val ownerships = seq(datasetOwnership)
+    obj { f =>
+      Dataset(f("id", string), f("filesSize", long), f("filesCount", int), f("files", files),
+        f("meta", datasetMetaData), f("images", images), f("primaryImage", string), f("featuredImage", string),
+        f("ownerships", ownerships), f("defaultAccessLevel", int), f("permission", int), f("accessCount", long),
+        f("localState", int), f("s3State", int), f("fileLimit", int))
+    }
+  }
+
+  val datasetAddFiles: JsonCodec[DatasetAddFiles] = {
+    val files = seq(datasetFile)
+    obj { f => DatasetAddFiles(f("files", files)) }
+  }
+
+  val datasetAddImages: JsonCodec[DatasetAddImages] = {
+    val images = seq(image)
+    obj { f => DatasetAddImages(f("images", images), f("primaryImage", string)) }
+  }
+
+  val datasetDeleteImage: JsonCodec[DatasetDeleteImage] = obj { f =>
+    DatasetDeleteImage(f("primaryImage", string))
+  }
+
+  val datasetOwnerships: JsonCodec[DatasetOwnerships] = {
+    val ownerships = seq(datasetOwnership)
+    obj { f => DatasetOwnerships(f("ownerships", ownerships)) }
+  }
+
+  val datasetTask: JsonCodec[DatasetTask] = obj { f =>
+    DatasetTask(f("taskId", string))
+  }
+
+  val copiedDataset: JsonCodec[CopiedDataset] = obj { f =>
+    CopiedDataset(f("datasetId", string))
+  }
+
+  val datasetGetImage: JsonCodec[DatasetGetImage] = obj { f =>
+    DatasetGetImage(f("id", string), f("name", string), f("url", string), f("isPrimary", boolean))
+  }
+
+  val groupsSummary: JsonCodec[GroupsSummary] = obj { f =>
+    GroupsSummary(f("id", string), f("name", string), f("description", string), f("image", string),
+      f("members", int), f("datasets", int))
+  }
+
+  val group: JsonCodec[Group] = {
+    val images = seq(image)
+    obj { f =>
+      Group(f("id", string), f("name", string), f("description", string), f("images", images),
+        f("primaryImage", string), f("isMember", boolean), f("role", int))
+    }
+  }
+
+  val memberSummary: JsonCodec[MemberSummary] = obj { f =>
+    MemberSummary(f("id", string), f("name", string), f("fullname", string), f("organization", string),
+      f("title", string), f("description", string), f("image", string), f("role", int))
+  }
+
+  val groupAddImages: JsonCodec[GroupAddImages] = {
+    val images = seq(image)
+    obj { f => GroupAddImages(f("images", images), f("primaryImage", string)) }
+  }
+
+  val groupDeleteImage: JsonCodec[GroupDeleteImage] = obj { f =>
+    GroupDeleteImage(f("primaryImage", string))
+  }
+
+  val groupGetImage: JsonCodec[GroupGetImage] = obj { f =>
+    GroupGetImage(f("id", string), f("name", string), f("url", string), f("isPrimary", boolean))
+  }
+}
@@ -1,88 +1,211 @@
 package jp.ac.nagoya_u.dsmoq.sdk.util
 
+import java.io.InputStream
+import java.util.function.Consumer
+
+import com.fasterxml.jackson.core.{ JsonParser, JsonToken }
+import com.fasterxml.jackson.databind.JsonNode
 import jp.ac.nagoya_u.dsmoq.sdk.response._
-import jp.ac.nagoya_u.dsmoq.sdk.response._
-import org.json4s._
-import org.json4s.jackson.JsonMethods
-import org.json4s.{ DefaultFormats, Formats }
+import jp.ac.nagoya_u.dsmoq.sdk.util.JsonCodec._
+import org.json4s.MappingException
 import scala.collection.JavaConverters._
 
 object JsonUtil {
-  private implicit val jsonFormats: Formats = DefaultFormats
+  private val datasetsCodec = response(rangeSlice(datasetsSummary))
+  private val datasetOwnershipCodec = response(rangeSlice(datasetOwnership))
+  private val datasetFilesCodec = response(rangeSlice(datasetFile))
+  private val datasetZippedFilesCodec = response(rangeSlice(datasetZipedFile))
+  private val datasetGetImageCodec = response(rangeSlice(datasetGetImage))
+  private val groupGetImageCodec = response(rangeSlice(groupGetImage))
+  private val datasetCodec = response(dataset)
+  private val datasetAddFilesCodec = response(datasetAddFiles)
+  private val datasetFileCodec = response(datasetFile)
+  private val datasetAddImagesCodec = response(datasetAddImages)
+  private val datasetDeleteImageCodec = response(datasetDeleteImage)
+  private val datasetOwnershipsCodec = response(datasetOwnerships)
+  private val datasetTaskCodec = response(datasetTask)
+  private val groupsCodec = response(rangeSlice(groupsSummary))
+  private val groupCodec = response(group)
+  private val membersCodec = response(rangeSlice(memberSummary))
+  private val groupAddImagesCodec = response(groupAddImages)
+  private val groupDeleteImageCodec = response(groupDeleteImage)
+  private val licensesCodec = response(seq(license))
+  private val userCodec = response(user)
+  private val usersCodec = response(seq(user))
+  private val taskStatusCodec = response(taskStatus)
+  private val copiedDatasetCodec = response(copiedDataset)
+  private val statisticsCodec = response(seq(statisticsDetail))
+
   def toDatasets(obj: String): RangeSlice[DatasetsSummary] = {
-    toObject[Response[RangeSlice[DatasetsSummary]]](obj).getData
+    decode(obj, datasetsCodec).getData
   }
   def toDatasetOwnership(obj: String): RangeSlice[DatasetOwnership] = {
-    toObject[Response[RangeSlice[DatasetOwnership]]](obj).getData
+    decode(obj, datasetOwnershipCodec).getData
   }
   def toDatasetFiles(obj: String): RangeSlice[DatasetFile] = {
-    toObject[Response[RangeSlice[DatasetFile]]](obj).getData
+    decode(obj, datasetFilesCodec).getData
   }
   def toDatasetZippedFiles(obj: String): RangeSlice[DatasetZipedFile] = {
-    toObject[Response[RangeSlice[DatasetZipedFile]]](obj).getData
+    decode(obj, datasetZippedFilesCodec).getData
   }
   def toDatasetGetImage(obj: String): RangeSlice[DatasetGetImage] = {
-    toObject[Response[RangeSlice[DatasetGetImage]]](obj).getData
+    decode(obj, datasetGetImageCodec).getData
   }
   def toGroupGetImage(obj: String): RangeSlice[GroupGetImage] = {
-    toObject[Response[RangeSlice[GroupGetImage]]](obj).getData
+    decode(obj, groupGetImageCodec).getData
   }
   def toDataset(obj: String): Dataset = {
-    toObject[Response[Dataset]](obj).getData
+    decode(obj, datasetCodec).getData
   }
   def toDatasetAddFiles(obj: String): DatasetAddFiles = {
-    toObject[Response[DatasetAddFiles]](obj).getData
+    decode(obj, datasetAddFilesCodec).getData
   }
   def toDatasetFile(obj: String): DatasetFile = {
-    toObject[Response[DatasetFile]](obj).getData
+    decode(obj, datasetFileCodec).getData
   }
   def toDatasetAddImages(obj: String): DatasetAddImages = {
-    toObject[Response[DatasetAddImages]](obj).getData
+    decode(obj, datasetAddImagesCodec).getData
   }
   def toDatasetDeleteImage(obj: String): DatasetDeleteImage = {
-    toObject[Response[DatasetDeleteImage]](obj).getData
+    decode(obj, datasetDeleteImageCodec).getData
   }
   def toDatasetOwnerships(obj: String): DatasetOwnerships = {
-    toObject[Response[DatasetOwnerships]](obj).getData
+    decode(obj, datasetOwnershipsCodec).getData
   }
   def toDatasetTask(obj: String): DatasetTask = {
-    toObject[Response[DatasetTask]](obj).getData
+    decode(obj, datasetTaskCodec).getData
   }
   def toGroups(obj: String): RangeSlice[GroupsSummary] = {
-    toObject[Response[RangeSlice[GroupsSummary]]](obj).getData
+    decode(obj, groupsCodec).getData
   }
   def toGroup(obj: String): Group = {
-    toObject[Response[Group]](obj).getData
+    decode(obj, groupCodec).getData
   }
   def toMembers(obj: String): RangeSlice[MemberSummary] = {
-    toObject[Response[RangeSlice[MemberSummary]]](obj).getData
+    decode(obj, membersCodec).getData
   }
   def toGroupAddImages(obj: String): GroupAddImages = {
-    toObject[Response[GroupAddImages]](obj).getData
+    decode(obj, groupAddImagesCodec).getData
   }
   def toGroupDeleteImage(obj: String): GroupDeleteImage = {
-    toObject[Response[GroupDeleteImage]](obj).getData
+    decode(obj, groupDeleteImageCodec).getData
   }
   def toLicenses(obj: String): java.util.List[License] = {
-    val licenses = toObject[Response[List[License]]](obj).getData
+    val licenses = decode(obj, licensesCodec).getData
     licenses.asJava
   }
   def toUser(obj: String): User = {
-    toObject[Response[User]](obj).getData
+    decode(obj, userCodec).getData
   }
   def toUsers(obj: String): java.util.List[User] = {
-    val users = toObject[Response[List[User]]](obj).getData
+    val users = decode(obj, usersCodec).getData
     users.asJava
   }
   def toTaskStatus(obj: String): TaskStatus = {
-    toObject[Response[TaskStatus]](obj).getData
+    decode(obj, taskStatusCodec).getData
   }
   def toCopiedDataset(obj: String): CopiedDataset = {
-    toObject[Response[CopiedDataset]](obj).getData
+    decode(obj, copiedDatasetCodec).getData
   }
   def toStatistics(obj: String): java.util.List[StatisticsDetail] = {
-    val statistics = toObject[Response[List[StatisticsDetail]]](obj).getData
+    val statistics = decode(obj, statisticsCodec).getData
     statistics.asJava
   }
-  private def toObject[A](obj: String)(implicit m: Manifest[A]): A = JsonMethods.parse(obj).extract[A]
+  def toDatasets(in: InputStream, consumer: Consumer[DatasetsSummary]): RangeSliceSummary = {
+    streamRangeSlice(in, datasetsSummary, consumer)
+  }
+  def toDatasetOwnership(in: InputStream, consumer: Consumer[DatasetOwnership]): RangeSliceSummary = {
+    streamRangeSlice(in, datasetOwnership, consumer)
+  }
+  def toDatasetFiles(in: InputStream, consumer: Consumer[DatasetFile]): RangeSliceSummary = {
+    streamRangeSlice(in, datasetFile, consumer)
+  }
+  def toDatasetZippedFiles(in: InputStream, consumer: Consumer[DatasetZipedFile]): RangeSliceSummary = {
+    streamRangeSlice(in, datasetZipedFile, consumer)
+  }
+  def toDatasetGetImage(in: InputStream, consumer: Consumer[DatasetGetImage]): RangeSliceSummary = {
+    streamRangeSlice(in, datasetGetImage, consumer)
+  }
+  def toGroupGetImage(in: InputStream, consumer: Consumer[GroupGetImage]): RangeSliceSummary = {
+    streamRangeSlice(in, groupGetImage, consumer)
+  }
+  def toGroups(in: InputStream, consumer: Consumer[GroupsSummary]): RangeSliceSummary = {
+    streamRangeSlice(in, groupsSummary, consumer)
+  }
+  def toMembers(in: InputStream, consumer: Consumer[MemberSummary]): RangeSliceSummary = {
+    streamRangeSlice(in, memberSummary, consumer)
+  }
+
+  /**
+   * JSON文字列を変換する。
+   *
+   * @param obj JSON文字列
+   * @param codec 変換
+   * @return 変換結果
+   */
+  private def decode[A](obj: String, codec: JsonCodec[A]): A = codec.decode(treeReader.readTree(obj))
+
+  /**
+   * Response[RangeSlice[A]]形式のJSONを先頭から順に読み込み、resultsの要素を1件ずつconsumerに渡す。
+   *
+   * 同時に保持するのは要素1件分のみのため、件数の多い一覧でもメモリ使用量は増えない。
+   *
+   * @param in JSONを読み込むストリーム
+   * @param codec 要素の変換
+   * @param consumer 要素を受け取る関数
+   * @return 一覧のサマリ
+   */
+  private def streamRangeSlice[A](in: InputStream, codec: JsonCodec[A], consumer: Consumer[A]): RangeSliceSummary = {
+    val parser = mapper.getFactory.createParser(in)
+    try {
+      expect(parser, JsonToken.START_OBJECT)
+      var summary: Option[RangeSliceSummary] = None
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        val field = parser.getCurrentName
+        parser.nextToken()
+        if (field == "data") {
+          expect(parser, JsonToken.START_OBJECT, false)
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            val dataField = parser.getCurrentName
+            parser.nextToken()
+            dataField match {
+              case "summary" =>
+                summary = Some(rangeSliceSummary.decode(readValue(parser)))
+              case "results" =>
+                expect(parser, JsonToken.START_ARRAY, false)
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                  consumer.accept(codec.decode(readValue(parser)))
+                }
+              case _ =>
+                parser.skipChildren()
+            }
+          }
+        } else {
+          parser.skipChildren()
+        }
+      }
+      summary.getOrElse(throw new MappingException("No usable value for summary"))
+    } finally {
+      parser.close()
+    }
+  }
+
+  /**
+   * パーサの現在のトークンから始まる値を1件読み込む。
+   */
+  private def readValue(parser: JsonParser): JsonNode = treeReader.readTree(parser)
+
+  /**
+   * パーサのトークンが期待したものであることを検査する。
+   *
+   * @param parser パーサ
+   * @param token 期待するトークン
+   * @param next 次のトークンを検査する場合true、現在のトークンを検査する場合false
+   */
+  private def expect(parser: JsonParser, token: JsonToken, next: Boolean = true): Unit = {
+    val actual = if (next) parser.nextToken() else parser.getCurrentToken
+    if (actual != token) {
+      throw new MappingException(s"Expected ${token} but found ${actual}")
+    }
+  }
 }
@@ -29,11 +29,21 @@ public class ResourceNames {
      */
     public static final String LOG_CONTENT_LENGTH_NOT_FOUND = "log_content_length_not_found";
 
+    /**
+     * データセットのダウンロードの進捗を受け取るリスナーが例外を送出した場合のログに用いるリソース名
+     */
+    public static final String LOG_DOWNLOAD_LISTENER_FAILED = "log_download_listener_failed";
+
     /**
      * エラーが発生した場合のログに用いるリソース名
      */
     public static final String LOG_ERROR_OCCURED = "log_error_occured";
 
+    /**
+     * HTTP/2のトランスポートを利用できず、HTTP/1.1のトランスポートを用いる場合のログに用いるリソース名
+     */
+    public static final String LOG_HTTP2_UNAVAILABLE = "log_http2_unavailable";
+
     /**
      * HTTPレスポンスのContent-Dispositionの形式が不正な場合のログに用いるリソース名
      */
@@ -59,6 +69,11 @@ public class ResourceNames {
      */
     public static final String LOG_INVALID_NULL = "log_invalid_null";
 
+    /**
+     * API呼び出しの計測結果を受け取るリスナーが例外を送出した場合のログに用いるリソース名
+     */
+    public static final String LOG_METRICS_LISTENER_FAILED = "log_metrics_listener_failed";
+
     /**
      * リダイレクト処理のログに用いるリソース名
      */
@@ -74,6 +89,11 @@ public class ResourceNames {
      */
     public static final String LOG_UNSUPPORTED_CHARSET = "log_unsupported_charset";
 
+    /**
+     * 仮想スレッドを利用できず、スレッドプールでコールバックを実行する場合のログに用いるリソース名
+     */
+    public static final String LOG_VIRTUAL_THREADS_UNAVAILABLE = "log_virtual_threads_unavailable";
+
     /**
      * デフォルトコンストラクタ
      *
@@ -0,0 +1,198 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Checksum;
+
+/**
+ * データを受け取りながらチェックサムを算出するクラス
+ *
+ * ダウンロードした内容を書き込むのと同時に更新することで、書き込んだファイルを読み直さずにチェックサムを得られます。
+ * 値は小文字の16進数文字列で表します。(CRC32Cは8桁)
+ * インスタンスはスレッドセーフではありません。
+ */
+public final class StreamingDigest {
+    /** 16進数の文字 */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** アルゴリズム */
+    private final DigestAlgorithm algorithm;
+
+    /** CRC32Cを算出するChecksum、それ以外のアルゴリズムの場合null */
+    private final Checksum checksum;
+
+    /** MessageDigest、CRC32Cの場合null */
+    private final MessageDigest digest;
+
+    /** 算出した値、未確定の場合null */
+    private String value;
+
+    /**
+     * チェックサムの算出を開始する。
+     *
+     * @param algorithm アルゴリズム
+     */
+    private StreamingDigest(DigestAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        if (algorithm == DigestAlgorithm.CRC32C) {
+            this.checksum = Crc32c.create();
+            this.digest = null;
+        } else {
+            this.checksum = null;
+            try {
+                this.digest = MessageDigest.getInstance(algorithm.getAlgorithmName());
+            } catch (NoSuchAlgorithmException e) {
+                // MD5、SHA-256は全てのJava実装で利用できる
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * チェックサムの算出を開始する。
+     *
+     * @param algorithm アルゴリズム
+     * @return 算出を開始したStreamingDigest
+     * @throws NullPointerException algorithmがnullの場合
+     */
+    public static StreamingDigest of(DigestAlgorithm algorithm) {
+        CheckUtil.requireNotNull(algorithm, "at algorithm in StreamingDigest#of");
+        return new StreamingDigest(algorithm);
+    }
+
+    /**
+     * アルゴリズムを取得する。
+     *
+     * @return アルゴリズム
+     */
+    public DigestAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * 配列の指定範囲でチェックサムを更新する。
+     *
+     * @param b 内容
+     * @param off 開始位置
+     * @param len 長さ
+     */
+    public void update(byte[] b, int off, int len) {
+        if (this.checksum != null) {
+            this.checksum.update(b, off, len);
+        } else {
+            this.digest.update(b, off, len);
+        }
+    }
+
+    /**
+     * ByteBufferのpositionからlimitまでの内容でチェックサムを更新する。bufferのpositionは変更しません。
+     *
+     * @param buffer 内容
+     */
+    public void update(ByteBuffer buffer) {
+        if (this.checksum != null) {
+            Crc32c.update(this.checksum, buffer);
+        } else {
+            this.digest.update(buffer.duplicate());
+        }
+    }
+
+    /**
+     * CRC32Cの値を数値で取得する。
+     *
+     * 範囲ごとの値をCrc32c#combineで結合する場合に用います。
+     *
+     * @return CRC32Cの値
+     * @throws IllegalStateException アルゴリズムがCRC32Cでない場合
+     */
+    public long getCrc() {
+        if (this.checksum == null) {
+            throw new IllegalStateException("Not a CRC32C digest: " + this.algorithm);
+        }
+        return this.checksum.getValue();
+    }
+
+    /**
+     * 算出したチェックサムを取得する。
+     *
+     * MD5、SHA-256では、初回の呼び出しで算出が完了し、以降の更新は反映されません。
+     *
+     * @return チェックサム (小文字の16進数文字列)
+     */
+    public String toHex() {
+        if (this.checksum != null) {
+            return toHex(this.checksum.getValue());
+        }
+        if (this.value == null) {
+            this.value = toHex(this.digest.digest());
+        }
+        return this.value;
+    }
+
+    /**
+     * 書き込んだ内容でチェックサムを更新する出力ストリームを作成する。
+     *
+     * @param out 出力先
+     * @return 書き込んだ内容をoutへ渡し、このチェックサムを更新する出力ストリーム
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                update(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                update(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * チェックサムが期待値と一致することを確認する。
+     *
+     * 大文字・小文字の違いは無視します。
+     *
+     * @param algorithm アルゴリズム
+     * @param expected 期待値、nullの場合は確認しない
+     * @param actual 算出したチェックサム
+     * @throws ChecksumMismatchException 一致しない場合
+     */
+    public static void verify(DigestAlgorithm algorithm, String expected, String actual) {
+        if (expected != null && !expected.trim().equalsIgnoreCase(actual)) {
+            throw new ChecksumMismatchException(algorithm, expected, actual);
+        }
+    }
+
+    /**
+     * CRC32Cの値を16進数文字列に変換する。
+     *
+     * @param crc CRC32Cの値
+     * @return 8桁の16進数文字列
+     */
+    public static String toHex(long crc) {
+        return String.format("%08x", crc & 0xffffffffL);
+    }
+
+    /**
+     * バイト列を16進数文字列に変換する。
+     *
+     * @param bytes バイト列
+     * @return 16進数文字列
+     */
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >>> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
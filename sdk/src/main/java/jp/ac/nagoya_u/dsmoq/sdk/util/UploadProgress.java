@@ -0,0 +1,105 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ある時点でのアップロードの進捗
+ *
+ * バイト数はmultipart/form-dataのパートのヘッダ等を含む、リクエストボディ全体のバイト数です。
+ */
+public final class UploadProgress {
+    /** 送信済みのバイト数 */
+    private final long sentBytes;
+
+    /** 送信するバイト数の合計、不明な場合-1 */
+    private final long totalBytes;
+
+    /** 送信を開始してからの経過時間 (ns) */
+    private final long elapsedNanos;
+
+    /** 送信が完了したか否か */
+    private final boolean completed;
+
+    /**
+     * 進捗を作成する。
+     *
+     * @param sentBytes 送信済みのバイト数
+     * @param totalBytes 送信するバイト数の合計、不明な場合-1
+     * @param elapsedNanos 送信を開始してからの経過時間 (ns)
+     * @param completed 送信が完了したか否か
+     */
+    public UploadProgress(long sentBytes, long totalBytes, long elapsedNanos, boolean completed) {
+        this.sentBytes = sentBytes;
+        this.totalBytes = totalBytes;
+        this.elapsedNanos = elapsedNanos;
+        this.completed = completed;
+    }
+
+    /**
+     * 送信済みのバイト数を取得する。
+     *
+     * @return 送信済みのバイト数
+     */
+    public long getSentBytes() {
+        return this.sentBytes;
+    }
+
+    /**
+     * 送信するバイト数の合計を取得する。
+     *
+     * 長さの分からないInputStreamを送信する場合(チャンク形式で送信する場合)は-1となります。
+     *
+     * @return 送信するバイト数の合計、不明な場合-1
+     */
+    public long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * 送信を開始してからの経過時間を取得する。
+     *
+     * @return 経過時間 (ns)
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * 送信が完了したか否かを取得する。
+     *
+     * @return 送信が完了した場合true
+     */
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    /**
+     * 送信済みの割合を取得する。
+     *
+     * @return 0から1までの割合、送信するバイト数の合計が不明な場合-1
+     */
+    public double getFraction() {
+        if (this.totalBytes < 0) {
+            return -1;
+        }
+        return this.totalBytes == 0 ? 1 : (double) this.sentBytes / this.totalBytes;
+    }
+
+    /**
+     * 送信を開始してからの平均のスループットを取得する。
+     *
+     * @return 1秒あたりの送信バイト数、経過時間が0の場合0
+     */
+    public double getBytesPerSecond() {
+        if (this.elapsedNanos <= 0) {
+            return 0;
+        }
+        return (double) this.sentBytes * TimeUnit.SECONDS.toNanos(1) / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UploadProgress(sentBytes=%d, totalBytes=%d, elapsedNanos=%d, completed=%b)",
+                this.sentBytes, this.totalBytes, this.elapsedNanos, this.completed);
+    }
+}
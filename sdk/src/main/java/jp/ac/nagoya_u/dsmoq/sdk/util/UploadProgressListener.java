@@ -0,0 +1,17 @@
+package jp.ac.nagoya_u.dsmoq.sdk.util;
+
+/**
+ * アップロードの進捗を受け取るリスナー
+ *
+ * リクエストボディの送信中、一定のバイト数を送信するたびと、送信の完了時に呼び出されます。
+ * 送信を行うスレッド(非同期クライアントではI/Oスレッド)から呼び出されるため、時間のかかる処理を行ってはいけません。
+ */
+@FunctionalInterface
+public interface UploadProgressListener {
+    /**
+     * アップロードの進捗を受け取る。
+     *
+     * @param progress 進捗
+     */
+    void onProgress(UploadProgress progress);
+}
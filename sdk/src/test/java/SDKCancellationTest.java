@@ -0,0 +1,178 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+
+public class SDKCancellationTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClientBuilder builder(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void 取り消したダウンロードは中断されコネクションが解放される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions().bandwidth(1024 * 1024))
+                .maxConnectionsPerRoute(1).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", new byte[20 * 1024 * 1024]);
+            CompletableFuture<String> download = client.downloadFile(datasetId, fileId, content -> content.getName());
+            Thread.sleep(300);
+            download.cancel(true);
+            // コネクションが1本のみのため、中断されなければ後続のリクエストは20秒近く待たされる
+            long start = System.nanoTime();
+            Dataset dataset = client.getDataset(datasetId).get(5, TimeUnit.SECONDS);
+            assertThat(dataset.getId(), is(datasetId));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000, is(true));
+            assertThat(download.isCancelled(), is(true));
+        }
+    }
+
+    @Test
+    public void 画像の追加と設定を取り消すと送信中の画像の追加が中断される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).maxConnectionsPerRoute(1).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            File image = this.temp.newFile("image.png");
+            Files.write(image.toPath(), new byte[1000]);
+            this.server.delayNext(1, 3000);
+            long before = this.server.getRequestCount();
+            CompletableFuture<Void> future = client.setPrimaryImageToDataset(datasetId, image);
+            Thread.sleep(300);
+            future.cancel(true);
+            // コネクションが1本のみのため、画像の追加が中断されなければ後続のリクエストは3秒近く待たされる
+            long start = System.nanoTime();
+            assertThat(client.getDataset(datasetId).get(5, TimeUnit.SECONDS).getId(), is(datasetId));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, is(true));
+            assertThat(future.isCancelled(), is(true));
+            // メイン画像の設定は送信されない
+            assertThat(this.server.getRequestCount(), is(before + 2));
+        }
+    }
+
+    @Test
+    public void 期限までに完了しない場合TimeoutExceptionで完了する() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions().latency(3000)).maxConnectionsPerRoute(1)
+                .buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            long start = System.nanoTime();
+            CompletableFuture<Dataset> future = client.withDeadline(client.getDataset(datasetId), 200,
+                    TimeUnit.MILLISECONDS);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                throw new AssertionError("TimeoutException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(TimeoutException.class));
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, is(true));
+        }
+    }
+
+    @Test
+    public void 期限内に完了した場合は結果を取得できる() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            Dataset dataset = client.withDeadline(client.getDataset(datasetId), 10, TimeUnit.SECONDS).get(5,
+                    TimeUnit.SECONDS);
+            assertThat(dataset.getId(), is(datasetId));
+        }
+    }
+
+    @Test
+    public void 期限切れで中断したリクエストのコネクションは再利用されない() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions().bandwidth(1024 * 1024))
+                .maxConnectionsPerRoute(1).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", new byte[20 * 1024 * 1024]);
+            CompletableFuture<String> download = client.withDeadline(
+                    client.downloadFile(datasetId, fileId, content -> content.getName()), 300, TimeUnit.MILLISECONDS);
+            try {
+                download.get(5, TimeUnit.SECONDS);
+                throw new AssertionError("TimeoutException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(TimeoutException.class));
+            }
+            assertThat(client.getDataset(datasetId).get(5, TimeUnit.SECONDS).getId(), is(datasetId));
+        }
+    }
+
+    @Test
+    public void close時に完了していないリクエストは例外的に完了する() throws Exception {
+        AsyncDsmoqClient client = builder(new StubServerOptions().latency(3000)).buildAsync();
+        String datasetId = this.server.createDataset("test", true, false);
+        CompletableFuture<Dataset> future = client.getDataset(datasetId);
+        Thread.sleep(100);
+        client.close();
+        try {
+            future.get(2, TimeUnit.SECONDS);
+            throw new AssertionError("ApiFailedException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ApiFailedException.class));
+        }
+    }
+
+    @Test
+    public void close後の呼び出しはIllegalStateExceptionで完了する() throws Exception {
+        AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync();
+        String datasetId = this.server.createDataset("test", true, false);
+        client.close();
+        try {
+            client.getDataset(datasetId).get(2, TimeUnit.SECONDS);
+            throw new AssertionError("IllegalStateException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    @Test
+    public void withDeadlineのfutureがnullの場合例外が発生する() throws IOException {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            thrown.expect(NullPointerException.class);
+            client.withDeadline(null, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void withDeadlineのtimeoutが負の場合例外が発生する() throws IOException {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            thrown.expect(IllegalArgumentException.class);
+            client.withDeadline(new CompletableFuture<Void>(), -1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DownloadOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ChecksumMismatchException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.Crc32c;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+import jp.ac.nagoya_u.dsmoq.sdk.util.StreamingDigest;
+
+public class SDKChecksumTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClient create() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions());
+        return DsmoqClient.create(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void CRC32Cの検査値が一致する() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Crc32c crc = new Crc32c();
+        crc.update(data, 0, data.length);
+        assertThat(crc.getValue(), is(0xE3069283L));
+        assertThat(StreamingDigest.toHex(crc.getValue()), is("e3069283"));
+    }
+
+    @Test
+    public void 範囲ごとのCRC32Cを結合できる() {
+        byte[] data = content(100003);
+        Crc32c whole = new Crc32c();
+        whole.update(data, 0, data.length);
+        Crc32c first = new Crc32c();
+        first.update(data, 0, 40000);
+        Crc32c second = new Crc32c();
+        second.update(data, 40000, data.length - 40000);
+        assertThat(Crc32c.combine(first.getValue(), second.getValue(), data.length - 40000), is(whole.getValue()));
+    }
+
+    @Test
+    public void 並列ダウンロードでCRC32Cを算出できる() throws IOException {
+        checkDownload(DigestAlgorithm.CRC32C, 4);
+    }
+
+    @Test
+    public void 並列ダウンロードでMD5を算出できる() throws IOException {
+        checkDownload(DigestAlgorithm.MD5, 4);
+    }
+
+    @Test
+    public void 並列ダウンロードでSHA256を算出できる() throws IOException {
+        checkDownload(DigestAlgorithm.SHA256, 4);
+    }
+
+    @Test
+    public void 単一のリクエストでSHA256を算出できる() throws IOException {
+        checkDownload(DigestAlgorithm.SHA256, 1);
+    }
+
+    @Test
+    public void 期待値と一致すれば成功する() throws IOException {
+        DsmoqClient client = create();
+        byte[] content = content(300000);
+        String datasetId = this.server.createDataset("checksum", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content);
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        String expected = expected(DigestAlgorithm.SHA256, content).toUpperCase();
+        DownloadResult result = client.downloadToPath(datasetId, fileId, target,
+                new DownloadOptions().parallelism(2).minChunkSize(4096).checksum(DigestAlgorithm.SHA256, expected));
+        assertThat(result.getChecksum(), is(expected.toLowerCase()));
+    }
+
+    @Test
+    public void 期待値と一致しなければ失敗する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("checksum", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content(1000));
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        thrown.expect(ChecksumMismatchException.class);
+        client.downloadToPath(datasetId, fileId, target,
+                new DownloadOptions().checksum(DigestAlgorithm.CRC32C, "00000000"));
+    }
+
+    @Test
+    public void 再開したダウンロードでもファイル全体のチェックサムを算出できる() throws IOException {
+        DsmoqClient client = create();
+        byte[] content = content(300000);
+        String datasetId = this.server.createDataset("checksum", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content);
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        DownloadOptions options = new DownloadOptions().parallelism(2).minChunkSize(4096).resume(true);
+        client.downloadToPath(datasetId, fileId, target, options);
+        // 全ての範囲が書き込み済みのため、チェックサムはファイルから算出される
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            Files.write(target.resolveSibling("data.bin.dsmoq-journal"), new byte[0]);
+            DownloadResult result = client.downloadToPath(datasetId, fileId, target,
+                    options.checksum(algorithm));
+            assertThat(result.getChecksum(), is(expected(algorithm, content)));
+        }
+    }
+
+    @Test
+    public void 書き込みながらチェックサムを算出できる() throws IOException {
+        DsmoqClient client = create();
+        byte[] content = content(50000);
+        String datasetId = this.server.createDataset("checksum", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content);
+        String expected = expected(DigestAlgorithm.MD5, content);
+        String checksum = client.downloadFile(datasetId, fileId, x -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                String actual = x.writeTo(out, DigestAlgorithm.MD5, expected);
+                Assert.assertArrayEquals(content, out.toByteArray());
+                return actual;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(checksum, is(expected));
+    }
+
+    @Test
+    public void チェックサムのアルゴリズムにnullは指定できない() {
+        thrown.expect(NullPointerException.class);
+        new DownloadOptions().checksum(null);
+    }
+
+    private void checkDownload(DigestAlgorithm algorithm, int parallelism) throws IOException {
+        DsmoqClient client = create();
+        byte[] content = content(1024 * 1024 + 17);
+        String datasetId = this.server.createDataset("checksum", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content);
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        DownloadResult result = client.downloadToPath(datasetId, fileId, target,
+                new DownloadOptions().parallelism(parallelism).minChunkSize(16 * 1024).checksum(algorithm));
+        Assert.assertArrayEquals(content, Files.readAllBytes(target));
+        assertThat(result.getChecksumAlgorithm(), is(algorithm));
+        assertThat(result.getChecksum(), is(expected(algorithm, content)));
+    }
+
+    private static String expected(DigestAlgorithm algorithm, byte[] content) {
+        if (algorithm == DigestAlgorithm.CRC32C) {
+            Crc32c crc = new Crc32c();
+            crc.update(content, 0, content.length);
+            return StreamingDigest.toHex(crc.getValue());
+        }
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance(algorithm.getAlgorithmName()).digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
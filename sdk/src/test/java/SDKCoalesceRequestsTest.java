@@ -0,0 +1,127 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKCoalesceRequestsTest {
+    private static final int THREADS = 16;
+
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    public static DsmoqClient createCoalescing() {
+        return DsmoqClient.builder("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").coalesceRequests(true).build();
+    }
+
+    @Test
+    public void getDataset_同時に呼び出しても全員が同じ内容を取得できる() throws Exception {
+        try (DsmoqClient client = createCoalescing()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            for (Future<Object> result : runConcurrently(() -> client.getDataset(dataset.getId()))) {
+                assertThat(((Dataset) result.get()).getId(), is(dataset.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void getDatasetFiles_同時に呼び出しても全員が同じ内容を取得できる() throws Exception {
+        try (DsmoqClient client = createCoalescing()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"),
+                    new File("testdata/2.txt"));
+            for (Future<Object> result : runConcurrently(
+                    () -> client.getDatasetFiles(dataset.getId(), new GetRangeParam()))) {
+                assertThat(((RangeSlice<?>) result.get()).getResults().size(), is(2));
+            }
+        }
+    }
+
+    @Test
+    public void getDataset_同時に呼び出した全員にエラーが通知される() throws Exception {
+        try (DsmoqClient client = createCoalescing()) {
+            for (Future<Object> result : runConcurrently(
+                    () -> client.getDataset("023bfa40-e897-4dad-96db-9fd3cf001e79"))) {
+                try {
+                    result.get();
+                    throw new AssertionError("HttpStatusException expected");
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause() instanceof HttpStatusException, is(true));
+                    assertThat(HttpStatusExceptionMatcher.is(404).matches(e.getCause()), is(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getDataset_集約後も続けて呼び出せる() {
+        try (DsmoqClient client = createCoalescing()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            assertThat(client.getDataset(dataset.getId()).getId(), is(dataset.getId()));
+            assertThat(client.getDataset(dataset.getId()).getId(), is(dataset.getId()));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+
+    private static List<Future<Object>> runConcurrently(Callable<Object> call) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    // 結果は呼び出し元で検証する
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
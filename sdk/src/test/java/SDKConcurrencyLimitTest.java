@@ -0,0 +1,266 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.ConcurrencyLimitOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.client.EndpointClass;
+import jp.ac.nagoya_u.dsmoq.sdk.client.RetryPolicy;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+
+public class SDKConcurrencyLimitTest {
+    private static final int THREADS = 8;
+
+    private DsmoqStubServer server;
+
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    public static DsmoqClientBuilder builder(ConcurrencyLimitOptions options) {
+        return DsmoqClient.builder("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").concurrencyLimit(options);
+    }
+
+    public DsmoqClientBuilder stubBuilder(StubServerOptions serverOptions, ConcurrencyLimitOptions options)
+            throws IOException {
+        this.server = DsmoqStubServer.start(serverOptions);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").concurrencyLimit(options);
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void getConcurrencyLimit_初期値はinitialLimit() {
+        try (DsmoqClient client = builder(new ConcurrencyLimitOptions().initialLimit(5)).build()) {
+            for (EndpointClass endpoint : EndpointClass.values()) {
+                assertThat(client.getConcurrencyLimit(endpoint), is(5));
+            }
+        }
+    }
+
+    @Test
+    public void getConcurrencyLimit_initialLimitは上限に収める() {
+        try (DsmoqClient client = builder(new ConcurrencyLimitOptions().initialLimit(10).maxLimit(2)).build()) {
+            assertThat(client.getConcurrencyLimit(EndpointClass.METADATA), is(2));
+        }
+    }
+
+    @Test
+    public void getConcurrencyLimit_制限しない場合は0() {
+        try (DsmoqClient client = create()) {
+            assertThat(client.getConcurrencyLimit(EndpointClass.DOWNLOAD), is(0));
+        }
+    }
+
+    @Test
+    public void getDataset_上限を超えた呼び出しは待機して実行される() throws Exception {
+        try (DsmoqClient client = builder(new ConcurrencyLimitOptions().initialLimit(1).maxLimit(1)).build()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            for (Future<Object> result : runConcurrently(() -> client.getDataset(dataset.getId()))) {
+                assertThat(((Dataset) result.get()).getId(), is(dataset.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void getDataset_待機数が上限を超えた場合ApiFailedExceptionが発生() throws Exception {
+        try (DsmoqClient client = builder(
+                new ConcurrencyLimitOptions().initialLimit(1).maxLimit(1).maxQueueSize(0)).build()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            int rejected = 0;
+            for (Future<Object> result : runConcurrently(() -> {
+                try {
+                    return client.getDataset(dataset.getId());
+                } catch (ApiFailedException e) {
+                    return e;
+                }
+            })) {
+                if (result.get() instanceof ApiFailedException) {
+                    rejected++;
+                }
+            }
+            assertThat(rejected > 0, is(true));
+        }
+    }
+
+    @Test
+    public void buildAsync_同じビルダーから作成したクライアントで制限を共有する() throws Exception {
+        DsmoqClientBuilder builder = builder(new ConcurrencyLimitOptions().initialLimit(1).maxLimit(1));
+        try (DsmoqClient client = builder.build(); AsyncDsmoqClient asyncClient = builder.buildAsync()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            List<CompletableFuture<Dataset>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(asyncClient.getDataset(dataset.getId()));
+            }
+            assertThat(client.getDataset(dataset.getId()).getId(), is(dataset.getId()));
+            for (CompletableFuture<Dataset> result : results) {
+                assertThat(result.get().getId(), is(dataset.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void getConcurrencyLimit_過負荷のレスポンスが続くと上限が下がる() throws IOException {
+        try (DsmoqClient client = stubBuilder(new StubServerOptions(),
+                new ConcurrencyLimitOptions().initialLimit(8)).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            this.server.failNext(Integer.MAX_VALUE, 503);
+            for (int i = 0; i < 40; i++) {
+                try {
+                    client.getDataset(datasetId);
+                    throw new AssertionError("HttpStatusException expected");
+                } catch (HttpStatusException e) {
+                    assertThat(HttpStatusExceptionMatcher.is(503).matches(e), is(true));
+                }
+            }
+            assertThat(client.getConcurrencyLimit(EndpointClass.METADATA) < 8, is(true));
+            // 他の種別の上限は変わらない
+            assertThat(client.getConcurrencyLimit(EndpointClass.DOWNLOAD), is(8));
+        }
+    }
+
+    @Test
+    public void getConcurrencyLimit_上限近くまで使用して成功が続くと上限が上がる() throws Exception {
+        try (DsmoqClient client = stubBuilder(new StubServerOptions().latency(20),
+                new ConcurrencyLimitOptions().initialLimit(2).maxLimit(16)).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            for (Future<Object> result : runConcurrently(() -> {
+                for (int i = 0; i < 20; i++) {
+                    client.getDataset(datasetId);
+                }
+                return null;
+            })) {
+                result.get();
+            }
+            assertThat(client.getConcurrencyLimit(EndpointClass.METADATA) > 2, is(true));
+        }
+    }
+
+    @Test
+    public void getConcurrencyLimit_期限切れで中断したリクエストでは上限が下がらない() throws IOException {
+        try (DsmoqClient client = stubBuilder(new StubServerOptions(), new ConcurrencyLimitOptions().initialLimit(4))
+                .retryPolicy(new RetryPolicy().maxAttempts(1).deadline(100)).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            this.server.delayNext(20, 1000);
+            for (int i = 0; i < 20; i++) {
+                try {
+                    client.getDataset(datasetId);
+                    throw new AssertionError("TimeoutException expected");
+                } catch (TimeoutException e) {
+                    // 期限を過ぎてリクエストが中断された
+                }
+            }
+            assertThat(client.getConcurrencyLimit(EndpointClass.METADATA), is(4));
+        }
+    }
+
+    @Test
+    public void ConcurrencyLimitOptionsのinitialLimitが0の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new ConcurrencyLimitOptions().initialLimit(0);
+    }
+
+    @Test
+    public void ConcurrencyLimitOptionsのmaxQueueSizeが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new ConcurrencyLimitOptions().maxQueueSize(-1);
+    }
+
+    @Test
+    public void ConcurrencyLimitOptionsのqueueTimeoutが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new ConcurrencyLimitOptions().queueTimeout(-1);
+    }
+
+    @Test
+    public void concurrencyLimitのoptionsがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        builder(null);
+    }
+
+    @Test
+    public void getConcurrencyLimitのendpointがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        try (DsmoqClient client = create()) {
+            client.getConcurrencyLimit(null);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+            return;
+        }
+        DsmoqClient client = create();
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+
+    private static List<Future<Object>> runConcurrently(java.util.concurrent.Callable<Object> call)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    // 結果は呼び出し元で検証する
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DatasetDownloadOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadProgress;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetDownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKDownloadDatasetTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClient create() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions());
+        return DsmoqClient.create(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void データセットの全ファイルをダウンロードできる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] content = content(1000 * (i + 1), i);
+            contents.add(content);
+            this.server.addFile(datasetId, "file" + i + ".dat", content);
+        }
+        Path dir = this.temp.getRoot().toPath().resolve("out");
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir,
+                new DatasetDownloadOptions().batchSize(10000));
+        assertThat(result.getFiles().size(), is(20));
+        assertThat(result.getSkipped().size(), is(0));
+        for (int i = 0; i < 20; i++) {
+            Assert.assertArrayEquals(contents.get(i), Files.readAllBytes(dir.resolve("file" + i + ".dat")));
+        }
+        assertThat(result.getDownloadedBytes(), is(210000L));
+        assertThat(listNames(dir).size(), is(20));
+    }
+
+    @Test
+    public void 同じサイズのファイルが存在する場合スキップする() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        this.server.addFile(datasetId, "a.txt", content(100, 1));
+        this.server.addFile(datasetId, "b.txt", content(200, 2));
+        Path dir = this.temp.getRoot().toPath();
+        client.downloadDataset(datasetId, dir);
+        Files.write(dir.resolve("b.txt"), new byte[10]);
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir);
+        assertThat(result.getSkipped(), is(Collections.singletonList(dir.resolve("a.txt"))));
+        assertThat(result.getFiles().size(), is(1));
+        assertThat(result.getDownloadedBytes(), is(200L));
+        Assert.assertArrayEquals(content(200, 2), Files.readAllBytes(dir.resolve("b.txt")));
+    }
+
+    @Test
+    public void Content_Dispositionの名前で書き出したファイルもスキップする() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "a.txt", content(100, 1));
+        this.server.setDownloadName(datasetId, fileId, "renamed.txt");
+        Path dir = this.temp.getRoot().toPath();
+        DatasetDownloadResult first = client.downloadDataset(datasetId, dir);
+        assertThat(first.getFiles().get(0).getPath(), is(dir.resolve("renamed.txt")));
+        long requests = this.server.getRequestCount();
+        DatasetDownloadResult second = client.downloadDataset(datasetId, dir);
+        assertThat(second.getSkipped(), is(Collections.singletonList(dir.resolve("renamed.txt"))));
+        assertThat(second.getFiles().size(), is(0));
+        // 一覧の取得と、ファイル名を確認するHEADのみ
+        assertThat(this.server.getRequestCount() - requests, is(2L));
+        assertThat(listNames(dir), is(Collections.singletonList("renamed.txt")));
+    }
+
+    @Test
+    public void スキップしない場合全て再取得する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        this.server.addFile(datasetId, "a.txt", content(100, 1));
+        Path dir = this.temp.getRoot().toPath();
+        client.downloadDataset(datasetId, dir);
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir,
+                new DatasetDownloadOptions().skipExisting(false));
+        assertThat(result.getSkipped().size(), is(0));
+        assertThat(result.getFiles().size(), is(1));
+    }
+
+    @Test
+    public void 大きなファイルを分割してダウンロードできる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        byte[] large = content(9 * 1024 * 1024 + 17, 3);
+        this.server.addFile(datasetId, "large.bin", large);
+        this.server.addFile(datasetId, "small.txt", content(10, 4));
+        Path dir = this.temp.getRoot().toPath();
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir,
+                new DatasetDownloadOptions().splitThreshold(1024 * 1024));
+        Assert.assertArrayEquals(large, Files.readAllBytes(dir.resolve("large.bin")));
+        Assert.assertArrayEquals(content(10, 4), Files.readAllBytes(dir.resolve("small.txt")));
+        assertThat(result.getFiles().get(0).getName(), is("large.bin"));
+        assertThat(result.getFiles().get(0).getRequestCount() > 1, is(true));
+    }
+
+    @Test
+    public void 同じ名前のファイルにはファイルIDを付ける() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        this.server.addFile(datasetId, "same.txt", content(10, 1));
+        String second = this.server.addFile(datasetId, "same.txt", content(20, 2));
+        Path dir = this.temp.getRoot().toPath();
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir);
+        assertThat(result.getFiles().size(), is(2));
+        Assert.assertArrayEquals(content(10, 1), Files.readAllBytes(dir.resolve("same.txt")));
+        Assert.assertArrayEquals(content(20, 2), Files.readAllBytes(dir.resolve("same_" + second + ".txt")));
+    }
+
+    @Test
+    public void 進捗が通知される() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        for (int i = 0; i < 5; i++) {
+            this.server.addFile(datasetId, "file" + i, content(1000, i));
+        }
+        List<DatasetDownloadProgress> progresses = Collections.synchronizedList(new ArrayList<>());
+        Path dir = this.temp.getRoot().toPath();
+        client.downloadDataset(datasetId, dir, new DatasetDownloadOptions().listener(progresses::add));
+        DatasetDownloadProgress first = progresses.get(0);
+        DatasetDownloadProgress last = progresses.get(progresses.size() - 1);
+        assertThat(first.getTotalFiles(), is(5));
+        assertThat(first.getCompletedFiles(), is(0));
+        assertThat(last.getCompletedFiles(), is(5));
+        assertThat(last.getTotalBytes(), is(5000L));
+        assertThat(last.getDownloadedBytes(), is(5000L));
+    }
+
+    @Test
+    public void リスナーの例外はダウンロードに影響しない() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        this.server.addFile(datasetId, "a.txt", content(100, 1));
+        Path dir = this.temp.getRoot().toPath();
+        DatasetDownloadResult result = client.downloadDataset(datasetId, dir,
+                new DatasetDownloadOptions().listener(x -> {
+                    throw new IllegalStateException("listener");
+                }));
+        assertThat(result.getFiles().size(), is(1));
+    }
+
+    @Test
+    public void 存在しないデータセットの場合例外が発生する() throws IOException {
+        thrown.expect(HttpStatusException.class);
+        DsmoqClient client = create();
+        client.downloadDataset("not-found", this.temp.getRoot().toPath());
+    }
+
+    @Test
+    public void datasetIdがnullの場合例外が発生する() throws IOException {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.downloadDataset(null, this.temp.getRoot().toPath());
+    }
+
+    @Test
+    public void 並列数が1未満の場合例外が発生する() {
+        thrown.expect(IllegalArgumentException.class);
+        new DatasetDownloadOptions().parallelism(0);
+    }
+
+    @Test
+    public void 分割の閾値が1未満の場合例外が発生する() {
+        thrown.expect(IllegalArgumentException.class);
+        new DatasetDownloadOptions().splitThreshold(0);
+    }
+
+    private static List<String> listNames(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.map(x -> x.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -6,9 +6,14 @@ import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -94,6 +99,59 @@ public class SDKDownloadFileWithRangeTest {
         Assert.assertArrayEquals(downloaded, Files.readAllBytes(original));
     }
 
+    @Test
+    public void downloadFileWithRange_transferToでFileChannelへ書き込める() throws IOException {
+        DsmoqClient client = create();
+        Path original = Paths.get("testdata", "test.png");
+        Dataset dataset = client.createDataset(true, false, original.toFile());
+        RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+        String fileId = files.getResults().get(0).getId();
+        Path target = Files.createTempFile("dsmoq-test", ".png");
+        long size = Files.size(original);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            long written = client.downloadFileWithRange(dataset.getId(), fileId, null, null, content -> {
+                assertThat(content.getContentLength(), is(size));
+                assertThat(content.getRangeOffset(), is(0L));
+                try {
+                    return content.transferTo(channel, 0);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertThat(written, is(Files.size(original)));
+            Assert.assertArrayEquals(Files.readAllBytes(target), Files.readAllBytes(original));
+        } finally {
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void downloadFileWithRange_getChannelでByteBufferに読み込める() throws IOException {
+        DsmoqClient client = create();
+        Path original = Paths.get("testdata", "test.png");
+        Dataset dataset = client.createDataset(true, false, original.toFile());
+        RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+        String fileId = files.getResults().get(0).getId();
+        byte[] downloaded = client.downloadFileWithRange(dataset.getId(), fileId, 10L, 19L, content -> {
+            assertThat(content.getContentLength(), is(10L));
+            assertThat(content.getRangeOffset(), is(10L));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+            try {
+                ReadableByteChannel channel = content.getChannel();
+                while (channel.read(buffer) >= 0) {
+                    // do nothing
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            buffer.flip();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+        Assert.assertArrayEquals(downloaded, Arrays.copyOfRange(Files.readAllBytes(original), 10, 20));
+    }
+
     @Test
     public void downloadFileWithRange_サーバローカルのZIP内ファイルをDLできる() throws IOException {
         DsmoqClient client = create();
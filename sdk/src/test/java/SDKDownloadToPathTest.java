@@ -0,0 +1,211 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DownloadOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetGroupsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DownloadResult;
+import jp.ac.nagoya_u.dsmoq.sdk.response.GroupsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKDownloadToPathTest {
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void downloadToPath_サーバローカルのZIPファイルをDLできる() throws IOException {
+        checkDownload(Paths.get("testdata", "test.zip"), new DownloadOptions());
+    }
+
+    @Test
+    public void downloadToPath_サーバローカルのZIP以外のファイルをDLできる() throws IOException {
+        checkDownload(Paths.get("testdata", "test.png"), new DownloadOptions());
+    }
+
+    @Test
+    public void downloadToPath_分割して並列にDLできる() throws IOException {
+        checkDownload(Paths.get("testdata", "test.png"), new DownloadOptions().parallelism(4).minChunkSize(16));
+    }
+
+    @Test
+    public void downloadToPath_サイズ0のファイルをDLできる() throws IOException {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("testdata/empty.zip"));
+        RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+        String fileId = files.getResults().get(0).getId();
+        String zFileId = client.getDatasetZippedFiles(dataset.getId(), fileId, new GetRangeParam()).getResults().get(0)
+                .getId();
+        Path target = temp.getRoot().toPath().resolve("empty");
+        DownloadResult result = client.downloadToPath(dataset.getId(), zFileId, target);
+        assertThat(result.getSize(), is(0L));
+        assertThat(Files.size(target), is(0L));
+    }
+
+    @Test
+    public void downloadToPath_既存のファイルを上書きできる() throws IOException {
+        Path target = temp.getRoot().toPath().resolve("test.png");
+        Files.write(target, new byte[1024 * 1024]);
+        checkDownload(Paths.get("testdata", "test.png"), new DownloadOptions(), target);
+    }
+
+    @Test
+    public void downloadToPath_resume指定時は完了後にジャーナルが削除される() throws IOException {
+        Path target = temp.getRoot().toPath().resolve("test.png");
+        checkDownload(Paths.get("testdata", "test.png"), new DownloadOptions().resume(true), target);
+        assertThat(Files.exists(temp.getRoot().toPath().resolve("test.png.dsmoq-journal")), is(false));
+    }
+
+    @Test
+    public void downloadToPath_ジャーナルに記録された範囲以外を取得して再開できる() throws IOException {
+        Path original = Paths.get("testdata", "test.png");
+        long size = Files.size(original);
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, original.toFile());
+        String fileId = client.getDatasetFiles(dataset.getId(), new GetRangeParam()).getResults().get(0).getId();
+        Path target = temp.getRoot().toPath().resolve("test.png");
+        // 先頭100byteのみ書き込み済みの状態を作る
+        byte[] partial = new byte[(int) size];
+        System.arraycopy(Files.readAllBytes(original), 0, partial, 0, 100);
+        Files.write(target, partial);
+        Files.write(temp.getRoot().toPath().resolve("test.png.dsmoq-journal"),
+                Arrays.asList("# dsmoq download journal v1", "datasetId=" + dataset.getId(), "fileId=" + fileId,
+                        "size=" + size, "range=0-100"));
+        DownloadResult result = client.downloadToPath(dataset.getId(), fileId, target,
+                new DownloadOptions().resume(true));
+        assertThat(result.getResumedSize(), is(100L));
+        Assert.assertArrayEquals(Files.readAllBytes(target), Files.readAllBytes(original));
+        assertThat(Files.exists(temp.getRoot().toPath().resolve("test.png.dsmoq-journal")), is(false));
+    }
+
+    @Test
+    public void downloadToPath_ファイルサイズが変わっている場合は最初から取得し直す() throws IOException {
+        Path original = Paths.get("testdata", "test.png");
+        long size = Files.size(original);
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, original.toFile());
+        String fileId = client.getDatasetFiles(dataset.getId(), new GetRangeParam()).getResults().get(0).getId();
+        Path target = temp.getRoot().toPath().resolve("test.png");
+        Files.write(target, new byte[(int) size + 1]);
+        Files.write(temp.getRoot().toPath().resolve("test.png.dsmoq-journal"),
+                Arrays.asList("# dsmoq download journal v1", "datasetId=" + dataset.getId(), "fileId=" + fileId,
+                        "size=" + (size + 1), "range=0-100"));
+        DownloadResult result = client.downloadToPath(dataset.getId(), fileId, target,
+                new DownloadOptions().resume(true));
+        assertThat(result.getResumedSize(), is(0L));
+        Assert.assertArrayEquals(Files.readAllBytes(target), Files.readAllBytes(original));
+    }
+
+    @Test
+    public void downloadToPathでfileIdで指定した対象が存在しない場合例外が発生() {
+        thrown.expect(HttpStatusException.class);
+        thrown.expect(HttpStatusExceptionMatcher.is(404));
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("README.md"));
+        client.downloadToPath(dataset.getId(), "023bfa40-e897-4dad-96db-9fd3cf001e79",
+                temp.getRoot().toPath().resolve("notfound"));
+    }
+
+    @Test
+    public void downloadToPathのdatasetIdがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.downloadToPath(null, "", temp.getRoot().toPath(), new DownloadOptions());
+    }
+
+    @Test
+    public void downloadToPathのfileIdがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.downloadToPath("", null, temp.getRoot().toPath(), new DownloadOptions());
+    }
+
+    @Test
+    public void downloadToPathのtargetがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.downloadToPath("", "", null, new DownloadOptions());
+    }
+
+    @Test
+    public void downloadToPathのoptionsがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.downloadToPath("", "", temp.getRoot().toPath(), null);
+    }
+
+    @Test
+    public void DownloadOptionsのparallelismが0の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new DownloadOptions().parallelism(0);
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<GroupsSummary> groups = client.getGroups(new GetGroupsParam(Optional.empty(),
+                Optional.of("023bfa40-e897-4dad-96db-9fd3cf001e79"), Optional.empty(), Optional.empty())).getResults();
+        for (GroupsSummary group : groups) {
+            try {
+                client.deleteGroup(group.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+
+    private void checkDownload(Path original, DownloadOptions options) throws IOException {
+        checkDownload(original, options, temp.getRoot().toPath().resolve(original.getFileName()));
+    }
+
+    private void checkDownload(Path original, DownloadOptions options, Path target) throws IOException {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, original.toFile());
+        RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+        String fileId = files.getResults().get(0).getId();
+        DownloadResult result = client.downloadToPath(dataset.getId(), fileId, target, options);
+        assertThat(result.getName(), is(original.getFileName().toString()));
+        assertThat(result.getSize(), is(Files.size(original)));
+        Assert.assertArrayEquals(Files.readAllBytes(target), Files.readAllBytes(original));
+    }
+}
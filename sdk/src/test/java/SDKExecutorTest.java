@@ -0,0 +1,173 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+
+public class SDKExecutorTest {
+    private static final String EXECUTOR_THREAD_NAME = "sdk-executor-test";
+
+    private DsmoqStubServer server;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, EXECUTOR_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DsmoqClientBuilder builder(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void 指定したExecutorで完了後の処理が実行される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).executor(this.executor).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String name = client.getDataset(datasetId).thenApply(dataset -> Thread.currentThread().getName())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(name, is(EXECUTOR_THREAD_NAME));
+        }
+    }
+
+    @Test
+    public void 指定したExecutorでダウンロードの処理関数が実行される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).executor(this.executor).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.txt", "hello".getBytes("UTF-8"));
+            String name = client.downloadFile(datasetId, fileId, content -> Thread.currentThread().getName())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(name, is(EXECUTOR_THREAD_NAME));
+        }
+    }
+
+    @Test
+    public void Executorを指定しない場合ダウンロードの処理関数はForkJoinPoolで実行されない() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.txt", "hello".getBytes("UTF-8"));
+            Thread thread = client.downloadFile(datasetId, fileId, content -> Thread.currentThread())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(thread instanceof ForkJoinWorkerThread, is(false));
+            assertThat(thread.isDaemon(), is(true));
+        }
+    }
+
+    @Test
+    public void withExecutorで呼び出しごとにExecutorを切り替えられる() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String name;
+            try (AsyncDsmoqClient view = client.withExecutor(this.executor)) {
+                name = view.getDataset(datasetId).thenApply(dataset -> Thread.currentThread().getName())
+                        .get(5, TimeUnit.SECONDS);
+            }
+            assertThat(name, is(EXECUTOR_THREAD_NAME));
+            // 取得したクライアントを閉じても、元のクライアントは利用できる
+            String origin = client.getDataset(datasetId).thenApply(dataset -> Thread.currentThread().getName())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(origin, is(not(EXECUTOR_THREAD_NAME)));
+        }
+    }
+
+    @Test
+    public void virtualThreadsを指定した場合I_Oスレッド以外で完了後の処理が実行される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).virtualThreads(true).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            Thread thread = client.getDataset(datasetId).thenApply(dataset -> Thread.currentThread())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName().startsWith("I/O dispatcher"), is(false));
+        }
+    }
+
+    @Test
+    public void virtualThreadsを指定した場合多数のブロックする処理を並行して実行できる() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).virtualThreads(true).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            int count = 64;
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                futures.add(client.getDataset(datasetId).thenApply(dataset -> {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return dataset.getId();
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            // 各処理が直列に実行された場合は30秒以上かかる
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000, is(true));
+            for (CompletableFuture<String> future : futures) {
+                assertThat(future.get(), is(datasetId));
+            }
+        }
+    }
+
+    @Test
+    public void Executorを指定した場合も取り消したダウンロードは中断される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions().bandwidth(1024 * 1024))
+                .maxConnectionsPerRoute(1).executor(this.executor).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", new byte[20 * 1024 * 1024]);
+            CompletableFuture<String> download = client.downloadFile(datasetId, fileId, content -> content.getName());
+            Thread.sleep(300);
+            download.cancel(true);
+            long start = System.nanoTime();
+            assertThat(client.getDataset(datasetId).get(5, TimeUnit.SECONDS).getId(), is(datasetId));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000, is(true));
+        }
+    }
+
+    @Test
+    public void withExecutorのexecutorがnullの場合例外が発生する() throws IOException {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            thrown.expect(NullPointerException.class);
+            client.withExecutor(null);
+        }
+    }
+
+    @Test
+    public void ビルダーのexecutorがnullの場合例外が発生する() throws IOException {
+        DsmoqClientBuilder builder = builder(new StubServerOptions());
+        thrown.expect(NullPointerException.class);
+        builder.executor(null);
+    }
+}
@@ -0,0 +1,322 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKFlowTest {
+    private DsmoqStubServer server;
+
+    public AsyncDsmoqClient create(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").buildAsync();
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void Publisherでファイルの内容を取得できる() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(1024 * 1024, 1));
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+            client.downloadFilePublisher(datasetId, fileId).subscribe(subscriber);
+            Assert.assertArrayEquals(content(1024 * 1024, 1), subscriber.done.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void Publisherでファイルの内容を部分的に取得できる() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(5000, 2));
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+            client.downloadFilePublisher(datasetId, fileId, 100L, 199L).subscribe(subscriber);
+            byte[] expected = new byte[100];
+            System.arraycopy(content(5000, 2), 100, expected, 0, 100);
+            Assert.assertArrayEquals(expected, subscriber.done.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void Publisherは購読ごとにリクエストを送信する() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(1000, 3));
+            Publisher<ByteBuffer> publisher = client.downloadFilePublisher(datasetId, fileId);
+            for (int i = 0; i < 2; i++) {
+                CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+                publisher.subscribe(subscriber);
+                Assert.assertArrayEquals(content(1000, 3), subscriber.done.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void 要求した件数を超えてデータは通知されない() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(4 * 1024 * 1024, 4));
+            CollectingSubscriber subscriber = new CollectingSubscriber(1);
+            client.downloadFilePublisher(datasetId, fileId).subscribe(subscriber);
+            Thread.sleep(500);
+            assertThat(subscriber.count.get(), is(1));
+            assertThat(subscriber.done.isDone(), is(false));
+            subscriber.subscription.request(Long.MAX_VALUE);
+            Assert.assertArrayEquals(content(4 * 1024 * 1024, 4), subscriber.done.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void 購読を取り消すと通知が停止する() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(4 * 1024 * 1024, 5));
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE) {
+                @Override
+                public void onNext(ByteBuffer item) {
+                    super.onNext(item);
+                    this.subscription.cancel();
+                }
+            };
+            client.downloadFilePublisher(datasetId, fileId).subscribe(subscriber);
+            Thread.sleep(500);
+            assertThat(subscriber.count.get(), is(1));
+            assertThat(subscriber.done.isDone(), is(false));
+        }
+    }
+
+    @Test
+    public void 存在しないファイルを購読するとonErrorが通知される() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+            client.downloadFilePublisher(datasetId, "023bfa40-e897-4dad-96db-9fd3cf001e79").subscribe(subscriber);
+            thrown.expectCause(instanceOf(HttpStatusException.class));
+            subscriber.done.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void 要求件数が0以下の場合onErrorが通知される() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(1000, 6));
+            CollectingSubscriber subscriber = new CollectingSubscriber(0);
+            client.downloadFilePublisher(datasetId, fileId).subscribe(subscriber);
+            thrown.expectCause(instanceOf(IllegalArgumentException.class));
+            subscriber.done.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void downloadFilePublisherのfileIdがnullの場合例外が発生する() throws IOException {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            thrown.expect(NullPointerException.class);
+            client.downloadFilePublisher("dataset", null);
+        }
+    }
+
+    @Test
+    public void Publisherの内容でファイルを追加できる() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            byte[] data = content(1024 * 1024 + 123, 7);
+            DatasetAddFiles result = client
+                    .addFileFromPublisher(datasetId, "test.dat", data.length, new ChunkPublisher(data, 10000))
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(result.getFiles().get(0).getName(), is("test.dat"));
+            Assert.assertArrayEquals(data, this.server.getFileContent(datasetId, result.getFiles().get(0).getId()));
+        }
+    }
+
+    @Test
+    public void Publisherの内容でファイルを更新できる() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "old.dat", content(100, 8));
+            byte[] data = content(300000, 9);
+            DatasetFile result = client
+                    .updateFileFromPublisher(datasetId, fileId, "new.dat", data.length, new ChunkPublisher(data, 4096))
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(result.getName(), is("new.dat"));
+            Assert.assertArrayEquals(data, this.server.getFileContent(datasetId, fileId));
+        }
+    }
+
+    @Test
+    public void Publisherの長さが指定と異なる場合ファイルの追加に失敗する() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            byte[] data = content(1000, 10);
+            thrown.expect(ExecutionException.class);
+            client.addFileFromPublisher(datasetId, "test.dat", 2000, new ChunkPublisher(data, 100)).get(10,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void PublisherがonErrorを通知した場合ファイルの追加に失敗する() throws Exception {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            String datasetId = this.server.createDataset("test", true, false);
+            Publisher<ByteBuffer> publisher = subscriber -> {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IOException("broken source"));
+            };
+            thrown.expect(ExecutionException.class);
+            client.addFileFromPublisher(datasetId, "test.dat", 1000, publisher).get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void addFileFromPublisherのlengthが負の場合例外が発生する() throws IOException {
+        try (AsyncDsmoqClient client = create(new StubServerOptions())) {
+            thrown.expect(IllegalArgumentException.class);
+            client.addFileFromPublisher("dataset", "test.dat", -1, new ChunkPublisher(new byte[0], 1));
+        }
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * 受け取ったデータを連結し、完了時にdoneを完了させるSubscriber
+     */
+    private static class CollectingSubscriber implements Subscriber<ByteBuffer> {
+        final long initial;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AtomicInteger count = new AtomicInteger();
+        final CompletableFuture<byte[]> done = new CompletableFuture<>();
+        volatile Subscription subscription;
+
+        CollectingSubscriber(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(this.initial);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            this.count.incrementAndGet();
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            synchronized (this.out) {
+                this.out.write(bytes, 0, bytes.length);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this.out) {
+                this.done.complete(this.out.toByteArray());
+            }
+        }
+    }
+
+    /**
+     * バイト列を指定サイズごとに、要求された件数だけ通知するPublisher
+     */
+    private static class ChunkPublisher implements Publisher<ByteBuffer> {
+        final byte[] data;
+        final int chunkSize;
+
+        ChunkPublisher(byte[] data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                long demand;
+                int position;
+                boolean emitting;
+                boolean cancelled;
+
+                @Override
+                public synchronized void request(long n) {
+                    this.demand += n;
+                    if (this.emitting) {
+                        return;
+                    }
+                    this.emitting = true;
+                    while (!this.cancelled && this.demand > 0 && this.position < data.length) {
+                        int len = Math.min(chunkSize, data.length - this.position);
+                        ByteBuffer chunk = ByteBuffer.wrap(data, this.position, len);
+                        this.position += len;
+                        this.demand--;
+                        subscriber.onNext(chunk);
+                    }
+                    if (!this.cancelled && this.position == data.length) {
+                        this.cancelled = true;
+                        subscriber.onComplete();
+                    }
+                    this.emitting = false;
+                }
+
+                @Override
+                public synchronized void cancel() {
+                    this.cancelled = true;
+                }
+            });
+        }
+    }
+}
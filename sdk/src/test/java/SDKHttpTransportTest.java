@@ -0,0 +1,260 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.client.RequestMetrics;
+import jp.ac.nagoya_u.dsmoq.sdk.client.RetryPolicy;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpTransport;
+import jp.ac.nagoya_u.dsmoq.sdk.http.HttpTransportFactory;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFileContent;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+
+public class SDKHttpTransportTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClientBuilder builder(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでデータセットを取得できる() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            assertThat(client.getDataset(datasetId).getMeta().getName(), is("test"));
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでファイルを追加できる() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            // メモリ上に書き出す小さなボディと、別スレッドから流し込む大きなボディ
+            File small = write("small.dat", content(100, 1));
+            File large = write("large.dat", content(1024 * 1024, 2));
+            DatasetAddFiles result = client.addFiles(datasetId, small, large);
+            assertThat(result.getFiles().size(), is(2));
+            Assert.assertArrayEquals(content(100, 1),
+                    this.server.getFileContent(datasetId, result.getFiles().get(0).getId()));
+            Assert.assertArrayEquals(content(1024 * 1024, 2),
+                    this.server.getFileContent(datasetId, result.getFiles().get(1).getId()));
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでgzip圧縮されたファイルを取得できる() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions().gzip(true)).transport(HttpTransportFactory.HTTP_2)
+                .build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.txt", new byte[100000]);
+            byte[] data = client.downloadFile(datasetId, fileId, SDKHttpTransportTest::read);
+            Assert.assertArrayEquals(new byte[100000], data);
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでリダイレクトに従う() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions().redirectToS3(true))
+                .transport(HttpTransportFactory.HTTP_2).build()) {
+            String datasetId = this.server.createDataset("test", false, true);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(5000, 3));
+            assertThat(client.getFileSize(datasetId, fileId), is(5000L));
+            byte[] data = client.downloadFileWithRange(datasetId, fileId, 100L, 200L, SDKHttpTransportTest::read);
+            byte[] expected = new byte[101];
+            System.arraycopy(content(5000, 3), 100, expected, 0, 101);
+            Assert.assertArrayEquals(expected, data);
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでエラーレスポンスのステータスを取得できる() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2).build()) {
+            client.getDataset("023bfa40-e897-4dad-96db-9fd3cf001e79");
+            throw new AssertionError("HttpStatusException expected");
+        } catch (HttpStatusException e) {
+            assertThat(e.getMessage().startsWith("http_status=404"), is(true));
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートで送受信のバイト数を計測できる() throws IOException {
+        List<RequestMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2)
+                .metricsListener(metrics::add).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            client.addFiles(datasetId, write("a.dat", content(1000, 4)));
+            RequestMetrics m = metrics.get(0);
+            assertThat(m.getStatusCode(), is(200));
+            assertThat(m.getRequestBytes() > 1000, is(true));
+            assertThat(m.getResponseBytes() > 0, is(true));
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートで期限を過ぎるとサーバの応答を待たずにTimeoutExceptionが発生する() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2)
+                .retryPolicy(new RetryPolicy().maxAttempts(1).deadline(500)).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            this.server.delayNext(1, 3000);
+            long start = System.nanoTime();
+            try {
+                client.getDataset(datasetId);
+                throw new AssertionError("TimeoutException expected");
+            } catch (TimeoutException e) {
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void HTTP2のトランスポートでレスポンスボディの読み込みがタイムアウトする() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(HttpTransportFactory.HTTP_2)
+                .socketTimeout(500).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "test.dat", content(100000, 5));
+            this.server.stallNext(1, 5000);
+            long start = System.nanoTime();
+            try {
+                client.downloadFile(datasetId, fileId, SDKHttpTransportTest::read);
+                throw new AssertionError("SocketTimeoutException expected");
+            } catch (ApiFailedException e) {
+                // レスポンスボディの読み込みはSDKHttpTransportTest#readで行うため、その例外を原因として送出される
+                assertThat(e.getCause().getCause() instanceof SocketTimeoutException, is(true));
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void 指定したトランスポートでリクエストを送信する() throws IOException {
+        AtomicLong count = new AtomicLong();
+        HttpTransportFactory factory = config -> {
+            HttpTransport transport = HttpTransportFactory.HTTP_1_1.create(config);
+            return new HttpTransport() {
+                @Override
+                public CloseableHttpResponse execute(HttpUriRequest request, HttpContext context)
+                        throws IOException, HttpException {
+                    count.incrementAndGet();
+                    return transport.execute(request, context);
+                }
+
+                @Override
+                public void close() {
+                    transport.close();
+                }
+            };
+        };
+        try (DsmoqClient client = builder(new StubServerOptions()).transport(factory).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            client.getDataset(datasetId);
+            client.getDataset(datasetId);
+            assertThat(count.get(), is(2L));
+        }
+    }
+
+    @Test
+    public void transportがnullの場合例外が発生する() throws IOException {
+        thrown.expect(NullPointerException.class);
+        builder(new StubServerOptions()).transport(null);
+    }
+
+    @Test
+    public void maxConnectionsPerRouteがmaxConnectionsを超える場合例外が発生する() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        builder(new StubServerOptions()).maxConnections(4).maxConnectionsPerRoute(8).build();
+    }
+
+    @Test
+    public void maxConnectionsのみを小さく設定してもクライアントを作成できる() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).maxConnections(2).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            assertThat(client.getDataset(datasetId).getMeta().getName(), is("test"));
+        }
+    }
+
+    @Test
+    public void closeしないクライアントを作成してもスレッドが増えない() throws IOException {
+        DsmoqClientBuilder builder = builder(new StubServerOptions());
+        builder.build().close();
+        long before = countThreads("dsmoq-idle-connection-evictor");
+        List<DsmoqClient> clients = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            clients.add(builder.build());
+        }
+        assertThat(countThreads("dsmoq-idle-connection-evictor"), is(before));
+        for (DsmoqClient client : clients) {
+            client.close();
+        }
+    }
+
+    private static long countThreads(String name) {
+        return Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals(name)).count();
+    }
+
+    private static byte[] read(DatasetFileContent content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            content.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(this.temp.getRoot(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,176 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqMetricsListener;
+import jp.ac.nagoya_u.dsmoq.sdk.client.EndpointClass;
+import jp.ac.nagoya_u.dsmoq.sdk.client.HistogramMetricsListener;
+import jp.ac.nagoya_u.dsmoq.sdk.client.LatencyHistogram;
+import jp.ac.nagoya_u.dsmoq.sdk.client.RequestMetrics;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKMetricsTest {
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    public static DsmoqClientBuilder builder(DsmoqMetricsListener listener) {
+        return DsmoqClient.builder("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").metricsListener(listener);
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void getDataset_エンドポイントのテンプレートと計測値が通知される() {
+        List<RequestMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (DsmoqClient client = builder(metrics::add).build()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            metrics.clear();
+            client.getDataset(dataset.getId());
+            assertThat(metrics.size(), is(1));
+            RequestMetrics m = metrics.get(0);
+            assertThat(m.getEndpoint(), is("GET /api/datasets/{id}"));
+            assertThat(m.getMethod(), is("GET"));
+            assertThat(m.getEndpointClass(), is(EndpointClass.METADATA));
+            assertThat(m.getStatusCode(), is(200));
+            assertThat(m.isSucceeded(), is(true));
+            assertThat(m.getRetries(), is(0));
+            assertThat(m.getConnectNanos() >= 0, is(true));
+            assertThat(m.getPoolWaitNanos() >= 0, is(true));
+            assertThat(m.getTimeToFirstByteNanos() > 0, is(true));
+            assertThat(m.getTotalNanos() >= m.getTimeToFirstByteNanos(), is(true));
+            assertThat(m.getResponseBytes() > 0, is(true));
+        }
+    }
+
+    @Test
+    public void getDataset_エラーレスポンスの場合ステータスと原因が通知される() {
+        List<RequestMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (DsmoqClient client = builder(metrics::add).build()) {
+            try {
+                client.getDataset("023bfa40-e897-4dad-96db-9fd3cf001e79");
+                throw new AssertionError("HttpStatusException expected");
+            } catch (HttpStatusException e) {
+                assertThat(metrics.get(0).getStatusCode(), is(404));
+                assertThat(metrics.get(0).getError() == e, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void createDataset_送信したバイト数が通知される() {
+        List<RequestMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (DsmoqClient client = builder(metrics::add).build()) {
+            client.createDataset(true, false, new File("testdata/1.txt"));
+            RequestMetrics m = metrics.get(0);
+            assertThat(m.getEndpoint(), is("POST /api/datasets"));
+            assertThat(m.getEndpointClass(), is(EndpointClass.UPLOAD));
+            assertThat(m.getRequestBytes() > new File("testdata/1.txt").length(), is(true));
+        }
+    }
+
+    @Test
+    public void buildAsync_非同期クライアントでも通知される() throws Exception {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        DsmoqClientBuilder builder = builder(listener);
+        try (DsmoqClient client = builder.build(); AsyncDsmoqClient asyncClient = builder.buildAsync()) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            for (int i = 0; i < 10; i++) {
+                asyncClient.getDataset(dataset.getId()).get();
+            }
+            SortedMap<String, HistogramMetricsListener.EndpointSnapshot> snapshot = listener.snapshot();
+            HistogramMetricsListener.EndpointSnapshot stats = snapshot.get("GET /api/datasets/{id}");
+            assertThat(stats.getCount(), is(10L));
+            assertThat(stats.getErrors(), is(0L));
+            assertThat(stats.getTimeToFirstByte().getCount(), is(10L));
+            assertThat(stats.getConnect().getCount(), is(0L));
+            assertThat(snapshot.get("POST /api/datasets").getCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void metricsListener_リスナーの例外は呼び出し結果に影響しない() {
+        try (DsmoqClient client = builder(m -> {
+            throw new IllegalStateException("listener failure");
+        }).build()) {
+            assertThat(client.getLicenses().isEmpty(), is(false));
+        }
+    }
+
+    @Test
+    public void LatencyHistogramのパーセンタイル値は相対誤差の範囲に収まる() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(100000L));
+        assertThat(snapshot.getMin(), is(1000L));
+        assertThat(snapshot.getMax(), is(100000000L));
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            double exact = percentile * 1000000;
+            double error = Math.abs(snapshot.getValueAtPercentile(percentile) - exact) / exact;
+            assertThat(error <= 1.0 / 64, is(true));
+        }
+        assertThat(snapshot.getValueAtPercentile(100), is(100000000L));
+    }
+
+    @Test
+    public void LatencyHistogramに記録がない場合は0() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getValueAtPercentile(99), is(0L));
+        assertThat(snapshot.getMean(), is(0.0));
+    }
+
+    @Test
+    public void LatencyHistogramのpercentileが100を超える場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new LatencyHistogram().snapshot().getValueAtPercentile(100.1);
+    }
+
+    @Test
+    public void metricsListenerのlistenerがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        builder(null);
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.CacheableEndpoint;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.ResponseCacheOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.request.CreateGroupParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetGroupsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.UpdateDatasetMetaParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.UpdateGroupParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.UpdateProfileParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Group;
+import jp.ac.nagoya_u.dsmoq.sdk.response.GroupsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.response.User;
+
+public class SDKResponseCacheTest {
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    public static DsmoqClient createCached(ResponseCacheOptions options) {
+        return DsmoqClient.builder("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").responseCache(options).build();
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void getLicenses_保持期間内は前回の取得結果を返す() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            assertThat(client.getLicenses(), is(sameInstance(client.getLicenses())));
+        }
+    }
+
+    @Test
+    public void getLicenses_保持期間0の場合はキャッシュしない() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions().ttl(CacheableEndpoint.LICENSES, 0))) {
+            assertThat(client.getLicenses(), is(not(sameInstance(client.getLicenses()))));
+        }
+    }
+
+    @Test
+    public void getDataset_更新後は最新の内容を取得する() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            Dataset before = client.getDataset(dataset.getId());
+            assertThat(client.getDataset(dataset.getId()), is(sameInstance(before)));
+            UpdateDatasetMetaParam param = new UpdateDatasetMetaParam();
+            param.setName("cached dataset");
+            param.setDescription("");
+            param.setLicense(before.getMeta().getLicense());
+            client.updateDatasetMetaInfo(dataset.getId(), param);
+            assertThat(client.getDataset(dataset.getId()).getMeta().getName(), is("cached dataset"));
+        }
+    }
+
+    @Test
+    public void getDataset_ファイルの追加後は最新の内容を取得する() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            assertThat(client.getDataset(dataset.getId()).getFilesCount(), is(1));
+            client.addFiles(dataset.getId(), new File("testdata/2.txt"));
+            assertThat(client.getDataset(dataset.getId()).getFilesCount(), is(2));
+        }
+    }
+
+    @Test
+    public void getGroup_更新後は最新の内容を取得する() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            String groupId = client.createGroup(new CreateGroupParam("cached group", "description")).getId();
+            Group before = client.getGroup(groupId);
+            assertThat(client.getGroup(groupId), is(sameInstance(before)));
+            client.updateGroup(groupId, new UpdateGroupParam("cached group2", "description2"));
+            assertThat(client.getGroup(groupId).getName(), is("cached group2"));
+        }
+    }
+
+    @Test
+    public void getAccounts_プロフィールの更新後は再取得する() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            User user = client.getProfile();
+            List<User> before = client.getAccounts();
+            assertThat(client.getAccounts(), is(sameInstance(before)));
+            client.updateProfile(new UpdateProfileParam(user.getName(), user.getFullname(), user.getOrganization(),
+                    user.getTitle(), "cached profile"));
+            try {
+                assertThat(client.getAccounts(), is(not(sameInstance(before))));
+            } finally {
+                client.updateProfile(new UpdateProfileParam(user.getName(), user.getFullname(),
+                        user.getOrganization(), user.getTitle(), user.getDescription()));
+            }
+        }
+    }
+
+    @Test
+    public void clearResponseCache_破棄後は再取得する() {
+        try (DsmoqClient client = createCached(new ResponseCacheOptions())) {
+            List<?> before = client.getLicenses();
+            client.clearResponseCache();
+            assertThat(client.getLicenses(), is(not(sameInstance(before))));
+        }
+    }
+
+    @Test
+    public void clearResponseCache_キャッシュを使用しない場合は何もしない() {
+        try (DsmoqClient client = create()) {
+            client.clearResponseCache();
+            assertThat(client.getLicenses().isEmpty(), is(false));
+        }
+    }
+
+    @Test
+    public void ResponseCacheOptionsのmaximumSizeが0の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new ResponseCacheOptions().maximumSize(0);
+    }
+
+    @Test
+    public void ResponseCacheOptionsのttlが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new ResponseCacheOptions().ttl(CacheableEndpoint.DATASET, -1);
+    }
+
+    @Test
+    public void ResponseCacheOptionsのendpointがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        new ResponseCacheOptions().ttl(null, 0);
+    }
+
+    @Test
+    public void responseCacheのoptionsがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        createCached(null);
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<GroupsSummary> groups = client.getGroups(new GetGroupsParam(Optional.empty(),
+                Optional.of("023bfa40-e897-4dad-96db-9fd3cf001e79"), Optional.empty(), Optional.empty())).getResults();
+        for (GroupsSummary group : groups) {
+            try {
+                client.deleteGroup(group.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.client.RetryPolicy;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ConnectionLostException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.TimeoutException;
+
+public class SDKRetryPolicyTest {
+    private DsmoqStubServer server;
+
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    public static DsmoqClient createRetrying(String baseUrl, RetryPolicy policy) {
+        return DsmoqClient.builder(baseUrl, "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372").retryPolicy(policy).build();
+    }
+
+    public DsmoqClientBuilder builder(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void getDataset_再試行ポリシーを設定しても取得できる() {
+        try (DsmoqClient client = createRetrying("http://localhost:8080", new RetryPolicy().hedge(true))) {
+            Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"));
+            for (int i = 0; i < 30; i++) {
+                assertThat(client.getDataset(dataset.getId()).getId(), is(dataset.getId()));
+            }
+            assertThat(client.getRetryStatistics().getRetries(), is(0L));
+        }
+    }
+
+    @Test
+    public void getDataset_存在しない場合は再送しない() {
+        try (DsmoqClient client = createRetrying("http://localhost:8080", new RetryPolicy())) {
+            try {
+                client.getDataset("023bfa40-e897-4dad-96db-9fd3cf001e79");
+                throw new AssertionError("HttpStatusException expected");
+            } catch (HttpStatusException e) {
+                assertThat(HttpStatusExceptionMatcher.is(404).matches(e), is(true));
+            }
+            assertThat(client.getRetryStatistics().getRetries(), is(0L));
+        }
+    }
+
+    @Test
+    public void getLicenses_接続できない場合は最大試行回数まで再送する() {
+        try (DsmoqClient client = createRetrying("http://localhost:1",
+                new RetryPolicy().maxAttempts(3).initialBackoff(10))) {
+            try {
+                client.getLicenses();
+                throw new AssertionError("ConnectionLostException expected");
+            } catch (ConnectionLostException e) {
+                // 最大試行回数に達した
+            }
+            assertThat(client.getRetryStatistics().getRetries(), is(2L));
+        }
+    }
+
+    @Test
+    public void getRetryStatistics_再試行ポリシーを設定しない場合は0() {
+        try (DsmoqClient client = create()) {
+            client.getLicenses();
+            assertThat(client.getRetryStatistics().getRetries(), is(0L));
+            assertThat(client.getRetryStatistics().getHedges(), is(0L));
+        }
+    }
+
+    @Test
+    public void getDataset_ヘッジの待ち時間を過ぎると同じリクエストを送信し遅い方を中断する() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).maxConnectionsPerRoute(2)
+                .retryPolicy(new RetryPolicy().hedge(true).minHedgeDelay(50)).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            // ヘッジの待ち時間の算出に必要なレイテンシを記録する
+            for (int i = 0; i < 30; i++) {
+                client.getDataset(datasetId);
+            }
+            assertThat(client.getRetryStatistics().getHedges(), is(0L));
+            this.server.delayNext(1, 3000);
+            long start = System.nanoTime();
+            assertThat(client.getDataset(datasetId).getId(), is(datasetId));
+            assertThat(elapsedMillis(start) < 1500, is(true));
+            assertThat(client.getRetryStatistics().getHedges(), is(1L));
+            assertThat(client.getRetryStatistics().getHedgeWins(), is(1L));
+            // 遅い方が中断されていれば、コネクションが解放されており2件を同時に送信できる
+            start = System.nanoTime();
+            CompletableFuture<?> first = CompletableFuture.runAsync(() -> client.getDataset(datasetId));
+            CompletableFuture<?> second = CompletableFuture.runAsync(() -> client.getDataset(datasetId));
+            CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+            assertThat(elapsedMillis(start) < 1500, is(true));
+        }
+    }
+
+    @Test
+    public void getDataset_期限を過ぎるとサーバの応答を待たずにTimeoutExceptionが発生する() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).retryPolicy(new RetryPolicy().deadline(500))
+                .build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            this.server.delayNext(1, 3000);
+            long start = System.nanoTime();
+            try {
+                client.getDataset(datasetId);
+                throw new AssertionError("TimeoutException expected");
+            } catch (TimeoutException e) {
+                assertThat(elapsedMillis(start) < 1500, is(true));
+            }
+            assertThat(this.server.getRequestCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void getDataset_再送は期限を過ぎると打ち切られる() throws IOException {
+        RetryPolicy policy = new RetryPolicy().maxAttempts(100).initialBackoff(100).maxBackoff(100).deadline(1000);
+        try (DsmoqClient client = builder(new StubServerOptions()).retryPolicy(policy).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            this.server.failNext(Integer.MAX_VALUE, 503);
+            long start = System.nanoTime();
+            try {
+                client.getDataset(datasetId);
+                throw new AssertionError("HttpStatusException or TimeoutException expected");
+            } catch (HttpStatusException e) {
+                // 次の再送までの待ち時間が期限を超えるため、最後のエラーレスポンスで失敗した
+                assertThat(HttpStatusExceptionMatcher.is(503).matches(e), is(true));
+            } catch (TimeoutException e) {
+                // 再送の待機中、あるいは送信中に期限を過ぎた
+            }
+            assertThat(elapsedMillis(start) < 1500, is(true));
+            long retries = client.getRetryStatistics().getRetries();
+            assertThat(retries > 0 && retries < 99, is(true));
+            assertThat(this.server.getRequestCount() <= retries + 1, is(true));
+        }
+    }
+
+    @Test
+    public void RetryPolicyのmaxAttemptsが0の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new RetryPolicy().maxAttempts(0);
+    }
+
+    @Test
+    public void RetryPolicyのdeadlineが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new RetryPolicy().deadline(-1);
+    }
+
+    @Test
+    public void RetryPolicyのminHedgeDelayが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new RetryPolicy().minHedgeDelay(-1);
+    }
+
+    @Test
+    public void retryPolicyのpolicyがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        createRetrying("http://localhost:8080", null);
+    }
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+            return;
+        }
+        DsmoqClient client = create();
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
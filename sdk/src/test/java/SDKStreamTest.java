@@ -0,0 +1,159 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.PageOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetGroupsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.GroupsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKStreamTest {
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void streamDatasetFiles_全ページのファイルを順に取得できる() {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"), new File("testdata/2.txt"),
+                new File("testdata/abc.txt"), new File("testdata/hoge"), new File("testdata/test.csv"));
+        List<String> expected = client.getDatasetFiles(dataset.getId(), new GetRangeParam()).getResults().stream()
+                .map(DatasetFile::getId).collect(Collectors.toList());
+        try (Stream<DatasetFile> files = client.streamDatasetFiles(dataset.getId(),
+                new PageOptions().pageSize(2).prefetch(2))) {
+            assertThat(files.map(DatasetFile::getId).collect(Collectors.toList()), is(expected));
+        }
+    }
+
+    @Test
+    public void streamDatasetFiles_先行取得なしでも全ページのファイルを取得できる() {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"), new File("testdata/2.txt"),
+                new File("testdata/abc.txt"));
+        try (Stream<DatasetFile> files = client.streamDatasetFiles(dataset.getId(),
+                new PageOptions().pageSize(1).prefetch(0))) {
+            assertThat(files.count(), is(3L));
+        }
+    }
+
+    @Test
+    public void streamDatasetFiles_Iteratorとして利用できる() {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"), new File("testdata/2.txt"));
+        try (Stream<DatasetFile> files = client.streamDatasetFiles(dataset.getId(), new PageOptions().pageSize(1))) {
+            Iterator<DatasetFile> iterator = files.iterator();
+            assertThat(iterator.hasNext(), is(true));
+            iterator.next();
+            assertThat(iterator.hasNext(), is(true));
+            iterator.next();
+            assertThat(iterator.hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void streamDatasets_検索結果を全件取得できる() {
+        DsmoqClient client = create();
+        for (int i = 0; i < 3; i++) {
+            client.createDataset(true, false, new File("testdata/1.txt"));
+        }
+        int total = client.getDatasets(new GetDatasetsParam()).getSummary().getTotal();
+        try (Stream<DatasetsSummary> datasets = client.streamDatasets(
+                new GetDatasetsConditionParam(), new PageOptions().pageSize(2))) {
+            assertThat(datasets.map(DatasetsSummary::getId).distinct().count(), is((long) total));
+        }
+    }
+
+    @Test
+    public void streamGroups_空の一覧を取得できる() {
+        DsmoqClient client = create();
+        try (Stream<GroupsSummary> groups = client.streamGroups(new GetGroupsParam(Optional.of("no such group name"),
+                Optional.empty(), Optional.empty(), Optional.empty()), new PageOptions())) {
+            assertThat(groups.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void streamDatasetFilesでdatasetIdで指定した対象が存在しない場合要素の取得時に例外が発生() {
+        thrown.expect(HttpStatusException.class);
+        thrown.expect(HttpStatusExceptionMatcher.is(404));
+        DsmoqClient client = create();
+        try (Stream<DatasetFile> files = client.streamDatasetFiles("023bfa40-e897-4dad-96db-9fd3cf001e79",
+                new PageOptions())) {
+            files.count();
+        }
+    }
+
+    @Test
+    public void streamDatasetFilesのdatasetIdがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.streamDatasetFiles(null, new PageOptions());
+    }
+
+    @Test
+    public void streamDatasetFilesのoptionsがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.streamDatasetFiles("", null);
+    }
+
+    @Test
+    public void PageOptionsのpageSizeが0の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new PageOptions().pageSize(0);
+    }
+
+    @Test
+    public void PageOptionsのprefetchが負の場合IllegalArgumentExceptionが発生() {
+        thrown.expect(IllegalArgumentException.class);
+        new PageOptions().prefetch(-1);
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<GroupsSummary> groups = client.getGroups(new GetGroupsParam(Optional.empty(),
+                Optional.of("023bfa40-e897-4dad-96db-9fd3cf001e79"), Optional.empty(), Optional.empty())).getResults();
+        for (GroupsSummary group : groups) {
+            try {
+                client.deleteGroup(group.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+}
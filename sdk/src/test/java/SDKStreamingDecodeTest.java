@@ -0,0 +1,104 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetGroupsParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.GroupsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSliceSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKStreamingDecodeTest {
+    public static DsmoqClient create() {
+        return DsmoqClient.create("http://localhost:8080",
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void getDatasetFiles_一覧と同じ要素を順に受け取れる() {
+        DsmoqClient client = create();
+        Dataset dataset = client.createDataset(true, false, new File("testdata/1.txt"), new File("testdata/2.txt"),
+                new File("testdata/abc.txt"));
+        RangeSlice<DatasetFile> expected = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+        List<String> actual = new ArrayList<>();
+        RangeSliceSummary summary = client.getDatasetFiles(dataset.getId(), new GetRangeParam(),
+                file -> actual.add(file.getId()));
+        assertThat(actual, is(expected.getResults().stream().map(DatasetFile::getId).collect(Collectors.toList())));
+        assertThat(summary.getTotal(), is(expected.getSummary().getTotal()));
+        assertThat(summary.getCount(), is(expected.getSummary().getCount()));
+        assertThat(summary.getOffset(), is(expected.getSummary().getOffset()));
+    }
+
+    @Test
+    public void getDatasets_検索結果を受け取れる() {
+        DsmoqClient client = create();
+        client.createDataset(true, false, new File("testdata/1.txt"));
+        client.createDataset(true, false, new File("testdata/1.txt"));
+        List<DatasetsSummary> actual = new ArrayList<>();
+        RangeSliceSummary summary = client.getDatasets(new GetDatasetsConditionParam(), actual::add);
+        assertThat(actual.size(), is(summary.getCount()));
+        assertThat(summary.getTotal(), is(client.getDatasets(new GetDatasetsParam()).getSummary().getTotal()));
+    }
+
+    @Test
+    public void getGroups_空の一覧ではconsumerが呼ばれない() {
+        DsmoqClient client = create();
+        List<GroupsSummary> actual = new ArrayList<>();
+        RangeSliceSummary summary = client.getGroups(new GetGroupsParam(Optional.of("no such group name"),
+                Optional.empty(), Optional.empty(), Optional.empty()), actual::add);
+        assertThat(actual.isEmpty(), is(true));
+        assertThat(summary.getTotal(), is(0));
+    }
+
+    @Test
+    public void getDatasetFilesでdatasetIdで指定した対象が存在しない場合例外が発生() {
+        thrown.expect(HttpStatusException.class);
+        thrown.expect(HttpStatusExceptionMatcher.is(404));
+        DsmoqClient client = create();
+        client.getDatasetFiles("023bfa40-e897-4dad-96db-9fd3cf001e79", new GetRangeParam(), file -> {
+        });
+    }
+
+    @Test
+    public void getDatasetFilesのconsumerがnullの場合NullPointerExceptionが発生() {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.getDatasetFiles("", new GetRangeParam(), null);
+    }
+
+    @After
+    public void tearDown() {
+        DsmoqClient client = create();
+        List<DatasetsSummary> datasets = client.getDatasets(new GetDatasetsParam()).getResults();
+        for (DatasetsSummary dataset : datasets) {
+            RangeSlice<DatasetFile> files = client.getDatasetFiles(dataset.getId(), new GetRangeParam());
+            try {
+                files.getResults().stream().forEach(x -> client.deleteFile(dataset.getId(), x.getId()));
+                client.deleteDataset(dataset.getId());
+            } catch (Exception e) {
+                // do nothing
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DownloadOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.PageOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.request.CreateGroupParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetDatasetsConditionParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetMembersParam;
+import jp.ac.nagoya_u.dsmoq.sdk.request.GetRangeParam;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetZipedFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetsSummary;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Group;
+import jp.ac.nagoya_u.dsmoq.sdk.response.RangeSlice;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.HttpStatusException;
+
+public class SDKStubServerTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClient create(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.create(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void データセットを作成し取得できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        File file = write("data.csv", content(1000));
+        Dataset created = client.createDataset("stub", true, false, file);
+        Dataset dataset = client.getDataset(created.getId());
+        assertThat(dataset.getMeta().getName(), is("stub"));
+        assertThat(dataset.getFilesCount(), is(1));
+        assertThat(dataset.getFiles().get(0).getName(), is("data.csv"));
+        assertThat(dataset.getFiles().get(0).getSize(), is(1000L));
+        assertThat(this.server.getDatasetCount(), is(1));
+    }
+
+    @Test
+    public void 削除したデータセットは404になる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        String datasetId = this.server.createDataset("stub", true, false);
+        client.deleteDataset(datasetId);
+        thrown.expect(HttpStatusException.class);
+        client.getDataset(datasetId);
+    }
+
+    @Test
+    public void ファイルを追加し更新できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        String datasetId = this.server.createDataset("stub", true, false);
+        DatasetAddFiles added = client.addFiles(datasetId, write("a.csv", content(10)), write("b.csv", content(20)));
+        assertThat(added.getFiles().size(), is(2));
+        String fileId = added.getFiles().get(0).getId();
+        DatasetFile updated = client.updateFile(datasetId, fileId, write("c.csv", content(30)));
+        assertThat(updated.getName(), is("c.csv"));
+        Assert.assertArrayEquals(content(30), this.server.getFileContent(datasetId, fileId));
+        RangeSlice<DatasetFile> files = client.getDatasetFiles(datasetId, new GetRangeParam());
+        assertThat(files.getSummary().getTotal(), is(2));
+    }
+
+    @Test
+    public void ZIPファイルの中身を一覧できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        String datasetId = this.server.createDataset("stub", true, false);
+        String fileId = this.server.addFile(datasetId, "archive.zip", zip("x.txt", "y.txt"));
+        RangeSlice<DatasetZipedFile> zipped = client.getDatasetZippedFiles(datasetId, fileId, new GetRangeParam());
+        List<String> names = zipped.getResults().stream().map(DatasetZipedFile::getName).collect(Collectors.toList());
+        assertThat(names.toString(), is("[x.txt, y.txt]"));
+    }
+
+    @Test
+    public void データセット一覧をページングして全件取得できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        for (int i = 0; i < 25; i++) {
+            this.server.createDataset("stub" + i, true, false);
+        }
+        List<DatasetsSummary> all = client
+                .streamDatasets(new GetDatasetsConditionParam(), new PageOptions().pageSize(10))
+                .collect(Collectors.toList());
+        assertThat(all.size(), is(25));
+        assertThat(all.get(0).getName(), is("stub24"));
+    }
+
+    @Test
+    public void グループを作成し取得できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        Group created = client.createGroup(new CreateGroupParam("group", "description"));
+        Group group = client.getGroup(created.getId());
+        assertThat(group.getName(), is("group"));
+        assertThat(client.getMembers(group.getId(), new GetMembersParam())
+                .getSummary().getTotal(), is(1));
+    }
+
+    @Test
+    public void ファイルを分割してダウンロードできる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        String datasetId = this.server.createDataset("stub", true, false);
+        byte[] content = content(100000);
+        String fileId = this.server.addFile(datasetId, "データ.bin", content);
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        client.downloadToPath(datasetId, fileId, target, new DownloadOptions().parallelism(4).minChunkSize(1024));
+        Assert.assertArrayEquals(content, Files.readAllBytes(target));
+        String name = client.downloadFile(datasetId, fileId, x -> x.getName());
+        assertThat(name, is("データ.bin"));
+    }
+
+    @Test
+    public void S3へのリダイレクトを経由してダウンロードできる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions().redirectToS3(true));
+        String datasetId = this.server.createDataset("stub", false, true);
+        byte[] content = content(5000);
+        String fileId = this.server.addFile(datasetId, "data.bin", content);
+        byte[] downloaded = client.downloadFile(datasetId, fileId, x -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                x.writeTo(out);
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Assert.assertArrayEquals(content, downloaded);
+        assertThat(client.getFileSize(datasetId, fileId), is(5000L));
+        // GETとHEADそれぞれで、リダイレクト元とリダイレクト先の2回
+        assertThat(this.server.getRequestCount(), is(4L));
+    }
+
+    @Test
+    public void gzipで圧縮したレスポンスを読み込める() throws IOException {
+        DsmoqClient client = create(new StubServerOptions().gzip(true));
+        String datasetId = this.server.createDataset("stub", true, false);
+        byte[] content = new byte[100000];
+        String fileId = this.server.addFile(datasetId, "zero.bin", content);
+        assertThat(client.getDataset(datasetId).getMeta().getName(), is("stub"));
+        Path target = temp.getRoot().toPath().resolve("zero.bin");
+        client.downloadToPath(datasetId, fileId, target);
+        Assert.assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void 遅延と転送速度を指定できる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions().latency(100).bandwidth(100 * 1024));
+        String datasetId = this.server.createDataset("stub", true, false);
+        String fileId = this.server.addFile(datasetId, "data.bin", content(50 * 1024));
+        Path target = temp.getRoot().toPath().resolve("data.bin");
+        long start = System.nanoTime();
+        client.downloadToPath(datasetId, fileId, target, new DownloadOptions().parallelism(1));
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        // 遅延100msと、50KBを100KB/sで送信する500ms
+        Assert.assertTrue("elapsed: " + elapsed, elapsed >= 550);
+    }
+
+    @Test
+    public void 存在しないパスは404になる() throws IOException {
+        DsmoqClient client = create(new StubServerOptions());
+        thrown.expect(HttpStatusException.class);
+        client.getDataset("not-found");
+    }
+
+    @Test
+    public void 負の遅延は指定できない() {
+        thrown.expect(IllegalArgumentException.class);
+        new StubServerOptions().latency(-1);
+    }
+
+    @Test
+    public void 負の転送速度は指定できない() {
+        thrown.expect(IllegalArgumentException.class);
+        new StubServerOptions().bandwidth(-1);
+    }
+
+    @Test
+    public void スレッド数に0は指定できない() {
+        thrown.expect(IllegalArgumentException.class);
+        new StubServerOptions().threads(0);
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,184 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DatasetSyncOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetSyncResult;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.DigestAlgorithm;
+
+public class SDKSyncDirectoryTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClient create() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions());
+        return DsmoqClient.create(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void ディレクトリの全ファイルを追加できる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        for (int i = 0; i < 10; i++) {
+            write(dir.resolve("file" + i + ".dat"), content(1000, i));
+        }
+        write(dir.resolve("sub/nested.dat"), content(50, 100));
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir,
+                new DatasetSyncOptions().batchSize(3000));
+        assertThat(result.getAdded().size(), is(11));
+        assertThat(result.getUpdated().size(), is(0));
+        assertThat(result.getUploadedBytes(), is(10050L));
+        List<String> names = remoteNames(client, datasetId);
+        assertThat(names.contains("sub/nested.dat"), is(true));
+        assertThat(names.size(), is(11));
+    }
+
+    @Test
+    public void 変更のない再実行では何も送信しない() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        write(dir.resolve("a.txt"), content(100, 1));
+        write(dir.resolve("b.txt"), content(200, 2));
+        client.syncDirectory(datasetId, dir);
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir);
+        assertThat(result.getAdded().size(), is(0));
+        assertThat(result.getUpdated().size(), is(0));
+        assertThat(result.getUnchanged(), is(2));
+    }
+
+    @Test
+    public void サイズが変わったファイルを更新する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        write(dir.resolve("a.txt"), content(100, 1));
+        String fileId = client.syncDirectory(datasetId, dir).getAdded().get(0).getId();
+        write(dir.resolve("a.txt"), content(300, 3));
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir);
+        assertThat(result.getUpdated().size(), is(1));
+        assertThat(result.getUpdated().get(0).getId(), is(fileId));
+        Assert.assertArrayEquals(content(300, 3), this.server.getFileContent(datasetId, fileId));
+    }
+
+    @Test
+    public void チェックサムが変わったファイルを更新する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        Path state = this.temp.getRoot().toPath().resolve("state.json");
+        DatasetSyncOptions options = new DatasetSyncOptions().checksum(DigestAlgorithm.SHA256).stateFile(state);
+        write(dir.resolve("a.txt"), content(100, 1));
+        write(dir.resolve("b.txt"), content(100, 2));
+        String fileId = client.syncDirectory(datasetId, dir, options).getAdded().stream()
+                .filter(x -> x.getName().equals("a.txt")).findFirst().get().getId();
+        write(dir.resolve("a.txt"), content(100, 5));
+        Files.setLastModifiedTime(dir.resolve("b.txt"), FileTime.fromMillis(0));
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir, options);
+        assertThat(result.getUpdated().size(), is(1));
+        assertThat(result.getUnchanged(), is(1));
+        Assert.assertArrayEquals(content(100, 5), this.server.getFileContent(datasetId, fileId));
+    }
+
+    @Test
+    public void 状態ファイルがある場合ファイル一覧を取得せずに同期できる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        Path state = dir.resolve(".dsmoq-sync.json");
+        DatasetSyncOptions options = new DatasetSyncOptions().stateFile(state).verifyRemote(false);
+        for (int i = 0; i < 20; i++) {
+            write(dir.resolve("file" + i), content(10, i));
+        }
+        client.syncDirectory(datasetId, dir, options);
+        assertThat(Files.exists(state), is(true));
+        write(dir.resolve("file20"), content(10, 20));
+        long before = this.server.getRequestCount();
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir, options);
+        assertThat(this.server.getRequestCount() - before, is(1L));
+        assertThat(result.getAdded().size(), is(1));
+        assertThat(result.getUnchanged(), is(20));
+        assertThat(remoteNames(client, datasetId).contains(".dsmoq-sync.json"), is(false));
+    }
+
+    @Test
+    public void 削除を指定した場合ローカルにないファイルを削除する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        Path dir = this.temp.newFolder("src").toPath();
+        write(dir.resolve("a.txt"), content(100, 1));
+        write(dir.resolve("b.txt"), content(100, 2));
+        client.syncDirectory(datasetId, dir);
+        Files.delete(dir.resolve("b.txt"));
+        DatasetSyncResult kept = client.syncDirectory(datasetId, dir);
+        assertThat(kept.getDeleted().size(), is(0));
+        assertThat(remoteNames(client, datasetId).size(), is(2));
+        DatasetSyncResult result = client.syncDirectory(datasetId, dir, new DatasetSyncOptions().deleteRemoved(true));
+        assertThat(result.getDeleted(), is(Collections.singletonList("b.txt")));
+        assertThat(remoteNames(client, datasetId), is(Arrays.asList("a.txt")));
+    }
+
+    @Test
+    public void datasetIdがnullの場合例外が発生する() throws IOException {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.syncDirectory(null, this.temp.getRoot().toPath());
+    }
+
+    @Test
+    public void 並列数が1未満の場合例外が発生する() {
+        thrown.expect(IllegalArgumentException.class);
+        new DatasetSyncOptions().parallelism(0);
+    }
+
+    private static List<String> remoteNames(DsmoqClient client, String datasetId) {
+        return client.getDataset(datasetId).getFiles().stream().map(DatasetFile::getName)
+                .collect(Collectors.toList());
+    }
+
+    private static void write(Path path, byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content);
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
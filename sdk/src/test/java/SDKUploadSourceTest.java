@@ -0,0 +1,318 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.AsyncDsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClientBuilder;
+import jp.ac.nagoya_u.dsmoq.sdk.client.UploadSource;
+import jp.ac.nagoya_u.dsmoq.sdk.response.Dataset;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAddFiles;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetAttribute;
+import jp.ac.nagoya_u.dsmoq.sdk.response.DatasetFile;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+import jp.ac.nagoya_u.dsmoq.sdk.util.UploadProgress;
+
+public class SDKUploadSourceTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClientBuilder builder(StubServerOptions options) throws IOException {
+        this.server = DsmoqStubServer.start(options);
+        return DsmoqClient.builder(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void PathByteBufferInputStreamからファイルを追加できる() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            Path path = this.temp.newFile("local.dat").toPath();
+            Files.write(path, content(1000, 1));
+            ByteBuffer buffer = ByteBuffer.wrap(content(3000, 2));
+            buffer.position(1000);
+            List<UploadSource> sources = Arrays.asList(UploadSource.of("path.dat", path),
+                    UploadSource.of("buffer.dat", buffer),
+                    UploadSource.of("stream.dat", new ByteArrayInputStream(content(5000, 3)), 5000));
+            DatasetAddFiles added = client.addFiles(datasetId, sources, null);
+            List<DatasetFile> files = added.getFiles();
+            assertThat(files.size(), is(3));
+            assertThat(files.get(0).getName(), is("path.dat"));
+            assertThat(files.get(1).getName(), is("buffer.dat"));
+            assertThat(files.get(2).getName(), is("stream.dat"));
+            Assert.assertArrayEquals(content(1000, 1), this.server.getFileContent(datasetId, files.get(0).getId()));
+            Assert.assertArrayEquals(Arrays.copyOfRange(content(3000, 2), 1000, 3000),
+                    this.server.getFileContent(datasetId, files.get(1).getId()));
+            Assert.assertArrayEquals(content(5000, 3), this.server.getFileContent(datasetId, files.get(2).getId()));
+            // 長さが全て分かっているため、チャンク形式では送信されない
+            assertThat(this.server.getChunkedRequestCount(), is(0L));
+        }
+    }
+
+    @Test
+    public void 長さの分からないInputStreamはチャンク形式で送信される() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("stream.dat", new ByteArrayInputStream(content(300000, 4))));
+            DatasetAddFiles added = client.addFiles(datasetId, sources, null);
+            Assert.assertArrayEquals(content(300000, 4),
+                    this.server.getFileContent(datasetId, added.getFiles().get(0).getId()));
+            assertThat(this.server.getChunkedRequestCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void 送信の進捗とスループットが通知される() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadProgress> progresses = new CopyOnWriteArrayList<>();
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("large.dat", ByteBuffer.wrap(content(3 * 1024 * 1024, 5))));
+            client.addFiles(datasetId, sources, progresses::add);
+            assertProgress(progresses, 3 * 1024 * 1024, true);
+        }
+    }
+
+    @Test
+    public void 長さの分からないInputStreamの進捗は合計バイト数が不明となる() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadProgress> progresses = new CopyOnWriteArrayList<>();
+            List<UploadSource> sources = Collections.singletonList(
+                    UploadSource.of("large.dat", new ByteArrayInputStream(content(1024 * 1024, 6))));
+            client.addFiles(datasetId, sources, progresses::add);
+            assertProgress(progresses, 1024 * 1024, false);
+        }
+    }
+
+    @Test
+    public void 長さに満たないInputStreamの場合送信は失敗する() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("short.dat", new ByteArrayInputStream(content(100, 7)), 200));
+            try {
+                client.addFiles(datasetId, sources, null);
+                throw new AssertionError("ApiFailedException expected");
+            } catch (ApiFailedException e) {
+                // InputStreamは再送できないため、HTTPクライアントによる自動的な再送は行われない
+                // (スタブがリクエストを数える前に失敗する場合があるため、一定時間2件目が届かないことを確認する)
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+                while (System.nanoTime() < deadline) {
+                    assertThat(this.server.getRequestCount() <= 1, is(true));
+                    Thread.sleep(10);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void UploadSourceでDatasetを作成できる() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            List<UploadSource> sources = Arrays.asList(UploadSource.of("a.dat", ByteBuffer.wrap(content(10, 8))),
+                    UploadSource.of("b.dat", new ByteArrayInputStream(content(20, 9))));
+            Dataset dataset = client.createDataset("created", true, false, sources, null);
+            assertThat(dataset.getMeta().getName(), is("created"));
+            assertThat(dataset.getFilesCount(), is(2));
+        }
+    }
+
+    @Test
+    public void UploadSourceでファイルを更新できる() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            String fileId = this.server.addFile(datasetId, "old.dat", content(10, 10));
+            DatasetFile file = client.updateFile(datasetId, fileId,
+                    UploadSource.of("新しい.dat", new ByteArrayInputStream(content(4000, 11))), null);
+            assertThat(file.getName(), is("新しい.dat"));
+            Assert.assertArrayEquals(content(4000, 11), this.server.getFileContent(datasetId, fileId));
+        }
+    }
+
+    @Test
+    public void UploadSourceでAttributeを読み込める() throws Exception {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            ByteBuffer csv = ByteBuffer.wrap("key1,value1\nkey2,value2\n".getBytes(StandardCharsets.UTF_8));
+            client.importAttribute(datasetId, UploadSource.of("attributes.csv", csv), null);
+            List<DatasetAttribute> attributes = client.getDataset(datasetId).getMeta().getAttributes();
+            assertThat(attributes.size(), is(2));
+            assertThat(attributes.get(1).getValue(), is("value2"));
+        }
+    }
+
+    @Test
+    public void 非同期クライアントでPathByteBufferInputStreamからファイルを追加できる() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            Path path = this.temp.newFile("local.dat").toPath();
+            Files.write(path, content(1000, 1));
+            List<UploadSource> sources = Arrays.asList(UploadSource.of(path),
+                    UploadSource.of("buffer.dat", ByteBuffer.wrap(content(3000, 2))),
+                    UploadSource.of("known.dat", new ByteArrayInputStream(content(200000, 3)), 200000),
+                    UploadSource.of("unknown.dat", new ByteArrayInputStream(content(200000, 4))));
+            List<DatasetFile> files = client.addFiles(datasetId, sources, null).get(10, TimeUnit.SECONDS).getFiles();
+            assertThat(files.size(), is(4));
+            assertThat(files.get(0).getName(), is("local.dat"));
+            Assert.assertArrayEquals(content(1000, 1), this.server.getFileContent(datasetId, files.get(0).getId()));
+            Assert.assertArrayEquals(content(3000, 2), this.server.getFileContent(datasetId, files.get(1).getId()));
+            Assert.assertArrayEquals(content(200000, 3), this.server.getFileContent(datasetId, files.get(2).getId()));
+            Assert.assertArrayEquals(content(200000, 4), this.server.getFileContent(datasetId, files.get(3).getId()));
+            assertThat(this.server.getChunkedRequestCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void 非同期クライアントで送信の進捗が通知される() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadProgress> progresses = new CopyOnWriteArrayList<>();
+            int size = 2 * 1024 * 1024;
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("large.dat", new ByteArrayInputStream(content(size, 5)), size));
+            client.addFiles(datasetId, sources, progresses::add).get(10, TimeUnit.SECONDS);
+            assertProgress(progresses, size, true);
+        }
+    }
+
+    @Test
+    public void 非同期クライアントでUploadSourceによる作成更新読み込みができる() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("a.dat", new ByteArrayInputStream(content(10, 8))));
+            Dataset dataset = client.createDataset("created", true, false, sources, null).get(10, TimeUnit.SECONDS);
+            assertThat(dataset.getFilesCount(), is(1));
+            String fileId = dataset.getFiles().get(0).getId();
+            client.updateFile(dataset.getId(), fileId,
+                    UploadSource.of("b.dat", new ByteArrayInputStream(content(30, 9))), null).get(10, TimeUnit.SECONDS);
+            Assert.assertArrayEquals(content(30, 9), this.server.getFileContent(dataset.getId(), fileId));
+            ByteBuffer csv = ByteBuffer.wrap("key,value\n".getBytes(StandardCharsets.UTF_8));
+            client.importAttribute(dataset.getId(), UploadSource.of("attributes.csv", csv), null).get(10,
+                    TimeUnit.SECONDS);
+            assertThat(client.getDataset(dataset.getId()).get(10, TimeUnit.SECONDS).getMeta().getAttributes().size(),
+                    is(1));
+        }
+    }
+
+    @Test
+    public void 非同期クライアントで長さに満たないInputStreamの場合送信は失敗する() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            List<UploadSource> sources = Collections
+                    .singletonList(UploadSource.of("short.dat", new ByteArrayInputStream(content(100, 7)), 200));
+            try {
+                client.addFiles(datasetId, sources, null).get(10, TimeUnit.SECONDS);
+                throw new AssertionError("ApiFailedException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ApiFailedException.class));
+            }
+        }
+    }
+
+    @Test
+    public void 非同期クライアントでInputStreamの読み込みに失敗した場合送信は失敗する() throws Exception {
+        try (AsyncDsmoqClient client = builder(new StubServerOptions()).buildAsync()) {
+            String datasetId = this.server.createDataset("test", true, false);
+            InputStream broken = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("broken");
+                }
+            };
+            List<UploadSource> sources = Collections.singletonList(UploadSource.of("broken.dat", broken));
+            try {
+                client.addFiles(datasetId, sources, null).get(10, TimeUnit.SECONDS);
+                throw new AssertionError("ApiFailedException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ApiFailedException.class));
+            }
+        }
+    }
+
+    @Test
+    public void nameがnullの場合例外が発生する() {
+        thrown.expect(NullPointerException.class);
+        UploadSource.of(null, ByteBuffer.allocate(0));
+    }
+
+    @Test
+    public void lengthが負の場合例外が発生する() {
+        thrown.expect(IllegalArgumentException.class);
+        UploadSource.of("test.dat", new ByteArrayInputStream(new byte[0]), -1);
+    }
+
+    @Test
+    public void sourcesの要素がnullの場合例外が発生する() throws IOException {
+        try (DsmoqClient client = builder(new StubServerOptions()).build()) {
+            thrown.expect(NullPointerException.class);
+            client.addFiles("dataset", new ArrayList<UploadSource>(Collections.singletonList(null)), null);
+        }
+    }
+
+    /**
+     * 通知された進捗を検証する。
+     *
+     * @param progresses 通知された進捗
+     * @param contentSize 送信したファイルのバイト数
+     * @param lengthKnown 合計バイト数が分かっているか否か
+     */
+    private static void assertProgress(List<UploadProgress> progresses, long contentSize, boolean lengthKnown) {
+        assertThat(progresses.size() > 1, is(true));
+        long previous = 0;
+        for (UploadProgress progress : progresses) {
+            assertThat(progress.getSentBytes() >= previous, is(true));
+            previous = progress.getSentBytes();
+        }
+        UploadProgress last = progresses.get(progresses.size() - 1);
+        assertThat(last.isCompleted(), is(true));
+        assertThat(last.getSentBytes() > contentSize, is(true));
+        assertThat(last.getTotalBytes(), is(lengthKnown ? last.getSentBytes() : -1L));
+        assertThat(last.getBytesPerSecond() > 0, is(true));
+        assertThat(progresses.stream().filter(UploadProgress::isCompleted).count(), is(1L));
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
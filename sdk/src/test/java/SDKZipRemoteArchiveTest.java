@@ -0,0 +1,289 @@
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.ac.nagoya_u.dsmoq.sdk.client.DsmoqClient;
+import jp.ac.nagoya_u.dsmoq.sdk.client.ZipRemoteArchive;
+import jp.ac.nagoya_u.dsmoq.sdk.response.ZipRemoteEntry;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.DsmoqStubServer;
+import jp.ac.nagoya_u.dsmoq.sdk.stub.StubServerOptions;
+import jp.ac.nagoya_u.dsmoq.sdk.util.ApiFailedException;
+
+public class SDKZipRemoteArchiveTest {
+    private DsmoqStubServer server;
+
+    public DsmoqClient create() throws IOException {
+        this.server = DsmoqStubServer.start(new StubServerOptions());
+        return DsmoqClient.create(this.server.getBaseUrl(),
+                "7d8d8cf12ef0d12d057b01765779c56a5f8a7e1330a41be189114935660ef1ba",
+                "22698424fa67a56cd6d916988fd824c6f999d18a934831de83e15c3490376372");
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void エントリの一覧を取得できる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(StandardCharsets.UTF_8));
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        assertThat(archive.getEntries().stream().map(ZipRemoteEntry::getName).collect(Collectors.toList()),
+                is(Arrays.asList("dir/", "dir/deflated.txt", "stored.bin", "large.bin", "日本語.txt")));
+        ZipRemoteEntry stored = archive.getEntry("stored.bin");
+        assertThat(stored.getMethod(), is(ZipRemoteEntry.STORED));
+        assertThat(stored.getSize(), is(1000L));
+        assertThat(archive.getEntry("dir/").isDirectory(), is(true));
+        assertThat(archive.getEntry("none"), is((ZipRemoteEntry) null));
+    }
+
+    @Test
+    public void エントリの内容を取得できる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(StandardCharsets.UTF_8));
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        Assert.assertArrayEquals(text(), read(archive, "dir/deflated.txt"));
+        Assert.assertArrayEquals(content(1000, 1), read(archive, "stored.bin"));
+        Assert.assertArrayEquals(content(3 * 1024 * 1024, 2), read(archive, "large.bin"));
+        Assert.assertArrayEquals("日本語".getBytes(StandardCharsets.UTF_8), read(archive, "日本語.txt"));
+    }
+
+    @Test
+    public void エントリの範囲のみを取得する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(StandardCharsets.UTF_8));
+        long before = this.server.getRequestCount();
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        // HEAD、終端 (小さなZIPファイルのため、セントラルディレクトリを含む)
+        assertThat(this.server.getRequestCount() - before, is(2L));
+        before = this.server.getRequestCount();
+        read(archive, "stored.bin");
+        assertThat(this.server.getRequestCount() - before, is(1L));
+    }
+
+    @Test
+    public void セントラルディレクトリをキャッシュできる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(StandardCharsets.UTF_8));
+        Path cacheDir = this.temp.getRoot().toPath();
+        client.openZipArchive(datasetId, fileId, cacheDir);
+        long before = this.server.getRequestCount();
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId, cacheDir);
+        assertThat(this.server.getRequestCount() - before, is(1L));
+        assertThat(archive.getEntries().size(), is(5));
+        Assert.assertArrayEquals(text(), read(archive, "dir/deflated.txt"));
+    }
+
+    @Test
+    public void 同じサイズの内容に更新された場合キャッシュを使わない() throws Exception {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip("a.bin", content(1000, 1)));
+        Path cacheDir = this.temp.getRoot().toPath();
+        client.openZipArchive(datasetId, fileId, cacheDir);
+        // スタブサーバの更新日時は秒単位のため、更新日時が変わるまで待つ
+        Thread.sleep(1100);
+        File updated = this.temp.newFile("test.zip");
+        Files.write(updated.toPath(), zip("a.bin", content(1000, 2)));
+        client.updateFile(datasetId, fileId, updated);
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId, cacheDir);
+        Assert.assertArrayEquals(content(1000, 2), read(archive, "a.bin"));
+    }
+
+    @Test
+    public void ローカルファイルヘッダの拡張フィールドが短い場合も1回のリクエストで取得する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(content(5000, 1), 0, 40));
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        long before = this.server.getRequestCount();
+        Assert.assertArrayEquals(content(5000, 1), read(archive, "a.bin"));
+        assertThat(this.server.getRequestCount() - before, is(1L));
+    }
+
+    @Test
+    public void ローカルファイルヘッダの拡張フィールドが長い場合は不足分のみを取得する() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(content(5000, 1), 40, 0));
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        long before = this.server.getRequestCount();
+        Assert.assertArrayEquals(content(5000, 1), read(archive, "a.bin"));
+        assertThat(this.server.getRequestCount() - before, is(2L));
+    }
+
+    @Test
+    public void ShiftJISのエントリ名を取得できる() throws IOException {
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(Charset.forName("Shift_JIS")));
+        ZipRemoteArchive archive = client.openZipArchive(datasetId, fileId);
+        Assert.assertArrayEquals("日本語".getBytes(StandardCharsets.UTF_8), read(archive, "日本語.txt"));
+    }
+
+    @Test
+    public void 存在しないエントリの場合例外が発生する() throws IOException {
+        thrown.expect(NoSuchElementException.class);
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.zip", zip(StandardCharsets.UTF_8));
+        client.openZipArchive(datasetId, fileId).openEntry("none");
+    }
+
+    @Test
+    public void ZIPファイルでない場合例外が発生する() throws IOException {
+        thrown.expect(ApiFailedException.class);
+        DsmoqClient client = create();
+        String datasetId = this.server.createDataset("test", true, false);
+        String fileId = this.server.addFile(datasetId, "test.txt", content(1000, 3));
+        client.openZipArchive(datasetId, fileId);
+    }
+
+    @Test
+    public void fileIdがnullの場合例外が発生する() throws IOException {
+        thrown.expect(NullPointerException.class);
+        DsmoqClient client = create();
+        client.openZipArchive("dataset", null);
+    }
+
+    private static byte[] read(ZipRemoteArchive archive, String name) throws IOException {
+        try (InputStream in = archive.openEntry(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] zip(Charset charset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes, charset)) {
+            zip.putNextEntry(new ZipEntry("dir/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("dir/deflated.txt"));
+            zip.write(text());
+            zip.closeEntry();
+            byte[] stored = content(1000, 1);
+            ZipEntry entry = new ZipEntry("stored.bin");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(stored.length);
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(stored);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("large.bin"));
+            zip.write(content(3 * 1024 * 1024, 2));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("日本語.txt"));
+            zip.write("日本語".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.setComment("comment");
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zip(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setCrc(crc.getValue());
+            entry.setTime(0);
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * ローカルファイルヘッダとセントラルディレクトリで拡張フィールドの長さが異なる、無圧縮のエントリ "a.bin" のみを含むZIPファイル
+     */
+    private static byte[] zip(byte[] content, int localExtra, int centralExtra) {
+        byte[] name = "a.bin".getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        int localSize = 30 + name.length + localExtra + content.length;
+        int centralSize = 46 + name.length + centralExtra;
+        ByteBuffer buffer = ByteBuffer.allocate(localSize + centralSize + 22).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0x04034b50).putShort((short) 10).putShort((short) 0).putShort((short) 0).putInt(0)
+                .putInt((int) crc.getValue()).putInt(content.length).putInt(content.length)
+                .putShort((short) name.length).putShort((short) localExtra).put(name);
+        putExtra(buffer, localExtra);
+        buffer.put(content);
+        buffer.putInt(0x02014b50).putShort((short) 20).putShort((short) 10).putShort((short) 0).putShort((short) 0)
+                .putInt(0).putInt((int) crc.getValue()).putInt(content.length).putInt(content.length)
+                .putShort((short) name.length).putShort((short) centralExtra).putShort((short) 0)
+                .putShort((short) 0).putShort((short) 0).putInt(0).putInt(0).put(name);
+        putExtra(buffer, centralExtra);
+        buffer.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 1).putShort((short) 1)
+                .putInt(centralSize).putInt(localSize).putShort((short) 0);
+        return buffer.array();
+    }
+
+    private static void putExtra(ByteBuffer buffer, int length) {
+        if (length > 0) {
+            // 未知のIDの拡張フィールド
+            buffer.putShort((short) 0xCAFE).putShort((short) (length - 4)).put(new byte[length - 4]);
+        }
+    }
+
+    private static byte[] text() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,1507 @@
+package jp.ac.nagoya_u.dsmoq.sdk.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * dsmoqのapiServerの代わりに、同一プロセス内で動作するスタブサーバ
+ *
+ * データベース、ストレージを用いず、データセット、ファイル、グループをメモリ上に保持します。
+ * 実サーバなしにSDKの結合テスト、負荷テスト、ベンチマークを行うために用います。
+ *
+ * 以下のAPIに対応しています。それ以外のパスには404を返します。
+ * <ul>
+ * <li>/api/datasets (一覧取得、作成)、/api/datasets/${id} (取得、削除)、/api/datasets/${id}/metadata (更新)</li>
+ * <li>/api/datasets/${id}/files (一覧取得、追加)、/api/datasets/${id}/files/${file_id} (更新、削除)</li>
+ * <li>/api/datasets/${id}/files/${file_id}/metadata (更新)、/api/datasets/${id}/files/${file_id}/zippedfiles (一覧取得)</li>
+ * <li>/api/groups (一覧取得、作成)、/api/groups/${id} (取得、更新、削除)、/api/groups/${id}/members (一覧取得)</li>
+ * <li>/files/${dataset_id}/${file_id} (GET、HEAD、Range指定、Content-Disposition)</li>
+ * </ul>
+ * 一覧取得ではlimit、offsetと、データセット名の部分一致(文字列のquery)のみを扱い、それ以外の検索条件は無視します。
+ * 認証は行わず、全てのリクエストをUSER_IDのユーザ(データセット、グループのオーナー)からのものとして扱います。
+ *
+ * ローカルに保存しないデータセットのファイル、あるいはStubServerOptions#redirectToS3が有効な場合の全てのファイルは、
+ * S3の署名付きURLを模した /s3/${dataset_id}/${file_id} へ302でリダイレクトされます。
+ *
+ * <pre>
+ * StubServerOptions options = new StubServerOptions().latency(20).bandwidth(10 * 1024 * 1024);
+ * try (DsmoqStubServer server = DsmoqStubServer.start(options)) {
+ *     String datasetId = server.createDataset("dataset", true, false);
+ *     String fileId = server.addFile(datasetId, "data.csv", content);
+ *     DsmoqClient client = DsmoqClient.create(server.getBaseUrl(), apiKey, secretKey);
+ *     ...
+ * }
+ * </pre>
+ */
+public class DsmoqStubServer implements AutoCloseable {
+    /** リクエストを送信したユーザとして扱うユーザのID */
+    public static final String USER_ID = "1a5b3f1e-0c6e-4e43-9d0f-2f2b1c6a7d01";
+
+    /** 正常終了を表すレスポンスのステータス */
+    private static final String STATUS_OK = "OK";
+
+    /** 一覧取得のデフォルトの取得件数 */
+    private static final int DEFAULT_LIMIT = 20;
+
+    /** データセット取得時に返すファイル数の上限 */
+    private static final int FILE_LIMIT = 100;
+
+    /** 保存済みを表す保存状態 */
+    private static final int SAVED_STATE = 1;
+
+    /** オーナーを表すアクセスレベル、ロール */
+    private static final int OWNER_LEVEL = 3;
+
+    /** ユーザを表すオーナー種別 */
+    private static final int USER_OWNER_TYPE = 1;
+
+    /** Rangeヘッダの正規表現 */
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /** multipart/form-dataの境界文字列の正規表現 */
+    private static final Pattern BOUNDARY_PATTERN = Pattern.compile("boundary=\"?([^\";]+)\"?");
+
+    /** Content-Dispositionのパラメータの正規表現 */
+    private static final Pattern DISPOSITION_PARAM_PATTERN = Pattern.compile("(name|filename)=\"([^\"]*)\"");
+
+    /** 日時の書式 */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    static {
+        // 小さなレスポンスでNagleアルゴリズムと遅延ACKによる待ちが生じないようにする
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /** オプション */
+    private final StubServerOptions options;
+
+    /** HTTPサーバ */
+    private final HttpServer server;
+
+    /** リクエスト処理スレッド */
+    private final ExecutorService executor;
+
+    /** JSONの読み書きに用いるマッパー */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /** データセット (IDをキーとする) */
+    private final Map<String, StubDataset> datasets = new HashMap<>();
+
+    /** グループ (IDをキーとする) */
+    private final Map<String, StubGroup> groups = new HashMap<>();
+
+    /** 作成順の採番 */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** 受け付けたリクエスト数 */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /** 受け付けた、チャンク形式のボディを持つリクエスト数 */
+    private final AtomicLong chunkedRequestCount = new AtomicLong();
+
+    /** 遅延を追加する残りのリクエスト数 */
+    private final AtomicInteger delayRemaining = new AtomicInteger();
+
+    /** 追加する遅延 (ms) */
+    private volatile long injectedDelay;
+
+    /** エラーを返す残りのリクエスト数 */
+    private final AtomicInteger failureRemaining = new AtomicInteger();
+
+    /** 返すエラーのステータスコード */
+    private volatile int injectedFailure;
+
+    /** レスポンスボディの途中で送信を止める残りのレスポンス数 */
+    private final AtomicInteger stallRemaining = new AtomicInteger();
+
+    /** レスポンスボディの途中で送信を止める時間 (ms) */
+    private volatile long injectedStall;
+
+    /**
+     * スタブサーバを作成する。
+     *
+     * @param options オプション
+     * @throws IOException サーバの起動に失敗した場合
+     */
+    private DsmoqStubServer(StubServerOptions options) throws IOException {
+        this.options = options;
+        this.executor = Executors.newFixedThreadPool(options.getThreads());
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.executor);
+    }
+
+    /**
+     * デフォルトのオプションでスタブサーバを起動する。
+     *
+     * @return 起動したスタブサーバ
+     * @throws IOException サーバの起動に失敗した場合
+     */
+    public static DsmoqStubServer start() throws IOException {
+        return start(new StubServerOptions());
+    }
+
+    /**
+     * スタブサーバを起動する。
+     *
+     * ポートは空いているものが自動的に割り当てられます。
+     *
+     * @param options オプション
+     * @return 起動したスタブサーバ
+     * @throws NullPointerException optionsがnullの場合
+     * @throws IOException サーバの起動に失敗した場合
+     */
+    public static DsmoqStubServer start(StubServerOptions options) throws IOException {
+        if (options == null) {
+            throw new NullPointerException("at options in DsmoqStubServer#start");
+        }
+        DsmoqStubServer stub = new DsmoqStubServer(options);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * DsmoqClientに指定するベースURLを取得する。
+     *
+     * @return ベースURL (例: http://127.0.0.1:12345)
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * 受け付けたリクエスト数を取得する。
+     *
+     * @return リクエスト数 (リダイレクト先へのリクエストを含む)
+     */
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    /**
+     * 受け付けた、チャンク形式のボディを持つリクエスト数を取得する。
+     *
+     * @return リクエスト数
+     */
+    public long getChunkedRequestCount() {
+        return this.chunkedRequestCount.get();
+    }
+
+    /**
+     * 次に受け付けるリクエストから順に、指定した件数のリクエストのレスポンスを遅延させる。
+     *
+     * StubServerOptions#latencyの遅延に加えて待機します。再送、ヘッジ、期限の検証に用います。
+     *
+     * @param count 遅延させるリクエスト数
+     * @param delay 追加する遅延 (ms)
+     */
+    public void delayNext(int count, long delay) {
+        this.injectedDelay = delay;
+        this.delayRemaining.set(count);
+    }
+
+    /**
+     * 次に受け付けるリクエストから順に、指定した件数のリクエストにエラーレスポンスを返す。
+     *
+     * 過負荷(503)、レート制限(429)などの再現に用います。StubServerOptions#latencyの遅延の後に返します。
+     *
+     * @param count エラーを返すリクエスト数
+     * @param code ステータスコード
+     */
+    public void failNext(int count, int code) {
+        this.injectedFailure = code;
+        this.failureRemaining.set(count);
+    }
+
+    /**
+     * 次に返すレスポンスから順に、指定した件数のレスポンスボディを半分まで送信した時点で止める。
+     *
+     * Range指定のない、圧縮しないファイルのダウンロードに適用します。読み込みタイムアウトの検証に用います。
+     *
+     * @param count 送信を止めるレスポンス数
+     * @param delay 止める時間 (ms)
+     */
+    public void stallNext(int count, long delay) {
+        this.injectedStall = delay;
+        this.stallRemaining.set(count);
+    }
+
+    /**
+     * データセットを作成する。
+     *
+     * @param name データセット名
+     * @param saveLocal ローカルに保存するか否か (falseの場合、ファイルのダウンロードはリダイレクトされる)
+     * @param saveS3 S3に保存するか否か
+     * @return 作成したデータセットのID
+     */
+    public String createDataset(String name, boolean saveLocal, boolean saveS3) {
+        StubDataset dataset = new StubDataset(this.sequence.incrementAndGet(), name, saveLocal, saveS3);
+        synchronized (this) {
+            this.datasets.put(dataset.id, dataset);
+        }
+        return dataset.id;
+    }
+
+    /**
+     * データセットにファイルを追加する。
+     *
+     * ファイル名が.zipで終わり、ZIP形式として読み込める場合は、ZIPファイルとして扱います。
+     *
+     * @param datasetId データセットのID
+     * @param name ファイル名
+     * @param content ファイルの内容
+     * @return 追加したファイルのID
+     * @throws IllegalArgumentException データセットが存在しない場合
+     */
+    public String addFile(String datasetId, String name, byte[] content) {
+        StubFile file = new StubFile(name, content);
+        synchronized (this) {
+            StubDataset dataset = this.datasets.get(datasetId);
+            if (dataset == null) {
+                throw new IllegalArgumentException(String.format("at datasetId in DsmoqStubServer#addFile: %s",
+                        datasetId));
+            }
+            dataset.files.put(file.id, file);
+        }
+        return file.id;
+    }
+
+    /**
+     * ファイルのダウンロード時に、Content-Dispositionで一覧とは異なるファイル名を返すようにする。
+     *
+     * @param datasetId データセットのID
+     * @param fileId ファイルのID
+     * @param name Content-Dispositionのファイル名
+     * @throws IllegalArgumentException ファイルが存在しない場合
+     */
+    public synchronized void setDownloadName(String datasetId, String fileId, String name) {
+        StubDataset dataset = this.datasets.get(datasetId);
+        StubFile file = dataset == null ? null : dataset.files.get(fileId);
+        if (file == null) {
+            throw new IllegalArgumentException(String.format("at fileId in DsmoqStubServer#setDownloadName: %s",
+                    fileId));
+        }
+        file.downloadName = name;
+    }
+
+    /**
+     * ファイルの現在の内容を取得する。
+     *
+     * @param datasetId データセットのID
+     * @param fileId ファイルのID
+     * @return ファイルの内容、存在しない場合null
+     */
+    public synchronized byte[] getFileContent(String datasetId, String fileId) {
+        StubDataset dataset = this.datasets.get(datasetId);
+        StubFile file = dataset == null ? null : dataset.files.get(fileId);
+        return file == null ? null : file.content;
+    }
+
+    /**
+     * データセット数を取得する。
+     *
+     * @return データセット数
+     */
+    public synchronized int getDatasetCount() {
+        return this.datasets.size();
+    }
+
+    /**
+     * グループを作成する。
+     *
+     * @param name グループ名
+     * @param description 説明
+     * @return 作成したグループのID
+     */
+    public String createGroup(String name, String description) {
+        StubGroup group = new StubGroup(this.sequence.incrementAndGet(), name, description);
+        synchronized (this) {
+            this.groups.put(group.id, group);
+        }
+        return group.id;
+    }
+
+    /**
+     * スタブサーバを停止する。
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DsmoqStubServer(baseUrl=%s, options=%s)", getBaseUrl(), this.options);
+    }
+
+    /**
+     * リクエストを処理する。
+     *
+     * @param exchange リクエスト
+     */
+    private void handle(HttpExchange exchange) {
+        this.requestCount.incrementAndGet();
+        String transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+        if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            this.chunkedRequestCount.incrementAndGet();
+        }
+        try {
+            if (this.options.getLatency() > 0) {
+                Thread.sleep(this.options.getLatency());
+            }
+            if (take(this.delayRemaining)) {
+                Thread.sleep(this.injectedDelay);
+            }
+            if (take(this.failureRemaining)) {
+                throw new StubException(this.injectedFailure, "NG");
+            }
+            List<String> segments = new ArrayList<>();
+            for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+                if (!segment.isEmpty()) {
+                    segments.add(URLDecoder.decode(segment, "UTF-8"));
+                }
+            }
+            if (segments.size() == 3 && (segments.get(0).equals("files") || segments.get(0).equals("s3"))) {
+                handleFile(exchange, segments.get(1), segments.get(2), segments.get(0).equals("s3"));
+            } else if (segments.size() >= 2 && segments.get(0).equals("api")) {
+                Request request = readRequest(exchange);
+                Object data = segments.get(1).equals("datasets") ? handleDatasets(request, segments)
+                        : segments.get(1).equals("groups") ? handleGroups(request, segments) : null;
+                if (data == null) {
+                    throw new StubException(404, "NotFound");
+                }
+                sendJson(exchange, 200, STATUS_OK, data);
+            } else {
+                throw new StubException(404, "NotFound");
+            }
+        } catch (StubException e) {
+            sendError(exchange, e.code, e.status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // クライアントが切断した場合など、応答できないため何もしない
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "NG");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 残りの件数が正であれば1減らす。
+     *
+     * @param remaining 残りの件数
+     * @return 減らした場合true
+     */
+    private static boolean take(AtomicInteger remaining) {
+        return remaining.getAndUpdate(x -> x > 0 ? x - 1 : 0) > 0;
+    }
+
+    /**
+     * /api/datasets 以下へのリクエストを処理する。
+     *
+     * @param request リクエスト
+     * @param segments パスの各部分
+     * @return レスポンスのdata、対応するAPIがない場合null
+     * @throws StubException エラーレスポンスを返す場合
+     */
+    private synchronized Object handleDatasets(Request request, List<String> segments) throws StubException {
+        String method = request.method;
+        if (segments.size() == 2) {
+            if (method.equals("GET")) {
+                String query = request.json.path("query").isTextual() ? request.json.path("query").asText() : "";
+                List<Object> results = this.datasets.values().stream()
+                        .filter(x -> x.name.contains(query))
+                        .sorted(Comparator.comparingLong((StubDataset x) -> x.sequence).reversed())
+                        .map(this::toDatasetsSummaryJson).collect(Collectors.toList());
+                return toRangeSliceJson(results, request.json);
+            }
+            if (method.equals("POST")) {
+                List<Part> files = request.files("file[]");
+                String name = request.params.getOrDefault("name",
+                        files.isEmpty() ? "" : files.get(0).filename);
+                StubDataset dataset = new StubDataset(this.sequence.incrementAndGet(), name,
+                        !"false".equals(request.params.get("saveLocal")), "true".equals(request.params.get("saveS3")));
+                files.forEach(x -> {
+                    StubFile file = new StubFile(x.filename, x.content);
+                    dataset.files.put(file.id, file);
+                });
+                this.datasets.put(dataset.id, dataset);
+                return toDatasetJson(dataset);
+            }
+            return null;
+        }
+        StubDataset dataset = this.datasets.get(segments.get(2));
+        if (dataset == null) {
+            throw new StubException(404, "NotFound");
+        }
+        if (segments.size() == 3) {
+            if (method.equals("GET")) {
+                dataset.accessCount++;
+                return toDatasetJson(dataset);
+            }
+            if (method.equals("DELETE")) {
+                this.datasets.remove(dataset.id);
+                return Collections.emptyMap();
+            }
+            return null;
+        }
+        String resource = segments.get(3);
+        if (segments.size() == 4 && resource.equals("metadata") && method.equals("PUT")) {
+            dataset.name = request.json.path("name").asText(dataset.name);
+            dataset.description = request.json.path("description").asText(dataset.description);
+            dataset.license = request.json.path("license").asText(dataset.license);
+            dataset.attributes.clear();
+            request.json.path("attributes").forEach(x -> dataset.attributes.add(
+                    toAttributeJson(x.path("name").asText(), x.path("value").asText())));
+            return Collections.emptyMap();
+        }
+        if (segments.size() == 5 && resource.equals("attributes") && segments.get(4).equals("import")
+                && method.equals("POST")) {
+            List<Part> parts = request.files("file");
+            if (parts.isEmpty()) {
+                throw new StubException(400, "BadRequest");
+            }
+            // 1行を「名前,値」のAttributeとして追加する
+            for (String line : new String(parts.get(0).content, StandardCharsets.UTF_8).split("\r?\n")) {
+                if (!line.isEmpty()) {
+                    String[] columns = line.split(",", 2);
+                    dataset.attributes.add(toAttributeJson(columns[0], columns.length > 1 ? columns[1] : ""));
+                }
+            }
+            return Collections.emptyMap();
+        }
+        if (!resource.equals("files")) {
+            return null;
+        }
+        if (segments.size() == 4) {
+            if (method.equals("GET")) {
+                return toRangeSliceJson(dataset.files.values().stream().map(x -> toFileJson(dataset, x))
+                        .collect(Collectors.toList()), request.json);
+            }
+            if (method.equals("POST")) {
+                List<Object> added = new ArrayList<>();
+                for (Part part : request.files("files")) {
+                    StubFile file = new StubFile(part.filename, part.content);
+                    dataset.files.put(file.id, file);
+                    added.add(toFileJson(dataset, file));
+                }
+                return Collections.singletonMap("files", added);
+            }
+            return null;
+        }
+        StubFile file = dataset.files.get(segments.get(4));
+        if (file == null) {
+            throw new StubException(404, "NotFound");
+        }
+        if (segments.size() == 5) {
+            if (method.equals("POST")) {
+                List<Part> parts = request.files("file");
+                if (parts.isEmpty()) {
+                    throw new StubException(400, "BadRequest");
+                }
+                file.update(parts.get(0).filename, parts.get(0).content);
+                return toFileJson(dataset, file);
+            }
+            if (method.equals("DELETE")) {
+                dataset.files.remove(file.id);
+                return Collections.emptyMap();
+            }
+            return null;
+        }
+        if (segments.size() == 6 && segments.get(5).equals("metadata") && method.equals("PUT")) {
+            file.name = request.json.path("name").asText(file.name);
+            file.description = request.json.path("description").asText(file.description);
+            file.updatedAt = now();
+            return toFileJson(dataset, file);
+        }
+        if (segments.size() == 6 && segments.get(5).equals("zippedfiles") && method.equals("GET")) {
+            if (file.zippedFiles.isEmpty()) {
+                throw new StubException(400, "BadRequest");
+            }
+            return toRangeSliceJson(new ArrayList<>(file.zippedFiles), request.json);
+        }
+        return null;
+    }
+
+    /**
+     * /api/groups 以下へのリクエストを処理する。
+     *
+     * @param request リクエスト
+     * @param segments パスの各部分
+     * @return レスポンスのdata、対応するAPIがない場合null
+     * @throws StubException エラーレスポンスを返す場合
+     */
+    private synchronized Object handleGroups(Request request, List<String> segments) throws StubException {
+        String method = request.method;
+        if (segments.size() == 2) {
+            if (method.equals("GET")) {
+                String query = request.json.path("query").asText("");
+                List<Object> results = this.groups.values().stream().filter(x -> x.name.contains(query))
+                        .sorted(Comparator.comparingLong((StubGroup x) -> x.sequence).reversed())
+                        .map(this::toGroupsSummaryJson).collect(Collectors.toList());
+                return toRangeSliceJson(results, request.json);
+            }
+            if (method.equals("POST")) {
+                String name = request.json.path("name").asText("");
+                if (name.isEmpty() || this.groups.values().stream().anyMatch(x -> x.name.equals(name))) {
+                    throw new StubException(400, "BadRequest");
+                }
+                StubGroup group = new StubGroup(this.sequence.incrementAndGet(), name,
+                        request.json.path("description").asText(""));
+                this.groups.put(group.id, group);
+                return toGroupJson(group);
+            }
+            return null;
+        }
+        StubGroup group = this.groups.get(segments.get(2));
+        if (group == null) {
+            throw new StubException(404, "NotFound");
+        }
+        if (segments.size() == 3) {
+            if (method.equals("GET")) {
+                return toGroupJson(group);
+            }
+            if (method.equals("PUT")) {
+                group.name = request.json.path("name").asText(group.name);
+                group.description = request.json.path("description").asText(group.description);
+                return toGroupJson(group);
+            }
+            if (method.equals("DELETE")) {
+                this.groups.remove(group.id);
+                return Collections.emptyMap();
+            }
+            return null;
+        }
+        if (segments.size() == 4 && segments.get(3).equals("members") && method.equals("GET")) {
+            Map<String, Object> member = new LinkedHashMap<>();
+            member.put("id", USER_ID);
+            member.put("name", "dummy");
+            member.put("fullname", "Dummy User");
+            member.put("organization", "");
+            member.put("title", "");
+            member.put("description", "");
+            member.put("image", imageUrl(USER_ID));
+            member.put("role", OWNER_LEVEL);
+            return toRangeSliceJson(Collections.singletonList(member), request.json);
+        }
+        return null;
+    }
+
+    /**
+     * /files/${dataset_id}/${file_id}、/s3/${dataset_id}/${file_id} へのリクエストを処理する。
+     *
+     * @param exchange リクエスト
+     * @param datasetId データセットのID
+     * @param fileId ファイルのID
+     * @param s3 S3を模したリダイレクト先へのリクエストの場合true
+     * @throws StubException エラーレスポンスを返す場合
+     * @throws IOException 送信に失敗した場合
+     */
+    private void handleFile(HttpExchange exchange, String datasetId, String fileId, boolean s3)
+            throws StubException, IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            throw new StubException(404, "NotFound");
+        }
+        boolean redirect;
+        StubFile file;
+        synchronized (this) {
+            StubDataset dataset = this.datasets.get(datasetId);
+            file = dataset == null ? null : dataset.files.get(fileId);
+            redirect = dataset != null && !s3 && (this.options.isRedirectToS3() || !dataset.saveLocal);
+        }
+        if (file == null) {
+            throw new StubException(404, "NotFound");
+        }
+        if (redirect) {
+            exchange.getResponseHeaders().set("Location", String.format(
+                    "%s/s3/%s/%s?X-Amz-Expires=300&X-Amz-Signature=%s", getBaseUrl(), datasetId, fileId, fileId));
+            exchange.sendResponseHeaders(302, -1);
+            return;
+        }
+        byte[] content = file.content;
+        long size = content.length;
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename*=UTF-8''" + URLEncoder.encode(
+                        file.downloadName != null ? file.downloadName : file.name, "UTF-8").replace("+", "%20"));
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            sendBody(exchange, 200, "application/octet-stream", content, 0, content.length, acceptsGzip(exchange));
+            return;
+        }
+        Matcher m = RANGE_PATTERN.matcher(range.trim());
+        long from;
+        long to;
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) {
+            from = size;
+            to = size;
+        } else if (m.group(1).isEmpty()) {
+            // bytes=-n は末尾nバイトを表す
+            from = Math.max(0, size - Long.parseLong(m.group(2)));
+            to = size - 1;
+        } else {
+            from = Long.parseLong(m.group(1));
+            to = m.group(2).isEmpty() ? size - 1 : Math.min(size - 1, Long.parseLong(m.group(2)));
+        }
+        if (from >= size || from > to) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + size);
+            exchange.sendResponseHeaders(416, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/%d", from, to, size));
+        sendBody(exchange, 206, "application/octet-stream", content, (int) from, (int) (to - from + 1), false);
+    }
+
+    /**
+     * リクエストのパラメータ、ボディを読み込む。
+     *
+     * @param exchange リクエスト
+     * @return 読み込んだリクエスト
+     * @throws IOException 読み込みに失敗した場合
+     * @throws StubException パラメータのJSONが不正な場合
+     */
+    private Request readRequest(HttpExchange exchange) throws IOException, StubException {
+        Request request = new Request(exchange.getRequestMethod());
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            request.params.putAll(parseUrlEncoded(query));
+        }
+        byte[] body = readAll(throttle(exchange.getRequestBody()));
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("multipart/form-data")) {
+            Matcher m = BOUNDARY_PATTERN.matcher(contentType);
+            if (!m.find()) {
+                throw new StubException(400, "BadRequest");
+            }
+            for (Part part : parseMultipart(body, m.group(1))) {
+                if (part.filename == null) {
+                    request.params.put(part.name, new String(part.content, StandardCharsets.UTF_8));
+                } else {
+                    request.parts.add(part);
+                }
+            }
+        } else if (body.length > 0) {
+            request.params.putAll(parseUrlEncoded(new String(body, StandardCharsets.ISO_8859_1)));
+        }
+        String json = request.params.get("d");
+        try {
+            request.json = json == null ? this.mapper.createObjectNode() : this.mapper.readTree(json);
+        } catch (IOException e) {
+            throw new StubException(400, "BadRequest");
+        }
+        return request;
+    }
+
+    /**
+     * JSONのレスポンスを送信する。
+     *
+     * @param exchange リクエスト
+     * @param code ステータスコード
+     * @param status レスポンスのステータス
+     * @param data レスポンスのdata
+     * @throws IOException 送信に失敗した場合
+     */
+    private void sendJson(HttpExchange exchange, int code, String status, Object data) throws IOException {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", status);
+        response.put("data", data);
+        byte[] body = this.mapper.writeValueAsBytes(response);
+        sendBody(exchange, code, "application/json; charset=utf-8", body, 0, body.length, acceptsGzip(exchange));
+    }
+
+    /**
+     * エラーレスポンスを送信する。送信に失敗した場合は何もしない。
+     *
+     * @param exchange リクエスト
+     * @param code ステータスコード
+     * @param status レスポンスのステータス
+     */
+    private void sendError(HttpExchange exchange, int code, String status) {
+        try {
+            sendJson(exchange, code, status, Collections.emptyMap());
+        } catch (IOException | RuntimeException e) {
+            // 既にレスポンスヘッダを送信した後など、応答できないため何もしない
+        }
+    }
+
+    /**
+     * レスポンスボディを送信する。
+     *
+     * @param exchange リクエスト
+     * @param code ステータスコード
+     * @param contentType Content-Type
+     * @param body ボディ
+     * @param offset 送信する範囲の開始位置
+     * @param length 送信する範囲の長さ
+     * @param gzip gzipで圧縮する場合true
+     * @throws IOException 送信に失敗した場合
+     */
+    private void sendBody(HttpExchange exchange, int code, String contentType, byte[] body, int offset, int length,
+            boolean gzip) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(length));
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(code, 0);
+            try (OutputStream out = new GZIPOutputStream(throttle(exchange.getResponseBody()))) {
+                out.write(body, offset, length);
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(code, length == 0 ? -1 : length);
+        try (OutputStream out = throttle(exchange.getResponseBody())) {
+            if (length > 1 && take(this.stallRemaining)) {
+                int half = length / 2;
+                out.write(body, offset, half);
+                out.flush();
+                try {
+                    Thread.sleep(this.injectedStall);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException(e.getMessage());
+                }
+                out.write(body, offset + half, length - half);
+                return;
+            }
+            out.write(body, offset, length);
+        }
+    }
+
+    /**
+     * レスポンスをgzipで圧縮するかを判定する。
+     *
+     * @param exchange リクエスト
+     * @return 圧縮が有効で、クライアントがgzipに対応している場合true
+     */
+    private boolean acceptsGzip(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return this.options.isGzip() && accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    /**
+     * 設定された転送速度に制限した出力ストリームを取得する。
+     *
+     * @param out 出力先
+     * @return 転送速度を制限した出力ストリーム、制限しない場合はout
+     */
+    private OutputStream throttle(OutputStream out) {
+        return this.options.getBandwidth() == 0 ? out : new ThrottledOutputStream(out, this.options.getBandwidth());
+    }
+
+    /**
+     * 設定された転送速度に制限した入力ストリームを取得する。
+     *
+     * @param in 入力元
+     * @return 転送速度を制限した入力ストリーム、制限しない場合はin
+     */
+    private InputStream throttle(InputStream in) {
+        return this.options.getBandwidth() == 0 ? in : new ThrottledInputStream(in, this.options.getBandwidth());
+    }
+
+    /**
+     * 一覧取得のレスポンスを作成する。
+     *
+     * @param items 全件
+     * @param json limit、offsetを含むパラメータ
+     * @return RangeSliceのJSON
+     */
+    private static Map<String, Object> toRangeSliceJson(List<Object> items, JsonNode json) {
+        int limit = Math.max(0, json.path("limit").asInt(DEFAULT_LIMIT));
+        int offset = Math.min(items.size(), Math.max(0, json.path("offset").asInt(0)));
+        List<Object> results = items.subList(offset, Math.min(items.size(), offset + limit));
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", items.size());
+        summary.put("count", results.size());
+        summary.put("offset", offset);
+        Map<String, Object> slice = new LinkedHashMap<>();
+        slice.put("summary", summary);
+        slice.put("results", new ArrayList<>(results));
+        return slice;
+    }
+
+    /**
+     * データセットのJSONを作成する。
+     *
+     * @param dataset データセット
+     * @return DatasetのJSON
+     */
+    private Map<String, Object> toDatasetJson(StubDataset dataset) {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("name", dataset.name);
+        meta.put("description", dataset.description);
+        meta.put("license", dataset.license);
+        meta.put("attributes", dataset.attributes);
+        Map<String, Object> image = new LinkedHashMap<>();
+        image.put("id", dataset.imageId);
+        image.put("url", imageUrl(dataset.imageId));
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", dataset.id);
+        json.put("filesSize", dataset.files.values().stream().mapToLong(x -> x.content.length).sum());
+        json.put("filesCount", dataset.files.size());
+        json.put("files", dataset.files.values().stream().limit(FILE_LIMIT).map(x -> toFileJson(dataset, x))
+                .collect(Collectors.toList()));
+        json.put("meta", meta);
+        json.put("images", Collections.singletonList(image));
+        json.put("primaryImage", dataset.imageId);
+        json.put("featuredImage", dataset.imageId);
+        json.put("ownerships", Collections.singletonList(toOwnershipJson()));
+        json.put("defaultAccessLevel", 0);
+        json.put("permission", OWNER_LEVEL);
+        json.put("accessCount", dataset.accessCount);
+        json.put("localState", dataset.saveLocal ? SAVED_STATE : 0);
+        json.put("s3State", dataset.saveS3 ? SAVED_STATE : 0);
+        json.put("fileLimit", FILE_LIMIT);
+        return json;
+    }
+
+    /**
+     * データセット一覧の要素のJSONを作成する。
+     *
+     * @param dataset データセット
+     * @return DatasetsSummaryのJSON
+     */
+    private Map<String, Object> toDatasetsSummaryJson(StubDataset dataset) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", dataset.id);
+        json.put("name", dataset.name);
+        json.put("description", dataset.description);
+        json.put("image", imageUrl(dataset.imageId));
+        json.put("license", dataset.license);
+        json.put("attributes", dataset.attributes);
+        json.put("ownerships", Collections.singletonList(toOwnershipJson()));
+        json.put("files", dataset.files.size());
+        json.put("dataSize", dataset.files.values().stream().mapToLong(x -> x.content.length).sum());
+        json.put("defaultAccessLevel", 0);
+        json.put("permission", OWNER_LEVEL);
+        json.put("localState", dataset.saveLocal ? SAVED_STATE : 0);
+        json.put("s3State", dataset.saveS3 ? SAVED_STATE : 0);
+        return json;
+    }
+
+    /**
+     * ファイルのJSONを作成する。
+     *
+     * @param dataset ファイルを含むデータセット
+     * @param file ファイル
+     * @return DatasetFileのJSON
+     */
+    private Map<String, Object> toFileJson(StubDataset dataset, StubFile file) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", file.id);
+        json.put("name", file.name);
+        json.put("description", file.description);
+        json.put("url", String.format("%s/files/%s/%s", getBaseUrl(), dataset.id, file.id));
+        json.put("size", file.content.length);
+        json.put("createdBy", toUserJson());
+        json.put("createdAt", file.createdAt);
+        json.put("updatedBy", toUserJson());
+        json.put("updatedAt", file.updatedAt);
+        json.put("isZip", !file.zippedFiles.isEmpty());
+        json.put("zipedFiles", file.zippedFiles);
+        json.put("zipCount", file.zippedFiles.size());
+        return json;
+    }
+
+    /**
+     * グループのJSONを作成する。
+     *
+     * @param group グループ
+     * @return GroupのJSON
+     */
+    private Map<String, Object> toGroupJson(StubGroup group) {
+        Map<String, Object> image = new LinkedHashMap<>();
+        image.put("id", group.imageId);
+        image.put("url", imageUrl(group.imageId));
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", group.id);
+        json.put("name", group.name);
+        json.put("description", group.description);
+        json.put("images", Collections.singletonList(image));
+        json.put("primaryImage", group.imageId);
+        json.put("isMember", true);
+        json.put("role", OWNER_LEVEL);
+        return json;
+    }
+
+    /**
+     * グループ一覧の要素のJSONを作成する。
+     *
+     * @param group グループ
+     * @return GroupsSummaryのJSON
+     */
+    private Map<String, Object> toGroupsSummaryJson(StubGroup group) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", group.id);
+        json.put("name", group.name);
+        json.put("description", group.description);
+        json.put("image", imageUrl(group.imageId));
+        json.put("members", 1);
+        json.put("datasets", 0);
+        return json;
+    }
+
+    /**
+     * リクエストを送信したユーザのJSONを作成する。
+     *
+     * @return UserのJSON
+     */
+    private Map<String, Object> toUserJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", USER_ID);
+        json.put("name", "dummy");
+        json.put("fullname", "Dummy User");
+        json.put("organization", "");
+        json.put("title", "");
+        json.put("image", imageUrl(USER_ID));
+        json.put("mailAddress", "dummy@example.com");
+        json.put("description", "");
+        json.put("isGuest", false);
+        json.put("isDisabled", false);
+        return json;
+    }
+
+    /**
+     * リクエストを送信したユーザの、オーナーとしての権限情報のJSONを作成する。
+     *
+     * @return DatasetOwnershipのJSON
+     */
+    private Map<String, Object> toOwnershipJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", USER_ID);
+        json.put("name", "dummy");
+        json.put("fullname", "Dummy User");
+        json.put("organization", "");
+        json.put("title", "");
+        json.put("description", "");
+        json.put("image", imageUrl(USER_ID));
+        json.put("accessLevel", OWNER_LEVEL);
+        json.put("ownerType", USER_OWNER_TYPE);
+        return json;
+    }
+
+    /**
+     * 属性のJSONを作成する。
+     *
+     * @param name 属性名
+     * @param value 属性値
+     * @return DatasetAttributeのJSON
+     */
+    private static Map<String, Object> toAttributeJson(String name, String value) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("name", name);
+        json.put("value", value);
+        return json;
+    }
+
+    /**
+     * 画像のURLを作成する。
+     *
+     * @param imageId 画像のID
+     * @return URL
+     */
+    private String imageUrl(String imageId) {
+        return getBaseUrl() + "/images/" + imageId;
+    }
+
+    /**
+     * 現在日時を文字列で取得する。
+     *
+     * @return 現在日時 (ISO 8601形式)
+     */
+    private static String now() {
+        return OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS).format(DATE_FORMAT);
+    }
+
+    /**
+     * application/x-www-form-urlencoded形式の文字列を解析する。
+     *
+     * @param value 解析する文字列
+     * @return パラメータ名をキーとする値
+     * @throws UnsupportedEncodingException 文字コードがサポートされていない場合
+     */
+    private static Map<String, String> parseUrlEncoded(String value) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : value.split("&")) {
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"),
+                        URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * multipart/form-data形式のボディを解析する。
+     *
+     * @param body ボディ
+     * @param boundary 境界文字列
+     * @return 各パート
+     */
+    private static List<Part> parseMultipart(byte[] body, String boundary) {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] headerEnd = "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        List<Part> parts = new ArrayList<>();
+        int start = indexOf(body, delimiter, 0);
+        while (start >= 0) {
+            int headerStart = start + delimiter.length + 2;
+            int contentStart = indexOf(body, headerEnd, headerStart);
+            int next = indexOf(body, delimiter, headerStart);
+            if (contentStart < 0 || next < 0 || contentStart > next) {
+                break;
+            }
+            String headers = new String(body, headerStart, contentStart - headerStart, StandardCharsets.UTF_8);
+            Part part = new Part();
+            Matcher m = DISPOSITION_PARAM_PATTERN.matcher(headers);
+            while (m.find()) {
+                if (m.group(1).equals("name")) {
+                    part.name = m.group(2);
+                } else {
+                    part.filename = m.group(2);
+                }
+            }
+            int contentEnd = next - 2; // 境界文字列の前のCRLFを除く
+            byte[] content = new byte[Math.max(0, contentEnd - (contentStart + headerEnd.length))];
+            System.arraycopy(body, contentStart + headerEnd.length, content, 0, content.length);
+            part.content = content;
+            parts.add(part);
+            start = next;
+        }
+        return parts;
+    }
+
+    /**
+     * バイト列の中から、指定したバイト列が現れる位置を探す。
+     *
+     * @param data 探索対象
+     * @param target 探すバイト列
+     * @param from 探索の開始位置
+     * @return 現れる位置、現れない場合-1
+     */
+    private static int indexOf(byte[] data, byte[] target, int from) {
+        outer: for (int i = Math.max(0, from); i <= data.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (data[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 入力ストリームの内容を全て読み込む。
+     *
+     * @param in 入力ストリーム
+     * @return 読み込んだ内容
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 転送速度を保つよう待機する。
+     *
+     * @param start 転送を開始した時刻 (ns)
+     * @param bytes 転送したバイト数
+     * @param bandwidth 転送速度 (byte/s)
+     * @throws InterruptedIOException 待機中に割り込まれた場合
+     */
+    private static void pace(long start, long bytes, long bandwidth) throws InterruptedIOException {
+        long wait = (long) ((double) bytes / bandwidth * 1e9) - (System.nanoTime() - start);
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * メモリ上のデータセット
+     */
+    private static class StubDataset {
+        /** ID */
+        private final String id = UUID.randomUUID().toString();
+
+        /** 作成順 */
+        private final long sequence;
+
+        /** 画像のID */
+        private final String imageId = UUID.randomUUID().toString();
+
+        /** ファイル (追加順) */
+        private final Map<String, StubFile> files = new LinkedHashMap<>();
+
+        /** 属性 */
+        private final List<Object> attributes = new ArrayList<>();
+
+        /** ローカルに保存するか否か */
+        private final boolean saveLocal;
+
+        /** S3に保存するか否か */
+        private final boolean saveS3;
+
+        /** 名前 */
+        private String name;
+
+        /** 説明 */
+        private String description = "";
+
+        /** ライセンスのID */
+        private String license = "1050f556-7fee-4032-81e7-326e5f1b82fb";
+
+        /** 参照回数 */
+        private long accessCount = 0;
+
+        /**
+         * データセットを作成する。
+         *
+         * @param sequence 作成順
+         * @param name 名前
+         * @param saveLocal ローカルに保存するか否か
+         * @param saveS3 S3に保存するか否か
+         */
+        StubDataset(long sequence, String name, boolean saveLocal, boolean saveS3) {
+            this.sequence = sequence;
+            this.name = name;
+            this.saveLocal = saveLocal;
+            this.saveS3 = saveS3;
+        }
+    }
+
+    /**
+     * メモリ上のファイル
+     */
+    private static class StubFile {
+        /** ID */
+        private final String id = UUID.randomUUID().toString();
+
+        /** 作成日時 */
+        private final String createdAt = now();
+
+        /** ZIPファイルに含まれるファイル、ZIPファイルでない場合空 */
+        private List<Object> zippedFiles = Collections.emptyList();
+
+        /** ファイル名 */
+        private String name;
+
+        /** ダウンロード時のContent-Dispositionのファイル名、ファイル名と同じ場合null */
+        private volatile String downloadName;
+
+        /** 説明 */
+        private String description = "";
+
+        /** 内容 (更新時は配列ごと置き換える) */
+        private volatile byte[] content;
+
+        /** 更新日時 */
+        private String updatedAt;
+
+        /**
+         * ファイルを作成する。
+         *
+         * @param name ファイル名
+         * @param content 内容
+         */
+        StubFile(String name, byte[] content) {
+            update(name, content);
+        }
+
+        /**
+         * ファイル名と内容を更新する。
+         *
+         * @param name ファイル名
+         * @param content 内容
+         */
+        void update(String name, byte[] content) {
+            this.name = name;
+            this.content = content;
+            this.updatedAt = now();
+            this.zippedFiles = name.toLowerCase(Locale.ROOT).endsWith(".zip") ? listZipEntries(content)
+                    : Collections.emptyList();
+        }
+
+        /**
+         * ZIPファイルに含まれるファイルの一覧を作成する。
+         *
+         * @param content ZIPファイルの内容
+         * @return DatasetZipedFileのJSONの一覧、ZIP形式として読み込めない場合空
+         */
+        private List<Object> listZipEntries(byte[] content) {
+            List<Object> entries = new ArrayList<>();
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(content))) {
+                byte[] buffer = new byte[8192];
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    long size = 0;
+                    for (int n = zip.read(buffer); n >= 0; n = zip.read(buffer)) {
+                        size += n;
+                    }
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("id", UUID.randomUUID().toString());
+                    json.put("name", entry.getName());
+                    json.put("size", size);
+                    entries.add(json);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                return Collections.emptyList();
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * メモリ上のグループ
+     */
+    private static class StubGroup {
+        /** ID */
+        private final String id = UUID.randomUUID().toString();
+
+        /** 作成順 */
+        private final long sequence;
+
+        /** 画像のID */
+        private final String imageId = UUID.randomUUID().toString();
+
+        /** 名前 */
+        private String name;
+
+        /** 説明 */
+        private String description;
+
+        /**
+         * グループを作成する。
+         *
+         * @param sequence 作成順
+         * @param name 名前
+         * @param description 説明
+         */
+        StubGroup(long sequence, String name, String description) {
+            this.sequence = sequence;
+            this.name = name;
+            this.description = description;
+        }
+    }
+
+    /**
+     * 読み込んだリクエスト
+     */
+    private static class Request {
+        /** HTTPメソッド */
+        private final String method;
+
+        /** クエリ文字列、フォームのパラメータ */
+        private final Map<String, String> params = new HashMap<>();
+
+        /** multipart/form-dataのファイルのパート */
+        private final List<Part> parts = new ArrayList<>();
+
+        /** パラメータdのJSON */
+        private JsonNode json;
+
+        /**
+         * リクエストを作成する。
+         *
+         * @param method HTTPメソッド
+         */
+        Request(String method) {
+            this.method = method;
+        }
+
+        /**
+         * 指定した名前のファイルのパートを取得する。
+         *
+         * @param name パート名
+         * @return ファイルのパート
+         */
+        List<Part> files(String name) {
+            return this.parts.stream().filter(x -> name.equals(x.name)).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * multipart/form-dataの1パート
+     */
+    private static class Part {
+        /** パート名 */
+        private String name;
+
+        /** ファイル名、ファイルでない場合null */
+        private String filename;
+
+        /** 内容 */
+        private byte[] content;
+    }
+
+    /**
+     * エラーレスポンスを返すための例外
+     */
+    private static class StubException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        /** ステータスコード */
+        private final int code;
+
+        /** レスポンスのステータス */
+        private final String status;
+
+        /**
+         * 例外を作成する。
+         *
+         * @param code ステータスコード
+         * @param status レスポンスのステータス
+         */
+        StubException(int code, String status) {
+            super(status);
+            this.code = code;
+            this.status = status;
+        }
+    }
+
+    /**
+     * 転送速度を制限する出力ストリーム
+     */
+    private static class ThrottledOutputStream extends FilterOutputStream {
+        /** 転送速度 (byte/s) */
+        private final long bandwidth;
+
+        /** 1回に書き込む最大のバイト数 (約10ms分) */
+        private final int slice;
+
+        /** 転送を開始した時刻 (ns) */
+        private final long start = System.nanoTime();
+
+        /** 転送したバイト数 */
+        private long bytes = 0;
+
+        /**
+         * 出力ストリームを作成する。
+         *
+         * @param out 出力先
+         * @param bandwidth 転送速度 (byte/s)
+         */
+        ThrottledOutputStream(OutputStream out, long bandwidth) {
+            super(out);
+            this.bandwidth = bandwidth;
+            this.slice = (int) Math.max(1, Math.min(64 * 1024, bandwidth / 100));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int written = 0; written < len;) {
+                int n = Math.min(this.slice, len - written);
+                this.out.write(b, off + written, n);
+                written += n;
+                this.bytes += n;
+                pace(this.start, this.bytes, this.bandwidth);
+            }
+        }
+    }
+
+    /**
+     * 転送速度を制限する入力ストリーム
+     */
+    private static class ThrottledInputStream extends FilterInputStream {
+        /** 転送速度 (byte/s) */
+        private final long bandwidth;
+
+        /** 1回に読み込む最大のバイト数 (約10ms分) */
+        private final int slice;
+
+        /** 転送を開始した時刻 (ns) */
+        private final long start = System.nanoTime();
+
+        /** 転送したバイト数 */
+        private long bytes = 0;
+
+        /**
+         * 入力ストリームを作成する。
+         *
+         * @param in 入力元
+         * @param bandwidth 転送速度 (byte/s)
+         */
+        ThrottledInputStream(InputStream in, long bandwidth) {
+            super(in);
+            this.bandwidth = bandwidth;
+            this.slice = (int) Math.max(1, Math.min(64 * 1024, bandwidth / 100));
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = this.in.read(b, off, Math.min(len, this.slice));
+            if (n > 0) {
+                this.bytes += n;
+                pace(this.start, this.bytes, this.bandwidth);
+            }
+            return n;
+        }
+    }
+}
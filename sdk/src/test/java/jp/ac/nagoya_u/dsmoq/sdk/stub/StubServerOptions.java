@@ -0,0 +1,151 @@
+package jp.ac.nagoya_u.dsmoq.sdk.stub;
+
+import static jp.ac.nagoya_u.dsmoq.sdk.util.CheckUtil.requireGreaterOrEqualOrNull;
+
+/**
+ * DsmoqStubServerの動作を指定するオプション
+ *
+ * latencyとbandwidthで、実際のネットワーク越しのapiServerに近い応答時間、転送速度を再現できます。
+ */
+public class StubServerOptions {
+    /** デフォルトのリクエスト処理スレッド数 */
+    public static final int DEFAULT_THREADS = 16;
+
+    /** レスポンスを返すまでの遅延 (ms) */
+    private long latency = 0;
+
+    /** 1接続あたりの転送速度 (byte/s)、0の場合は制限しない */
+    private long bandwidth = 0;
+
+    /** クライアントが対応している場合にgzipで圧縮するか否か */
+    private boolean gzip = false;
+
+    /** ファイルのダウンロードをS3を模したURLへリダイレクトするか否か */
+    private boolean redirectToS3 = false;
+
+    /** リクエスト処理スレッド数 */
+    private int threads = DEFAULT_THREADS;
+
+    /**
+     * レスポンスを返すまでの遅延を設定する。
+     *
+     * 全てのリクエストで、レスポンスヘッダを返す前にこの時間待機します。
+     *
+     * @param latency 遅延 (ms)
+     * @return このオプション
+     * @throws IllegalArgumentException latencyが0未満の場合
+     */
+    public StubServerOptions latency(long latency) {
+        requireGreaterOrEqualOrNull(latency, 0L, "at latency in StubServerOptions#latency");
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * 1接続あたりの転送速度を設定する。
+     *
+     * リクエストボディの受信、レスポンスボディの送信それぞれをこの速度に制限します。
+     *
+     * @param bandwidth 転送速度 (byte/s)、0の場合は制限しない
+     * @return このオプション
+     * @throws IllegalArgumentException bandwidthが0未満の場合
+     */
+    public StubServerOptions bandwidth(long bandwidth) {
+        requireGreaterOrEqualOrNull(bandwidth, 0L, "at bandwidth in StubServerOptions#bandwidth");
+        this.bandwidth = bandwidth;
+        return this;
+    }
+
+    /**
+     * レスポンスをgzipで圧縮するかを設定する。
+     *
+     * 有効な場合、Accept-Encodingにgzipを含むリクエストに対し、Range指定のないレスポンスを圧縮して返します。
+     *
+     * @param gzip 圧縮する場合true
+     * @return このオプション
+     */
+    public StubServerOptions gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    /**
+     * ファイルのダウンロードを、S3を模したURLへリダイレクトするかを設定する。
+     *
+     * 有効な場合、全てのファイルのダウンロードに302を返します。
+     * 無効な場合も、ローカルに保存しない(saveLocal=false)データセットのファイルはリダイレクトされます。
+     *
+     * @param redirectToS3 リダイレクトする場合true
+     * @return このオプション
+     */
+    public StubServerOptions redirectToS3(boolean redirectToS3) {
+        this.redirectToS3 = redirectToS3;
+        return this;
+    }
+
+    /**
+     * リクエスト処理スレッド数を設定する。
+     *
+     * 同時に処理できるリクエスト数の上限となります。
+     *
+     * @param threads スレッド数
+     * @return このオプション
+     * @throws IllegalArgumentException threadsが1未満の場合
+     */
+    public StubServerOptions threads(int threads) {
+        requireGreaterOrEqualOrNull(threads, 1, "at threads in StubServerOptions#threads");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * レスポンスを返すまでの遅延を取得する。
+     *
+     * @return 遅延 (ms)
+     */
+    public long getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * 1接続あたりの転送速度を取得する。
+     *
+     * @return 転送速度 (byte/s)、制限しない場合0
+     */
+    public long getBandwidth() {
+        return this.bandwidth;
+    }
+
+    /**
+     * レスポンスをgzipで圧縮するかを取得する。
+     *
+     * @return 圧縮する場合true
+     */
+    public boolean isGzip() {
+        return this.gzip;
+    }
+
+    /**
+     * ファイルのダウンロードをリダイレクトするかを取得する。
+     *
+     * @return リダイレクトする場合true
+     */
+    public boolean isRedirectToS3() {
+        return this.redirectToS3;
+    }
+
+    /**
+     * リクエスト処理スレッド数を取得する。
+     *
+     * @return スレッド数
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StubServerOptions(latency=%d, bandwidth=%d, gzip=%b, redirectToS3=%b, threads=%d)",
+                this.latency, this.bandwidth, this.gzip, this.redirectToS3, this.threads);
+    }
+}